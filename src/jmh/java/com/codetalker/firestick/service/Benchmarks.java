@@ -0,0 +1,38 @@
+package com.codetalker.firestick.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.codetalker.firestick.model.CodeChunk;
+import com.codetalker.firestick.model.CodeFile;
+
+/** Services wired the way the application wires them, minus Spring, for benchmark setup. */
+final class Benchmarks {
+
+    private Benchmarks() {}
+
+    static SourceFileReader reader() {
+        return new SourceFileReader(1 << 20, 1 << 18, true, "windows-1252");
+    }
+
+    static CodeParserService parser() {
+        return new CodeParserService(new CodeChunkingService(), reader(), "JAVA_21", 0);
+    }
+
+    /** Chunk texts of a corpus, as the indexing pipeline would produce them. */
+    static List<String> chunkTexts(List<SyntheticCorpus.Source> sources) {
+        CodeParserService parser = parser();
+        CodeChunkingService chunker = new CodeChunkingService();
+        List<String> texts = new ArrayList<>();
+        for (SyntheticCorpus.Source source : sources) {
+            CodeFile file = new CodeFile(source.path(), Instant.EPOCH, "");
+            parser.parseJavaCode(source.text()).ifPresent(cu -> {
+                for (CodeChunk chunk : chunker.extractChunks(file, cu, source.text())) {
+                    texts.add(chunk.getContent());
+                }
+            });
+        }
+        return texts;
+    }
+}
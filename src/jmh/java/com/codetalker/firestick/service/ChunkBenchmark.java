@@ -0,0 +1,60 @@
+package com.codetalker.firestick.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.codetalker.firestick.model.CodeFile;
+import com.github.javaparser.ast.CompilationUnit;
+
+/**
+ * {@link CodeChunkingService#extractChunks} over a pre-parsed corpus, so only chunking is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChunkBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int loc;
+
+    private final List<CompilationUnit> units = new ArrayList<>();
+    private final List<String> texts = new ArrayList<>();
+    private final List<CodeFile> files = new ArrayList<>();
+    private CodeChunkingService chunker;
+
+    @Setup
+    public void setup() {
+        CodeParserService parser = Benchmarks.parser();
+        for (SyntheticCorpus.Source source : SyntheticCorpus.generate(loc)) {
+            units.add(parser.parseJavaCode(source.text()).orElseThrow());
+            texts.add(source.text());
+            files.add(new CodeFile(source.path(), Instant.EPOCH, ""));
+        }
+        chunker = new CodeChunkingService();
+    }
+
+    @Benchmark
+    public void extractChunks(Blackhole blackhole) {
+        for (int i = 0; i < units.size(); i++) {
+            blackhole.consume(chunker.extractChunks(files.get(i), units.get(i), texts.get(i)));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.codetalker.firestick.service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * {@link EmbeddingService#getEmbedding} per chunk text, with the cache off so every call runs the model.
+ * <p>
+ * The {@code onnx} mode uses the real model when {@code -Dbench.model-path} and
+ * {@code -Dbench.tokenizer-path} are passed to the forked JVM (JMH {@code -jvmArgsAppend}); otherwise it
+ * runs a tiny generated model, which measures tokenization and runtime overhead rather than inference.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmbeddingBenchmark {
+
+    @Param({"mock", "onnx"})
+    public String mode;
+
+    private EmbeddingService embeddingService;
+    private List<String> texts;
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        String modelPath = System.getProperty("bench.model-path", "");
+        String tokenizerPath = System.getProperty("bench.tokenizer-path", "");
+        int dimension = 384;
+        if ("onnx".equals(mode) && modelPath.isBlank()) {
+            Path dir = Files.createTempDirectory("bench-onnx");
+            Path model = dir.resolve("model.onnx");
+            Path tokenizer = dir.resolve("tokenizer.json");
+            TinyOnnxModel.write(model, tokenizer, 8);
+            modelPath = model.toString();
+            tokenizerPath = tokenizer.toString();
+            dimension = 8;
+        }
+        embeddingService = new EmbeddingService(new SimpleMeterRegistry(), mode, dimension, modelPath, tokenizerPath,
+                256, 32, 0, 0, 0, false, 0, "", 0);
+        texts = Benchmarks.chunkTexts(SyntheticCorpus.generate(10_000));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        embeddingService.close();
+    }
+
+    @Benchmark
+    public float[] getEmbedding() {
+        String text = texts.get(next);
+        next = (next + 1) % texts.size();
+        return embeddingService.getEmbedding(text);
+    }
+}
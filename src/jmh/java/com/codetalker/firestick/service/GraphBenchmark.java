@@ -0,0 +1,73 @@
+package com.codetalker.firestick.service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.codetalker.firestick.service.dto.DependencyEdge;
+import com.codetalker.firestick.service.dto.ImpactedNode;
+
+/**
+ * Dependency-graph queries over a synthetic corpus: direct and transitive lookups and impact analysis.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int loc;
+
+    private DependencyGraphService graph;
+    private List<String> classes;
+    private int next;
+
+    @Setup
+    public void setup() {
+        CodeParserService parser = Benchmarks.parser();
+        graph = new DependencyGraphService(new FileDiscoveryService("*.java", "", false), parser,
+                Benchmarks.reader(), "", 0);
+        List<SyntheticCorpus.Source> sources = SyntheticCorpus.generate(loc);
+        for (SyntheticCorpus.Source source : sources) {
+            graph.updateFile(source.path(), parser.parseStructure(source.text()).orElseThrow());
+        }
+        // Early classes are depended on the most; query across the whole range.
+        classes = sources.stream().map(SyntheticCorpus.Source::className).toList();
+    }
+
+    private String nextClass() {
+        String name = classes.get(next);
+        next = (next + 7) % classes.size();
+        return name;
+    }
+
+    @Benchmark
+    public List<DependencyEdge> directDependencies() {
+        return graph.directDependencies(nextClass());
+    }
+
+    @Benchmark
+    public Set<String> transitiveDependents() {
+        return graph.transitiveDependents(nextClass() + "#process0");
+    }
+
+    @Benchmark
+    public List<ImpactedNode> impactOf() {
+        return graph.impactOf(List.of(nextClass()), 3);
+    }
+}
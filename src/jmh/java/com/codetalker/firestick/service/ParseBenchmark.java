@@ -0,0 +1,53 @@
+package com.codetalker.firestick.service;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * {@link CodeParserService#parseJavaCode} over a whole synthetic corpus, on one thread and on all cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int loc;
+
+    private List<String> sources;
+    private CodeParserService parser;
+
+    @Setup
+    public void setup() {
+        sources = SyntheticCorpus.generate(loc).stream().map(SyntheticCorpus.Source::text).toList();
+        parser = Benchmarks.parser();
+    }
+
+    @Benchmark
+    public void parseCorpus(Blackhole blackhole) {
+        for (String source : sources) {
+            blackhole.consume(parser.parseJavaCode(source));
+        }
+    }
+
+    @Benchmark
+    public void parseCorpusParallel(Blackhole blackhole) {
+        sources.parallelStream().map(parser::parseJavaCode).forEach(blackhole::consume);
+    }
+}
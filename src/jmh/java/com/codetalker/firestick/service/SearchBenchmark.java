@@ -0,0 +1,101 @@
+package com.codetalker.firestick.service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Lucene keyword side: {@link CodeSearchService#indexCode(Map)} of a corpus's chunks into an empty
+ * in-memory index, and {@link CodeSearchService#searchCode} against a populated one.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    private static final List<String> QUERIES = List.of(
+            "process0", "items", "label", "counter", "Component42", "total AND limit", "value3", "checksum");
+
+    @State(Scope.Benchmark)
+    public static class Corpus {
+        @Param({"1000", "10000", "100000", "1000000"})
+        public int loc;
+
+        Map<String, String> snippets;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            List<String> texts = Benchmarks.chunkTexts(SyntheticCorpus.generate(loc));
+            snippets = new LinkedHashMap<>();
+            for (int i = 0; i < texts.size(); i++) {
+                snippets.put(String.valueOf(i), texts.get(i));
+            }
+        }
+    }
+
+    /** A fresh index for every indexing invocation. */
+    @State(Scope.Thread)
+    public static class EmptyIndex {
+        CodeSearchService search;
+
+        @Setup(Level.Invocation)
+        public void open() throws Exception {
+            search = new CodeSearchService(new SimpleMeterRegistry(), "", 64, 0, 0);
+        }
+
+        @TearDown(Level.Invocation)
+        public void close() throws Exception {
+            search.close();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class PopulatedIndex {
+        CodeSearchService search;
+        int next;
+
+        @Setup(Level.Trial)
+        public void open(Corpus corpus) throws Exception {
+            search = new CodeSearchService(new SimpleMeterRegistry(), "", 64, 0, 0);
+            search.indexCode(corpus.snippets);
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws Exception {
+            search.close();
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public CodeSearchService indexCode(Corpus corpus, EmptyIndex index) throws Exception {
+        index.search.indexCode(corpus.snippets);
+        return index.search;
+    }
+
+    @Benchmark
+    public List<String> searchCode(PopulatedIndex index) throws Exception {
+        String query = QUERIES.get(index.next);
+        index.next = (index.next + 1) % QUERIES.size();
+        return index.search.searchCode(query, 10);
+    }
+}
@@ -0,0 +1,153 @@
+package com.codetalker.firestick.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic synthetic Java corpus for benchmarks.
+ * <p>
+ * The same {@code (targetLoc, seed)} always yields byte-identical sources, so results from different runs
+ * compare like for like. Classes are spread over packages of 20, carry Javadoc, fields, a constructor and
+ * a mix of short and long methods, and call methods of earlier classes so the dependency graph has
+ * realistic fan-in and fan-out.
+ * <p>
+ * Run {@code main} to write a corpus to disk for indexing runs: {@code SyntheticCorpus <dir> [loc] [seed]}.
+ */
+public final class SyntheticCorpus {
+
+    public static final long DEFAULT_SEED = 42;
+    private static final int CLASSES_PER_PACKAGE = 20;
+
+    /** One generated file: path relative to the corpus root, fully qualified class name and source. */
+    public record Source(String path, String className, String text) {
+        public int lines() {
+            return (int) text.chars().filter(c -> c == '\n').count();
+        }
+    }
+
+    private SyntheticCorpus() {}
+
+    public static List<Source> generate(int targetLoc) {
+        return generate(targetLoc, DEFAULT_SEED);
+    }
+
+    /** Generate classes until the corpus reaches at least {@code targetLoc} lines. */
+    public static List<Source> generate(int targetLoc, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Source> sources = new ArrayList<>();
+        List<String> classNames = new ArrayList<>();
+        long lines = 0;
+        while (lines < targetLoc) {
+            int index = sources.size();
+            String pkg = "synth.p" + index / CLASSES_PER_PACKAGE;
+            String simpleName = "Component" + index;
+            Source source = new Source(pkg.replace('.', '/') + "/" + simpleName + ".java", pkg + "." + simpleName,
+                    generateClass(random, pkg, simpleName, classNames));
+            sources.add(source);
+            classNames.add(source.className());
+            lines += source.lines();
+        }
+        return sources;
+    }
+
+    private static String generateClass(SplittableRandom random, String pkg, String name, List<String> earlier) {
+        StringBuilder out = new StringBuilder(4096);
+        out.append("package ").append(pkg).append(";\n\n");
+        List<String> collaborators = new ArrayList<>();
+        int collaboratorCount = earlier.isEmpty() ? 0 : 1 + random.nextInt(Math.min(4, earlier.size()));
+        for (int i = 0; i < collaboratorCount; i++) {
+            // Skew towards recent classes, with an occasional reference far back.
+            int back = random.nextInt(10) == 0 ? random.nextInt(earlier.size()) : random.nextInt(Math.min(30, earlier.size()));
+            String collaborator = earlier.get(earlier.size() - 1 - back);
+            if (!collaborators.contains(collaborator)) {
+                collaborators.add(collaborator);
+            }
+        }
+        for (String collaborator : collaborators) {
+            out.append("import ").append(collaborator).append(";\n");
+        }
+        out.append("import java.util.ArrayList;\nimport java.util.List;\n\n");
+        out.append("/**\n * Synthetic component ").append(name).append(" with ").append(collaborators.size())
+                .append(" collaborators.\n */\n");
+        out.append("public class ").append(name).append(" {\n\n");
+        out.append("    private final List<String> items = new ArrayList<>();\n");
+        out.append("    private int counter;\n");
+        for (int i = 0; i < collaborators.size(); i++) {
+            out.append("    private final ").append(simple(collaborators.get(i))).append(" dep").append(i).append(";\n");
+        }
+        out.append("\n    public ").append(name).append("(");
+        for (int i = 0; i < collaborators.size(); i++) {
+            out.append(i > 0 ? ", " : "").append(simple(collaborators.get(i))).append(" dep").append(i);
+        }
+        out.append(") {\n");
+        for (int i = 0; i < collaborators.size(); i++) {
+            out.append("        this.dep").append(i).append(" = dep").append(i).append(";\n");
+        }
+        out.append("    }\n");
+        int methods = 3 + random.nextInt(6);
+        for (int m = 0; m < methods; m++) {
+            appendMethod(out, random, m, collaborators.size());
+        }
+        out.append("}\n");
+        return out.toString();
+    }
+
+    private static void appendMethod(StringBuilder out, SplittableRandom random, int m, int collaborators) {
+        out.append("\n    /** Processes batch ").append(m).append(" and returns a checksum. */\n");
+        out.append("    public int process").append(m).append("(int limit, String label) {\n");
+        out.append("        int total = counter;\n");
+        int statements = 2 + random.nextInt(random.nextInt(8) == 0 ? 40 : 10);
+        for (int s = 0; s < statements; s++) {
+            switch (random.nextInt(4)) {
+                case 0 -> out.append("        for (int i = 0; i < limit; i++) {\n")
+                        .append("            total += i * ").append(1 + random.nextInt(97)).append(";\n")
+                        .append("        }\n");
+                case 1 -> out.append("        if (label != null && label.length() > ").append(random.nextInt(16)).append(") {\n")
+                        .append("            items.add(label + \"-").append(s).append("\");\n")
+                        .append("        } else {\n")
+                        .append("            total -= ").append(random.nextInt(1000)).append(";\n")
+                        .append("        }\n");
+                case 2 -> {
+                    if (collaborators > 0) {
+                        out.append("        total += dep").append(random.nextInt(collaborators))
+                                .append(".process0(limit / 2, label);\n");
+                    } else {
+                        out.append("        total ^= items.size();\n");
+                    }
+                }
+                default -> out.append("        String value").append(s).append(" = String.valueOf(total);\n")
+                        .append("        counter += value").append(s).append(".length();\n");
+            }
+        }
+        out.append("        return total;\n");
+        out.append("    }\n");
+    }
+
+    private static String simple(String qualified) {
+        return qualified.substring(qualified.lastIndexOf('.') + 1);
+    }
+
+    /** Write a corpus to disk: {@code <dir> [loc] [seed]}. */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("usage: SyntheticCorpus <dir> [loc=100000] [seed=" + DEFAULT_SEED + "]");
+            System.exit(2);
+        }
+        Path root = Path.of(args[0]);
+        int loc = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_SEED;
+        List<Source> sources = generate(loc, seed);
+        long lines = 0;
+        for (Source source : sources) {
+            Path file = root.resolve(source.path());
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, source.text());
+            lines += source.lines();
+        }
+        System.out.printf("Wrote %d files, %d lines to %s%n", sources.size(), lines, root);
+    }
+}
@@ -0,0 +1,70 @@
+package com.codetalker.firestick.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.codetalker.firestick.service.ChunkContentStore;
+
+/**
+ * Moves chunk text out of the database into the {@link ChunkContentStore}.
+ * <p>
+ * Databases created before the content store kept chunk text in a LOB column {@code code_chunks.content}.
+ * On startup that text is copied into the store page by page, the rows get their address and digest, and
+ * the column is dropped. Runs after the schema update has added the new columns, which the
+ * {@link EntityManagerFactory} dependency guarantees.
+ */
+@Component
+public class ChunkContentMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(ChunkContentMigration.class);
+
+    private static final int PAGE_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ChunkContentStore chunkContentStore;
+
+    public ChunkContentMigration(JdbcTemplate jdbcTemplate, ChunkContentStore chunkContentStore,
+                                 EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.chunkContentStore = chunkContentStore;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        Integer legacy = jdbcTemplate.queryForObject("select count(*) from information_schema.columns "
+                + "where lower(table_name) = 'code_chunks' and lower(column_name) = 'content'", Integer.class);
+        if (legacy == null || legacy == 0) {
+            return;
+        }
+        long moved = 0;
+        while (true) {
+            List<Long> ids = new ArrayList<>();
+            List<String> texts = new ArrayList<>();
+            jdbcTemplate.query("select id, content from code_chunks where content_ref is null and content is not null "
+                    + "order by id fetch first " + PAGE_SIZE + " rows only", rs -> {
+                ids.add(rs.getLong(1));
+                texts.add(rs.getString(2));
+            });
+            if (ids.isEmpty()) {
+                break;
+            }
+            List<ChunkContentStore.Stored> stored = chunkContentStore.putAll(texts);
+            List<Object[]> updates = new ArrayList<>(ids.size());
+            for (int i = 0; i < ids.size(); i++) {
+                updates.add(new Object[] {stored.get(i).ref(), stored.get(i).hash(), ids.get(i)});
+            }
+            jdbcTemplate.batchUpdate("update code_chunks set content_ref = ?, content_hash = ? where id = ?", updates);
+            moved += ids.size();
+        }
+        jdbcTemplate.execute("alter table code_chunks drop column content");
+        log.info("Moved {} chunk texts from the database into the chunk store", moved);
+    }
+}
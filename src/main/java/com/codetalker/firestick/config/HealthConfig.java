@@ -0,0 +1,48 @@
+package com.codetalker.firestick.config;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.codetalker.firestick.service.CodeSearchService;
+import com.codetalker.firestick.service.EmbeddingService;
+import com.codetalker.firestick.service.HybridSearchService;
+import com.codetalker.firestick.service.VectorStore;
+
+/**
+ * Component health for {@code /actuator/health} and {@code /api/health}: the keyword index is open, the
+ * embedding model is loaded and the vector store answers. Any of them down takes overall status down.
+ * The vector store also reports the search circuit breaker's state; an open circuit degrades search to
+ * keyword-only but does not take the store down.
+ */
+@Configuration
+public class HealthConfig {
+
+    @Bean
+    public HealthIndicator searchIndexHealthIndicator(CodeSearchService codeSearchService) {
+        return () -> (codeSearchService.isOpen() ? Health.up() : Health.down().withDetail("reason", "index writer closed"))
+                .build();
+    }
+
+    @Bean
+    public HealthIndicator embeddingModelHealthIndicator(EmbeddingService embeddingService) {
+        return () -> {
+            Health.Builder health = embeddingService.isModelLoaded() ? Health.up() : Health.down();
+            health.withDetail("mode", embeddingService.getMode().name().toLowerCase())
+                    .withDetail("dimension", embeddingService.getDimension());
+            if (embeddingService.getMode() == EmbeddingService.Mode.ONNX) {
+                health.withDetail("model", embeddingService.getModelPath());
+            }
+            return health.build();
+        };
+    }
+
+    @Bean
+    public HealthIndicator vectorStoreHealthIndicator(VectorStore vectorStore, HybridSearchService hybridSearchService) {
+        return () -> (vectorStore.isAvailable() ? Health.up() : Health.down())
+                .withDetail("store", vectorStore.getClass().getSimpleName())
+                .withDetail("searchCircuit", hybridSearchService.getVectorCircuitState().toLowerCase())
+                .build();
+    }
+}
@@ -0,0 +1,50 @@
+package com.codetalker.firestick.config;
+
+import java.util.Map;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.codetalker.firestick.model.IdSequences;
+
+/**
+ * Moves each id sequence past the ids already in its table.
+ * <p>
+ * Databases created while the tables used IDENTITY columns get their sequences from the schema update
+ * starting at 1, below rows that already exist. Restarting a sequence one allocation block past the
+ * table's highest id keeps new ids clear of old rows. Runs once the schema update has finished, which the
+ * {@link EntityManagerFactory} dependency guarantees.
+ */
+@Component
+public class IdSequenceInitializer {
+
+    private static final Logger log = LoggerFactory.getLogger(IdSequenceInitializer.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdSequenceInitializer(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void alignSequences() {
+        for (Map.Entry<String, String> entry : IdSequences.BY_TABLE.entrySet()) {
+            String table = entry.getKey();
+            String sequence = entry.getValue();
+            Long maxId = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from " + table, Long.class);
+            Long next = jdbcTemplate.queryForObject(
+                    "select base_value from information_schema.sequences where lower(sequence_name) = ?",
+                    Long.class, sequence);
+            if (maxId != null && maxId > 0 && next != null && next <= maxId + IdSequences.ALLOCATION_SIZE) {
+                long restart = maxId + IdSequences.ALLOCATION_SIZE + 1;
+                jdbcTemplate.execute("alter sequence " + sequence + " restart with " + restart);
+                log.info("Restarted {} at {} past existing ids in {}", sequence, restart, table);
+            }
+        }
+    }
+}
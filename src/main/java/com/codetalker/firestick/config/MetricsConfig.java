@@ -0,0 +1,142 @@
+package com.codetalker.firestick.config;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.codetalker.firestick.service.ChunkContentStore;
+import com.codetalker.firestick.service.CodeParserService;
+import com.codetalker.firestick.service.EmbeddingService;
+import com.codetalker.firestick.service.FileWatchService;
+import com.codetalker.firestick.service.HybridSearchService;
+import com.codetalker.firestick.service.dto.QueryCacheStats;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Publishes the counters services already keep ({@code stats()}, {@code status()}) as meters, read when
+ * the registry is scraped. Latencies measured inline are registered by the services themselves.
+ */
+@Configuration
+public class MetricsConfig {
+
+    // Meters sharing a name must share a description for the Prometheus exposition.
+    private static final String QUERY_CACHE_LOOKUPS = "Query cache lookups by outcome";
+    private static final String WATCH_LAG =
+            "Watch-mode freshness lag: age of the oldest unindexed change (current), last and worst batch";
+
+    @Bean
+    public MeterBinder parserMetrics(CodeParserService parser) {
+        return registry -> {
+            FunctionTimer.builder("firestick.parse", parser,
+                            p -> p.stats().parsed() + p.stats().failed(),
+                            p -> p.stats().parseNanos(), TimeUnit.NANOSECONDS)
+                    .description("Java sources parsed and time spent in the parser")
+                    .register(registry);
+            FunctionCounter.builder("firestick.parse.failures", parser, p -> p.stats().failed())
+                    .description("Sources that did not parse")
+                    .register(registry);
+            FunctionCounter.builder("firestick.parse.chars", parser, p -> p.stats().chars())
+                    .description("Characters of source parsed")
+                    .register(registry);
+            Gauge.builder("firestick.parse.failure.ratio", parser, p -> p.stats().failureRatio())
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder chunkStoreMetrics(ChunkContentStore store) {
+        return registry -> {
+            Gauge.builder("firestick.chunkstore.entries", store, s -> s.stats().entries())
+                    .description("Distinct chunk texts stored")
+                    .register(registry);
+            Gauge.builder("firestick.chunkstore.bytes", store, s -> s.stats().rawBytes())
+                    .tag("kind", "raw").baseUnit("bytes").register(registry);
+            Gauge.builder("firestick.chunkstore.bytes", store, s -> s.stats().storedBytes())
+                    .tag("kind", "stored").baseUnit("bytes").register(registry);
+            Gauge.builder("firestick.chunkstore.bytes", store, s -> s.stats().fileBytes())
+                    .tag("kind", "file").baseUnit("bytes").register(registry);
+            Gauge.builder("firestick.chunkstore.compression.ratio", store, s -> s.stats().compressionRatio())
+                    .register(registry);
+            FunctionCounter.builder("firestick.chunkstore.dedup.hits", store, s -> s.stats().dedupHits())
+                    .description("Chunk texts that shared an entry already stored")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder embeddingCacheMetrics(EmbeddingService embeddingService) {
+        return registry -> {
+            FunctionCounter.builder("firestick.embedding.cache.lookups", embeddingService,
+                            e -> e.getCacheStats().memoryHits())
+                    .tag("result", "memory-hit").register(registry);
+            FunctionCounter.builder("firestick.embedding.cache.lookups", embeddingService,
+                            e -> e.getCacheStats().diskHits())
+                    .tag("result", "disk-hit").register(registry);
+            FunctionCounter.builder("firestick.embedding.cache.lookups", embeddingService,
+                            e -> e.getCacheStats().misses())
+                    .tag("result", "miss").register(registry);
+            FunctionCounter.builder("firestick.embedding.cache.evictions", embeddingService,
+                            e -> e.getCacheStats().evictions())
+                    .register(registry);
+            Gauge.builder("firestick.embedding.cache.hit.ratio", embeddingService,
+                            e -> e.getCacheStats().hitRatio())
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder queryCacheMetrics(HybridSearchService searchService, EmbeddingService embeddingService) {
+        return registry -> {
+            bindQueryCache(registry, "search-results", searchService, HybridSearchService::getCacheStats);
+            bindQueryCache(registry, "query-embeddings", embeddingService, EmbeddingService::getQueryCacheStats);
+        };
+    }
+
+    private static <T> void bindQueryCache(MeterRegistry registry, String cache, T owner,
+                                           Function<T, QueryCacheStats> stats) {
+        FunctionCounter.builder("firestick.query.cache.lookups", owner, o -> stats.apply(o).hits())
+                .description(QUERY_CACHE_LOOKUPS)
+                .tags("cache", cache, "result", "hit").register(registry);
+        FunctionCounter.builder("firestick.query.cache.lookups", owner, o -> stats.apply(o).misses())
+                .description(QUERY_CACHE_LOOKUPS)
+                .tags("cache", cache, "result", "miss").register(registry);
+        FunctionCounter.builder("firestick.query.cache.invalidations", owner, o -> stats.apply(o).invalidations())
+                .description("Entries dropped because the index changed since they were stored")
+                .tag("cache", cache).register(registry);
+        FunctionCounter.builder("firestick.query.cache.evictions", owner, o -> stats.apply(o).evictions())
+                .tag("cache", cache).register(registry);
+        Gauge.builder("firestick.query.cache.entries", owner, o -> stats.apply(o).entries())
+                .tag("cache", cache).register(registry);
+        Gauge.builder("firestick.query.cache.hit.ratio", owner, o -> stats.apply(o).hitRatio())
+                .tag("cache", cache).register(registry);
+    }
+
+    @Bean
+    public MeterBinder watchMetrics(FileWatchService watch) {
+        return registry -> {
+            TimeGauge.builder("firestick.watch.lag", watch, TimeUnit.MILLISECONDS,
+                            w -> w.status().currentLagMillis())
+                    .description(WATCH_LAG)
+                    .tag("kind", "current").register(registry);
+            TimeGauge.builder("firestick.watch.lag", watch, TimeUnit.MILLISECONDS,
+                            w -> w.status().lastLagMillis())
+                    .description(WATCH_LAG)
+                    .tag("kind", "last").register(registry);
+            TimeGauge.builder("firestick.watch.lag", watch, TimeUnit.MILLISECONDS,
+                            w -> w.status().maxLagMillis())
+                    .description(WATCH_LAG)
+                    .tag("kind", "max").register(registry);
+            Gauge.builder("firestick.watch.pending.files", watch, w -> w.status().pendingFiles())
+                    .description("Changed paths waiting for the next batch")
+                    .register(registry);
+        };
+    }
+}
@@ -1,14 +1,55 @@
 package com.codetalker.firestick.config;
 
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 @Configuration
 public class RestTemplateConfig {
+
+    /**
+     * Keep-alive connection pool shared by all RestTemplate calls, so concurrent Chroma batches
+     * reuse connections instead of opening one per request. A caller waits at most
+     * {@code http.client.pool-wait-ms} for a free connection rather than queueing behind a slow peer.
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient httpClient(
+            @Value("${http.client.max-connections:32}") int maxConnections,
+            @Value("${http.client.max-connections-per-route:16}") int maxPerRoute,
+            @Value("${http.client.connect-timeout-ms:2000}") long connectTimeoutMillis,
+            @Value("${http.client.read-timeout-ms:30000}") long readTimeoutMillis,
+            @Value("${http.client.pool-wait-ms:2000}") long poolWaitMillis
+    ) {
+        ConnectionConfig connectionConfig = ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMillis))
+                .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMillis))
+                .setValidateAfterInactivity(TimeValue.ofSeconds(10))
+                .build();
+        return HttpClients.custom()
+                .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                        .setMaxConnTotal(maxConnections)
+                        .setMaxConnPerRoute(maxPerRoute)
+                        .setDefaultConnectionConfig(connectionConfig)
+                        .build())
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolWaitMillis))
+                        .build())
+                .evictIdleConnections(TimeValue.ofSeconds(30))
+                .build();
+    }
+
     @Bean
-    public RestTemplate restTemplate(RestTemplateBuilder builder) {
-        return builder.build();
+    public RestTemplate restTemplate(RestTemplateBuilder builder, CloseableHttpClient httpClient) {
+        return builder.requestFactory(() -> new HttpComponentsClientHttpRequestFactory(httpClient)).build();
     }
 }
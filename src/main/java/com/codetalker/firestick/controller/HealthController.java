@@ -1,32 +1,48 @@
 package com.codetalker.firestick.controller;
 
+import org.springframework.boot.actuate.health.CompositeHealth;
+import org.springframework.boot.actuate.health.HealthComponent;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+import com.codetalker.firestick.service.FileWatchService;
+
 /**
  * REST controller for health check and basic information.
+ * <p>
+ * Status is the aggregate of the actuator health indicators (keyword index, embedding model, vector
+ * store, database, disk); the response is 503 when it is not UP. Metrics are served by
+ * {@code /actuator/metrics} and, for scraping, {@code /actuator/prometheus}.
  */
 @RestController
 @RequestMapping("/api")
 public class HealthController {
 
+    private final HealthEndpoint healthEndpoint;
+    private final FileWatchService fileWatchService;
+
+    public HealthController(HealthEndpoint healthEndpoint, FileWatchService fileWatchService) {
+        this.healthEndpoint = healthEndpoint;
+        this.fileWatchService = fileWatchService;
+    }
+
     @GetMapping("/health")
-    public Map<String, Object> health() {
-        Map<String, Object> response = new HashMap<>();
-        response.put("status", "UP");
+    public ResponseEntity<Map<String, Object>> health() {
+        HealthComponent health = healthEndpoint.health();
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", health.getStatus().getCode());
         response.put("service", "firestick");
-        response.put("features", new String[]{
-            "JavaParser - Code parsing & AST analysis",
-            "JGraphT - Dependency graph analysis",
-            "Apache Lucene - Code search",
-            "H2 Database - Embedded SQL",
-            "ONNX Runtime - Embeddings",
-            "DJL - Deep Java Library"
-        });
-        return response;
+        if (health instanceof CompositeHealth composite) {
+            response.put("components", composite.getComponents());
+        }
+        response.put("watch", fileWatchService.status());
+        boolean up = "UP".equals(health.getStatus().getCode());
+        return up ? ResponseEntity.ok(response) : ResponseEntity.status(503).body(response);
     }
 }
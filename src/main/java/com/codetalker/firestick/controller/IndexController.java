@@ -0,0 +1,108 @@
+package com.codetalker.firestick.controller;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.List;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.codetalker.firestick.service.IndexingJobService;
+import com.codetalker.firestick.service.dto.IndexTriggerRequest;
+import com.codetalker.firestick.service.dto.IndexingJobStatus;
+
+/**
+ * REST controller for indexing jobs: trigger, inspect, follow and cancel.
+ * <p>
+ * Triggering only admits the job and answers 202; the work runs off the request thread. Progress can be
+ * polled from {@code /status/{jobId}} or followed as server-sent events from {@code /status/{jobId}/stream}:
+ * a {@code progress} event per interval and a final {@code done} event, after which the stream closes.
+ */
+@RestController
+@RequestMapping("/api/index")
+public class IndexController {
+
+    private final IndexingJobService indexingJobService;
+
+    public IndexController(IndexingJobService indexingJobService) {
+        this.indexingJobService = indexingJobService;
+    }
+
+    @PostMapping("/trigger")
+    public ResponseEntity<IndexingJobStatus> trigger(@RequestBody IndexTriggerRequest request) {
+        if (request == null || request.path() == null || request.path().isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "path must not be blank");
+        }
+        IndexingJobStatus job;
+        try {
+            job = indexingJobService.submit(request.path(), request.mode());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (IndexingJobService.JobRejectedException e) {
+            HttpStatus status = e.getReason() == IndexingJobService.JobRejectedException.Reason.QUEUE_FULL
+                    ? HttpStatus.TOO_MANY_REQUESTS
+                    : HttpStatus.CONFLICT;
+            throw new ResponseStatusException(status, e.getMessage());
+        }
+        return ResponseEntity.accepted().location(URI.create("/api/index/status/" + job.jobId())).body(job);
+    }
+
+    @GetMapping("/status")
+    public List<IndexingJobStatus> jobs() {
+        return indexingJobService.jobs();
+    }
+
+    @GetMapping("/status/{jobId}")
+    public IndexingJobStatus status(@PathVariable String jobId) {
+        return indexingJobService.status(jobId).orElseThrow(() -> notFound(jobId));
+    }
+
+    @GetMapping(path = "/status/{jobId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@PathVariable String jobId) {
+        // No async timeout: the stream ends by itself with the job's final event.
+        SseEmitter emitter = new SseEmitter(0L);
+        AutoCloseable subscription = indexingJobService.subscribe(jobId, status -> {
+            try {
+                emitter.send(SseEmitter.event()
+                        .name(status.isFinished() ? "done" : "progress")
+                        .data(status, MediaType.APPLICATION_JSON));
+                if (status.isFinished()) {
+                    emitter.complete();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).orElseThrow(() -> notFound(jobId));
+        Runnable unsubscribe = () -> {
+            try {
+                subscription.close();
+            } catch (Exception ignored) {
+                // Interrupting the publisher cannot fail.
+            }
+        };
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(e -> unsubscribe.run());
+        return emitter;
+    }
+
+    @DeleteMapping("/cancel/{jobId}")
+    public IndexingJobStatus cancel(@PathVariable String jobId) {
+        return indexingJobService.cancel(jobId).orElseThrow(() -> notFound(jobId));
+    }
+
+    private static ResponseStatusException notFound(String jobId) {
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, "No indexing job " + jobId);
+    }
+}
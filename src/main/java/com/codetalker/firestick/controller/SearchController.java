@@ -0,0 +1,76 @@
+package com.codetalker.firestick.controller;
+
+import java.util.List;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.codetalker.firestick.service.HybridSearchService;
+import com.codetalker.firestick.service.SymbolIndexService;
+import com.codetalker.firestick.service.dto.SearchRequest;
+import com.codetalker.firestick.service.dto.SearchResponse;
+import com.codetalker.firestick.service.dto.SymbolHit;
+
+/**
+ * REST controller for hybrid keyword + semantic code search, cursor-paged keyword search and symbol
+ * autocomplete. Both searches accept filters, facet dimensions and a time limit.
+ */
+@RestController
+@RequestMapping("/api/search")
+public class SearchController {
+
+    private static final int MAX_AUTOCOMPLETE = 100;
+
+    private final HybridSearchService hybridSearchService;
+    private final SymbolIndexService symbolIndexService;
+
+    public SearchController(HybridSearchService hybridSearchService, SymbolIndexService symbolIndexService) {
+        this.hybridSearchService = hybridSearchService;
+        this.symbolIndexService = symbolIndexService;
+    }
+
+    @PostMapping
+    public SearchResponse search(@RequestBody SearchRequest request) {
+        validate(request);
+        try {
+            return hybridSearchService.search(request);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * Keyword-only search for paging through large result sets: pass each response's {@code nextCursor}
+     * as the next request's {@code cursor}.
+     */
+    @PostMapping("/keyword")
+    public SearchResponse keyword(@RequestBody SearchRequest request) {
+        validate(request);
+        try {
+            return hybridSearchService.keywordSearch(request);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    private static void validate(SearchRequest request) {
+        if (request == null || request.query() == null || request.query().isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "query must not be blank");
+        }
+    }
+
+    @GetMapping("/autocomplete")
+    public List<SymbolHit> autocomplete(@RequestParam("q") String query,
+                                        @RequestParam(name = "limit", defaultValue = "20") int limit) {
+        if (query.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "q must not be blank");
+        }
+        return symbolIndexService.autocomplete(query, Math.min(Math.max(limit, 1), MAX_AUTOCOMPLETE));
+    }
+}
@@ -7,25 +7,46 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
-import jakarta.persistence.Lob;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 
 @Entity
 @Table(name = "code_chunks")
 public class CodeChunk {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "code_chunk_ids")
+    @SequenceGenerator(name = "code_chunk_ids", sequenceName = "code_chunks_seq", allocationSize = IdSequences.ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
     @JoinColumn(name = "code_file_id", nullable = false)
     private CodeFile file;
 
-    @Lob
-    @Column(nullable = false)
-    private String content;
+    // The text itself lives in the ChunkContentStore; rows keep its address and digest.
+    @Column(name = "content_ref")
+    private Long contentRef;
+
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Transient
+    private String content; // set while indexing, not loaded with the row
+
+    // Declaring package, type (nested names dotted) and member, set by the chunker for the keyword index.
+    @Transient
+    private String packageName;
+
+    @Transient
+    private String typeName;
+
+    @Transient
+    private String memberName;
+
+    @Transient
+    private int languageLevel; // lowest Java release the file's syntax needs
 
     @Column(nullable = false)
     private int startLine;
@@ -55,6 +76,24 @@ public class CodeChunk {
     public String getContent() { return content; }
     public void setContent(String content) { this.content = content; }
 
+    public Long getContentRef() { return contentRef; }
+    public void setContentRef(Long contentRef) { this.contentRef = contentRef; }
+
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+
+    public String getPackageName() { return packageName; }
+    public void setPackageName(String packageName) { this.packageName = packageName; }
+
+    public String getTypeName() { return typeName; }
+    public void setTypeName(String typeName) { this.typeName = typeName; }
+
+    public String getMemberName() { return memberName; }
+    public void setMemberName(String memberName) { this.memberName = memberName; }
+
+    public int getLanguageLevel() { return languageLevel; }
+    public void setLanguageLevel(int languageLevel) { this.languageLevel = languageLevel; }
+
     public int getStartLine() { return startLine; }
     public void setStartLine(int startLine) { this.startLine = startLine; }
 
@@ -7,6 +7,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 
 @Entity
@@ -14,7 +15,8 @@ import jakarta.persistence.Table;
 public class CodeFile {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "code_file_ids")
+    @SequenceGenerator(name = "code_file_ids", sequenceName = "code_files_seq", allocationSize = IdSequences.ALLOCATION_SIZE)
     private Long id;
 
     @Column(nullable = false, unique = true, length = 1024)
@@ -24,7 +26,10 @@ public class CodeFile {
     private Instant lastModified;
 
     @Column(nullable = false, length = 128)
-    private String hash;
+    private String hash; // SHA-256 of the raw file bytes, hex encoded
+
+    @Column
+    private Long size;
 
     // Non-persistent field for extracted code chunks
     @jakarta.persistence.Transient
@@ -50,6 +55,9 @@ public class CodeFile {
     public String getHash() { return hash; }
     public void setHash(String hash) { this.hash = hash; }
 
+    public Long getSize() { return size; }
+    public void setSize(Long size) { this.size = size; }
+
     public java.util.List<com.codetalker.firestick.model.CodeChunk> getChunks() { return chunks; }
     public void setChunks(java.util.List<com.codetalker.firestick.model.CodeChunk> chunks) { this.chunks = chunks; }
 }
@@ -0,0 +1,20 @@
+package com.codetalker.firestick.model;
+
+import java.util.Map;
+
+/**
+ * Id sequences of the entity tables. Entities take ids from pooled sequences rather than IDENTITY
+ * columns so Hibernate can batch their inserts: one sequence call hands out {@link #ALLOCATION_SIZE} ids.
+ */
+public final class IdSequences {
+
+    public static final int ALLOCATION_SIZE = 50;
+
+    /** Table name to the sequence its ids come from. */
+    public static final Map<String, String> BY_TABLE = Map.of(
+            "code_files", "code_files_seq",
+            "code_chunks", "code_chunks_seq",
+            "symbols", "symbols_seq");
+
+    private IdSequences() {}
+}
@@ -1,12 +1,25 @@
 package com.codetalker.firestick.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.codetalker.firestick.model.CodeChunk;
 import com.codetalker.firestick.model.CodeFile;
 
 public interface CodeChunkRepository extends JpaRepository<CodeChunk, Long> {
     List<CodeChunk> findByFile(CodeFile file);
+    void deleteByFile(CodeFile file);
+
+    @Query("select c.id from CodeChunk c where c.file.id in :fileIds")
+    List<Long> findIdsByFileIds(@Param("fileIds") Collection<Long> fileIds);
+
+    /** One bulk delete, without loading the chunks first as {@link #deleteByFile} does. */
+    @Modifying
+    @Query("delete from CodeChunk c where c.file.id in :fileIds")
+    int deleteByFileIds(@Param("fileIds") Collection<Long> fileIds);
 }
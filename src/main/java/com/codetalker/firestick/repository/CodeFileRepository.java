@@ -1,5 +1,7 @@
 package com.codetalker.firestick.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -8,4 +10,6 @@ import com.codetalker.firestick.model.CodeFile;
 
 public interface CodeFileRepository extends JpaRepository<CodeFile, Long> {
     Optional<CodeFile> findByFilePath(String filePath);
+    List<CodeFile> findByFilePathStartingWith(String prefix);
+    List<CodeFile> findByFilePathIn(Collection<String> filePaths);
 }
@@ -1,13 +1,26 @@
 package com.codetalker.firestick.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.codetalker.firestick.model.CodeFile;
 import com.codetalker.firestick.model.Symbol;
 
 public interface SymbolRepository extends JpaRepository<Symbol, Long> {
     List<Symbol> findByFile(CodeFile file);
+    void deleteByFile(CodeFile file);
     List<Symbol> findByNameAndType(String name, String type);
+
+    /** name, type, signature, file path, line of every symbol, without loading files one by one. */
+    @Query("select s.name, s.type, s.signature, f.filePath, s.lineNumber from Symbol s join s.file f")
+    List<Object[]> findAllForIndex();
+
+    @Modifying
+    @Query("delete from Symbol s where s.file.id in :fileIds")
+    int deleteByFileIds(@Param("fileIds") Collection<Long> fileIds);
 }
@@ -1,35 +1,97 @@
 package com.codetalker.firestick.service;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
 import com.codetalker.firestick.service.dto.ChromaQueryResponse;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Client for the Chroma REST API. Every request is timed as {@code firestick.chroma.requests}, tagged
+ * with the operation, its outcome and, on failure, the exception type.
+ * <p>
+ * Queries and heartbeats are on the search path and get their own deadline,
+ * {@code chroma.query-timeout-ms}, well below the read timeout bulk upserts need: each runs on a
+ * virtual thread that is interrupted at the deadline, which aborts its blocking socket read and
+ * discards the connection, and the caller gets a {@link ResourceAccessException}.
+ */
 @Service
 public class ChromaService {
 
+    private static final Logger log = LoggerFactory.getLogger(ChromaService.class);
+
     private final RestTemplate restTemplate;
     private final String baseUrl;
+    private final int upsertBatchSize;
+    private final int maxRetries;
+    private final long retryBackoffMillis;
+    private final long queryTimeoutMillis;
+    private final ExecutorService upsertExecutor;
+    private final ExecutorService queryExecutor;
+    private final MeterRegistry meterRegistry;
+    private final Counter retries;
 
     public ChromaService(RestTemplate restTemplate,
-                         @Value("${chroma.base-url:http://localhost:8000}") String baseUrl) {
+                         MeterRegistry meterRegistry,
+                         @Value("${chroma.base-url:http://localhost:8000}") String baseUrl,
+                         @Value("${chroma.upsert-batch-size:256}") int upsertBatchSize,
+                         @Value("${chroma.max-in-flight:4}") int maxInFlight,
+                         @Value("${chroma.max-retries:3}") int maxRetries,
+                         @Value("${chroma.retry-backoff-ms:200}") long retryBackoffMillis,
+                         @Value("${chroma.query-timeout-ms:1000}") long queryTimeoutMillis) {
         this.restTemplate = restTemplate;
         this.baseUrl = baseUrl;
+        this.upsertBatchSize = Math.max(1, upsertBatchSize);
+        this.maxRetries = Math.max(0, maxRetries);
+        this.retryBackoffMillis = Math.max(0, retryBackoffMillis);
+        this.queryTimeoutMillis = queryTimeoutMillis;
+        this.meterRegistry = meterRegistry;
+        this.retries = Counter.builder("firestick.chroma.retries")
+                .description("Upsert batches resent after a server or I/O error")
+                .register(meterRegistry);
+        AtomicInteger threadIds = new AtomicInteger();
+        this.upsertExecutor = Executors.newFixedThreadPool(Math.max(1, maxInFlight), runnable -> {
+            Thread thread = new Thread(runnable, "chroma-upsert-" + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.queryExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("chroma-query-", 1).factory());
     }
 
     public String createCollection(String name) {
         String url = baseUrl + "/api/v1/collections";
         Map<String, Object> payload = new HashMap<>();
         payload.put("name", name);
-        return postJson(url, payload);
+        return postJson("create", url, payload);
     }
 
     public String addEmbeddings(String collection, List<float[]> embeddings, List<String> documents) {
@@ -37,7 +99,80 @@ public class ChromaService {
         Map<String, Object> payload = new HashMap<>();
         payload.put("embeddings", embeddings);
         payload.put("documents", documents);
-        return postJson(url, payload);
+        return postJson("add", url, payload);
+    }
+
+    /**
+     * Insert or replace records by id. The lists are split into batches of {@code chroma.upsert-batch-size}
+     * that are sent with up to {@code chroma.max-in-flight} requests outstanding. Upserts are idempotent,
+     * so a batch that fails with a server or I/O error is simply resent, up to {@code chroma.max-retries}
+     * times with exponential backoff. Client (4xx) errors are not retried. A batch whose documents are all
+     * null is sent without them.
+     *
+     * @return number of requests sent, retries excluded
+     */
+    public int upsertEmbeddings(String collection, List<String> ids, List<float[]> embeddings,
+                                List<String> documents, List<Map<String, String>> metadatas) {
+        int size = ids.size();
+        if (embeddings.size() != size || documents.size() != size || metadatas.size() != size) {
+            throw new IllegalArgumentException("ids, embeddings, documents and metadatas must have the same length");
+        }
+        if (size == 0) {
+            return 0;
+        }
+        String url = baseUrl + "/api/v1/collections/" + collection + "/upsert";
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        for (int from = 0; from < size; from += upsertBatchSize) {
+            int to = Math.min(size, from + upsertBatchSize);
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("ids", ids.subList(from, to));
+            payload.put("embeddings", embeddings.subList(from, to));
+            List<String> batchDocuments = documents.subList(from, to);
+            if (batchDocuments.stream().anyMatch(Objects::nonNull)) {
+                payload.put("documents", batchDocuments);
+            }
+            payload.put("metadatas", metadatas.subList(from, to));
+            pending.add(CompletableFuture.runAsync(() -> postWithRetry(url, payload), upsertExecutor));
+        }
+        try {
+            CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return pending.size();
+    }
+
+    private void postWithRetry(String url, Map<String, Object> payload) {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                postJson("upsert", url, payload);
+                return;
+            } catch (HttpClientErrorException e) {
+                throw e;
+            } catch (RestClientException e) {
+                if (attempt >= maxRetries) {
+                    throw e;
+                }
+                log.warn("Chroma upsert to {} failed (attempt {}), retrying: {}", url, attempt + 1, e.getMessage());
+                retries.increment();
+                try {
+                    Thread.sleep(retryBackoffMillis << attempt);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    public String deleteEmbeddings(String collection, List<String> ids) {
+        String url = baseUrl + "/api/v1/collections/" + collection + "/delete";
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("ids", ids);
+        return postJson("delete", url, payload);
     }
 
     public List<String> query(String collection, float[] queryEmbedding, int topK) {
@@ -48,7 +183,8 @@ public class ChromaService {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
         HttpEntity<Map<String, Object>> entity = new HttpEntity<>(payload, headers);
-        ChromaQueryResponse response = restTemplate.postForObject(url, entity, ChromaQueryResponse.class);
+        ChromaQueryResponse response = timed("query",
+                () -> withDeadline(() -> restTemplate.postForObject(url, entity, ChromaQueryResponse.class)));
         if (response == null || response.getDocuments() == null || response.getDocuments().isEmpty()) {
             return List.of();
         }
@@ -56,10 +192,98 @@ public class ChromaService {
         return response.getDocuments().get(0);
     }
 
-    private String postJson(String url, Map<String, Object> payload) {
+    /**
+     * Query returning ids, distances, documents and metadata of the nearest records.
+     *
+     * @param where Chroma {@code where} clause; empty for none
+     */
+    public ChromaQueryResponse queryWithMetadata(String collection, float[] queryEmbedding, int topK, Map<String, Object> where) {
+        String url = baseUrl + "/api/v1/collections/" + collection + "/query";
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("query_embeddings", List.of(queryEmbedding));
+        payload.put("n_results", topK);
+        payload.put("include", List.of("documents", "metadatas", "distances"));
+        if (where != null && !where.isEmpty()) {
+            payload.put("where", where);
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(payload, headers);
+        return timed("query",
+                () -> withDeadline(() -> restTemplate.postForObject(url, entity, ChromaQueryResponse.class)));
+    }
+
+    /**
+     * Whether the server answers its heartbeat endpoint.
+     */
+    public boolean heartbeat() {
+        try {
+            timed("heartbeat",
+                    () -> withDeadline(() -> restTemplate.getForObject(baseUrl + "/api/v1/heartbeat", String.class)));
+            return true;
+        } catch (RestClientException e) {
+            log.debug("Chroma heartbeat failed: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    private String postJson(String operation, String url, Map<String, Object> payload) {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
         HttpEntity<Map<String, Object>> entity = new HttpEntity<>(payload, headers);
-        return restTemplate.postForObject(url, entity, String.class);
+        return timed(operation, () -> restTemplate.postForObject(url, entity, String.class));
+    }
+
+    /** Run a search-path request, giving up after {@code chroma.query-timeout-ms}; 0 or less waits for it. */
+    private <T> T withDeadline(Supplier<T> request) {
+        if (queryTimeoutMillis <= 0) {
+            return request.get();
+        }
+        Future<T> future = queryExecutor.submit(request::get);
+        try {
+            return future.get(queryTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new ResourceAccessException("Chroma did not answer within " + queryTimeoutMillis + " ms");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ResourceAccessException("Interrupted while waiting for Chroma");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RestClientException("Chroma request failed", e.getCause());
+        }
+    }
+
+    private <T> T timed(String operation, Supplier<T> request) {
+        long start = System.nanoTime();
+        String outcome = "success";
+        String exception = "none";
+        try {
+            return request.get();
+        } catch (RuntimeException e) {
+            outcome = "error";
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            Timer.builder("firestick.chroma.requests")
+                    .description("Requests to the Chroma server")
+                    .tags("operation", operation, "outcome", outcome, "exception", exception)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        upsertExecutor.shutdownNow();
+        queryExecutor.shutdownNow();
     }
 }
@@ -0,0 +1,119 @@
+package com.codetalker.firestick.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import com.codetalker.firestick.service.dto.ChromaQueryResponse;
+import com.codetalker.firestick.service.dto.VectorMatch;
+import com.codetalker.firestick.service.dto.VectorRecord;
+
+/**
+ * {@link VectorStore} backed by an external Chroma server, selected with {@code vector.store=chroma}.
+ * Chroma reports distances; they are turned into scores as {@code 1 / (1 + distance)} so that, as with
+ * the Lucene store, higher means closer.
+ */
+@Service
+@ConditionalOnProperty(name = "vector.store", havingValue = "chroma")
+public class ChromaVectorStore implements VectorStore {
+
+    private final ChromaService chromaService;
+    private final String collection;
+    // Only writes made through this process are seen; another writer to the collection goes unnoticed.
+    private final AtomicLong version = new AtomicLong();
+
+    public ChromaVectorStore(ChromaService chromaService,
+                             @Value("${vector.chroma.collection:firestick}") String collection) {
+        this.chromaService = chromaService;
+        this.collection = collection;
+    }
+
+    @Override
+    public void upsert(List<VectorRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        List<String> ids = new ArrayList<>(records.size());
+        List<float[]> embeddings = new ArrayList<>(records.size());
+        List<String> documents = new ArrayList<>(records.size());
+        List<Map<String, String>> metadatas = new ArrayList<>(records.size());
+        for (VectorRecord record : records) {
+            ids.add(record.id());
+            embeddings.add(record.vector());
+            documents.add(record.document());
+            metadatas.add(record.metadata() == null ? Map.of() : record.metadata());
+        }
+        chromaService.upsertEmbeddings(collection, ids, embeddings, documents, metadatas);
+        version.incrementAndGet();
+    }
+
+    @Override
+    public void delete(Collection<String> ids) {
+        if (!ids.isEmpty()) {
+            chromaService.deleteEmbeddings(collection, List.copyOf(ids));
+            version.incrementAndGet();
+        }
+    }
+
+    @Override
+    public List<VectorMatch> query(float[] vector, int topK, Map<String, String> filter) {
+        if (topK <= 0) {
+            return List.of();
+        }
+        ChromaQueryResponse response = chromaService.queryWithMetadata(collection, vector, topK, toWhere(filter));
+        if (response == null || response.getIds() == null || response.getIds().isEmpty()) {
+            return List.of();
+        }
+        List<String> ids = response.getIds().get(0);
+        List<VectorMatch> matches = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            double distance = valueAt(response.getDistances(), i, 0.0);
+            String document = valueAt(response.getDocuments(), i, null);
+            Map<String, Object> rawMetadata = valueAt(response.getMetadatas(), i, null);
+            Map<String, String> metadata = new LinkedHashMap<>();
+            if (rawMetadata != null) {
+                rawMetadata.forEach((key, value) -> metadata.put(key, String.valueOf(value)));
+            }
+            matches.add(new VectorMatch(ids.get(i), (float) (1.0 / (1.0 + distance)), document, metadata));
+        }
+        return matches;
+    }
+
+    @Override
+    public long version() {
+        return version.get();
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return chromaService.heartbeat();
+    }
+
+    /** Chroma accepts a single key directly; several keys must be combined with {@code $and}. */
+    private static Map<String, Object> toWhere(Map<String, String> filter) {
+        if (filter == null || filter.isEmpty()) {
+            return Map.of();
+        }
+        if (filter.size() == 1) {
+            return new LinkedHashMap<>(filter);
+        }
+        List<Map<String, String>> clauses = new ArrayList<>();
+        filter.forEach((key, value) -> clauses.add(Map.of(key, value)));
+        return Map.of("$and", clauses);
+    }
+
+    private static <T> T valueAt(List<List<T>> nested, int index, T fallback) {
+        if (nested == null || nested.isEmpty() || nested.get(0) == null || nested.get(0).size() <= index) {
+            return fallback;
+        }
+        T value = nested.get(0).get(index);
+        return value == null ? fallback : value;
+    }
+}
@@ -0,0 +1,519 @@
+package com.codetalker.firestick.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.annotation.PreDestroy;
+
+import org.apache.lucene.store.ByteBuffersDataOutput;
+import org.apache.lucene.store.DataInput;
+import org.apache.lucene.util.compress.LZ4;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.codetalker.firestick.service.dto.ChunkStoreStats;
+
+/**
+ * Content-addressed, append-only store for chunk text.
+ * <p>
+ * Chunk text is packed into blocks of about {@code chunk-store.block-bytes}, each compressed with LZ4,
+ * and appended to segment files of at most {@code chunk-store.segment-bytes} that are memory-mapped for
+ * reads. A chunk is addressed by a {@code long} reference (block offset and entry number), which is all
+ * the database keeps besides the SHA-256 digest. Identical text is stored once: {@link #putAll} returns
+ * the existing reference for content it has already seen.
+ * <p>
+ * Reading one chunk decompresses its block only up to the end of that chunk. A truncated block at the end
+ * of a segment (a crash mid-append) is cut off when the store is opened. Deleted chunks are not reclaimed.
+ */
+@Service
+public class ChunkContentStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ChunkContentStore.class);
+
+    private static final int MAGIC = 0x46534342; // "FSCB"
+    private static final int BLOCK_HEADER_BYTES = 4 * Integer.BYTES;
+    private static final int ENTRY_BYTES = 2 * Long.BYTES + 2 * Integer.BYTES;
+    private static final int ENTRY_BITS = 12;
+    private static final int MAX_ENTRIES = 1 << ENTRY_BITS;
+    private static final String SEGMENT_SUFFIX = ".fcs";
+
+    /** Where a chunk's text lives and the hex SHA-256 of that text. */
+    public record Stored(long ref, String hash) {}
+
+    /** First 128 bits of the content digest, as in {@link EmbeddingCache}. */
+    private record Key(long hi, long lo) {}
+
+    private final Path directory;
+    private final int blockBytes;
+    private final long segmentBytes;
+    private final List<Segment> segments = new ArrayList<>();
+    private final Map<Key, Long> refs = new HashMap<>();
+
+    private final AtomicLong blocks = new AtomicLong();
+    private final AtomicLong rawBytes = new AtomicLong();
+    private final AtomicLong storedBytes = new AtomicLong();
+    private final AtomicLong dedupHits = new AtomicLong();
+
+    public ChunkContentStore(@Value("${chunk-store.path:./data/chunk-store}") String path,
+                             @Value("${chunk-store.block-bytes:65536}") int blockBytes,
+                             @Value("${chunk-store.segment-bytes:67108864}") long segmentBytes) throws IOException {
+        this.blockBytes = Math.max(1024, blockBytes);
+        this.segmentBytes = Math.min(Integer.MAX_VALUE, Math.max(this.blockBytes * 4L, segmentBytes));
+        this.directory = path == null || path.isBlank() ? null : Path.of(path);
+        if (directory != null) {
+            Files.createDirectories(directory);
+            open();
+        }
+    }
+
+    /**
+     * Store chunk texts, in order. Text already in the store, or repeated within {@code contents}, is not
+     * written again and gets the existing reference. Written blocks are forced to disk before returning,
+     * so references handed to the database always resolve.
+     */
+    public synchronized List<Stored> putAll(List<String> contents) {
+        List<Stored> result = new ArrayList<>(contents.size());
+        BlockBuilder block = new BlockBuilder();
+        List<int[]> pending = new ArrayList<>(); // result index -> entry in current block
+        Map<Key, Integer> inBlock = new HashMap<>();
+        // Blocks go into the current last segment and any segments rolled over into during this call.
+        int firstWritten = Math.max(0, segments.size() - 1);
+        try {
+            for (String content : contents) {
+                byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+                byte[] digest = ContentDigest.newDigest().digest(bytes);
+                String hash = HexFormat.of().formatHex(digest);
+                Key key = keyOf(digest);
+                Long existing = refs.get(key);
+                if (existing != null) {
+                    dedupHits.incrementAndGet();
+                    result.add(new Stored(existing, hash));
+                    continue;
+                }
+                Integer entry = inBlock.get(key);
+                if (entry == null) {
+                    if (!block.isEmpty() && !block.fits(bytes.length)) {
+                        flush(block, pending, result, inBlock);
+                        block = new BlockBuilder();
+                    }
+                    entry = block.add(key, bytes);
+                    inBlock.put(key, entry);
+                } else {
+                    dedupHits.incrementAndGet();
+                }
+                result.add(new Stored(-1, hash));
+                pending.add(new int[] {result.size() - 1, entry});
+            }
+            if (!block.isEmpty()) {
+                flush(block, pending, result, inBlock);
+            }
+            for (int i = firstWritten; i < segments.size(); i++) {
+                segments.get(i).force();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to chunk store", e);
+        }
+        return result;
+    }
+
+    /** Text for one reference. */
+    public String get(long ref) {
+        return getAll(List.of(ref)).get(ref);
+    }
+
+    /** Text for each reference; references sharing a block decompress it once. Unknown references are omitted. */
+    public Map<Long, String> getAll(Collection<Long> refs) {
+        Map<Long, List<Long>> byBlock = new TreeMap<>();
+        for (Long ref : refs) {
+            if (ref != null && ref >= 0) {
+                byBlock.computeIfAbsent(ref >>> ENTRY_BITS, k -> new ArrayList<>()).add(ref);
+            }
+        }
+        Map<Long, String> texts = new HashMap<>();
+        try {
+            for (Map.Entry<Long, List<Long>> entry : byBlock.entrySet()) {
+                readBlock(entry.getKey(), entry.getValue(), texts);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read chunk store", e);
+        }
+        return texts;
+    }
+
+    public ChunkStoreStats stats() {
+        int entries;
+        long size = 0;
+        synchronized (this) {
+            entries = refs.size();
+            for (Segment segment : segments) {
+                size += segment.size();
+            }
+        }
+        return new ChunkStoreStats(entries, blocks.get(), rawBytes.get(), storedBytes.get(), dedupHits.get(), size);
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        for (Segment segment : segments) {
+            segment.close();
+        }
+        segments.clear();
+    }
+
+    // ---- writing ----
+
+    private void flush(BlockBuilder block, List<int[]> pending, List<Stored> result, Map<Key, Integer> inBlock)
+            throws IOException {
+        byte[] bytes = block.encode();
+        Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (segment == null || (segment.size() > 0 && segment.size() + bytes.length > segmentBytes)) {
+            segment = newSegment(segments.size());
+            segments.add(segment);
+        }
+        long blockOffset = (segments.size() - 1) * segmentBytes + segment.size();
+        segment.append(bytes);
+        for (int[] p : pending) {
+            long ref = blockOffset << ENTRY_BITS | p[1];
+            result.set(p[0], new Stored(ref, result.get(p[0]).hash()));
+        }
+        for (int i = 0; i < block.keys.size(); i++) {
+            refs.put(block.keys.get(i), blockOffset << ENTRY_BITS | i);
+        }
+        blocks.incrementAndGet();
+        rawBytes.addAndGet(block.rawLength);
+        storedBytes.addAndGet(bytes.length);
+        pending.clear();
+        inBlock.clear();
+    }
+
+    /** Accumulates entries for one block. */
+    private final class BlockBuilder {
+        final List<Key> keys = new ArrayList<>();
+        final List<byte[]> texts = new ArrayList<>();
+        int rawLength;
+
+        boolean isEmpty() {
+            return keys.isEmpty();
+        }
+
+        boolean fits(int length) {
+            return keys.size() < MAX_ENTRIES && rawLength + length <= blockBytes;
+        }
+
+        int add(Key key, byte[] text) {
+            keys.add(key);
+            texts.add(text);
+            rawLength += text.length;
+            return keys.size() - 1;
+        }
+
+        /** Header, entry table (key, offset, length), then the LZ4-compressed concatenated text. */
+        byte[] encode() throws IOException {
+            byte[] raw = new byte[rawLength];
+            int position = 0;
+            for (byte[] text : texts) {
+                System.arraycopy(text, 0, raw, position, text.length);
+                position += text.length;
+            }
+            ByteBuffersDataOutput compressed = new ByteBuffersDataOutput();
+            LZ4.compress(raw, 0, raw.length, compressed, new LZ4.FastCompressionHashTable());
+            int tableBytes = keys.size() * ENTRY_BYTES;
+            ByteBuffer out = ByteBuffer.allocate(BLOCK_HEADER_BYTES + tableBytes + (int) compressed.size());
+            out.putInt(MAGIC).putInt(keys.size()).putInt(rawLength).putInt((int) compressed.size());
+            position = 0;
+            for (int i = 0; i < keys.size(); i++) {
+                out.putLong(keys.get(i).hi()).putLong(keys.get(i).lo()).putInt(position).putInt(texts.get(i).length);
+                position += texts.get(i).length;
+            }
+            out.put(compressed.toArrayCopy());
+            return out.array();
+        }
+    }
+
+    // ---- reading ----
+
+    private void readBlock(long blockOffset, List<Long> wanted, Map<Long, String> texts) throws IOException {
+        Segment segment;
+        synchronized (this) {
+            int index = (int) (blockOffset / segmentBytes);
+            if (index >= segments.size()) {
+                return;
+            }
+            segment = segments.get(index);
+        }
+        long position = blockOffset % segmentBytes;
+        ByteBuffer header = segment.read(position, BLOCK_HEADER_BYTES);
+        if (header == null || header.getInt() != MAGIC) {
+            return;
+        }
+        int count = header.getInt();
+        int rawLength = header.getInt();
+        int compressedLength = header.getInt();
+        ByteBuffer table = segment.read(position + BLOCK_HEADER_BYTES, count * ENTRY_BYTES);
+        int needed = 0;
+        for (Long ref : wanted) {
+            int entry = (int) (ref & (MAX_ENTRIES - 1));
+            if (entry < count) {
+                int at = entry * ENTRY_BYTES + 2 * Long.BYTES;
+                needed = Math.max(needed, table.getInt(at) + table.getInt(at + Integer.BYTES));
+            }
+        }
+        byte[] raw = new byte[rawLength];
+        if (needed > 0) {
+            // Stop decompressing once the last wanted entry is complete.
+            ByteBuffer payload = segment.read(position + BLOCK_HEADER_BYTES + (long) count * ENTRY_BYTES,
+                    compressedLength);
+            LZ4.decompress(new BufferDataInput(payload), needed, raw, 0);
+        }
+        for (Long ref : wanted) {
+            int entry = (int) (ref & (MAX_ENTRIES - 1));
+            if (entry < count) {
+                int at = entry * ENTRY_BYTES + 2 * Long.BYTES;
+                texts.put(ref, new String(raw, table.getInt(at), table.getInt(at + Integer.BYTES), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    /** Lucene's LZ4 reads through a {@link DataInput}; this one walks a (possibly mapped) buffer. */
+    private static final class BufferDataInput extends DataInput {
+        private final ByteBuffer buffer;
+
+        BufferDataInput(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public byte readByte() {
+            return buffer.get();
+        }
+
+        @Override
+        public void readBytes(byte[] b, int offset, int len) {
+            buffer.get(b, offset, len);
+        }
+
+        @Override
+        public void skipBytes(long numBytes) {
+            buffer.position(buffer.position() + (int) numBytes);
+        }
+    }
+
+    // ---- segments ----
+
+    private void open() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "segment-*" + SEGMENT_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        files.sort(null);
+        for (int i = 0; i < files.size(); i++) {
+            Path expected = segmentPath(i);
+            if (!files.get(i).equals(expected)) {
+                log.warn("Chunk store segments are not contiguous; ignoring {} and later", files.get(i));
+                break;
+            }
+            FileSegment segment = new FileSegment(expected);
+            segments.add(segment);
+            scan(i, segment);
+        }
+        log.info("Opened chunk store {}: {} chunks in {} segments", directory, refs.size(), segments.size());
+    }
+
+    /** Index every block of a segment, cutting off a trailing block that was not fully written. */
+    private void scan(int index, FileSegment segment) throws IOException {
+        long position = 0;
+        long size = segment.size();
+        while (position + BLOCK_HEADER_BYTES <= size) {
+            ByteBuffer header = segment.read(position, BLOCK_HEADER_BYTES);
+            int magic = header.getInt();
+            int count = header.getInt();
+            int rawLength = header.getInt();
+            int compressedLength = header.getInt();
+            long end = position + BLOCK_HEADER_BYTES + (long) count * ENTRY_BYTES + compressedLength;
+            if (magic != MAGIC || count <= 0 || count > MAX_ENTRIES || compressedLength < 0 || end > size) {
+                break;
+            }
+            long blockOffset = index * segmentBytes + position;
+            ByteBuffer table = segment.read(position + BLOCK_HEADER_BYTES, count * ENTRY_BYTES);
+            for (int i = 0; i < count; i++) {
+                refs.putIfAbsent(new Key(table.getLong(), table.getLong()), blockOffset << ENTRY_BITS | i);
+                table.getInt();
+                table.getInt();
+            }
+            blocks.incrementAndGet();
+            rawBytes.addAndGet(rawLength);
+            storedBytes.addAndGet(end - position);
+            position = end;
+        }
+        if (position < size) {
+            log.warn("Truncating {} bytes of incomplete data at the end of chunk store segment {}", size - position, index);
+            segment.truncate(position);
+        }
+    }
+
+    private Segment newSegment(int index) throws IOException {
+        return directory == null ? new MemorySegment() : new FileSegment(segmentPath(index));
+    }
+
+    private Path segmentPath(int index) {
+        return directory.resolve("segment-%05d%s".formatted(index, SEGMENT_SUFFIX));
+    }
+
+    private static Key keyOf(byte[] digest) {
+        ByteBuffer buffer = ByteBuffer.wrap(digest);
+        return new Key(buffer.getLong(), buffer.getLong());
+    }
+
+    /** Append-only byte log. Bytes once appended never change, so reads need no lock against appends. */
+    private interface Segment extends AutoCloseable {
+        long size();
+
+        void append(byte[] bytes) throws IOException;
+
+        /** View of {@code length} bytes at {@code position}, or null if they are not there. */
+        ByteBuffer read(long position, int length) throws IOException;
+
+        default void force() throws IOException {}
+
+        @Override
+        default void close() throws IOException {}
+    }
+
+    /**
+     * Segment file. An interrupt during a channel operation closes the channel; it is reopened on next use,
+     * so one interrupted append fails only its own batch. Its stray bytes lie past {@code size} and are
+     * overwritten by the next append or cut off as a torn block on open.
+     */
+    private static final class FileSegment implements Segment {
+        private final Path path;
+        private volatile FileChannel channel;
+        private volatile boolean closed;
+        private volatile long size;
+        private volatile MappedByteBuffer mapped;
+
+        FileSegment(Path path) throws IOException {
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            this.size = channel.size();
+        }
+
+        private FileChannel channel() throws IOException {
+            FileChannel current = channel;
+            if (current.isOpen()) {
+                return current;
+            }
+            synchronized (this) {
+                if (closed) {
+                    throw new ClosedChannelException();
+                }
+                if (!channel.isOpen()) {
+                    log.warn("Reopening chunk store segment {} after an interrupted operation", path);
+                    channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                }
+                return channel;
+            }
+        }
+
+        @Override
+        public long size() {
+            return size;
+        }
+
+        @Override
+        public void append(byte[] bytes) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            FileChannel out = channel();
+            long position = size;
+            while (buffer.hasRemaining()) {
+                position += out.write(buffer, position);
+            }
+            size = position;
+        }
+
+        @Override
+        public ByteBuffer read(long position, int length) throws IOException {
+            if (position + length > size) {
+                return null;
+            }
+            MappedByteBuffer view = mapped;
+            if (view == null || position + length > view.capacity()) {
+                synchronized (this) {
+                    view = mapped;
+                    if (view == null || position + length > view.capacity()) {
+                        // Remap to the current end; appended bytes are visible through the new mapping.
+                        view = channel().map(FileChannel.MapMode.READ_ONLY, 0, size);
+                        mapped = view;
+                    }
+                }
+            }
+            return view.slice((int) position, length);
+        }
+
+        synchronized void truncate(long newSize) throws IOException {
+            channel().truncate(newSize);
+            size = newSize;
+            mapped = null;
+        }
+
+        @Override
+        public void force() throws IOException {
+            channel().force(false);
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            closed = true;
+            channel.close();
+        }
+    }
+
+    private static final class MemorySegment implements Segment {
+        private volatile byte[] data = new byte[0];
+        private volatile int size;
+
+        @Override
+        public long size() {
+            return size;
+        }
+
+        @Override
+        public synchronized void append(byte[] bytes) {
+            byte[] current = data;
+            if (size + bytes.length > current.length) {
+                current = Arrays.copyOf(current, Math.max(size + bytes.length, current.length * 2));
+            }
+            System.arraycopy(bytes, 0, current, size, bytes.length);
+            data = current;
+            size += bytes.length;
+        }
+
+        @Override
+        public ByteBuffer read(long position, int length) {
+            if (position + length > size) {
+                return null;
+            }
+            return ByteBuffer.wrap(data, (int) position, length).slice();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.codetalker.firestick.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Consecutive-failure circuit breaker for a dependency that may hang or fail.
+ * <p>
+ * Closed, every call is let through. After {@code failureThreshold} failures in a row (a call slower
+ * than the slow-call limit counts as one) the breaker opens and refuses calls for {@code openMillis};
+ * then it lets a single trial call through (half-open). The trial's success closes the breaker, its
+ * failure opens it again. Each permit carries the epoch it was granted in, and every transition starts
+ * a new epoch; outcomes from an earlier epoch are ignored, so a straggler from before the breaker opened
+ * can neither close it nor reopen it in place of the trial.
+ */
+final class CircuitBreaker {
+
+    private static final Logger log = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    enum State { CLOSED, HALF_OPEN, OPEN }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final long slowCallNanos;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+    private long epoch;
+
+    /**
+     * @param slowCallMillis Calls taking longer count as failures; 0 or less disables the check
+     */
+    CircuitBreaker(String name, int failureThreshold, long openMillis, long slowCallMillis) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = Math.max(0, openMillis) * 1_000_000L;
+        this.slowCallNanos = slowCallMillis > 0 ? slowCallMillis * 1_000_000L : Long.MAX_VALUE;
+    }
+
+    /**
+     * Ask to start a call.
+     *
+     * @return A permit to hand to {@link #record}, or -1 when the call must not start
+     */
+    synchronized long tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return epoch;
+            case OPEN:
+                if (System.nanoTime() - openedAt < openNanos) {
+                    return -1;
+                }
+                transition(State.HALF_OPEN);
+                trialInFlight = true;
+                return epoch;
+            default:
+                if (trialInFlight) {
+                    return -1;
+                }
+                trialInFlight = true;
+                return epoch;
+        }
+    }
+
+    /**
+     * @param permit       What {@link #tryAcquire} returned for the call
+     * @param failed       Whether the call threw
+     * @param elapsedNanos How long it took
+     */
+    synchronized void record(long permit, boolean failed, long elapsedNanos) {
+        if (permit != epoch) {
+            return;
+        }
+        boolean success = !failed && elapsedNanos <= slowCallNanos;
+        if (success) {
+            consecutiveFailures = 0;
+            if (state == State.HALF_OPEN) {
+                log.info("{} circuit closed: trial call succeeded", name);
+                transition(State.CLOSED);
+            }
+            return;
+        }
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            log.warn("{} circuit opened after {} failed or slow calls; retrying in {} ms", name,
+                    consecutiveFailures, openNanos / 1_000_000L);
+            transition(State.OPEN);
+            openedAt = System.nanoTime();
+        }
+    }
+
+    private void transition(State next) {
+        state = next;
+        epoch++;
+        trialInFlight = false;
+        consecutiveFailures = 0;
+    }
+
+    /** The current state; an open breaker whose wait is over stays open until the next call tries it. */
+    synchronized State state() {
+        return state;
+    }
+}
@@ -0,0 +1,56 @@
+package com.codetalker.firestick.service;
+
+import java.util.regex.Pattern;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.core.FlattenGraphFilter;
+import org.apache.lucene.analysis.miscellaneous.WordDelimiterGraphFilter;
+import org.apache.lucene.analysis.pattern.PatternTokenizer;
+
+/**
+ * Analyzer for source code and the queries run against it.
+ * <p>
+ * Tokens are identifier runs, with dotted names ({@code java.util.List}, {@code Map.Entry}) kept whole.
+ * Each token is indexed as is and split on case changes, underscores, dots and letter/digit boundaries,
+ * then lower-cased: {@code getUserName} yields {@code getusername}, {@code get}, {@code user} and
+ * {@code name}, so it is found by {@code getUserName}, {@code get_user_name} or {@code user name} alike.
+ * The index-time chain flattens the split graph, as Lucene requires for indexing; the query-time chain
+ * keeps it so the query parser can build phrase-aware queries from it.
+ */
+public final class CodeAnalyzer extends Analyzer {
+
+    private static final Pattern TOKEN = Pattern.compile("[\\p{L}\\p{N}_$]+(?:\\.[\\p{L}\\p{N}_$]+)*");
+
+    private static final int FLAGS = WordDelimiterGraphFilter.GENERATE_WORD_PARTS
+            | WordDelimiterGraphFilter.GENERATE_NUMBER_PARTS
+            | WordDelimiterGraphFilter.SPLIT_ON_CASE_CHANGE
+            | WordDelimiterGraphFilter.SPLIT_ON_NUMERICS
+            | WordDelimiterGraphFilter.PRESERVE_ORIGINAL;
+
+    private final boolean indexing;
+
+    /**
+     * @param indexing Whether the chain feeds an {@code IndexWriter} (flattened) or a query parser (graph)
+     */
+    public CodeAnalyzer(boolean indexing) {
+        this.indexing = indexing;
+    }
+
+    @Override
+    protected TokenStreamComponents createComponents(String fieldName) {
+        Tokenizer tokenizer = new PatternTokenizer(TOKEN, 0);
+        TokenStream stream = new WordDelimiterGraphFilter(tokenizer, FLAGS, null);
+        if (indexing) {
+            stream = new FlattenGraphFilter(stream);
+        }
+        return new TokenStreamComponents(tokenizer, new LowerCaseFilter(stream));
+    }
+
+    @Override
+    protected TokenStream normalize(String fieldName, TokenStream in) {
+        return new LowerCaseFilter(in);
+    }
+}
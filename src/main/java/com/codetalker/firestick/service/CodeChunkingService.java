@@ -1,37 +1,403 @@
 package com.codetalker.firestick.service;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.codetalker.firestick.model.CodeChunk;
 import com.codetalker.firestick.model.CodeFile;
+import com.github.javaparser.Position;
+import com.github.javaparser.TokenRange;
 import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Modifier;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.AnnotationDeclaration;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.CallableDeclaration;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.CompactConstructorDeclaration;
+import com.github.javaparser.ast.body.ConstructorDeclaration;
+import com.github.javaparser.ast.body.EnumConstantDeclaration;
+import com.github.javaparser.ast.body.EnumDeclaration;
+import com.github.javaparser.ast.body.InitializerDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.RecordDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.expr.RecordPatternExpr;
+import com.github.javaparser.ast.expr.SwitchExpr;
+import com.github.javaparser.ast.expr.TextBlockLiteralExpr;
+import com.github.javaparser.ast.expr.TypePatternExpr;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import com.github.javaparser.ast.type.VarType;
 
 /**
- * Service to extract code chunks (methods) from parsed Java files.
+ * Service to extract code chunks from parsed Java files.
+ * <p>
+ * One recursive pass over type and member declarations (statement and expression nodes are never
+ * visited) produces a chunk per method body, constructor and initializer, plus a skeleton chunk per type
+ * (class, interface, enum, record, annotation, nested or top-level) holding its header, fields and
+ * member signatures with bodies elided. Chunk text is sliced from the original source by node range,
+ * Javadoc included, rather than pretty-printed, so nothing is printed twice. Chunks longer than
+ * {@code chunking.max-tokens} are split on line boundaries into windows that overlap by about
+ * {@code chunking.overlap-tokens}, so each piece fits the embedding model.
  */
 @Service
 public class CodeChunkingService {
+
+    private static final String ELIDED = " { ... }";
+
+    private final int maxTokens;
+    private final int overlapTokens;
+
+    /** Defaults for callers outside Spring: 256-token chunks with 32 tokens of overlap. */
+    public CodeChunkingService() {
+        this(256, 32);
+    }
+
+    @Autowired
+    public CodeChunkingService(@Value("${chunking.max-tokens:256}") int maxTokens,
+                               @Value("${chunking.overlap-tokens:32}") int overlapTokens) {
+        this.maxTokens = maxTokens > 0 ? maxTokens : Integer.MAX_VALUE;
+        this.overlapTokens = Math.max(0, Math.min(overlapTokens, this.maxTokens / 2));
+    }
+
+    /**
+     * Chunk a compilation unit whose source text is not at hand; the text is rebuilt from the parser's
+     * token list, so the unit must have been parsed with token storage on (JavaParser's default).
+     */
     public List<CodeChunk> extractChunks(CodeFile codeFile, CompilationUnit cu) {
-        List<CodeChunk> chunks = new ArrayList<>();
-        // Extract method-level chunks
-        cu.findAll(MethodDeclaration.class).forEach(method -> {
-            String content = method.toString();
-            int start = method.getBegin().map(p -> p.line).orElse(1);
-            int end = method.getEnd().map(p -> p.line).orElse(start);
-            chunks.add(new CodeChunk(codeFile, content, start, end, "method"));
-        });
-        // Optionally, extract class-level chunk
-        cu.findFirst(ClassOrInterfaceDeclaration.class).ifPresent(cls -> {
-            String content = cls.toString();
-            int start = cls.getBegin().map(p -> p.line).orElse(1);
-            int end = cls.getEnd().map(p -> p.line).orElse(start);
-            chunks.add(new CodeChunk(codeFile, content, start, end, "class"));
-        });
-        return chunks;
+        String source = cu.getTokenRange()
+                .map(TokenRange::toString)
+                .orElseThrow(() -> new IllegalArgumentException("Compilation unit has no tokens; pass its source"));
+        return extractChunks(codeFile, cu, source);
+    }
+
+    /**
+     * @param source Exact text {@code cu} was parsed from; node positions are resolved against it
+     */
+    public List<CodeChunk> extractChunks(CodeFile codeFile, CompilationUnit cu, String source) {
+        Extraction extraction = new Extraction(codeFile, source,
+                cu.getPackageDeclaration().map(p -> p.getNameAsString()).orElse(""), languageLevel(cu));
+        for (TypeDeclaration<?> type : cu.getTypes()) {
+            extraction.type(type);
+        }
+        return extraction.chunks;
+    }
+
+    /**
+     * Lowest Java release whose syntax covers the unit, judged by the newest construct it uses: record
+     * patterns (21), sealed types (17), records and type patterns (16), text blocks (15), switch
+     * expressions (14) and {@code var} (10); anything else reports 8, the oldest release told apart.
+     */
+    static int languageLevel(CompilationUnit cu) {
+        // One pre-order walk, stopping early only once the newest level is seen.
+        int level = 8;
+        Iterator<Node> nodes = cu.stream().iterator();
+        while (level < 21 && nodes.hasNext()) {
+            level = Math.max(level, languageLevel(nodes.next()));
+        }
+        return level;
+    }
+
+    private static int languageLevel(Node node) {
+        if (node instanceof RecordPatternExpr) {
+            return 21;
+        }
+        if (node instanceof ClassOrInterfaceDeclaration c
+                && (c.hasModifier(Modifier.Keyword.SEALED) || c.hasModifier(Modifier.Keyword.NON_SEALED))) {
+            return 17;
+        }
+        if (node instanceof RecordDeclaration || node instanceof TypePatternExpr) {
+            return 16;
+        }
+        if (node instanceof TextBlockLiteralExpr) {
+            return 15;
+        }
+        if (node instanceof SwitchExpr) {
+            return 14;
+        }
+        return node instanceof VarType ? 10 : 8;
+    }
+
+    /** Approximate model tokens: each identifier/number run counts once, each other symbol once. */
+    static int countTokens(CharSequence text, int from, int to) {
+        int tokens = 0;
+        boolean inWord = false;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (Character.isJavaIdentifierPart(c)) {
+                if (!inWord) {
+                    tokens++;
+                    inWord = true;
+                }
+            } else {
+                inWord = false;
+                if (!Character.isWhitespace(c)) {
+                    tokens++;
+                }
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Per-file state: the source, its line offsets, the chunks emitted so far and the declaration being
+     * chunked, which every chunk is tagged with.
+     */
+    private final class Extraction {
+        final CodeFile codeFile;
+        final String source;
+        final String packageName;
+        final int languageLevel;
+        final int[] lineStarts;
+        final List<CodeChunk> chunks = new ArrayList<>();
+        String typeName;
+        String memberName;
+
+        Extraction(CodeFile codeFile, String source, String packageName, int languageLevel) {
+            this.codeFile = codeFile;
+            this.source = source;
+            this.packageName = packageName;
+            this.languageLevel = languageLevel;
+            this.lineStarts = lineStarts(source);
+        }
+
+        void type(TypeDeclaration<?> type) {
+            String outer = typeName;
+            typeName = outer == null ? type.getNameAsString() : outer + "." + type.getNameAsString();
+            memberName = null;
+            StringBuilder skeleton = new StringBuilder(256);
+            int headerEnd = bodyOpen(type);
+            skeleton.append(source, start(type), headerEnd + 1).append('\n');
+            if (type instanceof EnumDeclaration enumDeclaration && !enumDeclaration.getEntries().isEmpty()) {
+                skeleton.append("    ");
+                for (int i = 0; i < enumDeclaration.getEntries().size(); i++) {
+                    EnumConstantDeclaration constant = enumDeclaration.getEntries().get(i);
+                    if (i > 0) {
+                        skeleton.append(", ");
+                    }
+                    if (constant.getClassBody().isEmpty()) {
+                        skeleton.append(source, offset(begin(constant)), end(constant));
+                    } else {
+                        appendTrimmed(skeleton, offset(begin(constant)), bodyOpen(constant)).append(ELIDED);
+                    }
+                }
+                skeleton.append(";\n");
+            }
+            for (BodyDeclaration<?> member : type.getMembers()) {
+                skeleton.append("    ");
+                if (member instanceof CallableDeclaration<?> || member instanceof CompactConstructorDeclaration) {
+                    Optional<BlockStmt> body = body(member);
+                    if (body.isPresent()) {
+                        appendTrimmed(skeleton, offset(begin(member)), offset(begin(body.get()))).append(ELIDED);
+                    } else {
+                        skeleton.append(source, offset(begin(member)), end(member));
+                    }
+                } else if (member instanceof TypeDeclaration<?> nested) {
+                    appendTrimmed(skeleton, offset(begin(nested)), bodyOpen(nested)).append(ELIDED);
+                } else if (member instanceof InitializerDeclaration initializer) {
+                    skeleton.append(initializer.isStatic() ? "static" + ELIDED : ELIDED.substring(1));
+                } else {
+                    skeleton.append(source, offset(begin(member)), end(member));
+                }
+                skeleton.append('\n');
+            }
+            skeleton.append('}');
+            emit(skeleton.toString(), kind(type), line(type, true), line(type, false), false);
+
+            if (type instanceof EnumDeclaration enumDeclaration) {
+                enumDeclaration.getEntries().forEach(constant -> constant.getClassBody().forEach(this::member));
+            }
+            type.getMembers().forEach(this::member);
+            typeName = outer;
+        }
+
+        void member(BodyDeclaration<?> member) {
+            if (member instanceof TypeDeclaration<?> nested) {
+                type(nested);
+            } else if (member instanceof ConstructorDeclaration || member instanceof CompactConstructorDeclaration) {
+                slice(member, "constructor");
+            } else if (member instanceof MethodDeclaration method && method.getBody().isPresent()) {
+                // Abstract and interface methods are fully shown in the type skeleton.
+                slice(member, "method");
+            } else if (member instanceof InitializerDeclaration) {
+                slice(member, "initializer");
+            }
+        }
+
+        private void slice(Node node, String kind) {
+            memberName = node instanceof CallableDeclaration<?> callable ? callable.getNameAsString()
+                    : node instanceof CompactConstructorDeclaration compact ? compact.getNameAsString() : null;
+            emit(source.substring(start(node), end(node)), kind, line(node, true), line(node, false), true);
+        }
+
+        /**
+         * Add one chunk, or overlapping line windows of it when it is over the token limit.
+         *
+         * @param contiguous Whether the text's lines map one-to-one onto source lines from {@code startLine}
+         */
+        private void emit(String text, String kind, int startLine, int endLine, boolean contiguous) {
+            int total = countTokens(text, 0, text.length());
+            if (total <= maxTokens) {
+                add(new CodeChunk(codeFile, text, startLine, endLine, kind));
+                return;
+            }
+            int[] starts = lineStarts(text);
+            int lines = starts.length;
+            int[] tokens = new int[lines];
+            for (int i = 0; i < lines; i++) {
+                tokens[i] = countTokens(text, starts[i], i + 1 < lines ? starts[i + 1] : text.length());
+            }
+            int first = 0;
+            while (first < lines) {
+                int last = first;
+                int sum = tokens[first];
+                while (last + 1 < lines && sum + tokens[last + 1] <= maxTokens) {
+                    sum += tokens[++last];
+                }
+                int to = last + 1 < lines ? starts[last + 1] : text.length();
+                String window = text.substring(starts[first], to).stripTrailing();
+                add(new CodeChunk(codeFile, window,
+                        contiguous ? startLine + first : startLine,
+                        contiguous ? Math.min(startLine + last, endLine) : endLine, kind));
+                if (last + 1 >= lines) {
+                    break;
+                }
+                // Step back over trailing lines worth about overlapTokens, always advancing by one line.
+                int next = last + 1;
+                int overlap = 0;
+                while (next - 1 > first && overlap + tokens[next - 1] <= overlapTokens) {
+                    overlap += tokens[--next];
+                }
+                first = next;
+            }
+        }
+
+        private void add(CodeChunk chunk) {
+            chunk.setPackageName(packageName);
+            chunk.setTypeName(typeName);
+            chunk.setMemberName(memberName);
+            chunk.setLanguageLevel(languageLevel);
+            chunks.add(chunk);
+        }
+
+        private StringBuilder appendTrimmed(StringBuilder out, int from, int to) {
+            while (to > from && Character.isWhitespace(source.charAt(to - 1))) {
+                to--;
+            }
+            return out.append(source, from, to);
+        }
+
+        /** Start offset, including a leading Javadoc or comment. */
+        private int start(Node node) {
+            Position begin = node.getComment()
+                    .flatMap(Node::getBegin)
+                    .filter(p -> p.isBefore(begin(node)))
+                    .orElse(begin(node));
+            return offset(begin);
+        }
+
+        /** Exclusive end offset. */
+        private int end(Node node) {
+            Position end = node.getEnd().orElseThrow(() -> missingRange(node));
+            return Math.min(source.length(), offset(end) + 1);
+        }
+
+        private int line(Node node, boolean first) {
+            if (first) {
+                return node.getComment().flatMap(Node::getBegin).filter(p -> p.isBefore(begin(node)))
+                        .orElse(begin(node)).line;
+            }
+            return node.getEnd().map(p -> p.line).orElse(begin(node).line);
+        }
+
+        private Position begin(Node node) {
+            return node.getBegin().orElseThrow(() -> missingRange(node));
+        }
+
+        private int offset(Position position) {
+            int line = Math.min(position.line, lineStarts.length) - 1;
+            return Math.min(source.length(), lineStarts[line] + position.column - 1);
+        }
+
+        /**
+         * Offset of the {@code '{'} opening a type or enum-constant body: the first one after the name
+         * outside parentheses (record components and enum arguments may contain braces in annotations).
+         */
+        private int bodyOpen(Node declaration) {
+            Node name = declaration instanceof TypeDeclaration<?> type ? type.getName()
+                    : ((EnumConstantDeclaration) declaration).getName();
+            int depth = 0;
+            for (int i = end(name); i < source.length(); i++) {
+                char c = source.charAt(i);
+                if (c == '(') {
+                    depth++;
+                } else if (c == ')') {
+                    depth--;
+                } else if (c == '{' && depth == 0) {
+                    return i;
+                }
+            }
+            return end(declaration) - 1;
+        }
+
+        private IllegalArgumentException missingRange(Node node) {
+            return new IllegalArgumentException("No source range for " + node.getClass().getSimpleName()
+                    + " in " + codeFile.getFilePath());
+        }
+    }
+
+    private static Optional<BlockStmt> body(BodyDeclaration<?> member) {
+        if (member instanceof MethodDeclaration method) {
+            return method.getBody();
+        }
+        if (member instanceof ConstructorDeclaration constructor) {
+            return Optional.of(constructor.getBody());
+        }
+        if (member instanceof CompactConstructorDeclaration compact) {
+            return Optional.of(compact.getBody());
+        }
+        return Optional.empty();
+    }
+
+    private static String kind(TypeDeclaration<?> type) {
+        if (type instanceof ClassOrInterfaceDeclaration cls) {
+            return cls.isInterface() ? "interface" : "class";
+        }
+        if (type instanceof EnumDeclaration) {
+            return "enum";
+        }
+        if (type instanceof RecordDeclaration) {
+            return "record";
+        }
+        if (type instanceof AnnotationDeclaration) {
+            return "annotation";
+        }
+        return "class";
+    }
+
+    /** Offsets where each line starts; {@code \n}, {@code \r\n} and lone {@code \r} end a line, as in JavaParser. */
+    private static int[] lineStarts(String text) {
+        int count = 1;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n' || (c == '\r' && (i + 1 >= text.length() || text.charAt(i + 1) != '\n'))) {
+                count++;
+            }
+        }
+        int[] starts = new int[count];
+        int line = 1;
+        for (int i = 0; i < text.length() && line < count; i++) {
+            char c = text.charAt(i);
+            if (c == '\n' || (c == '\r' && (i + 1 >= text.length() || text.charAt(i + 1) != '\n'))) {
+                starts[line++] = i + 1;
+            }
+        }
+        return starts;
     }
 }
@@ -0,0 +1,136 @@
+package com.codetalker.firestick.service;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Splits chunk text into the parts the keyword index searches separately: comments, string and
+ * character literals, identifiers, and the names of methods and types declared in it.
+ * <p>
+ * One lexical pass, no parsing: chunks are slices of source (or type skeletons) that need not compile
+ * on their own. A method declaration is an identifier followed by {@code (} whose previous token is a
+ * type, a modifier, {@code >} or {@code ]}; a type declaration is the identifier after {@code class},
+ * {@code interface}, {@code enum}, {@code record} or {@code @interface}.
+ */
+final class CodeFields {
+
+    private static final Set<String> KEYWORDS = Set.of(
+            "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class", "const",
+            "continue", "default", "do", "double", "else", "enum", "extends", "final", "finally", "float",
+            "for", "goto", "if", "implements", "import", "instanceof", "int", "interface", "long", "native",
+            "new", "package", "private", "protected", "public", "return", "short", "static", "strictfp",
+            "super", "switch", "synchronized", "this", "throw", "throws", "transient", "try", "void",
+            "volatile", "while", "true", "false", "null", "var", "record", "yield", "sealed", "permits");
+
+    private static final Set<String> NOT_A_RETURN_TYPE = Set.of("new", "return", "throw", "else", "case", "yield");
+
+    private static final Set<String> TYPE_KEYWORDS = Set.of("class", "interface", "enum", "record");
+
+    final String identifiers;
+    final String methods;
+    final String classes;
+    final String comments;
+    final String strings;
+
+    private CodeFields(String identifiers, String methods, String classes, String comments, String strings) {
+        this.identifiers = identifiers;
+        this.methods = methods;
+        this.classes = classes;
+        this.comments = comments;
+        this.strings = strings;
+    }
+
+    static CodeFields of(String text) {
+        Set<String> identifiers = new LinkedHashSet<>();
+        Set<String> methods = new LinkedHashSet<>();
+        Set<String> classes = new LinkedHashSet<>();
+        StringBuilder comments = new StringBuilder();
+        StringBuilder strings = new StringBuilder();
+        // The last significant token: an identifier or keyword, or a single symbol.
+        String previous = "";
+        String pending = null;
+        int n = text.length();
+        int i = 0;
+        while (i < n) {
+            char c = text.charAt(i);
+            if (c == '/' && i + 1 < n && text.charAt(i + 1) == '/') {
+                int end = text.indexOf('\n', i);
+                end = end < 0 ? n : end;
+                append(comments, text, i + 2, end);
+                i = end;
+            } else if (c == '/' && i + 1 < n && text.charAt(i + 1) == '*') {
+                int end = text.indexOf("*/", i + 2);
+                end = end < 0 ? n : end;
+                append(comments, text, i + 2, end);
+                i = Math.min(n, end + 2);
+            } else if (c == '"' && text.startsWith("\"\"\"", i)) {
+                int end = text.indexOf("\"\"\"", i + 3);
+                end = end < 0 ? n : end;
+                append(strings, text, i + 3, end);
+                i = Math.min(n, end + 3);
+                previous = "\"";
+            } else if (c == '"' || c == '\'') {
+                int end = i + 1;
+                while (end < n && text.charAt(end) != c && text.charAt(end) != '\n') {
+                    end += text.charAt(end) == '\\' ? 2 : 1;
+                }
+                end = Math.min(end, n);
+                append(strings, text, i + 1, end);
+                i = Math.min(n, end + 1);
+                previous = "\"";
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int end = i + 1;
+                while (end < n && Character.isJavaIdentifierPart(text.charAt(end))) {
+                    end++;
+                }
+                String word = text.substring(i, end);
+                pending = null;
+                if (!KEYWORDS.contains(word)) {
+                    identifiers.add(word);
+                    if (TYPE_KEYWORDS.contains(previous)) {
+                        classes.add(word);
+                    } else if (declaresMethod(previous)) {
+                        pending = word;
+                    }
+                }
+                previous = word;
+                i = end;
+                continue;
+            } else if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            } else {
+                if (c == '(' && pending != null) {
+                    methods.add(pending);
+                }
+                // A lambda arrow is not the end of a type argument list.
+                boolean arrow = c == '-' && i + 1 < n && text.charAt(i + 1) == '>';
+                previous = arrow ? "->" : String.valueOf(c);
+                i += arrow ? 2 : 1;
+            }
+            pending = null;
+        }
+        return new CodeFields(String.join(" ", identifiers), String.join(" ", methods),
+                String.join(" ", classes), comments.toString(), strings.toString());
+    }
+
+    /** Whether an identifier after {@code previous} and before {@code (} names a declared method. */
+    private static boolean declaresMethod(String previous) {
+        if (previous.equals(">") || previous.equals("]")) {
+            return true;
+        }
+        if (previous.isEmpty() || !Character.isJavaIdentifierStart(previous.charAt(0))) {
+            return false;
+        }
+        return !NOT_A_RETURN_TYPE.contains(previous);
+    }
+
+    private static void append(StringBuilder out, String text, int from, int to) {
+        if (to > from) {
+            if (!out.isEmpty()) {
+                out.append('\n');
+            }
+            out.append(text, from, to);
+        }
+    }
+}
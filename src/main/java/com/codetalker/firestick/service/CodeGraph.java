@@ -0,0 +1,613 @@
+package com.codetalker.firestick.service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.codetalker.firestick.service.dto.DependencyEdge;
+import com.codetalker.firestick.service.dto.DependencyKind;
+
+/**
+ * Project-wide dependency graph with interned {@code int} node ids.
+ * <p>
+ * Edges are owned by the file that declares their source, stored as packed {@code long}s, and replaced
+ * a file at a time, so re-indexing one file never rebuilds the others' edges. Traversal runs over a
+ * {@link CsrGraph} derived lazily from the per-file edges on the first query after a change. All methods
+ * are thread-safe; per-file updates may run concurrently.
+ * <p>
+ * {@link #save} writes the CSR arrays, node names and per-file edges to one file; {@link #load} maps
+ * it back, so the arrays are used straight from the page cache without being rebuilt or copied.
+ */
+public final class CodeGraph {
+
+    private static final DependencyKind[] KINDS = DependencyKind.values();
+    // Packed edge layout: 30-bit source | 30-bit target | 4-bit kind ordinal.
+    private static final int MAX_NODES = 1 << 30;
+
+    private static final int MAGIC = 0x46534447; // "FSDG"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+
+    /** Edges and declared nodes contributed by one file. */
+    private record FileSlice(int[] declared, long[] edges) {}
+
+    /** CSR view of all file slices at one version. */
+    private record Snapshot(long version, CsrGraph csr, BitSet present) {}
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final List<String> names = new ArrayList<>();
+    // Changes publish a slice and bump the version together under this map's monitor, so a copy of the
+    // slices taken under it always matches the version read with it.
+    private final Map<String, FileSlice> files = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    // Warmed-up BFS work spaces, borrowed per query. A pool rather than a ThreadLocal: requests run on
+    // short-lived virtual threads, which would each allocate and then abandon their own.
+    private final BlockingQueue<CsrGraph.Traversal> traversals =
+            new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors() * 2);
+    private volatile Snapshot snapshot;
+
+    /**
+     * Return the id of a node name, assigning the next free id on first use. Ids are never reused.
+     */
+    public int intern(String name) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        synchronized (names) {
+            id = ids.get(name);
+            if (id == null) {
+                if (names.size() >= MAX_NODES) {
+                    throw new IllegalStateException("Dependency graph exceeds " + MAX_NODES + " nodes");
+                }
+                id = names.size();
+                names.add(name);
+                ids.put(name, id);
+            }
+            return id;
+        }
+    }
+
+    public OptionalInt idOf(String name) {
+        Integer id = ids.get(name);
+        return id == null ? OptionalInt.empty() : OptionalInt.of(id);
+    }
+
+    public String nameOf(int id) {
+        synchronized (names) {
+            return names.get(id);
+        }
+    }
+
+    /**
+     * Replace everything previously contributed by {@code path}.
+     */
+    public void replaceFile(String path, Collection<String> declared, Collection<DependencyEdge> edges) {
+        int[] declaredIds = declared.stream().mapToInt(this::intern).toArray();
+        long[] packed = new long[edges.size()];
+        int i = 0;
+        for (DependencyEdge edge : edges) {
+            packed[i++] = pack(intern(edge.source()), intern(edge.target()), edge.kind());
+        }
+        FileSlice slice = new FileSlice(declaredIds, packed);
+        synchronized (files) {
+            files.put(path, slice);
+            version.incrementAndGet();
+        }
+    }
+
+    public void removeFile(String path) {
+        synchronized (files) {
+            if (files.remove(path) != null) {
+                version.incrementAndGet();
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (files) {
+            files.clear();
+            version.incrementAndGet();
+        }
+    }
+
+    /** Counter bumped by every change; equal values mean the graph has not changed in between. */
+    public long version() {
+        return version.get();
+    }
+
+    public Set<String> files() {
+        return Set.copyOf(files.keySet());
+    }
+
+    /** Names of the classes and methods declared in a file. */
+    public List<String> declaredIn(String path) {
+        FileSlice slice = files.get(path);
+        if (slice == null) {
+            return List.of();
+        }
+        return Arrays.stream(slice.declared()).mapToObj(this::nameOf).toList();
+    }
+
+    /** Number of nodes that are declared or take part in at least one edge. */
+    public int nodeCount() {
+        return snapshot().present().cardinality();
+    }
+
+    /** Number of distinct (source, target) pairs. */
+    public long edgeCount() {
+        return snapshot().csr().edgeCount();
+    }
+
+    public boolean contains(String name) {
+        OptionalInt id = idOf(name);
+        return id.isPresent() && snapshot().present().get(id.getAsInt());
+    }
+
+    /**
+     * The current CSR form of the graph. It is immutable; later updates produce a new one.
+     */
+    public CsrGraph csr() {
+        return snapshot().csr();
+    }
+
+    /**
+     * JGraphT view of the current graph with node ids as vertices; see {@link #nameOf(int)}.
+     */
+    public CsrGraphView view() {
+        Snapshot s = snapshot();
+        return new CsrGraphView(s.csr(), s.present()::get);
+    }
+
+    /** Whether an id is declared or has at least one edge in the current graph. */
+    public boolean isPresent(int id) {
+        return snapshot().present().get(id);
+    }
+
+    /** Direct dependencies of a node with the kinds of each edge. */
+    public List<DependencyEdge> outgoing(String name) {
+        OptionalInt id = idOf(name);
+        if (id.isEmpty()) {
+            return List.of();
+        }
+        CsrGraph csr = csr();
+        int node = id.getAsInt();
+        List<DependencyEdge> result = new ArrayList<>();
+        for (int i = 0, degree = csr.outDegree(node); i < degree; i++) {
+            String target = nameOf(csr.outTarget(node, i));
+            int mask = csr.outKinds(node, i);
+            for (DependencyKind kind : KINDS) {
+                if ((mask & (1 << kind.ordinal())) != 0) {
+                    result.add(new DependencyEdge(name, target, kind));
+                }
+            }
+        }
+        return result;
+    }
+
+    /** Names of the direct dependencies ({@code forward}) or direct dependents of a node. */
+    public List<String> neighbours(String name, boolean forward) {
+        OptionalInt id = idOf(name);
+        if (id.isEmpty()) {
+            return List.of();
+        }
+        CsrGraph csr = csr();
+        int node = id.getAsInt();
+        List<String> result = new ArrayList<>();
+        if (forward) {
+            csr.forEachOut(node, v -> result.add(nameOf(v)));
+        } else {
+            csr.forEachIn(node, v -> result.add(nameOf(v)));
+        }
+        return result;
+    }
+
+    /**
+     * Breadth-first distances from the seeds, following edges forwards (dependencies) or backwards
+     * (dependents). Seeds themselves are not included.
+     *
+     * @param maxDepth Maximum hops; 0 or less for unbounded
+     */
+    public Map<String, Integer> reachable(Collection<String> seeds, boolean forward, int maxDepth) {
+        int[] seedIds = seeds.stream().map(this::idOf).filter(OptionalInt::isPresent).mapToInt(OptionalInt::getAsInt).toArray();
+        CsrGraph.Traversal scratch = traversals.poll();
+        if (scratch == null) {
+            scratch = new CsrGraph.Traversal();
+        }
+        try {
+            int reached = csr().traverse(seedIds, seedIds.length, forward, maxDepth, scratch);
+            Map<String, Integer> result = new LinkedHashMap<>();
+            for (int i = 0; i < reached; i++) {
+                result.put(nameOf(scratch.node(i)), scratch.depth(i));
+            }
+            return result;
+        } finally {
+            // Dropped when the pool is full, so a burst of queries leaves at most the pool's worth behind.
+            traversals.offer(scratch);
+        }
+    }
+
+    /**
+     * Strongly connected components with more than one node, found with an iterative Tarjan's algorithm
+     * so deep graphs cannot overflow the stack.
+     */
+    public List<List<String>> cycles() {
+        Snapshot s = snapshot();
+        CsrGraph csr = s.csr();
+        int n = csr.nodeCount();
+        int[] index = new int[n];
+        int[] low = new int[n];
+        Arrays.fill(index, -1);
+        boolean[] onStack = new boolean[n];
+        int[] stack = new int[n];
+        int stackSize = 0;
+        int[] callNode = new int[n];
+        int[] callEdge = new int[n];
+        int counter = 0;
+        List<List<String>> components = new ArrayList<>();
+        for (int root = 0; root < n; root++) {
+            if (index[root] >= 0 || !s.present().get(root)) {
+                continue;
+            }
+            int depth = 0;
+            callNode[0] = root;
+            callEdge[0] = 0;
+            index[root] = low[root] = counter++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+            while (depth >= 0) {
+                int v = callNode[depth];
+                if (callEdge[depth] < csr.outDegree(v)) {
+                    int w = csr.outTarget(v, callEdge[depth]++);
+                    if (index[w] < 0) {
+                        index[w] = low[w] = counter++;
+                        stack[stackSize++] = w;
+                        onStack[w] = true;
+                        depth++;
+                        callNode[depth] = w;
+                        callEdge[depth] = 0;
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], index[w]);
+                    }
+                    continue;
+                }
+                if (low[v] == index[v]) {
+                    List<String> component = new ArrayList<>();
+                    int w;
+                    do {
+                        w = stack[--stackSize];
+                        onStack[w] = false;
+                        component.add(nameOf(w));
+                    } while (w != v);
+                    if (component.size() > 1) {
+                        component.sort(null);
+                        components.add(component);
+                    }
+                }
+                depth--;
+                if (depth >= 0) {
+                    int parent = callNode[depth];
+                    low[parent] = Math.min(low[parent], low[v]);
+                }
+            }
+        }
+        return components;
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current != null && current.version() == version.get()) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (current == null || current.version() != version.get()) {
+                current = build();
+                snapshot = current;
+            }
+            return current;
+        }
+    }
+
+    private Snapshot build() {
+        // Copy the slices before reading the name count: every id in a slice was interned before the
+        // slice was published, so all of them are below n.
+        long atVersion;
+        List<FileSlice> slices;
+        int n;
+        synchronized (files) {
+            atVersion = version.get();
+            slices = new ArrayList<>(files.values());
+            synchronized (names) {
+                n = names.size();
+            }
+        }
+        return build(atVersion, slices, n);
+    }
+
+    private static Snapshot build(long atVersion, Collection<FileSlice> slices, int n) {
+        BitSet present = new BitSet(n);
+        int total = 0;
+        for (FileSlice slice : slices) {
+            total += slice.edges().length;
+            for (int id : slice.declared()) {
+                present.set(id);
+            }
+        }
+        long[] all = new long[total];
+        int pos = 0;
+        for (FileSlice slice : slices) {
+            System.arraycopy(slice.edges(), 0, all, pos, slice.edges().length);
+            pos += slice.edges().length;
+        }
+        Arrays.parallelSort(all);
+
+        // Sorted, so duplicates of a (source, target) pair are adjacent; their kinds merge into one mask.
+        // The collapsed pairs are written back into the front of the same array.
+        byte[] kinds = new byte[total];
+        int distinct = 0;
+        for (int i = 0; i < total; ) {
+            long pair = all[i] >>> 4;
+            int mask = 0;
+            int j = i;
+            while (j < total && (all[j] >>> 4) == pair) {
+                mask |= 1 << (all[j] & 0xF);
+                j++;
+            }
+            int s = source(all[i]);
+            int t = target(all[i]);
+            present.set(s);
+            present.set(t);
+            all[distinct] = ((long) s << 32) | t;
+            kinds[distinct++] = (byte) mask;
+            i = j;
+        }
+        return new Snapshot(atVersion, CsrGraph.fromSortedPairs(n, all, kinds, distinct), present);
+    }
+
+    // ---- persistence ----
+
+    /**
+     * Write the graph to {@code path}, replacing it atomically. Updates made while saving may or may
+     * not be included.
+     */
+    public void save(Path path) throws IOException {
+        Snapshot current = snapshot;
+        long atVersion;
+        Map<String, FileSlice> slices;
+        List<String> nodeNames;
+        synchronized (files) {
+            atVersion = version.get();
+            slices = new HashMap<>(files);
+            synchronized (names) {
+                nodeNames = new ArrayList<>(names);
+            }
+        }
+        // A snapshot at the copied version was built from exactly these slices, so its CSR can be reused;
+        // otherwise build one that matches them. Names interned since are past its node count and unused.
+        CsrGraph csr = current != null && current.version() == atVersion
+                ? current.csr()
+                : build(atVersion, slices.values(), nodeNames.size()).csr();
+        int n = csr.nodeCount();
+        int m = csr.edgeCount();
+        byte[][] encodedNames = new byte[n][];
+        int namesBytes = 0;
+        for (int i = 0; i < n; i++) {
+            encodedNames[i] = nodeNames.get(i).getBytes(StandardCharsets.UTF_8);
+            namesBytes += encodedNames[i].length;
+        }
+        long slicesOffset = slicesOffset(n, m, namesBytes);
+
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (OutputStream file = Files.newOutputStream(tmp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(n);
+            out.writeInt(m);
+            out.writeInt(slices.size());
+            out.writeInt(namesBytes);
+            out.writeLong(slicesOffset);
+            writeInts(out, csr.outOffsets());
+            writeInts(out, csr.outTargets());
+            writeInts(out, csr.inOffsets());
+            writeInts(out, csr.inSources());
+            int offset = 0;
+            out.writeInt(0);
+            for (byte[] name : encodedNames) {
+                offset += name.length;
+                out.writeInt(offset);
+            }
+            for (byte[] name : encodedNames) {
+                out.write(name);
+            }
+            pad(out, namesBytes);
+            ByteBuffer kinds = csr.outKindsBuffer();
+            while (kinds.hasRemaining()) {
+                out.writeByte(kinds.get());
+            }
+            pad(out, m);
+            for (Map.Entry<String, FileSlice> entry : slices.entrySet()) {
+                byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(key.length);
+                out.write(key);
+                out.writeInt(entry.getValue().declared().length);
+                for (int id : entry.getValue().declared()) {
+                    out.writeInt(id);
+                }
+                out.writeInt(entry.getValue().edges().length);
+                for (long edge : entry.getValue().edges()) {
+                    out.writeLong(edge);
+                }
+            }
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Replace the graph's contents with a file written by {@link #save}. The CSR arrays stay memory-mapped;
+     * node names and per-file edges are read onto the heap so lookups and incremental updates keep working.
+     */
+    public void load(Path path) throws IOException {
+        MappedByteBuffer buf;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Dependency graph file too large to map: " + path);
+            }
+            buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buf.limit() < HEADER_BYTES || buf.getInt(0) != MAGIC || buf.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Not a dependency graph file: " + path);
+        }
+        int n = buf.getInt(8);
+        int m = buf.getInt(12);
+        int fileCount = buf.getInt(16);
+        int namesBytes = buf.getInt(20);
+        long slicesOffset = buf.getLong(24);
+        if (slicesOffset != slicesOffset(n, m, namesBytes) || slicesOffset > buf.limit()) {
+            throw new IOException("Corrupt dependency graph file: " + path);
+        }
+
+        int pos = HEADER_BYTES;
+        IntBuffer outOffsets = ints(buf, pos, n + 1);
+        pos += (n + 1) * 4;
+        IntBuffer outTargets = ints(buf, pos, m);
+        pos += m * 4;
+        IntBuffer inOffsets = ints(buf, pos, n + 1);
+        pos += (n + 1) * 4;
+        IntBuffer inSources = ints(buf, pos, m);
+        pos += m * 4;
+        IntBuffer nameOffsets = ints(buf, pos, n + 1);
+        pos += (n + 1) * 4;
+        int namesStart = pos;
+        pos += align8(namesBytes);
+        ByteBuffer kinds = buf.slice(pos, m);
+        CsrGraph csr = new CsrGraph(n, m, outOffsets, outTargets, kinds, inOffsets, inSources);
+
+        List<String> loadedNames = new ArrayList<>(n);
+        byte[] scratch = new byte[64];
+        for (int i = 0; i < n; i++) {
+            int start = nameOffsets.get(i);
+            int length = nameOffsets.get(i + 1) - start;
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            buf.get(namesStart + start, scratch, 0, length);
+            loadedNames.add(new String(scratch, 0, length, StandardCharsets.UTF_8));
+        }
+        Map<String, FileSlice> loadedFiles = new HashMap<>(fileCount * 2);
+        ByteBuffer slices = buf.slice((int) slicesOffset, buf.limit() - (int) slicesOffset);
+        BitSet present = new BitSet(n);
+        for (int f = 0; f < fileCount; f++) {
+            byte[] key = new byte[slices.getInt()];
+            slices.get(key);
+            int[] declared = new int[slices.getInt()];
+            slices.asIntBuffer().get(declared);
+            slices.position(slices.position() + declared.length * 4);
+            long[] edges = new long[slices.getInt()];
+            slices.asLongBuffer().get(edges);
+            slices.position(slices.position() + edges.length * 8);
+            for (int id : declared) {
+                present.set(id);
+            }
+            loadedFiles.put(new String(key, StandardCharsets.UTF_8), new FileSlice(declared, edges));
+        }
+        for (int v = 0; v < n; v++) {
+            if (csr.outDegree(v) > 0 || csr.inDegree(v) > 0) {
+                present.set(v);
+            }
+        }
+
+        synchronized (this) {
+            synchronized (files) {
+                synchronized (names) {
+                    names.clear();
+                    ids.clear();
+                    names.addAll(loadedNames);
+                    for (int i = 0; i < n; i++) {
+                        ids.put(loadedNames.get(i), i);
+                    }
+                }
+                files.clear();
+                files.putAll(loadedFiles);
+                long v = version.incrementAndGet();
+                snapshot = new Snapshot(v, csr, present);
+            }
+        }
+    }
+
+    private static long slicesOffset(int n, int m, int namesBytes) {
+        return HEADER_BYTES + 3L * (n + 1) * 4 + 2L * m * 4 + align8(namesBytes) + align8(m);
+    }
+
+    private static int align8(int bytes) {
+        return (bytes + 7) & ~7;
+    }
+
+    private static IntBuffer ints(ByteBuffer buf, int offset, int count) {
+        return buf.slice(offset, count * 4).asIntBuffer();
+    }
+
+    private static void writeInts(DataOutputStream out, IntBuffer ints) throws IOException {
+        while (ints.hasRemaining()) {
+            out.writeInt(ints.get());
+        }
+    }
+
+    private static void pad(DataOutputStream out, int written) throws IOException {
+        for (int i = written; i < align8(written); i++) {
+            out.writeByte(0);
+        }
+    }
+
+    private static long pack(int source, int target, DependencyKind kind) {
+        return ((long) source << 34) | ((long) target << 4) | kind.ordinal();
+    }
+
+    private static int source(long packed) {
+        return (int) (packed >>> 34);
+    }
+
+    private static int target(long packed) {
+        return (int) ((packed >>> 4) & (MAX_NODES - 1));
+    }
+
+    /** Kinds encoded in a {@link CsrGraph#outKinds} mask. */
+    public static Set<DependencyKind> kindsOf(int mask) {
+        Set<DependencyKind> kinds = EnumSet.noneOf(DependencyKind.class);
+        for (DependencyKind kind : KINDS) {
+            if ((mask & (1 << kind.ordinal())) != 0) {
+                kinds.add(kind);
+            }
+        }
+        return kinds;
+    }
+}
@@ -1,23 +1,84 @@
 package com.codetalker.firestick.service;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.codetalker.firestick.model.CodeChunk;
+import com.codetalker.firestick.model.CodeFile;
+import com.codetalker.firestick.service.dto.ParseStats;
 import com.github.javaparser.JavaParser;
 import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParseStart;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.Providers;
 import com.github.javaparser.ast.CompilationUnit;
 
 /**
  * Service for parsing Java source code using JavaParser.
+ * <p>
+ * JavaParser instances are not thread-safe but are expensive to throw away, so parsers are borrowed
+ * from a bounded pool for the duration of one parse; concurrent callers never share or wait on an
+ * instance. Two configurations are pooled: the full one attributes comments to nodes (the chunker needs
+ * Javadoc), the structural one skips comment attribution for callers that only read declarations and
+ * references. Neither keeps lexical-preservation data.
+ * <p>
+ * Parse failures are counted in {@link #stats()} and reported as an empty result, never thrown.
  */
 @Service
 public class CodeParserService {
 
-    private final JavaParser javaParser;
+    private static final Logger log = LoggerFactory.getLogger(CodeParserService.class);
 
-    public CodeParserService() {
-        this.javaParser = new JavaParser();
+    private final ParserConfiguration fullConfiguration;
+    private final ParserConfiguration structuralConfiguration;
+    private final BlockingQueue<JavaParser> fullParsers;
+    private final BlockingQueue<JavaParser> structuralParsers;
+    private final CodeChunkingService codeChunkingService;
+    private final SourceFileReader sourceFileReader;
+
+    private final AtomicLong parsed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong chars = new AtomicLong();
+    private final AtomicLong parseNanos = new AtomicLong();
+
+    public CodeParserService(CodeChunkingService codeChunkingService,
+                             SourceFileReader sourceFileReader,
+                             @Value("${parser.language-level:JAVA_21}") String languageLevel,
+                             @Value("${parser.pool-size:0}") int poolSize) {
+        this.codeChunkingService = codeChunkingService;
+        this.sourceFileReader = sourceFileReader;
+        ParserConfiguration.LanguageLevel level = ParserConfiguration.LanguageLevel.valueOf(languageLevel.trim());
+        this.fullConfiguration = configuration(level, true);
+        this.structuralConfiguration = configuration(level, false);
+        int size = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors() * 2;
+        this.fullParsers = new ArrayBlockingQueue<>(size);
+        this.structuralParsers = new ArrayBlockingQueue<>(size);
+    }
+
+    private static ParserConfiguration configuration(ParserConfiguration.LanguageLevel level,
+                                                     boolean attributeComments) {
+        // Tokens stay stored: JavaParser derives every node position from them.
+        return new ParserConfiguration()
+                .setLanguageLevel(level)
+                .setAttributeComments(attributeComments)
+                .setLexicalPreservationEnabled(false)
+                .setCharacterEncoding(StandardCharsets.UTF_8);
     }
 
     /**
@@ -27,31 +88,78 @@ public class CodeParserService {
      * @return Optional containing the CompilationUnit if parsing succeeds
      */
     public Optional<CompilationUnit> parseJavaCode(String sourceCode) {
-        ParseResult<CompilationUnit> parseResult = javaParser.parse(sourceCode);
-        return parseResult.getResult();
+        return parse(new StringReader(sourceCode), sourceCode.length(), true);
+    }
+
+    /**
+     * Parse without attributing comments to nodes. Cheaper; use when only declarations, types and
+     * references are read from the tree.
+     */
+    public Optional<CompilationUnit> parseStructure(String sourceCode) {
+        return parse(new StringReader(sourceCode), sourceCode.length(), false);
+    }
+
+    /**
+     * Parse a Java file and return a CodeFile with extracted chunks.
+     * A file that is skipped by the {@link SourceFileReader} or does not parse is returned without chunks;
+     * parse failures are counted in {@link #stats()}.
+     *
+     * @param filePath Path to Java file
+     * @return CodeFile with chunks
+     * @throws UncheckedIOException if the file cannot be read
+     */
+    public CodeFile parseFile(String filePath) {
+        Path path = Path.of(filePath);
+        SourceFileReader.SourceFile source;
+        Instant lastModified;
+        try {
+            lastModified = Files.getLastModifiedTime(path).toInstant();
+            source = sourceFileReader.read(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read file: " + filePath, e);
+        }
+        CodeFile codeFile = new CodeFile(filePath, lastModified, source.digest());
+        codeFile.setSize(source.size());
+        if (source.isSkipped()) {
+            log.debug("Skipping {} ({})", filePath, source.skipped());
+            return codeFile;
+        }
+        String text = source.text();
+        parseJavaCode(text).ifPresent(cu -> {
+            List<CodeChunk> chunks = codeChunkingService.extractChunks(codeFile, cu, text);
+            codeFile.setChunks(chunks);
+        });
+        return codeFile;
     }
 
-        /**
-         * Parse a Java file and return a CodeFile with extracted chunks.
-         * @param filePath Path to Java file
-         * @return CodeFile with chunks
-         */
-        public com.codetalker.firestick.model.CodeFile parseFile(String filePath) {
-            try {
-                java.nio.file.Path path = java.nio.file.Path.of(filePath);
-                String source = java.nio.file.Files.readString(path);
-                java.time.Instant lastModified = java.nio.file.Files.getLastModifiedTime(path).toInstant();
-                String hash = Integer.toHexString(source.hashCode());
-                com.codetalker.firestick.model.CodeFile codeFile = new com.codetalker.firestick.model.CodeFile(filePath, lastModified, hash);
-                Optional<CompilationUnit> cuOpt = parseJavaCode(source);
-                if (cuOpt.isPresent()) {
-                    com.codetalker.firestick.service.CodeChunkingService chunker = new com.codetalker.firestick.service.CodeChunkingService();
-                    java.util.List<com.codetalker.firestick.model.CodeChunk> chunks = chunker.extractChunks(codeFile, cuOpt.get());
-                    codeFile.setChunks(chunks);
-                }
-                return codeFile;
-            } catch (Exception e) {
-                throw new RuntimeException("Failed to parse file: " + filePath, e);
+    public ParseStats stats() {
+        return new ParseStats(parsed.get(), failed.get(), chars.get(), parseNanos.get());
+    }
+
+    private Optional<CompilationUnit> parse(Reader source, int length, boolean attributeComments) {
+        BlockingQueue<JavaParser> pool = attributeComments ? fullParsers : structuralParsers;
+        JavaParser parser = pool.poll();
+        if (parser == null) {
+            parser = new JavaParser(attributeComments ? fullConfiguration : structuralConfiguration);
+        }
+        long start = System.nanoTime();
+        try {
+            ParseResult<CompilationUnit> result = parser.parse(ParseStart.COMPILATION_UNIT, Providers.provider(source));
+            chars.addAndGet(length);
+            if (result.isSuccessful() && result.getResult().isPresent()) {
+                parsed.incrementAndGet();
+                return result.getResult();
             }
+            failed.incrementAndGet();
+            if (log.isDebugEnabled()) {
+                log.debug("Parse failed with {} problem(s): {}", result.getProblems().size(),
+                        result.getProblems().isEmpty() ? "" : result.getProblem(0).getVerboseMessage());
+            }
+            return Optional.empty();
+        } finally {
+            parseNanos.addAndGet(System.nanoTime() - start);
+            // Full pool: let the extra instance go rather than block or grow without bound.
+            pool.offer(parser);
         }
+    }
 }
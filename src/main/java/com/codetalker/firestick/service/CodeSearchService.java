@@ -1,37 +1,241 @@
 package com.codetalker.firestick.service;
 
-import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.codecs.lucene912.Lucene912Codec;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.IntField;
+import org.apache.lucene.document.LongField;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
-import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.facet.FacetResult;
+import org.apache.lucene.facet.FacetsCollector;
+import org.apache.lucene.facet.FacetsCollectorManager;
+import org.apache.lucene.facet.LabelAndValue;
+import org.apache.lucene.facet.StringDocValuesReaderState;
+import org.apache.lucene.facet.StringValueFacetCounts;
+import org.apache.lucene.index.FieldInfos;
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.QueryTimeoutImpl;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
 import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.FieldDoc;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PrefixQuery;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.RegexpQuery;
 import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSelector;
+import org.apache.lucene.search.TermInSetQuery;
+import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.store.ByteBuffersDirectory;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.codetalker.firestick.model.CodeChunk;
+import com.codetalker.firestick.service.dto.KeywordHit;
+import com.codetalker.firestick.service.dto.KeywordPage;
+import com.codetalker.firestick.service.dto.KeywordQuery;
+import com.codetalker.firestick.service.dto.SearchFilters;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PreDestroy;
+
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Service for indexing and searching code using Apache Lucene.
+ * <p>
+ * A single {@link IndexWriter} is kept open for the lifetime of the service and searches go through a
+ * {@link SearcherManager}, so writes are batched into segments and readers are reopened near-real-time
+ * instead of per call. The index lives in an {@link MMapDirectory} under {@code search.index-path};
+ * when that is blank an in-memory directory is used instead. Write and search latencies are recorded
+ * as {@code firestick.lucene.index} and {@code firestick.lucene.search} timers.
+ * <p>
+ * Text is analyzed by {@link CodeAnalyzer}. Besides the full {@code content}, each chunk is indexed
+ * into targeted fields: {@code classes} and {@code methods} it declares, {@code identifiers},
+ * {@code comments}, {@code strings} and {@code package}. Queries search all of them with the per-field
+ * boosts in {@code search.field-boosts}, so a match on a declared name outranks one in a comment.
+ * Stored fields use the best-compression codec; file and line numbers are read from doc values.
+ * <p>
+ * Structured searches ({@link #search(KeywordQuery)}) apply their filters as non-scoring Lucene clauses,
+ * count facets from doc values over every match, page with {@code searchAfter} on (score, chunk id)
+ * so a deep page costs no more than the first, and stop at a per-query time limit with what they have.
  */
 @Service
 public class CodeSearchService {
 
+    private static final Logger log = LoggerFactory.getLogger(CodeSearchService.class);
+
+    static final String DEFAULT_FIELD_BOOSTS =
+            "classes^4,methods^3,identifiers^2,package^1.5,content^1,comments^0.7,strings^0.5";
+
+    // Bumped whenever analysis or fields change; an index written under another version needs a full reindex.
+    private static final String SCHEMA_KEY = "firestick.schema";
+    private static final String SCHEMA_VERSION = "3";
+
+    private static final Set<String> HIT_FIELDS =
+            Set.of("id", "file", "type", "startLine", "endLine", "content", "contentRef");
+
+    // Ties on score are broken by chunk id, which (unlike doc ids) is stable across refreshes and merges.
+    private static final Sort PAGE_SORT = new Sort(SortField.FIELD_SCORE,
+            LongField.newSortField("chunkId", false, SortedNumericSelector.Type.MIN));
+
+    private static final Map<String, String> FACET_FIELDS = Map.of("package", "packageName", "type", "type", "file", "file");
+
+    private static final int MAX_FACET_VALUES = 20;
+
     private final Directory directory;
-    private final StandardAnalyzer analyzer;
+    private final Analyzer queryAnalyzer = new CodeAnalyzer(false);
+    private final String[] searchFields;
+    private final Map<String, Float> boosts;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+    private final ScheduledExecutorService maintenance;
+    // Writes issued so far, and how many of them the current searcher is known to see.
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong visibleWrites = new AtomicLong();
+    private final Timer indexTimer;
+    private final Timer searchTimer;
+
+    /** Service with the default field boosts. */
+    public CodeSearchService(MeterRegistry meterRegistry, String indexPath, double ramBufferMb,
+                             long refreshIntervalMs, long commitIntervalMs) throws IOException {
+        this(meterRegistry, indexPath, ramBufferMb, refreshIntervalMs, commitIntervalMs, DEFAULT_FIELD_BOOSTS);
+    }
+
+    @Autowired
+    public CodeSearchService(
+            MeterRegistry meterRegistry,
+            @Value("${search.index-path:}") String indexPath,
+            @Value("${search.ram-buffer-mb:64}") double ramBufferMb,
+            @Value("${search.refresh-interval-ms:1000}") long refreshIntervalMs,
+            @Value("${search.commit-interval-ms:30000}") long commitIntervalMs,
+            @Value("${search.field-boosts:" + DEFAULT_FIELD_BOOSTS + "}") String fieldBoosts
+    ) throws IOException {
+        this.boosts = parseBoosts(fieldBoosts);
+        this.searchFields = boosts.keySet().toArray(String[]::new);
+        this.directory = openDirectory(indexPath);
+        IndexWriterConfig config = new IndexWriterConfig(new CodeAnalyzer(true))
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND)
+                .setRAMBufferSizeMB(ramBufferMb)
+                .setCodec(new Lucene912Codec(Lucene912Codec.Mode.BEST_COMPRESSION));
+        this.writer = new IndexWriter(directory, config);
+        checkSchema();
+        this.searcherManager = new SearcherManager(writer, null);
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "lucene-maintenance");
+            t.setDaemon(true);
+            return t;
+        });
+        if (refreshIntervalMs > 0) {
+            maintenance.scheduleWithFixedDelay(this::refreshQuietly, refreshIntervalMs, refreshIntervalMs, TimeUnit.MILLISECONDS);
+        }
+        if (commitIntervalMs > 0) {
+            maintenance.scheduleWithFixedDelay(this::commitQuietly, commitIntervalMs, commitIntervalMs, TimeUnit.MILLISECONDS);
+        }
+        this.indexTimer = Timer.builder("firestick.lucene.index")
+                .description("Lucene batch writes (add, update and delete)")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.searchTimer = Timer.builder("firestick.lucene.search")
+                .description("Lucene keyword searches, including stored-field loading")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("firestick.lucene.documents", writer, w -> w.isOpen() ? w.getDocStats().numDocs : 0)
+                .description("Live documents in the keyword index")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Parse {@code field^boost} pairs, comma separated; a field without {@code ^} gets boost 1. The
+     * {@code content} field is always searched.
+     */
+    static Map<String, Float> parseBoosts(String spec) {
+        Map<String, Float> boosts = new LinkedHashMap<>();
+        String value = spec == null || spec.isBlank() ? DEFAULT_FIELD_BOOSTS : spec;
+        for (String entry : value.split(",")) {
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int caret = trimmed.indexOf('^');
+            try {
+                boosts.put(caret < 0 ? trimmed : trimmed.substring(0, caret).trim(),
+                        caret < 0 ? 1f : Float.parseFloat(trimmed.substring(caret + 1).trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid search.field-boosts entry: " + trimmed, e);
+            }
+        }
+        boosts.putIfAbsent("content", 1f);
+        return boosts;
+    }
 
-    public CodeSearchService() {
-        this.directory = new ByteBuffersDirectory();
-        this.analyzer = new StandardAnalyzer();
+    private void checkSchema() {
+        Map<String, String> commitData = new LinkedHashMap<>();
+        Iterable<Map.Entry<String, String>> live = writer.getLiveCommitData();
+        if (live != null) {
+            live.forEach(e -> commitData.put(e.getKey(), e.getValue()));
+        }
+        if (writer.getDocStats().numDocs > 0 && !SCHEMA_VERSION.equals(commitData.get(SCHEMA_KEY))) {
+            log.warn("Keyword index was written with schema {} (current {}); run a FULL reindex so that "
+                    + "identifier splitting and per-field search apply to every file",
+                    commitData.getOrDefault(SCHEMA_KEY, "1"), SCHEMA_VERSION);
+        } else {
+            commitData.put(SCHEMA_KEY, SCHEMA_VERSION);
+        }
+        writer.setLiveCommitData(commitData.entrySet());
+    }
+
+    private static Directory openDirectory(String indexPath) throws IOException {
+        if (indexPath == null || indexPath.isBlank()) {
+            return new ByteBuffersDirectory();
+        }
+        Path path = Path.of(indexPath);
+        Files.createDirectories(path);
+        return new MMapDirectory(path);
     }
 
     /**
@@ -42,13 +246,119 @@ public class CodeSearchService {
      * @throws IOException if indexing fails
      */
     public void indexCode(String id, String content) throws IOException {
-        IndexWriterConfig config = new IndexWriterConfig(analyzer);
-        try (IndexWriter writer = new IndexWriter(directory, config)) {
+        Document doc = new Document();
+        doc.add(new TextField("id", id, Field.Store.YES));
+        doc.add(new TextField("content", content, Field.Store.YES));
+        long start = System.nanoTime();
+        writer.addDocument(doc);
+        writes.incrementAndGet();
+        indexTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Index a batch of code snippets in one writer session.
+     *
+     * @param snippets Snippet content keyed by id
+     * @throws IOException if indexing fails
+     */
+    public void indexCode(Map<String, String> snippets) throws IOException {
+        List<Document> docs = new ArrayList<>(snippets.size());
+        snippets.forEach((id, content) -> {
             Document doc = new Document();
             doc.add(new TextField("id", id, Field.Store.YES));
             doc.add(new TextField("content", content, Field.Store.YES));
-            writer.addDocument(doc);
+            docs.add(doc);
+        });
+        long start = System.nanoTime();
+        writer.addDocuments(docs);
+        writes.incrementAndGet();
+        indexTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Index a batch of persisted chunks in a single writer session. Any documents previously indexed
+     * for the same files are replaced atomically per file.
+     *
+     * @param chunks Chunks with assigned ids
+     * @throws IOException if indexing fails
+     */
+    public void indexChunks(Collection<CodeChunk> chunks) throws IOException {
+        if (chunks.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        Map<String, List<Document>> byFile = new LinkedHashMap<>();
+        for (CodeChunk chunk : chunks) {
+            String file = chunk.getFile().getFilePath();
+            Document doc = new Document();
+            doc.add(new TextField("id", String.valueOf(chunk.getId()), Field.Store.YES));
+            doc.add(new LongField("chunkId", chunk.getId(), Field.Store.NO));
+            doc.add(new StringField("file", file, Field.Store.NO));
+            doc.add(new SortedDocValuesField("file", new BytesRef(file)));
+            doc.add(new StringField("type", chunk.getType(), Field.Store.YES));
+            doc.add(new SortedDocValuesField("type", new BytesRef(chunk.getType())));
+            doc.add(new NumericDocValuesField("startLine", chunk.getStartLine()));
+            doc.add(new NumericDocValuesField("endLine", chunk.getEndLine()));
+            String packageName = chunk.getPackageName() == null ? "" : chunk.getPackageName();
+            doc.add(new StringField("packageName", packageName, Field.Store.NO));
+            doc.add(new SortedDocValuesField("packageName", new BytesRef(packageName)));
+            if (chunk.getFile().getLastModified() != null) {
+                doc.add(new LongField("modified", chunk.getFile().getLastModified().toEpochMilli(), Field.Store.NO));
+            }
+            if (chunk.getLanguageLevel() > 0) {
+                doc.add(new IntField("languageLevel", chunk.getLanguageLevel(), Field.Store.NO));
+            }
+            CodeFields fields = CodeFields.of(chunk.getContent());
+            addText(doc, "classes", join(chunk.getTypeName(), fields.classes));
+            addText(doc, "methods", join(chunk.getMemberName(), fields.methods));
+            addText(doc, "identifiers", fields.identifiers);
+            addText(doc, "comments", fields.comments);
+            addText(doc, "strings", fields.strings);
+            addText(doc, "package", chunk.getPackageName());
+            if (chunk.getContentRef() != null) {
+                // Text is served from the chunk store when a hit is rendered; the index keeps only its address.
+                doc.add(new TextField("content", chunk.getContent(), Field.Store.NO));
+                doc.add(new StoredField("contentRef", chunk.getContentRef()));
+            } else {
+                doc.add(new TextField("content", chunk.getContent(), Field.Store.YES));
+            }
+            byFile.computeIfAbsent(file, f -> new ArrayList<>()).add(doc);
         }
+        for (Map.Entry<String, List<Document>> entry : byFile.entrySet()) {
+            writer.updateDocuments(new Term("file", entry.getKey()), entry.getValue());
+        }
+        writes.incrementAndGet();
+        indexTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private static void addText(Document doc, String field, String text) {
+        if (text != null && !text.isBlank()) {
+            doc.add(new TextField(field, text, Field.Store.NO));
+        }
+    }
+
+    private static String join(String name, String names) {
+        if (name == null || name.isEmpty()) {
+            return names;
+        }
+        return names.isEmpty() ? name : name + " " + names;
+    }
+
+    /**
+     * Remove every document indexed for the given files.
+     *
+     * @param filePaths Paths as stored on {@code CodeFile}
+     * @throws IOException if the delete fails
+     */
+    public void deleteFiles(Collection<String> filePaths) throws IOException {
+        if (filePaths.isEmpty()) {
+            return;
+        }
+        Term[] terms = filePaths.stream().map(file -> new Term("file", file)).toArray(Term[]::new);
+        long start = System.nanoTime();
+        writer.deleteDocuments(terms);
+        writes.incrementAndGet();
+        indexTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
     }
 
     /**
@@ -59,20 +369,359 @@ public class CodeSearchService {
      * @throws Exception if search fails
      */
     public List<String> searchCode(String queryString) throws Exception {
+        return searchCode(queryString, 10);
+    }
+
+    /**
+     * Search for code snippets.
+     *
+     * @param queryString The search query
+     * @param limit Maximum number of ids to return
+     * @return List of matching document IDs, best first
+     * @throws Exception if search fails
+     */
+    public List<String> searchCode(String queryString, int limit) throws Exception {
         List<String> results = new ArrayList<>();
-        
-        try (DirectoryReader reader = DirectoryReader.open(directory)) {
-            IndexSearcher searcher = new IndexSearcher(reader);
-            QueryParser parser = new QueryParser("content", analyzer);
-            Query query = parser.parse(queryString);
-            
-            TopDocs topDocs = searcher.search(query, 10);
+        Query query = parser().parse(queryString);
+
+        long start = System.nanoTime();
+        refreshIfStale();
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            TopDocs topDocs = searcher.search(query, limit);
             for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
-                Document doc = searcher.doc(scoreDoc.doc);
+                Document doc = searcher.storedFields().document(scoreDoc.doc, Set.of("id"));
                 results.add(doc.get("id"));
             }
+        } finally {
+            searcherManager.release(searcher);
+            searchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
-        
+
         return results;
     }
+
+    /**
+     * Scored search returning the stored location and content of each hit. Queries that are not valid
+     * Lucene syntax are searched as plain text.
+     *
+     * @param queryString The search query
+     * @param topK Maximum number of hits
+     * @return Hits, best first
+     * @throws IOException if the search fails
+     */
+    public List<KeywordHit> searchChunks(String queryString, int topK) throws IOException {
+        return search(new KeywordQuery(queryString, null, null, null, topK, 0)).hits();
+    }
+
+    /**
+     * Structured search: one page of hits with filters, facets, a cursor and a time limit.
+     *
+     * @throws IllegalArgumentException for an unknown facet dimension or a malformed cursor
+     * @throws IOException              if the search fails
+     */
+    public KeywordPage search(KeywordQuery request) throws IOException {
+        Query query = parseLenient(request.query());
+        if (request.filters() != null && !request.filters().isEmpty()) {
+            query = new BooleanQuery.Builder()
+                    .add(query, Occur.MUST)
+                    .add(filterQuery(request.filters()), Occur.FILTER)
+                    .build();
+        }
+        List<String> dims = request.facets() == null ? List.of() : request.facets();
+        dims.forEach(CodeSearchService::facetField);
+        int size = Math.max(1, request.size());
+        long start = System.nanoTime();
+        refreshIfStale();
+        IndexSearcher shared = searcherManager.acquire();
+        try {
+            IndexSearcher searcher = shared;
+            if (request.timeoutMillis() > 0) {
+                // The shared searcher must not carry one query's timeout; a wrapper over the same reader is cheap.
+                searcher = new IndexSearcher(shared.getIndexReader());
+                searcher.setTimeout(new QueryTimeoutImpl(request.timeoutMillis()));
+            }
+            FieldDoc after = decodeCursor(request.after(), searcher.getIndexReader().maxDoc());
+            TopDocs topDocs;
+            Map<String, Map<String, Long>> facets = new LinkedHashMap<>();
+            if (dims.isEmpty()) {
+                topDocs = searcher.searchAfter(after, query, size, PAGE_SORT, true);
+            } else {
+                FacetsCollectorManager.FacetsResult result = FacetsCollectorManager.searchAfter(
+                        searcher, after, query, size, PAGE_SORT, true, new FacetsCollectorManager());
+                topDocs = result.topDocs();
+                for (String dim : dims) {
+                    facets.put(dim, facetCounts(searcher.getIndexReader(), facetField(dim), result.facetsCollector()));
+                }
+            }
+            ScoreDoc[] scoreDocs = topDocs.scoreDocs;
+            String next = scoreDocs.length == size ? encodeCursor((FieldDoc) scoreDocs[scoreDocs.length - 1]) : null;
+            return new KeywordPage(hits(searcher, scoreDocs), topDocs.totalHits.value, facets, next, searcher.timedOut());
+        } finally {
+            searcherManager.release(shared);
+            searchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Keep the chunk ids that pass the filters, for hits found outside Lucene (vector matches).
+     *
+     * @throws IOException if the search fails
+     */
+    public Set<String> filterIds(SearchFilters filters, Collection<String> ids) throws IOException {
+        if (filters == null || filters.isEmpty() || ids.isEmpty()) {
+            return new HashSet<>(ids);
+        }
+        long[] chunkIds = ids.stream().filter(id -> id.chars().allMatch(Character::isDigit) && !id.isEmpty())
+                .mapToLong(Long::parseLong).toArray();
+        Query query = new BooleanQuery.Builder()
+                .add(LongField.newSetQuery("chunkId", chunkIds), Occur.FILTER)
+                .add(filterQuery(filters), Occur.FILTER)
+                .build();
+        refreshIfStale();
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            Set<String> kept = new HashSet<>();
+            for (ScoreDoc scoreDoc : searcher.search(query, Math.max(1, chunkIds.length)).scoreDocs) {
+                kept.add(searcher.storedFields().document(scoreDoc.doc, Set.of("id")).get("id"));
+            }
+            return kept;
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    /** Non-scoring clauses for every filter that is set. */
+    static Query filterQuery(SearchFilters filters) {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        if (filters.packagePrefix() != null && !filters.packagePrefix().isBlank()) {
+            String prefix = filters.packagePrefix().trim();
+            prefix = prefix.endsWith(".") ? prefix.substring(0, prefix.length() - 1) : prefix;
+            builder.add(new BooleanQuery.Builder()
+                    .add(new TermQuery(new Term("packageName", prefix)), Occur.SHOULD)
+                    .add(new PrefixQuery(new Term("packageName", prefix + ".")), Occur.SHOULD)
+                    .build(), Occur.FILTER);
+        }
+        if (filters.fileGlob() != null && !filters.fileGlob().isBlank()) {
+            builder.add(new RegexpQuery(new Term("file", globToRegexp(filters.fileGlob().trim()))), Occur.FILTER);
+        }
+        if (filters.types() != null && !filters.types().isEmpty()) {
+            builder.add(new TermInSetQuery("type", filters.types().stream().map(BytesRef::new).toList()), Occur.FILTER);
+        }
+        if (filters.modifiedSince() != null) {
+            builder.add(LongField.newRangeQuery("modified", filters.modifiedSince().toEpochMilli(), Long.MAX_VALUE),
+                    Occur.FILTER);
+        }
+        if (filters.languageLevel() != null) {
+            builder.add(IntField.newRangeQuery("languageLevel", 0, filters.languageLevel()), Occur.FILTER);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Translate a path glob into a Lucene regular expression: {@code *} and {@code ?} stop at {@code /},
+     * {@code **} does not, and a relative glob may start at any directory.
+     */
+    static String globToRegexp(String glob) {
+        StringBuilder regexp = new StringBuilder(glob.length() + 16);
+        if (!glob.startsWith("/")) {
+            regexp.append("(.*/)?");
+        }
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*' && i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                i++;
+                if (i + 1 < glob.length() && glob.charAt(i + 1) == '/') {
+                    i++;
+                    regexp.append("(.*/)?");
+                } else {
+                    regexp.append(".*");
+                }
+            } else if (c == '*') {
+                regexp.append("[^/]*");
+            } else if (c == '?') {
+                regexp.append("[^/]");
+            } else if (Character.isLetterOrDigit(c)) {
+                regexp.append(c);
+            } else {
+                regexp.append('\\').append(c);
+            }
+        }
+        return regexp.toString();
+    }
+
+    private static String facetField(String dim) {
+        String field = FACET_FIELDS.get(dim);
+        if (field == null) {
+            throw new IllegalArgumentException("Unknown facet " + dim + "; expected one of " + FACET_FIELDS.keySet());
+        }
+        return field;
+    }
+
+    private static Map<String, Long> facetCounts(IndexReader reader, String field, FacetsCollector hits)
+            throws IOException {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        if (FieldInfos.getMergedFieldInfos(reader).fieldInfo(field) == null) {
+            return counts;
+        }
+        StringValueFacetCounts facets = new StringValueFacetCounts(new StringDocValuesReaderState(reader, field), hits);
+        FacetResult result = facets.getTopChildren(MAX_FACET_VALUES, field);
+        if (result != null) {
+            for (LabelAndValue value : result.labelValues) {
+                counts.put(value.label, value.value.longValue());
+            }
+        }
+        return counts;
+    }
+
+    private static String encodeCursor(FieldDoc last) {
+        String position = last.fields[0] + ":" + last.fields[1];
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The cursor carries the last hit's score and chunk id. Its doc id is set past every document, so a
+     * hit tying on both is treated as already returned whichever reader the next page runs on.
+     */
+    private static FieldDoc decodeCursor(String cursor, int maxDoc) {
+        if (cursor == null || cursor.isBlank() || maxDoc == 0) {
+            return null;
+        }
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int colon = position.indexOf(':');
+            float score = Float.parseFloat(position.substring(0, colon));
+            long chunkId = Long.parseLong(position.substring(colon + 1));
+            return new FieldDoc(maxDoc - 1, score, new Object[] {score, chunkId});
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Malformed search cursor", e);
+        }
+    }
+
+    private static List<KeywordHit> hits(IndexSearcher searcher, ScoreDoc[] scoreDocs) throws IOException {
+        List<KeywordHit> hits = new ArrayList<>(scoreDocs.length);
+        List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+        for (ScoreDoc scoreDoc : scoreDocs) {
+            Document doc = searcher.storedFields().document(scoreDoc.doc, HIT_FIELDS);
+            LeafReaderContext leaf = leaves.get(ReaderUtil.subIndex(scoreDoc.doc, leaves));
+            int leafDoc = scoreDoc.doc - leaf.docBase;
+            hits.add(new KeywordHit(doc.get("id"), scoreDoc.score, file(leaf, leafDoc, doc), doc.get("type"),
+                    line(leaf, leafDoc, doc, "startLine"), line(leaf, leafDoc, doc, "endLine"),
+                    doc.get("content"), longField(doc, "contentRef")));
+        }
+        return hits;
+    }
+
+    // Documents written before doc values were added keep file and lines as stored fields.
+    private static String file(LeafReaderContext leaf, int leafDoc, Document doc) throws IOException {
+        SortedDocValues files = leaf.reader().getSortedDocValues("file");
+        if (files != null && files.advanceExact(leafDoc)) {
+            return files.lookupOrd(files.ordValue()).utf8ToString();
+        }
+        return doc.get("file");
+    }
+
+    private static int line(LeafReaderContext leaf, int leafDoc, Document doc, String field) throws IOException {
+        NumericDocValues lines = leaf.reader().getNumericDocValues(field);
+        if (lines != null && lines.advanceExact(leafDoc)) {
+            return (int) lines.longValue();
+        }
+        return intField(doc, field);
+    }
+
+    private QueryParser parser() {
+        return new MultiFieldQueryParser(searchFields, queryAnalyzer, boosts);
+    }
+
+    private Query parseLenient(String queryString) {
+        QueryParser parser = parser();
+        try {
+            return parser.parse(queryString);
+        } catch (ParseException e) {
+            try {
+                return parser.parse(QueryParser.escape(queryString));
+            } catch (ParseException escaped) {
+                throw new IllegalArgumentException("Unsearchable query: " + queryString, escaped);
+            }
+        }
+    }
+
+    private static Long longField(Document doc, String name) {
+        IndexableField field = doc.getField(name);
+        return field == null || field.numericValue() == null ? null : field.numericValue().longValue();
+    }
+
+    private static int intField(Document doc, String name) {
+        IndexableField field = doc.getField(name);
+        return field == null || field.numericValue() == null ? 0 : field.numericValue().intValue();
+    }
+
+    /**
+     * Make all writes so far visible to searches.
+     */
+    public void refresh() throws IOException {
+        long target = writes.get();
+        searcherManager.maybeRefreshBlocking();
+        visibleWrites.accumulateAndGet(target, Math::max);
+    }
+
+    /**
+     * Counter of writes (adds, replacements, deletes) issued so far. A search run after reading it sees
+     * at least those writes, so its results may be reused until the counter moves.
+     */
+    public long generation() {
+        return writes.get();
+    }
+
+    /** Whether the index writer is open; false once closed or after a tragic write failure. */
+    public boolean isOpen() {
+        return writer.isOpen();
+    }
+
+    /**
+     * Durably commit all writes so far. Uncommitted writes are searchable but lost on a crash.
+     */
+    public void commit() throws IOException {
+        if (writer.hasUncommittedChanges()) {
+            writer.commit();
+        }
+    }
+
+    // Read-your-writes: a search issued after an index call sees it without waiting for the next
+    // scheduled refresh. Under a steady write load the scheduled refresh keeps this a no-op. A write only
+    // counts as visible once a reopen that started after it has finished, so a search never slips past
+    // a refresh that is still in progress.
+    private void refreshIfStale() throws IOException {
+        if (visibleWrites.get() < writes.get()) {
+            refresh();
+        }
+    }
+
+    private void refreshQuietly() {
+        try {
+            refreshIfStale();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Lucene searcher refresh failed", e);
+        }
+    }
+
+    private void commitQuietly() {
+        try {
+            commit();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Lucene commit failed", e);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        maintenance.shutdownNow();
+        try {
+            commit();
+        } finally {
+            searcherManager.close();
+            writer.close();
+            directory.close();
+        }
+    }
 }
@@ -0,0 +1,220 @@
+package com.codetalker.firestick.service;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable directed graph over int node ids in compressed sparse row form, indexed in both directions.
+ * <p>
+ * {@code outOffsets[v] .. outOffsets[v + 1]} delimit v's targets in {@code outTargets}, sorted ascending,
+ * with a parallel byte of dependency-kind bits per edge; {@code in*} mirror this for predecessors. The
+ * arrays are {@link IntBuffer}s so they can live on the heap or in a memory-mapped file alike. Lookups
+ * and {@link #traverse traversals} do not allocate.
+ */
+public final class CsrGraph {
+
+    private final int nodeCount;
+    private final int edgeCount;
+    private final IntBuffer outOffsets;
+    private final IntBuffer outTargets;
+    private final ByteBuffer outKinds;
+    private final IntBuffer inOffsets;
+    private final IntBuffer inSources;
+
+    CsrGraph(int nodeCount, int edgeCount, IntBuffer outOffsets, IntBuffer outTargets, ByteBuffer outKinds,
+             IntBuffer inOffsets, IntBuffer inSources) {
+        this.nodeCount = nodeCount;
+        this.edgeCount = edgeCount;
+        this.outOffsets = outOffsets;
+        this.outTargets = outTargets;
+        this.outKinds = outKinds;
+        this.inOffsets = inOffsets;
+        this.inSources = inSources;
+    }
+
+    /**
+     * Build from (source, target) pairs packed as {@code source << 32 | target}, sorted ascending and
+     * without duplicates, with the kind bits of each pair in {@code kinds}.
+     */
+    static CsrGraph fromSortedPairs(int nodeCount, long[] pairs, byte[] kinds, int edgeCount) {
+        int[] outOffsets = new int[nodeCount + 1];
+        int[] inOffsets = new int[nodeCount + 1];
+        for (int i = 0; i < edgeCount; i++) {
+            outOffsets[(int) (pairs[i] >>> 32) + 1]++;
+            inOffsets[(int) pairs[i] + 1]++;
+        }
+        for (int v = 0; v < nodeCount; v++) {
+            outOffsets[v + 1] += outOffsets[v];
+            inOffsets[v + 1] += inOffsets[v];
+        }
+        int[] outTargets = new int[edgeCount];
+        int[] inSources = new int[edgeCount];
+        int[] inFill = Arrays.copyOf(inOffsets, nodeCount);
+        for (int i = 0; i < edgeCount; i++) {
+            int source = (int) (pairs[i] >>> 32);
+            int target = (int) pairs[i];
+            // Pairs are sorted by source then target, so row i of out is filled in order.
+            outTargets[i] = target;
+            // Sources arrive in ascending order too, so each in-row ends up sorted.
+            inSources[inFill[target]++] = source;
+        }
+        return new CsrGraph(nodeCount, edgeCount, IntBuffer.wrap(outOffsets), IntBuffer.wrap(outTargets),
+                ByteBuffer.wrap(Arrays.copyOf(kinds, edgeCount)), IntBuffer.wrap(inOffsets), IntBuffer.wrap(inSources));
+    }
+
+    public int nodeCount() { return nodeCount; }
+    public int edgeCount() { return edgeCount; }
+
+    public int outDegree(int v) {
+        return v < nodeCount ? outOffsets.get(v + 1) - outOffsets.get(v) : 0;
+    }
+
+    public int inDegree(int v) {
+        return v < nodeCount ? inOffsets.get(v + 1) - inOffsets.get(v) : 0;
+    }
+
+    /** The i-th target of v, in ascending id order. */
+    public int outTarget(int v, int i) {
+        return outTargets.get(outOffsets.get(v) + i);
+    }
+
+    /** Bit set of {@code DependencyKind} ordinals on the i-th out-edge of v. */
+    public int outKinds(int v, int i) {
+        return outKinds.get(outOffsets.get(v) + i) & 0xFF;
+    }
+
+    /** The i-th source pointing at v, in ascending id order. */
+    public int inSource(int v, int i) {
+        return inSources.get(inOffsets.get(v) + i);
+    }
+
+    public void forEachOut(int v, IntConsumer action) {
+        if (v >= nodeCount) {
+            return;
+        }
+        for (int i = outOffsets.get(v), end = outOffsets.get(v + 1); i < end; i++) {
+            action.accept(outTargets.get(i));
+        }
+    }
+
+    public void forEachIn(int v, IntConsumer action) {
+        if (v >= nodeCount) {
+            return;
+        }
+        for (int i = inOffsets.get(v), end = inOffsets.get(v + 1); i < end; i++) {
+            action.accept(inSources.get(i));
+        }
+    }
+
+    /** Binary search of v's sorted out-row; -1 when there is no edge v → target. */
+    public int indexOfEdge(int v, int target) {
+        if (v >= nodeCount) {
+            return -1;
+        }
+        int lo = outOffsets.get(v);
+        int hi = outOffsets.get(v + 1) - 1;
+        int base = lo;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int t = outTargets.get(mid);
+            if (t < target) {
+                lo = mid + 1;
+            } else if (t > target) {
+                hi = mid - 1;
+            } else {
+                return mid - base;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Breadth-first traversal from the seeds. Visited nodes (seeds excluded) are left in
+     * {@code scratch.nodes[0 .. count)} in BFS order with their hop counts in {@code scratch.depths}.
+     *
+     * @param forward  Follow out-edges (dependencies) or in-edges (dependents)
+     * @param maxDepth Maximum hops; 0 or less for unbounded
+     * @return Number of nodes reached
+     */
+    public int traverse(int[] seeds, int seedCount, boolean forward, int maxDepth, Traversal scratch) {
+        scratch.reset(nodeCount);
+        IntBuffer offsets = forward ? outOffsets : inOffsets;
+        IntBuffer adjacency = forward ? outTargets : inSources;
+        int[] queue = scratch.queue;
+        int[] queueDepth = scratch.queueDepth;
+        int head = 0;
+        int tail = 0;
+        for (int i = 0; i < seedCount; i++) {
+            int seed = seeds[i];
+            if (seed < nodeCount && scratch.mark(seed)) {
+                queue[tail] = seed;
+                queueDepth[tail++] = 0;
+            }
+        }
+        int reached = 0;
+        while (head < tail) {
+            int v = queue[head];
+            int depth = queueDepth[head++];
+            if (maxDepth > 0 && depth >= maxDepth) {
+                continue;
+            }
+            for (int i = offsets.get(v), end = offsets.get(v + 1); i < end; i++) {
+                int next = adjacency.get(i);
+                if (scratch.mark(next)) {
+                    queue[tail] = next;
+                    queueDepth[tail++] = depth + 1;
+                    scratch.nodes[reached] = next;
+                    scratch.depths[reached++] = depth + 1;
+                }
+            }
+        }
+        return reached;
+    }
+
+    IntBuffer outOffsets() { return outOffsets.duplicate(); }
+    IntBuffer outTargets() { return outTargets.duplicate(); }
+    ByteBuffer outKindsBuffer() { return outKinds.duplicate(); }
+    IntBuffer inOffsets() { return inOffsets.duplicate(); }
+    IntBuffer inSources() { return inSources.duplicate(); }
+
+    /**
+     * Reusable BFS work space. Visited marks use an epoch counter, so resetting between traversals is O(1)
+     * and a warmed-up instance never allocates. Not thread-safe; use one per traversal at a time.
+     */
+    public static final class Traversal {
+        int[] queue = new int[0];
+        int[] queueDepth = new int[0];
+        int[] nodes = new int[0];
+        int[] depths = new int[0];
+        private int[] stamps = new int[0];
+        private int epoch;
+
+        public int node(int i) { return nodes[i]; }
+        public int depth(int i) { return depths[i]; }
+
+        void reset(int nodeCount) {
+            if (stamps.length < nodeCount) {
+                stamps = new int[nodeCount];
+                queue = new int[nodeCount];
+                queueDepth = new int[nodeCount];
+                nodes = new int[nodeCount];
+                depths = new int[nodeCount];
+                epoch = 0;
+            }
+            if (++epoch == Integer.MAX_VALUE) {
+                Arrays.fill(stamps, 0);
+                epoch = 1;
+            }
+        }
+
+        boolean mark(int v) {
+            if (stamps[v] == epoch) {
+                return false;
+            }
+            stamps[v] = epoch;
+            return true;
+        }
+    }
+}
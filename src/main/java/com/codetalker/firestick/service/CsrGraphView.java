@@ -0,0 +1,318 @@
+package com.codetalker.firestick.service;
+
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+
+import org.jgrapht.GraphType;
+import org.jgrapht.graph.AbstractGraph;
+import org.jgrapht.graph.DefaultGraphType;
+
+/**
+ * Read-only JGraphT view of a {@link CsrGraph}, so existing JGraphT algorithms can run on the compact
+ * graph without copying it. Vertices are node ids; edges are materialised as small {@link IntEdge}
+ * values on demand. Every mutating method throws {@link UnsupportedOperationException}.
+ */
+public class CsrGraphView extends AbstractGraph<Integer, CsrGraphView.IntEdge> {
+
+    /** A directed edge between two node ids. */
+    public record IntEdge(int source, int target) {}
+
+    private static final GraphType TYPE = new DefaultGraphType.Builder()
+            .directed().allowMultipleEdges(false).allowSelfLoops(false).weighted(false).modifiable(false)
+            .build();
+
+    private final CsrGraph csr;
+    private final IntPredicate present;
+    private final int vertexCount;
+
+    /**
+     * @param present Which ids are vertices of the view; ids outside {@code [0, csr.nodeCount())} never are
+     */
+    public CsrGraphView(CsrGraph csr, IntPredicate present) {
+        this.csr = csr;
+        this.present = present;
+        int count = 0;
+        for (int v = 0; v < csr.nodeCount(); v++) {
+            if (present.test(v)) {
+                count++;
+            }
+        }
+        this.vertexCount = count;
+    }
+
+    @Override
+    public Set<IntEdge> getAllEdges(Integer sourceVertex, Integer targetVertex) {
+        if (!containsVertex(sourceVertex) || !containsVertex(targetVertex)) {
+            return null;
+        }
+        IntEdge edge = getEdge(sourceVertex, targetVertex);
+        return edge == null ? Collections.emptySet() : Collections.singleton(edge);
+    }
+
+    @Override
+    public IntEdge getEdge(Integer sourceVertex, Integer targetVertex) {
+        if (!containsVertex(sourceVertex) || !containsVertex(targetVertex)) {
+            return null;
+        }
+        return csr.indexOfEdge(sourceVertex, targetVertex) >= 0 ? new IntEdge(sourceVertex, targetVertex) : null;
+    }
+
+    @Override
+    public boolean containsEdge(IntEdge e) {
+        return e != null && containsVertex(e.source()) && csr.indexOfEdge(e.source(), e.target()) >= 0;
+    }
+
+    @Override
+    public boolean containsVertex(Integer v) {
+        return v != null && v >= 0 && v < csr.nodeCount() && present.test(v);
+    }
+
+    @Override
+    public Set<Integer> vertexSet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Integer> iterator() {
+                return new Iterator<>() {
+                    private int next = advance(0);
+
+                    private int advance(int from) {
+                        int v = from;
+                        while (v < csr.nodeCount() && !present.test(v)) {
+                            v++;
+                        }
+                        return v;
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < csr.nodeCount();
+                    }
+
+                    @Override
+                    public Integer next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        int v = next;
+                        next = advance(v + 1);
+                        return v;
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof Integer v && containsVertex(v);
+            }
+
+            @Override
+            public int size() {
+                return vertexCount;
+            }
+        };
+    }
+
+    @Override
+    public Set<IntEdge> edgeSet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<IntEdge> iterator() {
+                return new Iterator<>() {
+                    private int vertex = 0;
+                    private int index = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        while (vertex < csr.nodeCount() && index >= csr.outDegree(vertex)) {
+                            vertex++;
+                            index = 0;
+                        }
+                        return vertex < csr.nodeCount();
+                    }
+
+                    @Override
+                    public IntEdge next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        return new IntEdge(vertex, csr.outTarget(vertex, index++));
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof IntEdge e && containsEdge(e);
+            }
+
+            @Override
+            public int size() {
+                return csr.edgeCount();
+            }
+        };
+    }
+
+    @Override
+    public int degreeOf(Integer vertex) {
+        return inDegreeOf(vertex) + outDegreeOf(vertex);
+    }
+
+    @Override
+    public Set<IntEdge> edgesOf(Integer vertex) {
+        Set<IntEdge> edges = new LinkedHashSet<>(incomingEdgesOf(vertex));
+        edges.addAll(outgoingEdgesOf(vertex));
+        return edges;
+    }
+
+    @Override
+    public int inDegreeOf(Integer vertex) {
+        assertVertexExist(vertex);
+        return csr.inDegree(vertex);
+    }
+
+    @Override
+    public Set<IntEdge> incomingEdgesOf(Integer vertex) {
+        assertVertexExist(vertex);
+        int v = vertex;
+        return new RowSet(csr.inDegree(v)) {
+            @Override
+            IntEdge edge(int i) {
+                return new IntEdge(csr.inSource(v, i), v);
+            }
+        };
+    }
+
+    @Override
+    public int outDegreeOf(Integer vertex) {
+        assertVertexExist(vertex);
+        return csr.outDegree(vertex);
+    }
+
+    @Override
+    public Set<IntEdge> outgoingEdgesOf(Integer vertex) {
+        assertVertexExist(vertex);
+        int v = vertex;
+        return new RowSet(csr.outDegree(v)) {
+            @Override
+            IntEdge edge(int i) {
+                return new IntEdge(v, csr.outTarget(v, i));
+            }
+        };
+    }
+
+    @Override
+    public Integer getEdgeSource(IntEdge e) {
+        return e.source();
+    }
+
+    @Override
+    public Integer getEdgeTarget(IntEdge e) {
+        return e.target();
+    }
+
+    @Override
+    public GraphType getType() {
+        return TYPE;
+    }
+
+    @Override
+    public double getEdgeWeight(IntEdge e) {
+        return DEFAULT_EDGE_WEIGHT;
+    }
+
+    @Override
+    public Supplier<Integer> getVertexSupplier() {
+        return null;
+    }
+
+    @Override
+    public Supplier<IntEdge> getEdgeSupplier() {
+        return null;
+    }
+
+    @Override
+    public IntEdge addEdge(Integer sourceVertex, Integer targetVertex) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean addEdge(Integer sourceVertex, Integer targetVertex, IntEdge e) {
+        throw readOnly();
+    }
+
+    @Override
+    public Integer addVertex() {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean addVertex(Integer v) {
+        throw readOnly();
+    }
+
+    @Override
+    public IntEdge removeEdge(Integer sourceVertex, Integer targetVertex) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean removeEdge(IntEdge e) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean removeVertex(Integer v) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setEdgeWeight(IntEdge e, double weight) {
+        throw readOnly();
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("CSR graph view is read-only");
+    }
+
+    /** One adjacency row exposed as a set without copying it. */
+    private abstract static class RowSet extends AbstractSet<IntEdge> {
+        private final int size;
+
+        RowSet(int size) {
+            this.size = size;
+        }
+
+        abstract IntEdge edge(int i);
+
+        @Override
+        public Iterator<IntEdge> iterator() {
+            return new Iterator<>() {
+                private int i = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return i < size;
+                }
+
+                @Override
+                public IntEdge next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return edge(i++);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package com.codetalker.firestick.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import com.codetalker.firestick.service.dto.DependencyEdge;
+import com.codetalker.firestick.service.dto.DependencyKind;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.CallableDeclaration;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.ConstructorDeclaration;
+import com.github.javaparser.ast.body.EnumDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.body.RecordDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.FieldAccessExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.ast.type.Type;
+import com.github.javaparser.ast.type.TypeParameter;
+
+/**
+ * Extracts the declared classes and methods of one compilation unit and the dependencies they have on
+ * other classes and methods.
+ * <p>
+ * Names are resolved syntactically: single-type imports, types declared in the same file, a fixed set of
+ * {@code java.lang} types, and otherwise the file's own package. Method calls are attributed when the
+ * receiver's type is known from a parameter, local variable or field, or is {@code this}/{@code super}
+ * or a type name; calls on arbitrary expressions are not resolved. Overloads share one method node.
+ */
+final class DependencyExtractor {
+
+    static final String CONSTRUCTOR = "<init>";
+
+    private static final Set<String> JAVA_LANG = Set.of(
+            "Object", "String", "StringBuilder", "CharSequence", "Class", "Enum", "Record", "Void",
+            "Boolean", "Byte", "Short", "Integer", "Long", "Float", "Double", "Character", "Number",
+            "Math", "StrictMath", "System", "Runtime", "Thread", "ThreadLocal", "Runnable", "Iterable",
+            "Comparable", "AutoCloseable", "Cloneable", "Process", "ProcessBuilder",
+            "Throwable", "Exception", "RuntimeException", "Error", "AssertionError",
+            "IllegalArgumentException", "IllegalStateException", "NullPointerException",
+            "UnsupportedOperationException", "IndexOutOfBoundsException", "ArrayIndexOutOfBoundsException",
+            "ClassCastException", "ArithmeticException", "NumberFormatException", "InterruptedException",
+            "CloneNotSupportedException", "ReflectiveOperationException", "ClassNotFoundException",
+            "SecurityException", "OutOfMemoryError", "StackOverflowError",
+            "Override", "Deprecated", "FunctionalInterface", "SuppressWarnings", "SafeVarargs");
+
+    /** Nodes declared by a file and the edges leaving them. */
+    record FileDependencies(List<String> declared, List<DependencyEdge> edges) {}
+
+    private DependencyExtractor() {}
+
+    static FileDependencies extract(CompilationUnit cu) {
+        String pkg = cu.getPackageDeclaration().map(p -> p.getNameAsString()).orElse("");
+        Map<String, String> imports = new HashMap<>();
+        List<String> importedTypes = new ArrayList<>();
+        for (ImportDeclaration imp : cu.getImports()) {
+            String name = imp.getNameAsString();
+            if (imp.isStatic()) {
+                // import static a.B.member / a.B.* both depend on class a.B
+                String owner = imp.isAsterisk() ? name : imp.getName().getQualifier().map(Node::toString).orElse(name);
+                importedTypes.add(owner);
+            } else if (!imp.isAsterisk()) {
+                imports.put(imp.getName().getIdentifier(), name);
+                importedTypes.add(name);
+            }
+        }
+        Map<String, String> localTypes = new HashMap<>();
+        List<TypeDeclaration<?>> types = new ArrayList<>();
+        for (TypeDeclaration<?> type : cu.findAll(TypeDeclaration.class)) {
+            Optional<String> fqn = type.getFullyQualifiedName();
+            if (fqn.isPresent()) {
+                localTypes.putIfAbsent(type.getNameAsString(), fqn.get());
+                types.add(type);
+            }
+        }
+
+        Set<String> declared = new LinkedHashSet<>();
+        Set<DependencyEdge> edges = new LinkedHashSet<>();
+        Resolver resolver = new Resolver(pkg, imports, localTypes);
+        for (TypeDeclaration<?> type : types) {
+            String self = type.getFullyQualifiedName().orElseThrow();
+            declared.add(self);
+            Set<String> typeParams = new HashSet<>();
+            if (type instanceof ClassOrInterfaceDeclaration decl) {
+                decl.getTypeParameters().forEach(p -> typeParams.add(p.getNameAsString()));
+            } else if (type instanceof RecordDeclaration decl) {
+                decl.getTypeParameters().forEach(p -> typeParams.add(p.getNameAsString()));
+            }
+            if (type.isTopLevelType()) {
+                for (String imported : importedTypes) {
+                    addEdge(edges, self, imported, DependencyKind.IMPORTS);
+                }
+            }
+            addSupertypes(type, self, typeParams, resolver, edges);
+
+            Map<String, String> fieldTypes = new HashMap<>();
+            for (BodyDeclaration<?> member : type.getMembers()) {
+                if (member instanceof FieldDeclaration field) {
+                    for (VariableDeclarator variable : field.getVariables()) {
+                        for (String target : referencedTypes(variable.getType(), typeParams, resolver)) {
+                            addEdge(edges, self, target, DependencyKind.FIELD_TYPE);
+                        }
+                        String varType = declaredType(variable, typeParams, resolver);
+                        if (varType != null) {
+                            fieldTypes.put(variable.getNameAsString(), varType);
+                        }
+                    }
+                }
+            }
+            if (type instanceof RecordDeclaration record) {
+                for (Parameter component : record.getParameters()) {
+                    for (String target : referencedTypes(component.getType(), typeParams, resolver)) {
+                        addEdge(edges, self, target, DependencyKind.FIELD_TYPE);
+                    }
+                    String componentType = simpleTypeOf(component.getType(), typeParams, resolver);
+                    if (componentType != null) {
+                        fieldTypes.put(component.getNameAsString(), componentType);
+                    }
+                }
+            }
+            String superType = firstSuperclass(type, typeParams, resolver);
+            for (BodyDeclaration<?> member : type.getMembers()) {
+                if (member instanceof MethodDeclaration || member instanceof ConstructorDeclaration) {
+                    CallableDeclaration<?> callable = (CallableDeclaration<?>) member;
+                    String method = self + "#" + (callable instanceof ConstructorDeclaration ? CONSTRUCTOR : callable.getNameAsString());
+                    declared.add(method);
+                    addCalls(callable, self, method, superType, typeParams, fieldTypes, resolver, edges);
+                }
+            }
+        }
+        return new FileDependencies(List.copyOf(declared), List.copyOf(edges));
+    }
+
+    private static void addSupertypes(TypeDeclaration<?> type, String self, Set<String> typeParams,
+                                      Resolver resolver, Set<DependencyEdge> edges) {
+        NodeList<ClassOrInterfaceType> extended = new NodeList<>();
+        NodeList<ClassOrInterfaceType> implemented = new NodeList<>();
+        if (type instanceof ClassOrInterfaceDeclaration decl) {
+            extended = decl.getExtendedTypes();
+            implemented = decl.getImplementedTypes();
+        } else if (type instanceof EnumDeclaration decl) {
+            implemented = decl.getImplementedTypes();
+        } else if (type instanceof RecordDeclaration decl) {
+            implemented = decl.getImplementedTypes();
+        }
+        for (ClassOrInterfaceType t : extended) {
+            addEdge(edges, self, resolver.resolve(t.getNameWithScope(), typeParams), DependencyKind.EXTENDS);
+        }
+        for (ClassOrInterfaceType t : implemented) {
+            addEdge(edges, self, resolver.resolve(t.getNameWithScope(), typeParams), DependencyKind.IMPLEMENTS);
+        }
+    }
+
+    private static String firstSuperclass(TypeDeclaration<?> type, Set<String> typeParams, Resolver resolver) {
+        if (type instanceof ClassOrInterfaceDeclaration decl && !decl.isInterface() && decl.getExtendedTypes().isNonEmpty()) {
+            return resolver.resolve(decl.getExtendedTypes().get(0).getNameWithScope(), typeParams);
+        }
+        return null;
+    }
+
+    private static void addCalls(CallableDeclaration<?> callable, String self, String method, String superType,
+                                 Set<String> classTypeParams, Map<String, String> fieldTypes,
+                                 Resolver resolver, Set<DependencyEdge> edges) {
+        Set<String> typeParams = new HashSet<>(classTypeParams);
+        for (TypeParameter p : callable.getTypeParameters()) {
+            typeParams.add(p.getNameAsString());
+        }
+        Map<String, String> variables = new HashMap<>(fieldTypes);
+        for (Parameter parameter : callable.getParameters()) {
+            String type = simpleTypeOf(parameter.getType(), typeParams, resolver);
+            if (type != null) {
+                variables.put(parameter.getNameAsString(), type);
+            }
+        }
+        for (VariableDeclarator local : callable.findAll(VariableDeclarator.class)) {
+            String type = declaredType(local, typeParams, resolver);
+            if (type != null) {
+                variables.put(local.getNameAsString(), type);
+            }
+        }
+        for (MethodCallExpr call : callable.findAll(MethodCallExpr.class)) {
+            String owner = receiverType(call.getScope().orElse(null), self, superType, variables, typeParams, resolver);
+            if (owner != null) {
+                addCall(edges, self, method, owner, call.getNameAsString());
+            }
+        }
+        for (ObjectCreationExpr creation : callable.findAll(ObjectCreationExpr.class)) {
+            String owner = resolver.resolve(creation.getType().getNameWithScope(), typeParams);
+            if (owner != null) {
+                addCall(edges, self, method, owner, CONSTRUCTOR);
+            }
+        }
+    }
+
+    private static String receiverType(Expression scope, String self, String superType, Map<String, String> variables,
+                                       Set<String> typeParams, Resolver resolver) {
+        if (scope == null || scope.isThisExpr()) {
+            return self;
+        }
+        if (scope.isSuperExpr()) {
+            return superType;
+        }
+        if (scope.isNameExpr()) {
+            String name = scope.asNameExpr().getNameAsString();
+            String variable = variables.get(name);
+            if (variable != null) {
+                return variable;
+            }
+            return Character.isUpperCase(name.charAt(0)) ? resolver.resolve(name, typeParams) : null;
+        }
+        if (scope instanceof FieldAccessExpr access && access.getScope().isThisExpr()) {
+            return variables.get(access.getNameAsString());
+        }
+        return null;
+    }
+
+    private static void addCall(Set<DependencyEdge> edges, String self, String method, String owner, String name) {
+        addEdge(edges, method, owner + "#" + name, DependencyKind.CALLS);
+        addEdge(edges, self, owner, DependencyKind.CALLS);
+    }
+
+    /** The variable's declared class, or the instantiated class for {@code var x = new T()}. */
+    private static String declaredType(VariableDeclarator variable, Set<String> typeParams, Resolver resolver) {
+        if (variable.getType().isVarType()) {
+            return variable.getInitializer()
+                    .filter(Expression::isObjectCreationExpr)
+                    .map(init -> resolver.resolve(init.asObjectCreationExpr().getType().getNameWithScope(), typeParams))
+                    .orElse(null);
+        }
+        return simpleTypeOf(variable.getType(), typeParams, resolver);
+    }
+
+    private static String simpleTypeOf(Type type, Set<String> typeParams, Resolver resolver) {
+        return type.isClassOrInterfaceType()
+                ? resolver.resolve(type.asClassOrInterfaceType().getNameWithScope(), typeParams)
+                : null;
+    }
+
+    /** Every class named in a type, including type arguments, e.g. {@code Map<K, List<V>>}. */
+    private static Set<String> referencedTypes(Type type, Set<String> typeParams, Resolver resolver) {
+        Set<String> result = new LinkedHashSet<>();
+        for (ClassOrInterfaceType t : type.findAll(ClassOrInterfaceType.class)) {
+            boolean isScopeOfAnother = t.getParentNode()
+                    .filter(parent -> parent instanceof ClassOrInterfaceType outer && outer.getScope().orElse(null) == t)
+                    .isPresent();
+            if (!isScopeOfAnother) {
+                String resolved = resolver.resolve(t.getNameWithScope(), typeParams);
+                if (resolved != null) {
+                    result.add(resolved);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void addEdge(Set<DependencyEdge> edges, String source, String target, DependencyKind kind) {
+        if (target != null && !target.equals(source)) {
+            edges.add(new DependencyEdge(source, target, kind));
+        }
+    }
+
+    private record Resolver(String pkg, Map<String, String> imports, Map<String, String> localTypes) {
+
+        /** @return fully qualified name, or null for type variables */
+        String resolve(String nameWithScope, Set<String> typeParams) {
+            int dot = nameWithScope.indexOf('.');
+            String first = dot < 0 ? nameWithScope : nameWithScope.substring(0, dot);
+            if (dot >= 0 && Character.isLowerCase(first.charAt(0))) {
+                return nameWithScope;
+            }
+            if (typeParams.contains(first)) {
+                return null;
+            }
+            String head = resolveSimple(first);
+            return dot < 0 ? head : head + nameWithScope.substring(dot);
+        }
+
+        private String resolveSimple(String simple) {
+            String local = localTypes.get(simple);
+            if (local != null) {
+                return local;
+            }
+            String imported = imports.get(simple);
+            if (imported != null) {
+                return imported;
+            }
+            if (JAVA_LANG.contains(simple)) {
+                return "java.lang." + simple;
+            }
+            return pkg.isEmpty() ? simple : pkg + "." + simple;
+        }
+    }
+}
@@ -1,19 +1,91 @@
 package com.codetalker.firestick.service;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import org.jgrapht.Graph;
 import org.jgrapht.graph.DefaultDirectedGraph;
 import org.jgrapht.graph.DefaultEdge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.codetalker.firestick.service.DependencyExtractor.FileDependencies;
+import com.codetalker.firestick.service.dto.DependencyEdge;
+import com.codetalker.firestick.service.dto.DependencyGraphStats;
+import com.codetalker.firestick.service.dto.ImpactedNode;
+import com.github.javaparser.ast.CompilationUnit;
+
+import jakarta.annotation.PreDestroy;
+
 /**
  * Service for analyzing code dependencies using JGraphT.
+ * <p>
+ * Besides the small JGraphT helpers, it maintains the project-wide {@link CodeGraph} of class and method
+ * dependencies extracted from parsed sources. The indexing pipeline updates it per file as it parses;
+ * {@link #buildGraph(String)} rebuilds a whole tree in parallel. When {@code graph.path} is set the graph
+ * is saved there and memory-mapped back at startup. Full rebuilds save at once; small updates, such as a
+ * watcher's delta runs, are saved at most every {@code graph.save-interval-ms} and on shutdown.
  */
 @Service
 public class DependencyGraphService {
 
+    private static final Logger log = LoggerFactory.getLogger(DependencyGraphService.class);
+
+    private final FileDiscoveryService fileDiscoveryService;
+    private final CodeParserService codeParserService;
+    private final SourceFileReader sourceFileReader;
+    private final CodeGraph codeGraph = new CodeGraph();
+
+    private final Path graphPath;
+    private final ScheduledExecutorService saver;
+    private long savedVersion = -1;
+
+    public DependencyGraphService(FileDiscoveryService fileDiscoveryService,
+                                  CodeParserService codeParserService,
+                                  SourceFileReader sourceFileReader,
+                                  @Value("${graph.path:}") String graphPath,
+                                  @Value("${graph.save-interval-ms:60000}") long saveIntervalMillis) {
+        this.fileDiscoveryService = fileDiscoveryService;
+        this.codeParserService = codeParserService;
+        this.sourceFileReader = sourceFileReader;
+        this.graphPath = graphPath == null || graphPath.isBlank() ? null : Path.of(graphPath);
+        if (this.graphPath != null && Files.exists(this.graphPath)) {
+            try {
+                codeGraph.load(this.graphPath);
+                log.info("Loaded dependency graph from {}: {} nodes, {} edges", this.graphPath,
+                        codeGraph.nodeCount(), codeGraph.edgeCount());
+            } catch (IOException | RuntimeException e) {
+                log.warn("Ignoring unreadable dependency graph {}: {}", this.graphPath, e.getMessage());
+            }
+        }
+        savedVersion = codeGraph.version();
+        if (this.graphPath != null && saveIntervalMillis > 0) {
+            this.saver = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "graph-saver");
+                t.setDaemon(true);
+                return t;
+            });
+            saver.scheduleWithFixedDelay(this::saveIfChanged, saveIntervalMillis, saveIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            this.saver = null;
+        }
+    }
+
     /**
      * Create a simple dependency graph.
      *
@@ -67,4 +139,157 @@ public class DependencyGraphService {
                 .map(graph::getEdgeTarget)
                 .collect(Collectors.toList());
     }
+
+    /**
+     * Parse every Java file under a root in parallel and replace the graph's contents for that tree.
+     * Files are read like the indexing pipeline reads them: in their detected charset, with oversized and
+     * generated sources skipped. Skipped files and files that no longer exist under the root are dropped
+     * from the graph.
+     *
+     * @param rootPath Directory to scan
+     * @return Graph size after the build
+     */
+    public DependencyGraphStats buildGraph(String rootPath) {
+        long start = System.nanoTime();
+        List<Path> paths = fileDiscoveryService.scanDirectory(rootPath);
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        AtomicInteger failed = new AtomicInteger();
+        paths.parallelStream().forEach(path -> {
+            // A file that fails to read keeps its previous slice; a skipped one loses it.
+            seen.add(path.toString());
+            try {
+                SourceFileReader.SourceFile source = sourceFileReader.read(path);
+                if (source.isSkipped()) {
+                    seen.remove(path.toString());
+                    return;
+                }
+                codeParserService.parseStructure(source.text()).ifPresentOrElse(
+                        cu -> updateFile(path.toString(), cu),
+                        failed::incrementAndGet);
+            } catch (IOException | RuntimeException e) {
+                failed.incrementAndGet();
+                log.warn("Skipping {} in dependency graph: {}", path, e.getMessage());
+            }
+        });
+        Path root = Path.of(rootPath);
+        for (String file : codeGraph.files()) {
+            if (Path.of(file).startsWith(root) && !seen.contains(file)) {
+                codeGraph.removeFile(file);
+            }
+        }
+        saveGraph();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        DependencyGraphStats stats = new DependencyGraphStats(seen.size() - failed.get(), codeGraph.nodeCount(),
+                codeGraph.edgeCount(), millis);
+        log.info("Dependency graph for {}: {} files, {} nodes, {} edges in {} ms", rootPath, stats.files(),
+                stats.nodes(), stats.edges(), millis);
+        return stats;
+    }
+
+    /**
+     * Replace one file's contribution to the graph from its parsed compilation unit.
+     */
+    public void updateFile(String filePath, CompilationUnit cu) {
+        FileDependencies deps = DependencyExtractor.extract(cu);
+        codeGraph.replaceFile(filePath, deps.declared(), deps.edges());
+    }
+
+    public void removeFile(String filePath) {
+        codeGraph.removeFile(filePath);
+    }
+
+    public CodeGraph getCodeGraph() {
+        return codeGraph;
+    }
+
+    /** Direct dependencies of a class or method, with edge kinds. */
+    public List<DependencyEdge> directDependencies(String node) {
+        return codeGraph.outgoing(node);
+    }
+
+    /** Direct dependencies of a class or method. */
+    public List<String> findDependencies(String node) {
+        return codeGraph.neighbours(node, true);
+    }
+
+    /** Classes and methods that depend directly on a class or method. */
+    public List<String> findDependents(String node) {
+        return codeGraph.neighbours(node, false);
+    }
+
+    /**
+     * Read-only JGraphT view of the current graph for running JGraphT algorithms; vertices are node ids,
+     * see {@link CodeGraph#nameOf(int)}.
+     */
+    public Graph<Integer, CsrGraphView.IntEdge> graphView() {
+        return codeGraph.view();
+    }
+
+    /** Everything a class or method depends on, directly or indirectly. */
+    public Set<String> transitiveDependencies(String node) {
+        return codeGraph.reachable(List.of(node), true, 0).keySet();
+    }
+
+    /** Everything that depends on a class or method, directly or indirectly. */
+    public Set<String> transitiveDependents(String node) {
+        return codeGraph.reachable(List.of(node), false, 0).keySet();
+    }
+
+    /** Groups of classes/methods that depend on each other in a cycle. */
+    public List<List<String>> findCycles() {
+        return codeGraph.cycles();
+    }
+
+    /**
+     * Nodes affected by changing the given nodes, nearest first.
+     *
+     * @param changed  Changed classes or methods
+     * @param maxDepth Maximum dependency hops to follow; 0 or less for unbounded
+     */
+    public List<ImpactedNode> impactOf(Collection<String> changed, int maxDepth) {
+        List<ImpactedNode> impacted = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : codeGraph.reachable(changed, false, maxDepth).entrySet()) {
+            impacted.add(new ImpactedNode(entry.getKey(), entry.getValue()));
+        }
+        impacted.sort((a, b) -> a.distance() != b.distance()
+                ? Integer.compare(a.distance(), b.distance())
+                : a.name().compareTo(b.name()));
+        return impacted;
+    }
+
+    /** Nodes affected by changing anything declared in a file. */
+    public List<ImpactedNode> impactOfFile(String filePath, int maxDepth) {
+        return impactOf(codeGraph.declaredIn(filePath), maxDepth);
+    }
+
+    /**
+     * Write the graph to {@code graph.path}; a no-op when it is not set.
+     */
+    public synchronized void saveGraph() {
+        if (graphPath == null) {
+            return;
+        }
+        long version = codeGraph.version();
+        try {
+            codeGraph.save(graphPath);
+            savedVersion = version;
+        } catch (IOException e) {
+            log.warn("Failed to save dependency graph to {}", graphPath, e);
+        }
+    }
+
+    /** Save the graph unless nothing changed since the last save. */
+    public synchronized void saveIfChanged() {
+        if (codeGraph.version() != savedVersion) {
+            saveGraph();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (saver != null) {
+            saver.shutdownNow();
+        }
+        saveIfChanged();
+    }
 }
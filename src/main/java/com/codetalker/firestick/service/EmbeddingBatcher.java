@@ -0,0 +1,132 @@
+package com.codetalker.firestick.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Coalesces concurrent single-text embedding requests into batches.
+ * <p>
+ * A dispatcher thread takes the first waiting request, then keeps collecting until either
+ * {@code maxBatchSize} requests are gathered or {@code maxWaitMillis} has passed since the first one,
+ * and hands the whole group to the batch function in one call. Under load batches fill immediately;
+ * a lone caller waits at most {@code maxWaitMillis}.
+ */
+public class EmbeddingBatcher implements AutoCloseable {
+
+    private record Request(String text, CompletableFuture<float[]> result) {}
+
+    private final Function<List<String>, List<float[]>> batchFunction;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    public EmbeddingBatcher(Function<List<String>, List<float[]>> batchFunction, int maxBatchSize, long maxWaitMillis) {
+        this.batchFunction = batchFunction;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxWaitMillis));
+        this.dispatcher = new Thread(this::dispatchLoop, "embedding-batcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /**
+     * Queue one text and wait for its embedding.
+     */
+    public float[] embed(String text) {
+        CompletableFuture<float[]> future = submit(text);
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw e;
+        }
+    }
+
+    public CompletableFuture<float[]> submit(String text) {
+        if (!running) {
+            throw new IllegalStateException("Embedding batcher is closed");
+        }
+        CompletableFuture<float[]> future = new CompletableFuture<>();
+        Request request = new Request(text, future);
+        queue.add(request);
+        // Closed in between: the dispatcher may already have drained the queue and exited. Whoever
+        // removes the request owns it, so it is failed here or answered by the dispatcher, never lost.
+        if (!running && queue.remove(request)) {
+            future.completeExceptionally(new IllegalStateException("Embedding batcher is closed"));
+        }
+        return future;
+    }
+
+    /** Requests queued and not yet taken into a batch. */
+    public int pending() {
+        return queue.size();
+    }
+
+    private void dispatchLoop() {
+        List<Request> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Request first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (batch.size() < maxBatchSize) {
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatchSize || remaining <= 0) {
+                        break;
+                    }
+                    Request next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                run(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+        Request pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result().completeExceptionally(new IllegalStateException("Embedding batcher is closed"));
+        }
+    }
+
+    private void run(List<Request> batch) {
+        try {
+            List<String> texts = batch.stream().map(Request::text).toList();
+            List<float[]> vectors = batchFunction.apply(texts);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result().complete(vectors.get(i));
+            }
+        } catch (RuntimeException e) {
+            batch.forEach(request -> request.result().completeExceptionally(e));
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
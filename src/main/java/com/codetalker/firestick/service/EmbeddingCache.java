@@ -0,0 +1,249 @@
+package com.codetalker.firestick.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codetalker.firestick.service.dto.EmbeddingCacheStats;
+
+/**
+ * Content-addressed embedding cache with an on-heap LRU in front of an append-only file on disk.
+ * <p>
+ * Entries are keyed by a SHA-256 digest of (model id, dimension, text), so identical chunks share one
+ * entry no matter which file they came from. The file header records a fingerprint of the model; when
+ * the model changes the file no longer matches and is truncated, which invalidates every entry.
+ * Disk reads go through positional {@link FileChannel} reads and stay in the OS page cache rather than
+ * on the Java heap.
+ */
+public class EmbeddingCache implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddingCache.class);
+
+    private static final int MAGIC = 0x46534543; // "FSEC"
+    private static final int VERSION = 1;
+    private static final int KEY_BYTES = 16;
+    private static final int HEADER_BYTES = 4 + 4 + 4 + 32;
+
+    /** First 128 bits of the content digest; collisions are not a practical concern at this size. */
+    private record Key(long hi, long lo) {}
+
+    private final String modelId;
+    private final int dimension;
+    private final int recordBytes;
+    private final LinkedHashMap<Key, float[]> memory;
+    private final FileChannel channel;
+    private final Map<Key, Long> diskIndex = new HashMap<>();
+    private long appendPosition;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param storePath  File for the persistent tier, or null to keep only the in-memory tier
+     * @param maxEntries Capacity of the in-memory tier
+     * @param modelId    Identifies the model; a different id invalidates the persistent tier
+     * @param dimension  Embedding size
+     */
+    public EmbeddingCache(Path storePath, int maxEntries, String modelId, int dimension) throws IOException {
+        this.modelId = modelId;
+        this.dimension = dimension;
+        this.recordBytes = KEY_BYTES + dimension * Float.BYTES;
+        int capacity = Math.max(1, maxEntries);
+        this.memory = new LinkedHashMap<>(Math.min(capacity, 1 << 16), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, float[]> eldest) {
+                if (size() > capacity) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.channel = storePath == null ? null : openStore(storePath);
+    }
+
+    public float[] get(String text) {
+        Key key = keyOf(text);
+        synchronized (memory) {
+            float[] hit = memory.get(key);
+            if (hit != null) {
+                memoryHits.incrementAndGet();
+                return hit.clone();
+            }
+        }
+        float[] fromDisk = readFromDisk(key);
+        if (fromDisk != null) {
+            diskHits.incrementAndGet();
+            synchronized (memory) {
+                memory.put(key, fromDisk.clone());
+            }
+            return fromDisk;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void put(String text, float[] embedding) {
+        if (embedding.length != dimension) {
+            return;
+        }
+        Key key = keyOf(text);
+        synchronized (memory) {
+            memory.put(key, embedding.clone());
+        }
+        writeToDisk(key, embedding);
+    }
+
+    public EmbeddingCacheStats stats() {
+        int memoryEntries;
+        synchronized (memory) {
+            memoryEntries = memory.size();
+        }
+        long diskEntries;
+        synchronized (diskIndex) {
+            diskEntries = diskIndex.size();
+        }
+        return new EmbeddingCacheStats(memoryHits.get(), diskHits.get(), misses.get(), evictions.get(),
+                memoryEntries, diskEntries);
+    }
+
+    private Key keyOf(String text) {
+        MessageDigest digest = ContentDigest.newDigest();
+        digest.update(modelId.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(Integer.toString(dimension).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        ByteBuffer hash = ByteBuffer.wrap(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        return new Key(hash.getLong(), hash.getLong());
+    }
+
+    // ---- persistent tier ----
+
+    private FileChannel openStore(Path path) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        byte[] fingerprint = ContentDigest.newDigest().digest(modelId.getBytes(StandardCharsets.UTF_8));
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        boolean valid = ch.size() >= HEADER_BYTES && ch.read(header, 0) == HEADER_BYTES;
+        if (valid) {
+            header.flip();
+            byte[] stored = new byte[32];
+            valid = header.getInt() == MAGIC && header.getInt() == VERSION && header.getInt() == dimension;
+            header.get(stored);
+            valid = valid && Arrays.equals(stored, fingerprint);
+        }
+        if (!valid) {
+            if (ch.size() > 0) {
+                log.info("Embedding cache {} was built for another model; discarding it", path);
+            }
+            ch.truncate(0);
+            header.clear();
+            header.putInt(MAGIC).putInt(VERSION).putInt(dimension).put(fingerprint).flip();
+            ch.write(header, 0);
+        }
+        loadIndex(ch);
+        return ch;
+    }
+
+    private void loadIndex(FileChannel ch) throws IOException {
+        long size = ch.size();
+        // A torn final record from a crash is ignored and overwritten by the next append.
+        long usable = HEADER_BYTES + (size - HEADER_BYTES) / recordBytes * recordBytes;
+        ByteBuffer block = ByteBuffer.allocate(recordBytes * 1024);
+        long pos = HEADER_BYTES;
+        while (pos < usable) {
+            block.clear();
+            block.limit((int) Math.min(block.capacity(), usable - pos));
+            int read = ch.read(block, pos);
+            int records = Math.max(read, 0) / recordBytes;
+            if (records == 0) {
+                break;
+            }
+            for (int i = 0; i < records; i++) {
+                int base = i * recordBytes;
+                diskIndex.put(new Key(block.getLong(base), block.getLong(base + 8)), pos + base + KEY_BYTES);
+            }
+            pos += (long) records * recordBytes;
+        }
+        appendPosition = usable;
+    }
+
+    private float[] readFromDisk(Key key) {
+        if (channel == null) {
+            return null;
+        }
+        Long offset;
+        synchronized (diskIndex) {
+            offset = diskIndex.get(key);
+        }
+        if (offset == null) {
+            return null;
+        }
+        ByteBuffer buf = ByteBuffer.allocate(dimension * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            while (buf.hasRemaining()) {
+                if (channel.read(buf, offset + buf.position()) < 0) {
+                    return null;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Embedding cache read failed", e);
+            return null;
+        }
+        buf.flip();
+        float[] vec = new float[dimension];
+        buf.asFloatBuffer().get(vec);
+        return vec;
+    }
+
+    private void writeToDisk(Key key, float[] embedding) {
+        if (channel == null) {
+            return;
+        }
+        ByteBuffer buf = ByteBuffer.allocate(recordBytes);
+        buf.putLong(key.hi()).putLong(key.lo()).order(ByteOrder.LITTLE_ENDIAN);
+        for (float v : embedding) buf.putFloat(v);
+        buf.flip();
+        synchronized (diskIndex) {
+            if (diskIndex.containsKey(key)) {
+                return;
+            }
+            try {
+                long pos = appendPosition;
+                while (buf.hasRemaining()) {
+                    channel.write(buf, pos + buf.position());
+                }
+                appendPosition = pos + recordBytes;
+                diskIndex.put(key, pos + KEY_BYTES);
+            } catch (IOException e) {
+                log.warn("Embedding cache write failed", e);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.force(false);
+            channel.close();
+        }
+    }
+}
@@ -1,14 +1,37 @@
 package com.codetalker.firestick.service;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.codetalker.firestick.service.dto.EmbeddingCacheStats;
+import com.codetalker.firestick.service.dto.QueryCacheStats;
+
+import ai.onnxruntime.OrtException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
 /**
- * Service for generating text embeddings. Supports a 'mock' mode for tests and an 'onnx' mode scaffold.
+ * Service for generating text embeddings. Supports a 'mock' mode for tests and an 'onnx' mode backed by
+ * ONNX Runtime. In ONNX mode concurrent {@link #getEmbedding} calls are coalesced into batches.
+ * Results are cached by content, see {@link EmbeddingCache}. Search queries go through
+ * {@link #getQueryEmbedding} instead, which keeps its own small in-memory LRU so that one-off queries
+ * neither evict chunk embeddings nor get written to the persistent tier. Every model call is timed as
+ * {@code firestick.embedding.batch}, with its size in {@code firestick.embedding.batch.size}.
  */
 @Service
 public class EmbeddingService {
@@ -19,32 +42,214 @@ public class EmbeddingService {
     private final int dimension;
     private final String modelPath;
     private final String tokenizerPath;
+    private final int batchSize;
+    private final OnnxEmbeddingEngine engine;
+    private final EmbeddingBatcher batcher;
+    private final EmbeddingCache cache;
+    private final QueryCache<String, float[]> queryCache;
+    private final Timer batchTimer;
+    private final DistributionSummary batchSizes;
 
     public EmbeddingService(
+            MeterRegistry meterRegistry,
             @Value("${embedding.mode:mock}") String mode,
             @Value("${embedding.dimension:384}") int dimension,
             @Value("${embedding.model-path:}") String modelPath,
-            @Value("${embedding.tokenizer-path:}") String tokenizerPath
+            @Value("${embedding.tokenizer-path:}") String tokenizerPath,
+            @Value("${embedding.max-sequence-length:256}") int maxSequenceLength,
+            @Value("${embedding.batch-size:32}") int batchSize,
+            @Value("${embedding.batch-wait-ms:5}") long batchWaitMillis,
+            @Value("${embedding.intra-op-threads:0}") int intraOpThreads,
+            @Value("${embedding.inter-op-threads:0}") int interOpThreads,
+            @Value("${embedding.cache.enabled:true}") boolean cacheEnabled,
+            @Value("${embedding.cache.max-entries:50000}") int cacheMaxEntries,
+            @Value("${embedding.cache.path:}") String cachePath,
+            @Value("${embedding.query-cache.max-entries:1000}") int queryCacheMaxEntries
     ) {
         this.mode = Mode.valueOf(mode.trim().toUpperCase());
         this.dimension = dimension;
         this.modelPath = modelPath;
         this.tokenizerPath = tokenizerPath;
+        this.batchSize = Math.max(1, batchSize);
+        this.batchTimer = Timer.builder("firestick.embedding.batch")
+                .description("Embedding model calls, one per batch of texts")
+                .tag("mode", this.mode.name().toLowerCase())
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("firestick.embedding.batch.size")
+                .description("Texts per embedding model call")
+                .tag("mode", this.mode.name().toLowerCase())
+                .register(meterRegistry);
+        if (this.mode == Mode.ONNX) {
+            this.engine = loadEngine(maxSequenceLength, intraOpThreads, interOpThreads);
+            this.batcher = new EmbeddingBatcher(this::compute, this.batchSize, batchWaitMillis);
+            Gauge.builder("firestick.embedding.queue.depth", batcher, EmbeddingBatcher::pending)
+                    .description("Single-text requests waiting to join an inference batch")
+                    .register(meterRegistry);
+        } else {
+            this.engine = null;
+            this.batcher = null;
+        }
+        this.cache = cacheEnabled ? openCache(cachePath, cacheMaxEntries) : null;
+        this.queryCache = queryCacheMaxEntries > 0 ? new QueryCache<>(queryCacheMaxEntries) : null;
+    }
+
+    private EmbeddingCache openCache(String cachePath, int maxEntries) {
+        Path store = cachePath == null || cachePath.isBlank() ? null : Path.of(cachePath);
+        try {
+            return new EmbeddingCache(store, maxEntries, modelId(), dimension);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to open embedding cache: " + cachePath, e);
+        }
+    }
+
+    /**
+     * Identity of the model producing the vectors. For ONNX it includes the size and mtime of the model
+     * and tokenizer files, so replacing either invalidates cached embeddings.
+     */
+    private String modelId() {
+        if (mode == Mode.MOCK) {
+            return "mock";
+        }
+        StringBuilder id = new StringBuilder("onnx");
+        for (String file : List.of(modelPath, tokenizerPath)) {
+            Path path = Path.of(file);
+            try {
+                id.append('|').append(path.getFileName())
+                        .append(':').append(Files.size(path))
+                        .append(':').append(Files.getLastModifiedTime(path).toMillis());
+            } catch (IOException e) {
+                id.append('|').append(file);
+            }
+        }
+        return id.toString();
+    }
+
+    private OnnxEmbeddingEngine loadEngine(int maxSequenceLength, int intraOpThreads, int interOpThreads) {
+        if (modelPath == null || modelPath.isBlank() || tokenizerPath == null || tokenizerPath.isBlank()) {
+            throw new IllegalStateException("ONNX mode requires embedding.model-path and embedding.tokenizer-path");
+        }
+        try {
+            OnnxEmbeddingEngine loaded = new OnnxEmbeddingEngine(Path.of(modelPath), Path.of(tokenizerPath),
+                    maxSequenceLength, batchSize, intraOpThreads, interOpThreads);
+            if (loaded.getDimension() > 0 && loaded.getDimension() != dimension) {
+                loaded.close();
+                throw new IllegalStateException("Model output dimension " + loaded.getDimension()
+                        + " does not match embedding.dimension=" + dimension);
+            }
+            return loaded;
+        } catch (OrtException | IOException e) {
+            throw new IllegalStateException("Failed to load ONNX embedding model: " + modelPath, e);
+        }
     }
 
     /**
      * Return an embedding vector for the given text.
      * In MOCK mode, returns a deterministic pseudo-embedding without external dependencies.
-     * In ONNX mode, this method is intended to run the ONNX model (not enabled by default here).
+     * In ONNX mode, the request joins the next inference batch.
      */
     public float[] getEmbedding(String text) {
         Objects.requireNonNull(text, "text");
+        if (cache != null) {
+            float[] cached = cache.get(text);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        float[] vector = embed(text);
+        if (cache != null) {
+            cache.put(text, vector);
+        }
+        return vector;
+    }
+
+    /**
+     * Embedding of a search query. Queries differing only in whitespace share a cache entry; the model
+     * is fixed for the service's lifetime, so entries never go stale.
+     */
+    public float[] getQueryEmbedding(String query) {
+        Objects.requireNonNull(query, "query");
+        String key = QueryCache.normalize(query);
+        if (queryCache == null) {
+            return embed(key);
+        }
+        float[] cached = queryCache.get(key, null);
+        if (cached != null) {
+            return cached.clone();
+        }
+        float[] vector = embed(key);
+        queryCache.put(key, null, vector.clone());
+        return vector;
+    }
+
+    private float[] embed(String text) {
         return switch (mode) {
             case MOCK -> mockEmbedding(text, dimension);
-            case ONNX -> throw new UnsupportedOperationException("ONNX mode not yet configured. Provide model/tokenizer and implementation.");
+            case ONNX -> batcher.embed(text);
         };
     }
 
+    /**
+     * Return embeddings for several texts, in input order. In ONNX mode the texts are run in padded
+     * batches of up to {@code embedding.batch-size} without going through the request queue.
+     */
+    public List<float[]> getEmbeddings(List<String> texts) {
+        Objects.requireNonNull(texts, "texts");
+        if (texts.isEmpty()) {
+            return List.of();
+        }
+        if (cache == null) {
+            return compute(texts);
+        }
+        // Look everything up first and only compute the distinct texts that missed.
+        List<float[]> vectors = new ArrayList<>(texts.size());
+        Map<String, List<Integer>> missing = new LinkedHashMap<>();
+        for (int i = 0; i < texts.size(); i++) {
+            float[] cached = cache.get(texts.get(i));
+            vectors.add(cached);
+            if (cached == null) {
+                missing.computeIfAbsent(texts.get(i), t -> new ArrayList<>()).add(i);
+            }
+        }
+        if (!missing.isEmpty()) {
+            List<String> toCompute = new ArrayList<>(missing.keySet());
+            List<float[]> computed = compute(toCompute);
+            for (int i = 0; i < toCompute.size(); i++) {
+                float[] vector = computed.get(i);
+                cache.put(toCompute.get(i), vector);
+                for (int index : missing.get(toCompute.get(i))) {
+                    vectors.set(index, vector);
+                }
+            }
+        }
+        return vectors;
+    }
+
+    private List<float[]> compute(List<String> texts) {
+        long start = System.nanoTime();
+        try {
+            return switch (mode) {
+                case MOCK -> {
+                    List<float[]> vectors = new ArrayList<>(texts.size());
+                    for (String text : texts) vectors.add(mockEmbedding(text, dimension));
+                    yield vectors;
+                }
+                case ONNX -> embedWithEngine(texts);
+            };
+        } finally {
+            batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            batchSizes.record(texts.size());
+        }
+    }
+
+    private List<float[]> embedWithEngine(List<String> texts) {
+        try {
+            return engine.embed(texts);
+        } catch (OrtException e) {
+            throw new IllegalStateException("ONNX inference failed", e);
+        }
+    }
+
     private static float[] mockEmbedding(String text, int dim) {
         // Deterministic: seed from text bytes
         byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
@@ -70,8 +275,41 @@ public class EmbeddingService {
         return vec;
     }
 
+    /**
+     * Hit/miss/eviction counters of the embedding cache; all zero when the cache is disabled.
+     */
+    public EmbeddingCacheStats getCacheStats() {
+        return cache == null ? new EmbeddingCacheStats(0, 0, 0, 0, 0, 0) : cache.stats();
+    }
+
+    /**
+     * Hit/miss/eviction counters of the query embedding cache; all zero when it is disabled.
+     */
+    public QueryCacheStats getQueryCacheStats() {
+        return queryCache == null ? QueryCacheStats.EMPTY : queryCache.stats();
+    }
+
+    /** Whether vectors can be produced: always in mock mode, once the model session is open in ONNX mode. */
+    public boolean isModelLoaded() {
+        return mode == Mode.MOCK || engine != null;
+    }
+
+    @PreDestroy
+    public void close() throws OrtException, IOException {
+        if (cache != null) {
+            cache.close();
+        }
+        if (batcher != null) {
+            batcher.close();
+        }
+        if (engine != null) {
+            engine.close();
+        }
+    }
+
     public Mode getMode() { return mode; }
     public int getDimension() { return dimension; }
     public String getModelPath() { return modelPath; }
     public String getTokenizerPath() { return tokenizerPath; }
+    public int getBatchSize() { return batchSize; }
 }
@@ -1,34 +1,269 @@
 package com.codetalker.firestick.service;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 /**
  * Service to recursively scan directories and find all Java files, with exclusion patterns.
+ * <p>
+ * Walks with {@link Files#walkFileTree} and prunes excluded directories before descending into them.
+ * A path is skipped when it matches {@code discovery.exclude} or, with {@code discovery.gitignore}
+ * enabled, the {@code .gitignore} files between the root and the path; it is kept when its name
+ * matches {@code discovery.include}. All patterns use gitignore syntax.
  */
 @Service
 public class FileDiscoveryService {
-    private static final String JAVA_EXT = ".java";
-    private static final List<String> EXCLUDE_DIRS = List.of("target", "build", ".git", "test");
 
+    private static final Logger log = LoggerFactory.getLogger(FileDiscoveryService.class);
+    private static final String GITIGNORE = ".gitignore";
+
+    /** Receives discovered files as the walk finds them. */
+    @FunctionalInterface
+    public interface FileSink {
+        /**
+         * @return false to stop the walk
+         */
+        boolean accept(Path file, BasicFileAttributes attrs) throws InterruptedException;
+    }
+
+    private final IgnoreRules includes;
+    private final IgnoreRules excludes;
+    private final boolean gitignore;
+
+    public FileDiscoveryService(@Value("${discovery.include:*.java}") String include,
+                                @Value("${discovery.exclude:.git/,target/,build/,test/}") String exclude,
+                                @Value("${discovery.gitignore:true}") boolean gitignore) {
+        this.includes = IgnoreRules.parse(split(include));
+        this.excludes = IgnoreRules.parse(split(exclude));
+        this.gitignore = gitignore;
+    }
+
+    /**
+     * All matching files under a root, in walk order.
+     */
     public List<Path> scanDirectory(String rootPath) {
         List<Path> javaFiles = new ArrayList<>();
-        try (Stream<Path> paths = Files.walk(Path.of(rootPath))) {
-            javaFiles = paths
-                .filter(Files::isRegularFile)
-                .filter(p -> p.toString().endsWith(JAVA_EXT))
-                .filter(p -> EXCLUDE_DIRS.stream().noneMatch(ex -> p.toString().contains(ex)))
-                .collect(Collectors.toList());
+        try {
+            walk(Path.of(rootPath), (file, attrs) -> javaFiles.add(file));
         } catch (IOException e) {
             throw new RuntimeException("Error scanning directory: " + rootPath, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
         return javaFiles;
     }
+
+    /**
+     * Walk a root and hand each matching file to the sink as soon as it is found, together with the
+     * attributes read during the walk, so callers can stream files into a bounded queue without first
+     * collecting the whole tree. Unreadable entries are logged and skipped.
+     */
+    public void walk(Path root, FileSink sink) throws IOException, InterruptedException {
+        Walker walker = new Walker(root, sink);
+        Files.walkFileTree(root, walker);
+        if (walker.interrupted != null) {
+            throw walker.interrupted;
+        }
+    }
+
+    /**
+     * Whether a file under {@code root} would be picked up by a scan of that root.
+     */
+    public boolean accepts(Path root, Path file) {
+        if (!file.startsWith(root) || file.equals(root)) {
+            return false;
+        }
+        Path relative = root.relativize(file);
+        String path = slashSeparated(relative);
+        Deque<Frame> frames = new ArrayDeque<>();
+        if (!enterDirectories(root, relative, path, relative.getNameCount() - 1, frames)) {
+            return false;
+        }
+        String name = file.getFileName().toString();
+        return isIncluded(path, name) && !isExcluded(frames, path, name, false);
+    }
+
+    /**
+     * Whether a scan of {@code root} descends into the given directory.
+     */
+    public boolean descendsInto(Path root, Path dir) {
+        if (!dir.startsWith(root)) {
+            return false;
+        }
+        Path relative = root.relativize(dir);
+        String path = slashSeparated(relative);
+        int depth = path.isEmpty() ? 0 : relative.getNameCount();
+        return enterDirectories(root, relative, path, depth, new ArrayDeque<>());
+    }
+
+    /**
+     * Replay the walk from the root down through the first {@code depth} directories of a relative path,
+     * collecting their ignore rules.
+     *
+     * @return false if one of those directories would have been pruned
+     */
+    private boolean enterDirectories(Path root, Path relative, String path, int depth, Deque<Frame> frames) {
+        try {
+            pushGitignore(frames, root, 0);
+            Path dir = root;
+            int offset = 0;
+            for (int i = 0; i < depth; i++) {
+                String name = relative.getName(i).toString();
+                offset += name.length();
+                if (isExcluded(frames, path.substring(0, offset), name, true)) {
+                    return false;
+                }
+                offset++;
+                dir = dir.resolve(name);
+                pushGitignore(frames, dir, offset);
+            }
+        } catch (IOException e) {
+            log.warn("Could not read ignore rules under {}: {}", root.resolve(relative), e.getMessage());
+        }
+        return true;
+    }
+
+    private boolean isIncluded(String path, String name) {
+        return Boolean.TRUE.equals(includes.match(path, name, false));
+    }
+
+    /**
+     * Configured excludes always win; after that the deepest matching {@code .gitignore} rule decides.
+     *
+     * @param path Path relative to the walk root, {@code /}-separated; only read when a rule is anchored
+     */
+    private boolean isExcluded(Deque<Frame> frames, String path, String name, boolean directory) {
+        if (Boolean.TRUE.equals(excludes.match(path, name, directory))) {
+            return true;
+        }
+        Boolean ignored = null;
+        for (Frame frame : frames) {
+            String relative = frame.rules.needsPath() ? path.substring(frame.offset) : null;
+            Boolean match = frame.rules.match(relative, name, directory);
+            if (match != null) {
+                ignored = match;
+            }
+        }
+        return Boolean.TRUE.equals(ignored);
+    }
+
+    /** Push the directory's {@code .gitignore}, if any; frames are iterated root first. */
+    private void pushGitignore(Deque<Frame> frames, Path dir, int offset) throws IOException {
+        if (gitignore) {
+            IgnoreRules rules = IgnoreRules.load(dir.resolve(GITIGNORE));
+            if (!rules.isEmpty()) {
+                frames.addLast(new Frame(offset, rules));
+            }
+        }
+    }
+
+    private static String slashSeparated(Path relative) {
+        String path = relative.toString();
+        return File.separatorChar == '/' ? path : path.replace(File.separatorChar, '/');
+    }
+
+    private static List<String> split(String patterns) {
+        return Arrays.stream(patterns.split(","))
+                .map(String::trim)
+                .filter(pattern -> !pattern.isEmpty())
+                .toList();
+    }
+
+    /**
+     * Ignore rules of one directory, and where paths relative to that directory start within a
+     * root-relative path.
+     */
+    private record Frame(int offset, IgnoreRules rules) {}
+
+    private final class Walker extends SimpleFileVisitor<Path> {
+        private final Path root;
+        private final FileSink sink;
+        private final boolean configuredPathRules;
+        /** Gitignore frames of the current directory and its ancestors, root first. */
+        private final Deque<Frame> frames = new ArrayDeque<>();
+        /** Per open directory, whether it pushed a frame. */
+        private final Deque<Boolean> pushed = new ArrayDeque<>();
+        private int anchoredFrames;
+        private InterruptedException interrupted;
+
+        Walker(Path root, FileSink sink) {
+            this.root = root;
+            this.sink = sink;
+            this.configuredPathRules = includes.needsPath() || excludes.needsPath();
+        }
+
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+            int offset = 0;
+            if (!dir.equals(root)) {
+                String path = slashSeparated(root.relativize(dir));
+                if (isExcluded(frames, path, dir.getFileName().toString(), true)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                offset = path.length() + 1;
+            }
+            int before = frames.size();
+            pushGitignore(frames, dir, offset);
+            boolean added = frames.size() > before;
+            if (added && frames.getLast().rules.needsPath()) {
+                anchoredFrames++;
+            }
+            pushed.push(added);
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+            if (!attrs.isRegularFile()) {
+                return FileVisitResult.CONTINUE;
+            }
+            String name = file.getFileName().toString();
+            // Most rules match on the name alone; only build the relative path when one needs it.
+            String path = configuredPathRules || anchoredFrames > 0 ? slashSeparated(root.relativize(file)) : null;
+            if (!isIncluded(path, name) || isExcluded(frames, path, name, false)) {
+                return FileVisitResult.CONTINUE;
+            }
+            try {
+                return sink.accept(file, attrs) ? FileVisitResult.CONTINUE : FileVisitResult.TERMINATE;
+            } catch (InterruptedException e) {
+                interrupted = e;
+                return FileVisitResult.TERMINATE;
+            }
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException e) {
+            log.warn("Skipping unreadable path {}: {}", file, e.getMessage());
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult postVisitDirectory(Path dir, IOException e) {
+            if (e != null) {
+                log.warn("Error listing {}: {}", dir, e.getMessage());
+            }
+            if (pushed.pop()) {
+                Frame frame = frames.removeLast();
+                if (frame.rules.needsPath()) {
+                    anchoredFrames--;
+                }
+            }
+            return FileVisitResult.CONTINUE;
+        }
+    }
 }
@@ -0,0 +1,463 @@
+package com.codetalker.firestick.service;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.codetalker.firestick.service.dto.IndexingMode;
+import com.codetalker.firestick.service.dto.IndexingProgress;
+import com.codetalker.firestick.service.dto.WatchStatus;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Keeps the index in step with the file system. Changes under each watched root are collected from a
+ * native {@link WatchService}, or by periodically diffing size/mtime snapshots where native watching is
+ * unavailable, then debounced and coalesced so a burst of saves or a branch switch becomes one
+ * {@link IndexingPipelineService#startDelta delta run} over just the touched paths.
+ * <p>
+ * A batch is flushed once no new change has arrived for {@code watch.debounce-ms}, or once its oldest
+ * change is {@code watch.max-batch-delay-ms} old so a steady stream of writes cannot starve indexing.
+ * At most one run per root is in flight; changes arriving meanwhile form the next batch. The time from
+ * the first change of a batch until its run completes is reported as the freshness lag. While an
+ * indexing job holds an overlapping root the pipeline refuses the run, and the batch waits for the
+ * next flush; so does a batch whose run fails.
+ */
+@Service
+public class FileWatchService {
+
+    /** How a root is watched; {@code AUTO} tries native watching and falls back to polling. */
+    public enum Mode { AUTO, NATIVE, POLL }
+
+    private static final Logger log = LoggerFactory.getLogger(FileWatchService.class);
+
+    private final IndexingPipelineService pipelineService;
+    private final FileDiscoveryService fileDiscoveryService;
+    private final boolean enabled;
+    private final List<String> configuredRoots;
+    private final Mode mode;
+    private final long debounceNanos;
+    private final long maxBatchDelayNanos;
+    private final long pollIntervalMillis;
+
+    private final Map<Path, RootWatch> watches = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService indexer;
+
+    private final AtomicLong batchesIndexed = new AtomicLong();
+    private final AtomicLong filesIndexed = new AtomicLong();
+    private final AtomicLong maxLagMillis = new AtomicLong();
+    private volatile long lastLagMillis;
+
+    public FileWatchService(IndexingPipelineService pipelineService,
+                            FileDiscoveryService fileDiscoveryService,
+                            @Value("${watch.enabled:false}") boolean enabled,
+                            @Value("${watch.roots:}") String roots,
+                            @Value("${watch.mode:auto}") String mode,
+                            @Value("${watch.debounce-ms:500}") long debounceMillis,
+                            @Value("${watch.max-batch-delay-ms:5000}") long maxBatchDelayMillis,
+                            @Value("${watch.poll-interval-ms:2000}") long pollIntervalMillis) {
+        this.pipelineService = pipelineService;
+        this.fileDiscoveryService = fileDiscoveryService;
+        this.enabled = enabled;
+        this.configuredRoots = Arrays.stream(roots.split(","))
+                .map(String::trim)
+                .filter(root -> !root.isEmpty())
+                .toList();
+        this.mode = Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        this.debounceNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, debounceMillis));
+        this.maxBatchDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(debounceMillis, maxBatchDelayMillis));
+        this.pollIntervalMillis = Math.max(10, pollIntervalMillis);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(daemon("file-watch"));
+        this.indexer = Executors.newSingleThreadExecutor(daemon("file-watch-indexer"));
+        long tick = Math.max(10, Math.min(debounceMillis / 4, 250));
+        scheduler.scheduleWithFixedDelay(this::flushReady, tick, tick, TimeUnit.MILLISECONDS);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        if (configuredRoots.isEmpty()) {
+            log.warn("watch.enabled is set but watch.roots is empty; nothing to watch");
+        }
+        for (String root : configuredRoots) {
+            try {
+                watch(Path.of(root));
+            } catch (IOException | RuntimeException e) {
+                log.error("Could not watch {}", root, e);
+            }
+        }
+    }
+
+    /**
+     * Start watching a root with the configured mode. Does not index what is already there; run the
+     * pipeline for that first.
+     */
+    public void watch(Path root) throws IOException {
+        watch(root, mode);
+    }
+
+    void watch(Path root, Mode requested) throws IOException {
+        Path normalized = root.toAbsolutePath().normalize();
+        if (!Files.isDirectory(normalized)) {
+            throw new IllegalArgumentException("Not a directory: " + root);
+        }
+        if (watches.containsKey(normalized)) {
+            return;
+        }
+        RootWatch watch = new RootWatch(normalized);
+        if (requested != Mode.POLL) {
+            try {
+                watch.startNative();
+            } catch (IOException | UnsupportedOperationException e) {
+                if (requested == Mode.NATIVE) {
+                    throw e;
+                }
+                log.warn("Native file watching unavailable for {} ({}); falling back to polling", normalized, e.toString());
+                watch.stopNative();
+            }
+        }
+        if (watch.watchService == null) {
+            watch.startPolling();
+        }
+        if (watches.putIfAbsent(normalized, watch) != null) {
+            watch.close();
+            return;
+        }
+        log.info("Watching {} ({})", normalized, watch.kind());
+    }
+
+    public void unwatch(Path root) {
+        RootWatch watch = watches.remove(root.toAbsolutePath().normalize());
+        if (watch != null) {
+            watch.close();
+        }
+    }
+
+    public WatchStatus status() {
+        Map<String, String> roots = new LinkedHashMap<>();
+        int pending = 0;
+        long oldest = 0;
+        for (RootWatch watch : watches.values()) {
+            roots.put(watch.root.toString(), watch.kind());
+            synchronized (watch) {
+                pending += watch.pending.size();
+                oldest = earliest(oldest, earliest(watch.firstEventNanos, watch.inFlightSinceNanos));
+            }
+        }
+        long currentLag = oldest == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldest);
+        return new WatchStatus(enabled, roots, pending, batchesIndexed.get(), filesIndexed.get(),
+                lastLagMillis, maxLagMillis.get(), currentLag);
+    }
+
+    @PreDestroy
+    public void close() {
+        scheduler.shutdownNow();
+        indexer.shutdownNow();
+        watches.values().forEach(RootWatch::close);
+        watches.clear();
+    }
+
+    /** Hand every batch that has gone quiet, or waited long enough, to the indexer. */
+    private void flushReady() {
+        long now = System.nanoTime();
+        for (RootWatch watch : watches.values()) {
+            Set<Path> batch;
+            boolean rescan;
+            long since;
+            synchronized (watch) {
+                if (watch.inFlightSinceNanos != 0 || (watch.pending.isEmpty() && !watch.rescan)) {
+                    continue;
+                }
+                if (now - watch.lastEventNanos < debounceNanos && now - watch.firstEventNanos < maxBatchDelayNanos) {
+                    continue;
+                }
+                batch = watch.pending;
+                rescan = watch.rescan;
+                since = watch.firstEventNanos;
+                watch.pending = new LinkedHashSet<>();
+                watch.rescan = false;
+                watch.firstEventNanos = 0;
+                watch.inFlightSinceNanos = since;
+            }
+            indexer.execute(() -> index(watch, batch, rescan, since));
+        }
+    }
+
+    private void index(RootWatch watch, Set<Path> batch, boolean rescan, long since) {
+        try {
+            // An overflowed event queue means changes were lost; only a full incremental pass is safe.
+            IndexingRun run = rescan
+                    ? pipelineService.start(watch.root.toString(), IndexingMode.INCREMENTAL)
+                    : pipelineService.startDelta(watch.root.toString(), batch);
+            IndexingProgress progress = run.await();
+            if (progress.state() != IndexingProgress.State.COMPLETED) {
+                // A failed or cancelled run may have persisted none of the batch; put it back for a retry.
+                log.warn("Indexing changes under {} ended {} in run {}; retrying after the next debounce",
+                        watch.root, progress.state(), run.getId());
+                requeue(watch, batch, rescan, since);
+                return;
+            }
+            long lag = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - since);
+            maxLagMillis.accumulateAndGet(lag, Math::max);
+            lastLagMillis = lag;
+            batchesIndexed.incrementAndGet();
+            filesIndexed.addAndGet(progress.filesPersisted() + progress.filesDeleted());
+            log.debug("Indexed {} changed path(s) under {} in run {} ({}), freshness lag {} ms",
+                    rescan ? "all" : batch.size(), watch.root, run.getId(), progress.state(), lag);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IndexingPipelineService.RootBusyException e) {
+            // An indexing job holds the root; keep the changes and try again after another debounce.
+            log.debug("Deferring changes under {}: {}", watch.root, e.getMessage());
+            requeue(watch, batch, rescan, since);
+        } catch (RuntimeException e) {
+            // The batch was already taken from pending; put it back so the changes are retried.
+            log.error("Indexing changes under {} failed; retrying after the next debounce", watch.root, e);
+            requeue(watch, batch, rescan, since);
+        } finally {
+            synchronized (watch) {
+                watch.inFlightSinceNanos = 0;
+            }
+        }
+    }
+
+    /** Put a batch that was not indexed back in front of whatever arrived since. */
+    private static void requeue(RootWatch watch, Set<Path> batch, boolean rescan, long since) {
+        synchronized (watch) {
+            Set<Path> merged = new LinkedHashSet<>(batch);
+            merged.addAll(watch.pending);
+            watch.pending = merged;
+            watch.rescan |= rescan;
+            watch.firstEventNanos = earliest(watch.firstEventNanos, since);
+            watch.lastEventNanos = System.nanoTime();
+        }
+    }
+
+    private static long earliest(long a, long b) {
+        if (a == 0) {
+            return b;
+        }
+        return b == 0 ? a : Math.min(a, b);
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /** Watch state for one root. Pending-batch fields are guarded by the instance monitor. */
+    private final class RootWatch {
+        final Path root;
+        Set<Path> pending = new LinkedHashSet<>();
+        boolean rescan;
+        long firstEventNanos;
+        long lastEventNanos;
+        long inFlightSinceNanos;
+
+        WatchService watchService;
+        private final Map<WatchKey, Path> keys = new ConcurrentHashMap<>();
+        private Thread eventLoop;
+        private ScheduledFuture<?> poller;
+        private Map<Path, Long> snapshot = Map.of();
+
+        RootWatch(Path root) {
+            this.root = root;
+        }
+
+        String kind() {
+            return watchService != null ? "native" : "poll";
+        }
+
+        synchronized void changed(Path path) {
+            long now = System.nanoTime();
+            if (firstEventNanos == 0) {
+                firstEventNanos = now;
+            }
+            lastEventNanos = now;
+            pending.add(path);
+        }
+
+        synchronized void overflowed() {
+            changed(root);
+            rescan = true;
+        }
+
+        void startNative() throws IOException {
+            watchService = root.getFileSystem().newWatchService();
+            register(root);
+            eventLoop = new Thread(this::drainEvents, "file-watch-" + root.getFileName());
+            eventLoop.setDaemon(true);
+            eventLoop.start();
+        }
+
+        void stopNative() {
+            if (watchService != null) {
+                try {
+                    watchService.close();
+                } catch (IOException ignored) {
+                    // nothing left to release
+                }
+                watchService = null;
+            }
+        }
+
+        /** Register the directory and every directory below it that discovery would descend into. */
+        private void register(Path start) throws IOException {
+            Files.walkFileTree(start, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    if (!dir.equals(root) && !fileDiscoveryService.descendsInto(root, dir)) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                    keys.put(key, dir);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    // Files created in a new directory before it was registered produce no events of their own.
+                    if (!start.equals(root) && fileDiscoveryService.accepts(root, file)) {
+                        changed(file);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+
+        private void drainEvents() {
+            WatchService service = watchService;
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key;
+                try {
+                    key = service.take();
+                } catch (InterruptedException | ClosedWatchServiceException e) {
+                    return;
+                }
+                Path dir = keys.get(key);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        overflowed();
+                        continue;
+                    }
+                    if (dir == null) {
+                        continue;
+                    }
+                    Path path = dir.resolve((Path) event.context());
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+                            && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                        if (fileDiscoveryService.descendsInto(root, path)) {
+                            try {
+                                register(path);
+                            } catch (IOException e) {
+                                log.warn("Could not watch new directory {}; rescanning {}", path, root, e);
+                                overflowed();
+                            }
+                        }
+                    } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE
+                            || fileDiscoveryService.accepts(root, path)) {
+                        // Deletes may be whole directories, so they pass through unfiltered.
+                        changed(path);
+                    }
+                }
+                if (!key.reset()) {
+                    keys.remove(key);
+                }
+            }
+        }
+
+        void startPolling() {
+            snapshot = scan();
+            poller = scheduler.scheduleWithFixedDelay(this::poll, pollIntervalMillis, pollIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+
+        private void poll() {
+            Map<Path, Long> current;
+            try {
+                current = scan();
+            } catch (RuntimeException e) {
+                log.warn("Polling {} failed", root, e);
+                return;
+            }
+            for (Map.Entry<Path, Long> entry : current.entrySet()) {
+                if (!entry.getValue().equals(snapshot.get(entry.getKey()))) {
+                    changed(entry.getKey());
+                }
+            }
+            for (Path path : snapshot.keySet()) {
+                if (!current.containsKey(path)) {
+                    changed(path);
+                }
+            }
+            snapshot = current;
+        }
+
+        /** Size and mtime of every discoverable file, folded into one signature per path. */
+        private Map<Path, Long> scan() {
+            Map<Path, Long> signatures = new HashMap<>();
+            for (Path path : fileDiscoveryService.scanDirectory(root.toString())) {
+                try {
+                    BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+                    signatures.put(path, attrs.lastModifiedTime().toMillis() * 31 + attrs.size());
+                } catch (IOException e) {
+                    // Deleted between listing and stat; the next poll reports it.
+                }
+            }
+            return signatures;
+        }
+
+        void close() {
+            if (poller != null) {
+                poller.cancel(false);
+            }
+            if (eventLoop != null) {
+                eventLoop.interrupt();
+            }
+            stopNative();
+        }
+    }
+}
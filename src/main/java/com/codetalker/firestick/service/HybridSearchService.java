@@ -0,0 +1,519 @@
+package com.codetalker.firestick.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.codetalker.firestick.service.dto.KeywordHit;
+import com.codetalker.firestick.service.dto.KeywordPage;
+import com.codetalker.firestick.service.dto.KeywordQuery;
+import com.codetalker.firestick.service.dto.QueryCacheStats;
+import com.codetalker.firestick.service.dto.SearchFilters;
+import com.codetalker.firestick.service.dto.SearchRequest;
+import com.codetalker.firestick.service.dto.SearchResponse;
+import com.codetalker.firestick.service.dto.SearchResult;
+import com.codetalker.firestick.service.dto.VectorMatch;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Hybrid code search: a Lucene keyword query and a vector nearest-neighbour query run in parallel and
+ * their ranked lists are fused into one, deduplicated by chunk id.
+ * <p>
+ * Fusion is either reciprocal rank fusion ({@code rrf}, the default: {@code sum(w / (k + rank))}), which
+ * needs no score calibration, or {@code weighted}, a weighted sum of max-normalised scores. Both
+ * retrievers share {@code search.hybrid.latency-budget-ms}; one that has not answered by then is
+ * dropped and the response is flagged partial instead of waiting. Each retriever is timed as
+ * {@code firestick.search.retriever}, the whole request as {@code firestick.search.hybrid}.
+ * <p>
+ * Filters are applied inside Lucene on the keyword side; vector matches, which carry no package or
+ * path index, are over-fetched and then checked against the same filters in Lucene by chunk id. Facet
+ * counts come from the keyword index. For paging deep into large result sets,
+ * {@link #keywordSearch(SearchRequest)} skips fusion and pages with a cursor.
+ * <p>
+ * Complete responses are cached ({@code search.cache.max-entries}) by mode, whitespace-normalised
+ * query, page, filters, facets and cursor. Each entry is stamped with the keyword index generation and
+ * the vector store version it was computed under and is dropped once either moves, so a repeated query
+ * is answered from memory until the next indexing write. Partial responses are never cached.
+ * <p>
+ * Retrievers run on virtual threads. The vector side is guarded so a slow or failing store costs
+ * recall, not latency or threads: at most {@code search.vector.max-concurrent} vector queries run at
+ * once, and a circuit breaker opens after {@code search.vector.breaker.failure-threshold} failed or
+ * slow ({@code search.vector.breaker.slow-call-ms}) queries in a row. While either refuses, searches
+ * are answered from the keyword index alone and flagged partial; the breaker tries the store again
+ * after {@code search.vector.breaker.open-ms}.
+ */
+@Service
+public class HybridSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(HybridSearchService.class);
+
+    public enum Fusion { RRF, WEIGHTED }
+
+    // Vector matches fetched per wanted candidate when filters will discard some of them.
+    private static final int FILTERED_VECTOR_OVERFETCH = 4;
+
+    private record CacheKey(String mode, String query, int page, int size, SearchFilters filters,
+                            List<String> facets, String cursor) {}
+
+    private record Generation(long keyword, long vector) {}
+
+    private final CodeSearchService codeSearchService;
+    private final VectorStore vectorStore;
+    private final EmbeddingService embeddingService;
+    private final ChunkContentStore chunkContentStore;
+    private final Fusion fusion;
+    private final int rrfK;
+    private final double keywordWeight;
+    private final double vectorWeight;
+    private final int minCandidates;
+    private final long latencyBudgetMillis;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    private final int snippetLines;
+    private final ExecutorService executor;
+    private final MeterRegistry meterRegistry;
+    private final Timer keywordTimer;
+    private final Timer vectorTimer;
+    private final QueryCache<CacheKey, SearchResponse> resultCache;
+    private final Semaphore vectorSlots;
+    private final CircuitBreaker vectorBreaker;
+
+    public HybridSearchService(
+            CodeSearchService codeSearchService,
+            VectorStore vectorStore,
+            EmbeddingService embeddingService,
+            ChunkContentStore chunkContentStore,
+            MeterRegistry meterRegistry,
+            @Value("${search.hybrid.fusion:rrf}") String fusion,
+            @Value("${search.hybrid.rrf-k:60}") int rrfK,
+            @Value("${search.hybrid.keyword-weight:1.0}") double keywordWeight,
+            @Value("${search.hybrid.vector-weight:1.0}") double vectorWeight,
+            @Value("${search.hybrid.candidates:50}") int minCandidates,
+            @Value("${search.hybrid.latency-budget-ms:1500}") long latencyBudgetMillis,
+            @Value("${search.hybrid.default-page-size:10}") int defaultPageSize,
+            @Value("${search.hybrid.max-page-size:100}") int maxPageSize,
+            @Value("${search.hybrid.snippet-lines:3}") int snippetLines,
+            @Value("${search.cache.max-entries:1000}") int cacheMaxEntries,
+            @Value("${search.vector.max-concurrent:64}") int vectorMaxConcurrent,
+            @Value("${search.vector.breaker.failure-threshold:5}") int breakerFailureThreshold,
+            @Value("${search.vector.breaker.open-ms:10000}") long breakerOpenMillis,
+            @Value("${search.vector.breaker.slow-call-ms:1000}") long breakerSlowCallMillis
+    ) {
+        this.codeSearchService = codeSearchService;
+        this.vectorStore = vectorStore;
+        this.embeddingService = embeddingService;
+        this.chunkContentStore = chunkContentStore;
+        this.fusion = Fusion.valueOf(fusion.trim().toUpperCase(Locale.ROOT));
+        this.rrfK = Math.max(1, rrfK);
+        this.keywordWeight = keywordWeight;
+        this.vectorWeight = vectorWeight;
+        this.minCandidates = Math.max(1, minCandidates);
+        this.latencyBudgetMillis = Math.max(1, latencyBudgetMillis);
+        this.maxPageSize = Math.max(1, maxPageSize);
+        this.defaultPageSize = Math.min(Math.max(1, defaultPageSize), this.maxPageSize);
+        this.snippetLines = Math.max(1, snippetLines);
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("hybrid-search-", 1).factory());
+        this.meterRegistry = meterRegistry;
+        this.keywordTimer = retrieverTimer("keyword");
+        this.vectorTimer = retrieverTimer("vector");
+        this.resultCache = cacheMaxEntries > 0 ? new QueryCache<>(cacheMaxEntries) : null;
+        this.vectorSlots = new Semaphore(Math.max(1, vectorMaxConcurrent));
+        this.vectorBreaker = new CircuitBreaker("Vector search", breakerFailureThreshold, breakerOpenMillis,
+                breakerSlowCallMillis);
+        Gauge.builder("firestick.search.vector.circuit.state", vectorBreaker, b -> b.state().ordinal())
+                .description("Vector search circuit: 0 closed, 1 half-open, 2 open")
+                .register(meterRegistry);
+    }
+
+    private Timer retrieverTimer(String retriever) {
+        return Timer.builder("firestick.search.retriever")
+                .description("One retriever's share of a hybrid search; the vector side includes embedding the query")
+                .tag("retriever", retriever)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run a hybrid query and return one page of fused results.
+     *
+     * @param query Free-text query; Lucene syntax is honoured by the keyword side
+     * @param page  0-based page number
+     * @param size  Page size, capped at {@code search.hybrid.max-page-size}; null for the default
+     */
+    public SearchResponse search(String query, int page, Integer size) {
+        return search(new SearchRequest(query, page, size));
+    }
+
+    /**
+     * Run a hybrid query with filters, facets and an optional time limit in place of the latency budget.
+     */
+    public SearchResponse search(SearchRequest request) {
+        String query = request.query();
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("query must not be blank");
+        }
+        long start = System.nanoTime();
+        int pageSize = pageSize(request.size());
+        int pageNumber = request.page() == null ? 0 : Math.max(0, request.page());
+        int candidates = Math.max(minCandidates, (pageNumber + 1) * pageSize);
+        long budget = budget(request);
+        SearchFilters filters = request.filters() == null ? SearchFilters.NONE : request.filters();
+        CacheKey key = cacheKey("hybrid", request, pageNumber, pageSize);
+        // Read before searching: a write landing mid-search then invalidates what this search caches.
+        Generation generation = new Generation(codeSearchService.generation(), vectorStore.version());
+        SearchResponse cached = cached(key, generation, start);
+        if (cached != null) {
+            return cached;
+        }
+
+        // The keyword side stops itself at the budget with what it has instead of being dropped.
+        KeywordQuery keywordQuery = new KeywordQuery(query, filters, request.facets(), null, candidates, budget);
+        CompletableFuture<KeywordPage> keyword = supply(keywordTimer, () -> keywordSearch(keywordQuery));
+        CompletableFuture<List<VectorMatch>> vector = guardedVectorSearch(query, filters, candidates);
+
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(budget);
+        KeywordPage keywordPage = await(keyword, deadline, "keyword");
+        List<VectorMatch> vectorHits = vector == null ? null : await(vector, deadline, "vector");
+        boolean partial = keywordPage == null || keywordPage.timedOut() || vectorHits == null;
+
+        List<Candidate> fused = fuse(keywordPage == null ? List.of() : keywordPage.hits(),
+                vectorHits == null ? List.of() : vectorHits);
+        Set<String> terms = SnippetHighlighter.terms(query);
+        List<SearchResult> results = new ArrayList<>(pageSize);
+        int from = Math.min(fused.size(), pageNumber * pageSize);
+        List<Candidate> pageCandidates = fused.subList(from, Math.min(fused.size(), from + pageSize));
+        loadContent(pageCandidates);
+        for (Candidate c : pageCandidates) {
+            results.add(new SearchResult(c.id, c.filePath, c.startLine, c.endLine, c.type, c.score,
+                    c.keywordScore, c.keywordRank, c.vectorScore, c.vectorRank,
+                    SnippetHighlighter.highlight(c.content, terms, snippetLines)));
+        }
+        long tookNanos = System.nanoTime() - start;
+        Timer.builder("firestick.search.hybrid")
+                .description("Hybrid searches, end to end")
+                .tag("partial", String.valueOf(partial))
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry)
+                .record(tookNanos, TimeUnit.NANOSECONDS);
+        long tookMillis = TimeUnit.NANOSECONDS.toMillis(tookNanos);
+        SearchResponse response = new SearchResponse(query, pageNumber, pageSize, fused.size(), tookMillis,
+                partial, results, keywordPage == null ? Map.of() : keywordPage.facets(), null);
+        if (!partial && resultCache != null) {
+            resultCache.put(key, generation, response);
+        }
+        return response;
+    }
+
+    /**
+     * Keyword-only search paged by cursor: each page resumes after the previous page's last hit, so deep
+     * pages are as cheap as the first. Ranks are positions within the page.
+     *
+     * @throws IllegalArgumentException for a blank query, an unknown facet or a malformed cursor
+     */
+    public SearchResponse keywordSearch(SearchRequest request) {
+        String query = request.query();
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("query must not be blank");
+        }
+        long start = System.nanoTime();
+        int pageSize = pageSize(request.size());
+        int pageNumber = request.page() == null ? 0 : Math.max(0, request.page());
+        CacheKey key = cacheKey("keyword", request, pageNumber, pageSize);
+        Generation generation = new Generation(codeSearchService.generation(), 0);
+        SearchResponse cached = cached(key, generation, start);
+        if (cached != null) {
+            return cached;
+        }
+        KeywordPage page = keywordTimer.record(() -> keywordSearch(new KeywordQuery(query, request.filters(),
+                request.facets(), request.cursor(), pageSize, budget(request))));
+        List<Candidate> candidates = new ArrayList<>(page.hits().size());
+        for (int i = 0; i < page.hits().size(); i++) {
+            KeywordHit hit = page.hits().get(i);
+            Candidate c = new Candidate(hit.id());
+            c.score = hit.score();
+            c.keywordScore = hit.score();
+            c.keywordRank = i + 1;
+            c.fill(hit.filePath(), hit.type(), hit.startLine(), hit.endLine(), hit.content(), hit.contentRef());
+            candidates.add(c);
+        }
+        loadContent(candidates);
+        Set<String> terms = SnippetHighlighter.terms(query);
+        List<SearchResult> results = new ArrayList<>(candidates.size());
+        for (Candidate c : candidates) {
+            results.add(new SearchResult(c.id, c.filePath, c.startLine, c.endLine, c.type, c.score,
+                    c.keywordScore, c.keywordRank, null, null,
+                    SnippetHighlighter.highlight(c.content, terms, snippetLines)));
+        }
+        long tookMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        SearchResponse response = new SearchResponse(query, pageNumber, pageSize,
+                (int) Math.min(Integer.MAX_VALUE, page.totalHits()), tookMillis, page.timedOut(), results,
+                page.facets(), page.nextCursor());
+        if (!page.timedOut() && resultCache != null) {
+            resultCache.put(key, generation, response);
+        }
+        return response;
+    }
+
+    private static CacheKey cacheKey(String mode, SearchRequest request, int page, int size) {
+        List<String> facets = request.facets() == null ? List.of() : List.copyOf(request.facets());
+        SearchFilters filters = request.filters() == null || request.filters().isEmpty() ? null : request.filters();
+        return new CacheKey(mode, QueryCache.normalize(request.query()), page, size, filters, facets, request.cursor());
+    }
+
+    /** A cached response for the current generation, with its own lookup time as {@code tookMillis}. */
+    private SearchResponse cached(CacheKey key, Generation generation, long startNanos) {
+        SearchResponse hit = resultCache == null ? null : resultCache.get(key, generation);
+        if (hit == null) {
+            return null;
+        }
+        return new SearchResponse(hit.query(), hit.page(), hit.size(), hit.totalHits(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), hit.partial(), hit.results(),
+                hit.facets(), hit.nextCursor());
+    }
+
+    /** Hit/miss/invalidation counters of the result cache; all zero when it is disabled. */
+    public QueryCacheStats getCacheStats() {
+        return resultCache == null ? QueryCacheStats.EMPTY : resultCache.stats();
+    }
+
+    private int pageSize(Integer size) {
+        return size == null || size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+    }
+
+    private long budget(SearchRequest request) {
+        return request.timeoutMs() != null && request.timeoutMs() > 0 ? request.timeoutMs() : latencyBudgetMillis;
+    }
+
+    /** Fetch chunk text from the content store, only for the candidates on the page being rendered. */
+    private void loadContent(List<Candidate> candidates) {
+        List<Long> refs = new ArrayList<>();
+        for (Candidate c : candidates) {
+            if (c.content == null && c.contentRef != null) {
+                refs.add(c.contentRef);
+            }
+        }
+        if (refs.isEmpty()) {
+            return;
+        }
+        Map<Long, String> texts = chunkContentStore.getAll(refs);
+        for (Candidate c : candidates) {
+            if (c.content == null && c.contentRef != null) {
+                c.content = texts.get(c.contentRef);
+            }
+        }
+    }
+
+    private KeywordPage keywordSearch(KeywordQuery query) {
+        try {
+            return codeSearchService.search(query);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<VectorMatch> vectorSearch(String query, SearchFilters filters, int candidates) {
+        float[] embedding = embeddingService.getQueryEmbedding(query);
+        if (filters.isEmpty()) {
+            return vectorStore.query(embedding, candidates, Map.of());
+        }
+        List<VectorMatch> matches = vectorStore.query(embedding,
+                candidates * FILTERED_VECTOR_OVERFETCH, Map.of());
+        try {
+            Set<String> kept = codeSearchService.filterIds(filters, matches.stream().map(VectorMatch::id).toList());
+            return matches.stream().filter(m -> kept.contains(m.id())).limit(candidates).toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Start a vector query if the bulkhead has a free slot and the circuit lets it through; null when
+     * either refuses. The task itself reports its outcome and frees its slot, since the caller may stop
+     * waiting for it at the latency budget.
+     */
+    private CompletableFuture<List<VectorMatch>> guardedVectorSearch(String query, SearchFilters filters,
+                                                                      int candidates) {
+        if (!vectorSlots.tryAcquire()) {
+            rejected("bulkhead-full");
+            return null;
+        }
+        long permit = vectorBreaker.tryAcquire();
+        if (permit < 0) {
+            vectorSlots.release();
+            rejected("circuit-open");
+            return null;
+        }
+        return supply(vectorTimer, () -> {
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                List<VectorMatch> matches = vectorSearch(query, filters, candidates);
+                failed = false;
+                return matches;
+            } finally {
+                vectorBreaker.record(permit, failed, System.nanoTime() - start);
+                vectorSlots.release();
+            }
+        });
+    }
+
+    private void rejected(String reason) {
+        Counter.builder("firestick.search.vector.rejected")
+                .description("Vector queries skipped by the bulkhead or an open circuit; the search went keyword-only")
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /** State of the vector search circuit breaker: {@code CLOSED}, {@code HALF_OPEN} or {@code OPEN}. */
+    public String getVectorCircuitState() {
+        return vectorBreaker.state().name();
+    }
+
+    private <T> CompletableFuture<T> supply(Timer timer, Supplier<T> task) {
+        return CompletableFuture.supplyAsync(() -> timer.record(task), executor);
+    }
+
+    /** Wait for a retriever until the deadline; null means it failed or ran out of budget. */
+    private static <T> T await(CompletableFuture<T> future, long deadlineNanos, String name) {
+        try {
+            return future.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("{} search exceeded the latency budget; returning partial results", name);
+        } catch (ExecutionException e) {
+            log.warn("{} search failed; returning partial results", name, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    private List<Candidate> fuse(List<KeywordHit> keywordHits, List<VectorMatch> vectorHits) {
+        Map<String, Candidate> byId = new LinkedHashMap<>();
+        float keywordMax = keywordHits.stream().map(KeywordHit::score).max(Float::compare).orElse(1f);
+        float vectorMax = vectorHits.stream().map(VectorMatch::score).max(Float::compare).orElse(1f);
+        for (int i = 0; i < keywordHits.size(); i++) {
+            KeywordHit hit = keywordHits.get(i);
+            Candidate c = byId.computeIfAbsent(hit.id(), Candidate::new);
+            if (c.keywordRank != null) {
+                continue;
+            }
+            c.keywordRank = i + 1;
+            c.keywordScore = hit.score();
+            c.score += contribution(keywordWeight, i + 1, hit.score(), keywordMax);
+            c.fill(hit.filePath(), hit.type(), hit.startLine(), hit.endLine(), hit.content(), hit.contentRef());
+        }
+        for (int i = 0; i < vectorHits.size(); i++) {
+            VectorMatch hit = vectorHits.get(i);
+            Candidate c = byId.computeIfAbsent(hit.id(), Candidate::new);
+            if (c.vectorRank != null) {
+                continue;
+            }
+            c.vectorRank = i + 1;
+            c.vectorScore = hit.score();
+            c.score += contribution(vectorWeight, i + 1, hit.score(), vectorMax);
+            Map<String, String> meta = hit.metadata() == null ? Map.of() : hit.metadata();
+            c.fill(meta.get("file"), meta.get("type"), parseInt(meta.get("startLine")),
+                    parseInt(meta.get("endLine")), hit.document(), parseLong(meta.get("contentRef")));
+        }
+        List<Candidate> fused = new ArrayList<>(byId.values());
+        fused.sort(Comparator.comparingDouble((Candidate c) -> c.score).reversed().thenComparing(c -> c.id));
+        return fused;
+    }
+
+    private double contribution(double weight, int rank, float score, float maxScore) {
+        return switch (fusion) {
+            case RRF -> weight / (rrfK + rank);
+            case WEIGHTED -> maxScore > 0 ? weight * score / maxScore : 0;
+        };
+    }
+
+    private static Long parseLong(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static int parseInt(String value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    public Fusion getFusion() { return fusion; }
+
+    /** Mutable accumulator for one chunk while both lists are merged. */
+    private static final class Candidate {
+        final String id;
+        double score;
+        Float keywordScore;
+        Integer keywordRank;
+        Float vectorScore;
+        Integer vectorRank;
+        String filePath;
+        String type;
+        int startLine;
+        int endLine;
+        String content;
+        Long contentRef;
+
+        Candidate(String id) {
+            this.id = id;
+        }
+
+        void fill(String filePath, String type, int startLine, int endLine, String content, Long contentRef) {
+            if (this.filePath == null) {
+                this.filePath = filePath;
+                this.type = type;
+                this.startLine = startLine;
+                this.endLine = endLine;
+            }
+            if (this.content == null) {
+                this.content = content;
+            }
+            if (this.contentRef == null) {
+                this.contentRef = contentRef;
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.codetalker.firestick.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Ordered {@code .gitignore}-style patterns, evaluated relative to the directory they belong to.
+ * <p>
+ * Supports comments, {@code !} negation, trailing {@code /} for directories only, leading or inner
+ * {@code /} to anchor a pattern to the base directory, and {@code *}, {@code ?}, {@code [...]} and
+ * {@code **} wildcards. Unanchored patterns match the bare file name at any depth. Literal patterns
+ * such as {@code target/} are compared with {@code equals}; only wildcard patterns use a regex.
+ */
+final class IgnoreRules {
+
+    static final IgnoreRules EMPTY = new IgnoreRules(List.of());
+
+    private final List<Rule> rules;
+    private final boolean needsPath;
+
+    private IgnoreRules(List<Rule> rules) {
+        this.rules = rules;
+        this.needsPath = rules.stream().anyMatch(Rule::anchored);
+    }
+
+    static IgnoreRules parse(Collection<String> lines) {
+        List<Rule> rules = new ArrayList<>();
+        for (String line : lines) {
+            Rule rule = Rule.parse(line);
+            if (rule != null) {
+                rules.add(rule);
+            }
+        }
+        return rules.isEmpty() ? EMPTY : new IgnoreRules(List.copyOf(rules));
+    }
+
+    /** Rules from an ignore file, or {@link #EMPTY} if there is none. */
+    static IgnoreRules load(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return EMPTY;
+        }
+        return parse(Files.readAllLines(file, StandardCharsets.UTF_8));
+    }
+
+    boolean isEmpty() {
+        return rules.isEmpty();
+    }
+
+    /** Whether {@link #match} needs the relative path, not just the name. */
+    boolean needsPath() {
+        return needsPath;
+    }
+
+    /**
+     * Evaluate the rules against one path; the last matching rule wins.
+     *
+     * @param relativePath Path relative to the rules' base, {@code /}-separated; may be null if
+     *                     {@link #needsPath()} is false
+     * @param name         Last element of the path
+     * @return {@code TRUE} if ignored, {@code FALSE} if re-included by a negation, null if no rule matches
+     */
+    Boolean match(String relativePath, String name, boolean directory) {
+        for (int i = rules.size() - 1; i >= 0; i--) {
+            Rule rule = rules.get(i);
+            if (rule.matches(relativePath, name, directory)) {
+                return !rule.negate();
+            }
+        }
+        return null;
+    }
+
+    private record Rule(boolean negate, boolean directoryOnly, boolean anchored, String literal, Pattern regex) {
+
+        static Rule parse(String line) {
+            String pattern = stripTrailingSpaces(line);
+            if (pattern.isEmpty() || pattern.startsWith("#")) {
+                return null;
+            }
+            boolean negate = pattern.startsWith("!");
+            if (negate) {
+                pattern = pattern.substring(1);
+            } else if (pattern.startsWith("\\!") || pattern.startsWith("\\#")) {
+                pattern = pattern.substring(1);
+            }
+            boolean directoryOnly = pattern.endsWith("/");
+            if (directoryOnly) {
+                pattern = pattern.substring(0, pattern.length() - 1);
+            }
+            boolean anchored = pattern.indexOf('/') >= 0;
+            if (pattern.startsWith("/")) {
+                pattern = pattern.substring(1);
+            }
+            if (pattern.isEmpty()) {
+                return null;
+            }
+            boolean literal = pattern.chars().noneMatch(c -> c == '*' || c == '?' || c == '[' || c == '\\');
+            return new Rule(negate, directoryOnly, anchored, literal ? pattern : null,
+                    literal ? null : Pattern.compile(toRegex(pattern)));
+        }
+
+        boolean matches(String relativePath, String name, boolean directory) {
+            if (directoryOnly && !directory) {
+                return false;
+            }
+            String subject = anchored ? relativePath : name;
+            return literal != null ? literal.equals(subject) : regex.matcher(subject).matches();
+        }
+
+        private static String stripTrailingSpaces(String line) {
+            int end = line.length();
+            while (end > 0 && line.charAt(end - 1) == ' ' && (end < 2 || line.charAt(end - 2) != '\\')) {
+                end--;
+            }
+            return line.substring(0, end);
+        }
+
+        private static String toRegex(String glob) {
+            StringBuilder regex = new StringBuilder(glob.length() + 16);
+            int n = glob.length();
+            for (int i = 0; i < n; i++) {
+                char c = glob.charAt(i);
+                switch (c) {
+                    case '*' -> {
+                        boolean doubleStar = i + 1 < n && glob.charAt(i + 1) == '*'
+                                && (i == 0 || glob.charAt(i - 1) == '/');
+                        if (doubleStar && i + 2 == n) {
+                            regex.append(".*");
+                            i++;
+                        } else if (doubleStar && glob.charAt(i + 2) == '/') {
+                            regex.append("(?:.*/)?");
+                            i += 2;
+                        } else {
+                            regex.append("[^/]*");
+                        }
+                    }
+                    case '?' -> regex.append("[^/]");
+                    case '[' -> {
+                        int close = glob.indexOf(']', i + 2);
+                        if (close < 0) {
+                            regex.append("\\[");
+                        } else {
+                            String body = glob.substring(i + 1, close);
+                            if (body.startsWith("!")) {
+                                body = "^" + body.substring(1);
+                            }
+                            regex.append('[').append(body.replace("\\", "\\\\").replace("[", "\\[")).append(']');
+                            i = close;
+                        }
+                    }
+                    case '\\' -> {
+                        if (i + 1 < n) {
+                            regex.append(Pattern.quote(String.valueOf(glob.charAt(++i))));
+                        }
+                    }
+                    default -> {
+                        if (".^$+{}()|".indexOf(c) >= 0) {
+                            regex.append('\\');
+                        }
+                        regex.append(c);
+                    }
+                }
+            }
+            return regex.toString();
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.codetalker.firestick.service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.codetalker.firestick.service.dto.IndexingJobStatus;
+import com.codetalker.firestick.service.dto.IndexingJobStatus.State;
+import com.codetalker.firestick.service.dto.IndexingMode;
+import com.codetalker.firestick.service.dto.IndexingProgress;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Schedules indexing jobs submitted through the API onto the {@link IndexingPipelineService}.
+ * <p>
+ * At most {@code indexing.jobs.max-concurrent} jobs run at once; later ones wait in submission order, up
+ * to {@code indexing.jobs.max-queued}. A job is refused while another queued or running job, or a
+ * watcher run, covers the same root, an ancestor or a descendant of it, since both would write the same
+ * files. The pipeline enforces the same rule when the run starts, so a job that gets its slot while a
+ * watcher run holds an overlapping root waits for that run to finish first. Each job is supervised by
+ * its own virtual thread that only waits on the run, so callers (and
+ * Tomcat request threads) return as soon as the job is admitted. Cancelling a queued job drops it;
+ * cancelling a running one stops its pipeline and keeps what was already persisted.
+ */
+@Service
+public class IndexingJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(IndexingJobService.class);
+
+    private static final int MAX_RETAINED_JOBS = 32;
+
+    /** Why a job was not admitted. */
+    public static class JobRejectedException extends RuntimeException {
+
+        public enum Reason { OVERLAPPING_ROOT, QUEUE_FULL }
+
+        private final Reason reason;
+
+        JobRejectedException(Reason reason, String message) {
+            super(message);
+            this.reason = reason;
+        }
+
+        public Reason getReason() {
+            return reason;
+        }
+    }
+
+    private final IndexingPipelineService pipelineService;
+    private final Semaphore slots;
+    private final int maxQueued;
+    private final long progressIntervalMillis;
+    private final ExecutorService supervisors = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("index-job-", 1).factory());
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    public IndexingJobService(IndexingPipelineService pipelineService,
+                              @Value("${indexing.jobs.max-concurrent:2}") int maxConcurrent,
+                              @Value("${indexing.jobs.max-queued:16}") int maxQueued,
+                              @Value("${indexing.jobs.progress-interval-ms:500}") long progressIntervalMillis) {
+        this.pipelineService = pipelineService;
+        this.slots = new Semaphore(Math.max(1, maxConcurrent), true);
+        this.maxQueued = Math.max(0, maxQueued);
+        this.progressIntervalMillis = Math.max(10, progressIntervalMillis);
+    }
+
+    /**
+     * Admit a job and return immediately; it starts as soon as a slot is free.
+     *
+     * @param path Directory to index
+     * @param mode Full or incremental
+     * @throws IllegalArgumentException if the path is not a directory
+     * @throws JobRejectedException     if the root overlaps an unfinished job or the queue is full
+     */
+    public IndexingJobStatus submit(String path, IndexingMode mode) {
+        if (path == null || path.isBlank()) {
+            throw new IllegalArgumentException("path must not be blank");
+        }
+        Path root = Path.of(path).toAbsolutePath().normalize();
+        if (!Files.isDirectory(root)) {
+            throw new IllegalArgumentException("Not a directory: " + path);
+        }
+        Job job;
+        synchronized (jobs) {
+            for (Job other : jobs.values()) {
+                if (!other.status().isFinished() && IndexingPipelineService.overlaps(root, other.root)) {
+                    throw new JobRejectedException(JobRejectedException.Reason.OVERLAPPING_ROOT,
+                            "Job " + other.id + " is already indexing " + other.root);
+                }
+            }
+            for (IndexingProgress run : pipelineService.activeRuns()) {
+                if (IndexingPipelineService.overlaps(root, Path.of(run.rootPath()).toAbsolutePath().normalize())) {
+                    throw new JobRejectedException(JobRejectedException.Reason.OVERLAPPING_ROOT,
+                            "Run " + run.runId() + " is already indexing " + run.rootPath());
+                }
+            }
+            long queued = jobs.values().stream().filter(j -> j.status().state() == State.QUEUED).count();
+            if (queued >= maxQueued + slots.availablePermits()) {
+                throw new JobRejectedException(JobRejectedException.Reason.QUEUE_FULL,
+                        queued + " indexing jobs are already waiting");
+            }
+            if (jobs.size() >= MAX_RETAINED_JOBS) {
+                jobs.values().removeIf(j -> j.status().isFinished());
+            }
+            job = new Job(UUID.randomUUID().toString(), root, mode == null ? IndexingMode.INCREMENTAL : mode);
+            jobs.put(job.id, job);
+        }
+        supervisors.execute(() -> supervise(job));
+        return job.status();
+    }
+
+    private void supervise(Job job) {
+        job.supervisor = Thread.currentThread();
+        try {
+            slots.acquire();
+        } catch (InterruptedException e) {
+            // Cancelled while queued.
+            return;
+        }
+        try {
+            IndexingRun run;
+            while (true) {
+                IndexingRun blocking;
+                synchronized (job) {
+                    if (job.cancelled) {
+                        return;
+                    }
+                    try {
+                        run = pipelineService.start(job.root.toString(), job.mode);
+                        job.run = run;
+                        break;
+                    } catch (IndexingPipelineService.RootBusyException e) {
+                        blocking = e.getBlockingRun();
+                    }
+                }
+                // A watcher run took the root since the job was admitted; it is short, so wait it out.
+                log.info("Indexing job {} on {} waits for run {}", job.id, job.root, blocking.getId());
+                blocking.completion().handle((progress, failure) -> null).get();
+            }
+            IndexingProgress result = run.await();
+            log.info("Indexing job {} on {} finished {}: {} files in {} ms", job.id, job.root, result.state(),
+                    result.filesPersisted(), result.elapsedMillis());
+        } catch (InterruptedException e) {
+            job.cancel();
+        } catch (ExecutionException | RuntimeException e) {
+            log.error("Indexing job {} on {} failed", job.id, job.root, e);
+            job.failed = true;
+        } finally {
+            slots.release();
+        }
+    }
+
+    /** Jobs still retained, newest first. */
+    public List<IndexingJobStatus> jobs() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing((Job job) -> job.submittedAt).reversed())
+                .map(Job::status)
+                .toList();
+    }
+
+    public Optional<IndexingJobStatus> status(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(Job::status);
+    }
+
+    /**
+     * Cancel a job whether it is queued or running. Cancelling a finished job has no effect.
+     *
+     * @return The job's status after the request, empty if the job is unknown
+     */
+    public Optional<IndexingJobStatus> cancel(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            return Optional.empty();
+        }
+        job.cancel();
+        return Optional.of(job.status());
+    }
+
+    /**
+     * Deliver the job's status to {@code listener} every {@code indexing.jobs.progress-interval-ms} from a
+     * virtual thread, ending with the first finished status. A listener that throws ends the subscription.
+     *
+     * @return Handle that stops the updates early; empty if the job is unknown
+     */
+    public Optional<AutoCloseable> subscribe(String jobId, Consumer<IndexingJobStatus> listener) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            return Optional.empty();
+        }
+        Thread publisher = Thread.ofVirtual().name("index-job-progress-" + jobId.substring(0, 8)).start(() -> {
+            try {
+                while (true) {
+                    IndexingJobStatus status = job.status();
+                    listener.accept(status);
+                    if (status.isFinished()) {
+                        return;
+                    }
+                    Thread.sleep(progressIntervalMillis);
+                }
+            } catch (InterruptedException e) {
+                // Unsubscribed.
+            } catch (RuntimeException e) {
+                log.debug("Progress listener for job {} stopped: {}", jobId, e.toString());
+            }
+        });
+        return Optional.of(publisher::interrupt);
+    }
+
+    @PreDestroy
+    public void close() {
+        jobs.values().forEach(Job::cancel);
+        supervisors.shutdownNow();
+    }
+
+    private static final class Job {
+        final String id;
+        final Path root;
+        final IndexingMode mode;
+        final Instant submittedAt = Instant.now();
+        volatile IndexingRun run;
+        volatile boolean cancelled;
+        volatile boolean failed;
+        volatile Thread supervisor;
+
+        Job(String id, Path root, IndexingMode mode) {
+            this.id = id;
+            this.root = root;
+            this.mode = mode;
+        }
+
+        synchronized void cancel() {
+            if (status().isFinished()) {
+                return;
+            }
+            cancelled = true;
+            if (run != null) {
+                run.cancel();
+            } else if (supervisor != null) {
+                // Still waiting for a slot.
+                supervisor.interrupt();
+            }
+        }
+
+        IndexingJobStatus status() {
+            IndexingRun current = run;
+            if (current == null) {
+                State state = failed ? State.FAILED : cancelled ? State.CANCELLED : State.QUEUED;
+                return new IndexingJobStatus(id, root.toString(), mode, state, submittedAt, 0, 0, -1, Map.of(), null);
+            }
+            IndexingProgress progress = current.progress();
+            State state = failed ? State.FAILED : switch (progress.state()) {
+                case RUNNING -> State.RUNNING;
+                case COMPLETED -> State.COMPLETED;
+                case CANCELLED -> State.CANCELLED;
+                case FAILED -> State.FAILED;
+            };
+            long total = progress.filesDiscovered();
+            long done = Math.min(total, progress.filesPersisted() + progress.filesUnchanged()
+                    + progress.filesSkipped() + progress.filesFailed());
+            double seconds = Math.max(progress.elapsedMillis() / 1000.0, 1e-3);
+            long eta = -1;
+            if (state == State.RUNNING && done > 0) {
+                eta = Math.round((total - done) / (done / seconds) * 1000);
+            }
+            Map<String, Double> rates = new LinkedHashMap<>();
+            rates.put("read", progress.filesRead() / seconds);
+            rates.put("parse", progress.filesParsed() / seconds);
+            rates.put("embed", progress.filesEmbedded() / seconds);
+            rates.put("persist", progress.filesPersisted() / seconds);
+            return new IndexingJobStatus(id, root.toString(), mode, state, submittedAt, done, total, eta, rates, progress);
+        }
+    }
+}
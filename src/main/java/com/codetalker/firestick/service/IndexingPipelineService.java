@@ -0,0 +1,798 @@
+package com.codetalker.firestick.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.codetalker.firestick.model.CodeChunk;
+import com.codetalker.firestick.model.CodeFile;
+import com.codetalker.firestick.model.Symbol;
+import com.codetalker.firestick.repository.CodeChunkRepository;
+import com.codetalker.firestick.repository.CodeFileRepository;
+import com.codetalker.firestick.repository.SymbolRepository;
+import com.codetalker.firestick.service.dto.IndexingMode;
+import com.codetalker.firestick.service.dto.IndexingProgress;
+import com.codetalker.firestick.service.dto.IndexingProgress.State;
+import com.codetalker.firestick.service.dto.VectorRecord;
+import com.github.javaparser.ast.CompilationUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Multi-stage indexing pipeline: discover → read → parse → chunk → embed → persist.
+ * <p>
+ * Stages are connected by bounded queues, so a slow stage applies backpressure to the ones before it.
+ * Each stage has its own worker count; parse and embed default to one worker per core, while persist
+ * runs single-threaded and writes H2 rows and Lucene documents in batches. The chunk stage also
+ * extracts the file's symbols and refreshes its edges in the dependency graph while its AST is still in
+ * memory; persisted symbols are mirrored into the in-memory {@link SymbolIndexService symbol index}.
+ * <p>
+ * A run reserves its root until it finishes: starting a run on the same root, an ancestor or a
+ * descendant of one still running fails with {@link RootBusyException}, whoever starts it, since both
+ * runs would write the same files.
+ * <p>
+ * Per-file stage time ({@code firestick.indexing.stage}), each step of a persist batch
+ * ({@code firestick.indexing.persist}) and the depth of every stage queue across running runs
+ * ({@code firestick.indexing.queue.depth}) are published as metrics.
+ */
+@Service
+public class IndexingPipelineService {
+
+    private static final Logger log = LoggerFactory.getLogger(IndexingPipelineService.class);
+
+    /** A run was refused because another run still covers an overlapping root. */
+    public static class RootBusyException extends RuntimeException {
+
+        private final transient IndexingRun blockingRun;
+
+        RootBusyException(IndexingRun blockingRun) {
+            super("Run " + blockingRun.getId() + " is already indexing " + blockingRun.getRootPath());
+            this.blockingRun = blockingRun;
+        }
+
+        /** The run holding the root; wait for its completion before retrying. */
+        public IndexingRun getBlockingRun() {
+            return blockingRun;
+        }
+    }
+
+    /** End-of-stream marker passed between stages. */
+    private static final FileWork POISON = new FileWork(null, Action.DELETE);
+
+    private final FileDiscoveryService fileDiscoveryService;
+    private final SourceFileReader sourceFileReader;
+    private final CodeParserService codeParserService;
+    private final CodeChunkingService codeChunkingService;
+    private final EmbeddingService embeddingService;
+    private final CodeSearchService codeSearchService;
+    private final DependencyGraphService dependencyGraphService;
+    private final VectorStore vectorStore;
+    private final CodeFileRepository codeFileRepository;
+    private final CodeChunkRepository codeChunkRepository;
+    private final SymbolRepository symbolRepository;
+    private final SymbolIndexService symbolIndexService;
+    private final ChunkContentStore chunkContentStore;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final int queueCapacity;
+    private final int readThreads;
+    private final int parseThreads;
+    private final int chunkThreads;
+    private final int embedThreads;
+    private final int persistBatchSize;
+    private final long persistFlushMillis;
+    private final boolean embeddingsEnabled;
+
+    private static final int MAX_RETAINED_RUNS = 32;
+
+    private static final List<String> QUEUES = List.of("read", "parse", "chunk", "embed", "persist");
+
+    private final Map<String, IndexingRun> runs = new ConcurrentHashMap<>();
+    private final DistributionSummary chunksPerFile;
+    private final DistributionSummary persistBatchSizes;
+    private final Counter filesIndexed;
+    private final Counter filesDeleted;
+    private final Counter filesFailed;
+    private final Counter filesSkipped;
+    private final Counter chunksIndexed;
+
+    public IndexingPipelineService(
+            FileDiscoveryService fileDiscoveryService,
+            SourceFileReader sourceFileReader,
+            CodeParserService codeParserService,
+            CodeChunkingService codeChunkingService,
+            EmbeddingService embeddingService,
+            CodeSearchService codeSearchService,
+            DependencyGraphService dependencyGraphService,
+            VectorStore vectorStore,
+            CodeFileRepository codeFileRepository,
+            CodeChunkRepository codeChunkRepository,
+            SymbolRepository symbolRepository,
+            SymbolIndexService symbolIndexService,
+            ChunkContentStore chunkContentStore,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${indexing.queue-capacity:256}") int queueCapacity,
+            @Value("${indexing.read-threads:2}") int readThreads,
+            @Value("${indexing.parse-threads:0}") int parseThreads,
+            @Value("${indexing.chunk-threads:0}") int chunkThreads,
+            @Value("${indexing.embed-threads:0}") int embedThreads,
+            @Value("${indexing.persist-batch-size:64}") int persistBatchSize,
+            @Value("${indexing.persist-flush-ms:500}") long persistFlushMillis,
+            @Value("${indexing.embeddings-enabled:true}") boolean embeddingsEnabled
+    ) {
+        this.fileDiscoveryService = fileDiscoveryService;
+        this.sourceFileReader = sourceFileReader;
+        this.codeParserService = codeParserService;
+        this.codeChunkingService = codeChunkingService;
+        this.embeddingService = embeddingService;
+        this.codeSearchService = codeSearchService;
+        this.dependencyGraphService = dependencyGraphService;
+        this.vectorStore = vectorStore;
+        this.codeFileRepository = codeFileRepository;
+        this.codeChunkRepository = codeChunkRepository;
+        this.symbolRepository = symbolRepository;
+        this.symbolIndexService = symbolIndexService;
+        this.chunkContentStore = chunkContentStore;
+        this.transactionTemplate = transactionTemplate;
+        int cores = Runtime.getRuntime().availableProcessors();
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.readThreads = Math.max(1, readThreads);
+        this.parseThreads = parseThreads > 0 ? parseThreads : cores;
+        this.chunkThreads = chunkThreads > 0 ? chunkThreads : Math.max(1, cores / 2);
+        this.embedThreads = embedThreads > 0 ? embedThreads : cores;
+        this.persistBatchSize = Math.max(1, persistBatchSize);
+        this.persistFlushMillis = Math.max(1, persistFlushMillis);
+        this.embeddingsEnabled = embeddingsEnabled;
+        this.meterRegistry = meterRegistry;
+        this.chunksPerFile = DistributionSummary.builder("firestick.indexing.chunks.per.file")
+                .description("Chunks extracted from each parsed file")
+                .register(meterRegistry);
+        this.persistBatchSizes = DistributionSummary.builder("firestick.indexing.persist.batch.size")
+                .description("Files written per persist batch")
+                .register(meterRegistry);
+        this.filesIndexed = fileCounter("indexed");
+        this.filesDeleted = fileCounter("deleted");
+        this.filesFailed = fileCounter("failed");
+        this.filesSkipped = fileCounter("skipped");
+        this.chunksIndexed = Counter.builder("firestick.indexing.chunks")
+                .description("Chunks written to H2 and Lucene")
+                .register(meterRegistry);
+        for (String stage : QUEUES) {
+            Gauge.builder("firestick.indexing.queue.depth", runs,
+                            all -> all.values().stream().mapToInt(run -> run.queueDepth(stage)).sum())
+                    .description("Items waiting in a stage's input queue, summed over running runs")
+                    .tag("stage", stage)
+                    .register(meterRegistry);
+        }
+        Gauge.builder("firestick.indexing.runs.active", runs,
+                        all -> all.values().stream().filter(run -> run.getState() == State.RUNNING).count())
+                .description("Indexing runs in progress")
+                .register(meterRegistry);
+    }
+
+    private Counter fileCounter(String outcome) {
+        return Counter.builder("firestick.indexing.files")
+                .description("Files processed by indexing runs, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private Timer timer(String name, String tag, String value, String description) {
+        return Timer.builder(name)
+                .description(description)
+                .tag(tag, value)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Index every Java file under the given root and block until the run finishes.
+     *
+     * @param rootPath Directory to scan
+     * @return Final progress of the run
+     */
+    public IndexingProgress run(String rootPath) throws InterruptedException {
+        return start(rootPath, IndexingMode.FULL).await();
+    }
+
+    /**
+     * Index the given root in the given mode and block until the run finishes.
+     *
+     * @param rootPath Directory to scan
+     * @param mode     Full or incremental
+     * @return Final progress of the run
+     */
+    public IndexingProgress run(String rootPath, IndexingMode mode) throws InterruptedException {
+        return start(rootPath, mode).await();
+    }
+
+    /**
+     * Start indexing the given root in the background.
+     * <p>
+     * In {@link IndexingMode#INCREMENTAL} mode files whose size and mtime match the stored
+     * {@code CodeFile} are skipped without being read; the rest are read and compared by SHA-256, and
+     * only files whose content actually changed are re-parsed and re-embedded. Files that are stored
+     * under the root but no longer on disk are purged from H2, Lucene and the vector store.
+     *
+     * @param rootPath Directory to scan
+     * @param mode     Full or incremental
+     * @return Handle that can be polled for progress or cancelled
+     * @throws RootBusyException if a running run covers an overlapping root
+     */
+    public IndexingRun start(String rootPath, IndexingMode mode) {
+        return launch(rootPath, mode, null);
+    }
+
+    /**
+     * Start an incremental run limited to the given paths under a root, e.g. the files a watcher saw
+     * change. Paths that still exist are indexed if their content changed; paths that are gone, or
+     * directories that are gone, have their stored files purged. Nothing else under the root is touched.
+     *
+     * @param rootPath     Root the paths belong to
+     * @param changedPaths Files or directories that were created, modified or deleted
+     * @return Handle that can be polled for progress or cancelled
+     * @throws RootBusyException if a running run covers an overlapping root
+     */
+    public IndexingRun startDelta(String rootPath, Collection<Path> changedPaths) {
+        return launch(rootPath, IndexingMode.INCREMENTAL, List.copyOf(changedPaths));
+    }
+
+    private IndexingRun launch(String rootPath, IndexingMode mode, List<Path> delta) {
+        IndexingRun run = new IndexingRun(UUID.randomUUID().toString(), rootPath, mode);
+        Path root = normalize(rootPath);
+        synchronized (runs) {
+            for (IndexingRun other : runs.values()) {
+                // A stopped run still holds its root until its persist stage has finished writing.
+                if (!other.completion().isDone() && overlaps(root, normalize(other.getRootPath()))) {
+                    throw new RootBusyException(other);
+                }
+            }
+            if (runs.size() >= MAX_RETAINED_RUNS) {
+                runs.values().removeIf(r -> r.completion().isDone());
+            }
+            runs.put(run.getId(), run);
+        }
+
+        BlockingQueue<FileWork> readQueue = newQueue(run, "read");
+        BlockingQueue<FileWork> parseQueue = newQueue(run, "parse");
+        BlockingQueue<FileWork> chunkQueue = newQueue(run, "chunk");
+        BlockingQueue<FileWork> embedQueue = newQueue(run, "embed");
+        BlockingQueue<FileWork> persistQueue = newQueue(run, "persist");
+        // Wakes the persist stage, which stops taking work once the run is cancelled or failed.
+        run.onStop(() -> persistQueue.offer(POISON));
+
+        startPersistStage(run, persistQueue, delta != null);
+        startStage(run, "embed", embedThreads, embedQueue, persistQueue, 1, this::embed);
+        startStage(run, "chunk", chunkThreads, chunkQueue, embedQueue, embedThreads, this::chunk);
+        startStage(run, "parse", parseThreads, parseQueue, chunkQueue, chunkThreads, this::parse);
+        startStage(run, "read", readThreads, readQueue, parseQueue, parseThreads, this::read);
+        startDiscovery(run, readQueue, delta);
+        return run;
+    }
+
+    /** Two roots overlap when one contains the other. */
+    static boolean overlaps(Path a, Path b) {
+        return a.startsWith(b) || b.startsWith(a);
+    }
+
+    private static Path normalize(String path) {
+        return Path.of(path).toAbsolutePath().normalize();
+    }
+
+    /**
+     * Look up a run started by this service, finished or not.
+     */
+    public Optional<IndexingRun> getRun(String runId) {
+        return Optional.ofNullable(runs.get(runId));
+    }
+
+    /**
+     * Progress of every run that is still in progress.
+     */
+    public List<IndexingProgress> activeRuns() {
+        return runs.values().stream()
+                .filter(run -> run.getState() == State.RUNNING)
+                .map(IndexingRun::progress)
+                .toList();
+    }
+
+    // ---- stages ----
+
+    private void startDiscovery(IndexingRun run, BlockingQueue<FileWork> out, List<Path> delta) {
+        ExecutorService executor = newExecutor(run, "discover", 1);
+        executor.execute(() -> {
+            try {
+                Path root = Path.of(run.getRootPath());
+                Map<String, CodeFile> known;
+                if (delta != null) {
+                    known = loadKnownFiles(delta);
+                } else {
+                    known = run.getMode() == IndexingMode.INCREMENTAL ? loadKnownFiles(root) : Map.of();
+                }
+                Set<String> seen = new HashSet<>();
+                FileDiscoveryService.FileSink sink = (path, attrs) -> {
+                    run.filesDiscovered.incrementAndGet();
+                    FileWork work = new FileWork(path, Action.INDEX);
+                    work.lastModified = attrs.lastModifiedTime().toInstant();
+                    work.size = attrs.size();
+                    CodeFile previous = known.get(path.toString());
+                    if (previous != null) {
+                        seen.add(path.toString());
+                        if (isUnchanged(previous, work)) {
+                            run.filesUnchanged.incrementAndGet();
+                            return !run.isCancelled();
+                        }
+                        work.previousHash = previous.getHash();
+                    }
+                    out.put(work);
+                    return !run.isCancelled();
+                };
+                if (delta != null) {
+                    for (Path path : delta) {
+                        if (Files.isRegularFile(path) && fileDiscoveryService.accepts(root, path)
+                                && !sink.accept(path, Files.readAttributes(path, BasicFileAttributes.class))) {
+                            break;
+                        }
+                    }
+                } else {
+                    // Files reach the read stage while the walk is still running; the bounded queue paces it.
+                    fileDiscoveryService.walk(root, sink);
+                }
+                if (run.isCancelled()) {
+                    // A partial walk must not be mistaken for deletions.
+                    return;
+                }
+                for (String stale : known.keySet()) {
+                    if (!seen.contains(stale)) {
+                        out.put(new FileWork(Path.of(stale), Action.DELETE));
+                    }
+                }
+                for (int i = 0; i < readThreads; i++) {
+                    out.put(POISON);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | RuntimeException e) {
+                log.error("Discovery failed for {}", run.getRootPath(), e);
+                run.fail();
+            }
+        });
+    }
+
+    private Map<String, CodeFile> loadKnownFiles(Path root) {
+        Map<String, CodeFile> known = new HashMap<>();
+        for (CodeFile file : codeFileRepository.findByFilePathStartingWith(root.toString())) {
+            if (Path.of(file.getFilePath()).startsWith(root)) {
+                known.put(file.getFilePath(), file);
+            }
+        }
+        return known;
+    }
+
+    /** Stored files for the given paths, plus everything stored under paths that are no longer directories. */
+    private Map<String, CodeFile> loadKnownFiles(Collection<Path> paths) {
+        Map<String, CodeFile> known = new HashMap<>();
+        for (Path path : paths) {
+            codeFileRepository.findByFilePath(path.toString()).ifPresent(file -> known.put(file.getFilePath(), file));
+            if (!Files.exists(path)) {
+                for (CodeFile file : codeFileRepository.findByFilePathStartingWith(path + File.separator)) {
+                    known.put(file.getFilePath(), file);
+                }
+            }
+        }
+        return known;
+    }
+
+    /** Cheap pre-check: same size and same mtime (at millisecond precision, which H2 preserves). */
+    private static boolean isUnchanged(CodeFile previous, FileWork work) {
+        return previous.getSize() != null
+                && previous.getSize() == work.size
+                && previous.getLastModified().toEpochMilli() == work.lastModified.toEpochMilli();
+    }
+
+    private boolean read(IndexingRun run, FileWork work) throws Exception {
+        SourceFileReader.SourceFile source = sourceFileReader.read(work.path, work.previousHash);
+        run.filesRead.incrementAndGet();
+        if (source.isSkipped()) {
+            // Oversized or generated: drop whatever was indexed for it before.
+            log.debug("Skipping {} ({})", work.path, source.skipped());
+            work.action = Action.DELETE;
+            run.filesSkipped.incrementAndGet();
+            filesSkipped.increment();
+            return true;
+        }
+        work.codeFile = new CodeFile(work.path.toString(), work.lastModified, source.digest());
+        work.codeFile.setSize(source.size());
+        if (source.text() == null) {
+            // Touched but not modified: only refresh the stored mtime/size.
+            work.action = Action.TOUCH;
+            run.filesUnchanged.incrementAndGet();
+            return true;
+        }
+        work.source = source.text();
+        return true;
+    }
+
+    private boolean parse(IndexingRun run, FileWork work) {
+        Optional<CompilationUnit> cu = codeParserService.parseJavaCode(work.source);
+        if (cu.isEmpty()) {
+            run.filesFailed.incrementAndGet();
+            return false;
+        }
+        work.compilationUnit = cu.get();
+        run.filesParsed.incrementAndGet();
+        return true;
+    }
+
+    private boolean chunk(IndexingRun run, FileWork work) {
+        List<CodeChunk> chunks = codeChunkingService.extractChunks(work.codeFile, work.compilationUnit, work.source);
+        work.codeFile.setChunks(chunks);
+        work.symbols = SymbolExtractor.extract(work.codeFile, work.compilationUnit);
+        dependencyGraphService.updateFile(work.path.toString(), work.compilationUnit);
+        work.compilationUnit = null;
+        work.source = null;
+        run.chunksCreated.addAndGet(chunks.size());
+        chunksPerFile.record(chunks.size());
+        return true;
+    }
+
+    private boolean embed(IndexingRun run, FileWork work) {
+        if (!embeddingsEnabled) {
+            return true;
+        }
+        List<String> texts = work.codeFile.getChunks().stream().map(CodeChunk::getContent).toList();
+        List<float[]> embeddings = embeddingService.getEmbeddings(texts);
+        work.embeddings = embeddings;
+        run.filesEmbedded.incrementAndGet();
+        run.chunksEmbedded.addAndGet(embeddings.size());
+        return true;
+    }
+
+    private void startPersistStage(IndexingRun run, BlockingQueue<FileWork> in, boolean delta) {
+        // Not interrupted on cancel: an interrupt inside a batch would close the chunk store's and
+        // Lucene's file channels. A stopped run lets the current batch finish and drops the rest.
+        ExecutorService executor = newExecutor(run, "persist", 1, false);
+        executor.execute(() -> {
+            List<FileWork> batch = new ArrayList<>(persistBatchSize);
+            try {
+                while (!run.isStopped()) {
+                    FileWork work = in.poll(persistFlushMillis, TimeUnit.MILLISECONDS);
+                    if (work == POISON) {
+                        break;
+                    }
+                    if (work != null) {
+                        batch.add(work);
+                    }
+                    if (batch.size() >= persistBatchSize || (work == null && !batch.isEmpty())) {
+                        persistBatch(run, batch);
+                        batch.clear();
+                    }
+                }
+                if (!run.isStopped()) {
+                    persistBatch(run, batch);
+                    // Rewriting the whole graph file per debounced save would dominate a delta run; the
+                    // graph service saves those changes on its interval instead.
+                    if (!delta) {
+                        dependencyGraphService.saveGraph();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                run.fail();
+            } catch (RuntimeException e) {
+                log.error("Persist stage failed for {}", run.getRootPath(), e);
+                run.fail();
+            } finally {
+                run.finish(State.COMPLETED);
+            }
+        });
+    }
+
+    /**
+     * Apply one batch in a single transaction, then bring Lucene and the vector store in line with it.
+     * Re-indexed and deleted files have their old chunks removed everywhere before new ones are added.
+     */
+    private void persistBatch(IndexingRun run, List<FileWork> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        persistBatchSizes.record(batch.size());
+        persistTimer("content").record(() -> storeContent(batch));
+        List<String> staleVectorIds = new ArrayList<>();
+        List<String> deletedPaths = new ArrayList<>();
+        List<CodeChunk> saved = persistTimer("database").record(() -> transactionTemplate.execute(status -> {
+            // Paths are unique within a run, so the whole batch is looked up and purged up front.
+            Map<String, CodeFile> existing = new HashMap<>();
+            for (CodeFile file : codeFileRepository.findByFilePathIn(
+                    batch.stream().map(work -> work.path.toString()).toList())) {
+                existing.put(file.getFilePath(), file);
+            }
+            List<Long> replaced = new ArrayList<>();
+            for (FileWork work : batch) {
+                CodeFile file = existing.get(work.path.toString());
+                if (file != null && work.action != Action.TOUCH) {
+                    replaced.add(file.getId());
+                }
+            }
+            if (!replaced.isEmpty()) {
+                // Delete-then-insert: old chunks and symbols of every replaced file go in bulk statements.
+                codeChunkRepository.findIdsByFileIds(replaced).forEach(id -> staleVectorIds.add(String.valueOf(id)));
+                codeChunkRepository.deleteByFileIds(replaced);
+                symbolRepository.deleteByFileIds(replaced);
+            }
+            List<CodeFile> removed = new ArrayList<>();
+            List<CodeFile> files = new ArrayList<>();
+            List<CodeChunk> chunks = new ArrayList<>();
+            List<Symbol> symbols = new ArrayList<>();
+            for (FileWork work : batch) {
+                CodeFile current = existing.get(work.path.toString());
+                switch (work.action) {
+                    case DELETE -> {
+                        if (current != null) {
+                            removed.add(current);
+                            deletedPaths.add(current.getFilePath());
+                        }
+                    }
+                    case TOUCH -> {
+                        if (current != null) {
+                            current.setLastModified(work.codeFile.getLastModified());
+                            current.setSize(work.codeFile.getSize());
+                        }
+                    }
+                    case INDEX -> {
+                        CodeFile incoming = work.codeFile;
+                        CodeFile file = incoming;
+                        if (current != null) {
+                            current.setLastModified(incoming.getLastModified());
+                            current.setHash(incoming.getHash());
+                            current.setSize(incoming.getSize());
+                            file = current;
+                        }
+                        files.add(file);
+                        for (CodeChunk chunk : incoming.getChunks()) {
+                            chunk.setFile(file);
+                        }
+                        chunks.addAll(incoming.getChunks());
+                        for (Symbol symbol : work.symbols) {
+                            symbol.setFile(file);
+                        }
+                        symbols.addAll(work.symbols);
+                    }
+                }
+            }
+            codeFileRepository.deleteAllInBatch(removed);
+            codeFileRepository.saveAll(files);
+            symbolRepository.saveAll(symbols);
+            return codeChunkRepository.saveAll(chunks);
+        }));
+        deletedPaths.forEach(dependencyGraphService::removeFile);
+        deletedPaths.forEach(symbolIndexService::removeFile);
+        // A replaced file that no longer yields chunks has no documents to overwrite its old ones.
+        List<String> unindexedPaths = new ArrayList<>(deletedPaths);
+        for (FileWork work : batch) {
+            if (work.action == Action.INDEX) {
+                symbolIndexService.replaceFile(work.path.toString(), work.symbols);
+                if (work.codeFile.getChunks().isEmpty()) {
+                    unindexedPaths.add(work.path.toString());
+                }
+            }
+        }
+        long luceneStart = System.nanoTime();
+        try {
+            codeSearchService.deleteFiles(unindexedPaths);
+            codeSearchService.indexChunks(saved);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to index batch in Lucene", e);
+        } finally {
+            persistTimer("lucene").record(System.nanoTime() - luceneStart, TimeUnit.NANOSECONDS);
+        }
+        if (embeddingsEnabled) {
+            persistTimer("vectors").record(() -> {
+                if (!staleVectorIds.isEmpty()) {
+                    vectorStore.delete(staleVectorIds);
+                }
+                pushVectors(batch);
+            });
+        }
+        long indexed = batch.stream().filter(w -> w.action == Action.INDEX).count();
+        int chunkCount = saved == null ? 0 : saved.size();
+        run.filesDeleted.addAndGet(deletedPaths.size());
+        run.filesPersisted.addAndGet(indexed);
+        run.chunksPersisted.addAndGet(chunkCount);
+        filesDeleted.increment(deletedPaths.size());
+        filesIndexed.increment(indexed);
+        chunksIndexed.increment(chunkCount);
+    }
+
+    private Timer persistTimer(String step) {
+        return timer("firestick.indexing.persist", "step", step,
+                "Steps of a persist batch: chunk text store, H2 transaction, Lucene write, vector store write");
+    }
+
+    /** Write the batch's chunk text to the content store ahead of the transaction that records its addresses. */
+    private void storeContent(List<FileWork> batch) {
+        List<CodeChunk> chunks = new ArrayList<>();
+        for (FileWork work : batch) {
+            if (work.action == Action.INDEX) {
+                chunks.addAll(work.codeFile.getChunks());
+            }
+        }
+        if (chunks.isEmpty()) {
+            return;
+        }
+        List<ChunkContentStore.Stored> stored = chunkContentStore.putAll(chunks.stream().map(CodeChunk::getContent).toList());
+        for (int i = 0; i < chunks.size(); i++) {
+            chunks.get(i).setContentRef(stored.get(i).ref());
+            chunks.get(i).setContentHash(stored.get(i).hash());
+        }
+    }
+
+    private void pushVectors(List<FileWork> batch) {
+        List<VectorRecord> records = new ArrayList<>();
+        for (FileWork work : batch) {
+            if (work.action != Action.INDEX || work.embeddings == null) {
+                continue;
+            }
+            List<CodeChunk> chunks = work.codeFile.getChunks();
+            for (int i = 0; i < chunks.size(); i++) {
+                records.add(toVectorRecord(chunks.get(i), work.embeddings.get(i)));
+            }
+        }
+        if (!records.isEmpty()) {
+            vectorStore.upsert(records);
+        }
+    }
+
+    /**
+     * Vector ids are chunk ids; the metadata lets searches filter and locate hits without a database read.
+     * No document text is sent: it stays in the chunk content store and is read through
+     * {@code contentRef} only for the hits a search renders.
+     */
+    private static VectorRecord toVectorRecord(CodeChunk chunk, float[] embedding) {
+        Map<String, String> metadata = new LinkedHashMap<>();
+        metadata.put("file", chunk.getFile().getFilePath());
+        metadata.put("type", chunk.getType());
+        metadata.put("startLine", String.valueOf(chunk.getStartLine()));
+        metadata.put("endLine", String.valueOf(chunk.getEndLine()));
+        metadata.put("contentRef", String.valueOf(chunk.getContentRef()));
+        return new VectorRecord(String.valueOf(chunk.getId()), embedding, null, metadata);
+    }
+
+    // ---- plumbing ----
+
+    @FunctionalInterface
+    private interface StageFunction {
+        /** @return true to forward the item to the next stage */
+        boolean apply(IndexingRun run, FileWork work) throws Exception;
+    }
+
+    /**
+     * Start {@code threads} workers that take from {@code in}, apply {@code fn} and forward to {@code out}.
+     * The last worker to see end-of-stream forwards one marker per downstream worker.
+     */
+    private void startStage(IndexingRun run, String name, int threads,
+                            BlockingQueue<FileWork> in, BlockingQueue<FileWork> out,
+                            int downstreamThreads, StageFunction fn) {
+        ExecutorService executor = newExecutor(run, name, threads);
+        Timer stageTimer = timer("firestick.indexing.stage", "stage", name, "Time one file spends in a pipeline stage");
+        AtomicInteger live = new AtomicInteger(threads);
+        for (int i = 0; i < threads; i++) {
+            executor.execute(() -> {
+                try {
+                    while (true) {
+                        FileWork work = in.take();
+                        if (work == POISON) {
+                            break;
+                        }
+                        boolean forward = true;
+                        if (work.action == Action.INDEX) {
+                            long start = System.nanoTime();
+                            try {
+                                forward = fn.apply(run, work);
+                            } catch (InterruptedException e) {
+                                throw e;
+                            } catch (Exception e) {
+                                log.warn("Stage {} failed for {}: {}", name, work.path, e.toString());
+                                run.filesFailed.incrementAndGet();
+                                forward = false;
+                            } finally {
+                                stageTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                            }
+                            if (!forward) {
+                                filesFailed.increment();
+                            }
+                        }
+                        if (forward) {
+                            out.put(work);
+                        }
+                    }
+                    if (live.decrementAndGet() == 0) {
+                        for (int j = 0; j < downstreamThreads; j++) {
+                            out.put(POISON);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+    }
+
+    private BlockingQueue<FileWork> newQueue(IndexingRun run, String stage) {
+        BlockingQueue<FileWork> queue = new ArrayBlockingQueue<>(queueCapacity);
+        run.registerQueue(stage, queue);
+        return queue;
+    }
+
+    private ExecutorService newExecutor(IndexingRun run, String stage, int threads) {
+        return newExecutor(run, stage, threads, true);
+    }
+
+    private ExecutorService newExecutor(IndexingRun run, String stage, int threads, boolean interruptible) {
+        AtomicInteger counter = new AtomicInteger();
+        String prefix = "index-" + stage + "-" + run.getId().substring(0, 8) + "-";
+        ThreadFactory factory = r -> {
+            Thread t = new Thread(r, prefix + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(threads, factory);
+        run.registerExecutor(executor, interruptible);
+        return executor;
+    }
+
+    /** What the persist stage should do with a file. Only INDEX items go through read/parse/chunk/embed. */
+    private enum Action { INDEX, TOUCH, DELETE }
+
+    /** Mutable unit of work handed from stage to stage; only one stage touches it at a time. */
+    private static final class FileWork {
+        final Path path;
+        Action action;
+        Instant lastModified;
+        long size;
+        String previousHash;
+        String source;
+        CodeFile codeFile;
+        CompilationUnit compilationUnit;
+        List<Symbol> symbols = List.of();
+        List<float[]> embeddings;
+
+        FileWork(Path path, Action action) {
+            this.path = path;
+            this.action = action;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.codetalker.firestick.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.codetalker.firestick.service.dto.IndexingMode;
+import com.codetalker.firestick.service.dto.IndexingProgress;
+import com.codetalker.firestick.service.dto.IndexingProgress.State;
+
+/**
+ * Handle for a single run of the {@link IndexingPipelineService}. Counters are updated by the stage
+ * workers and can be read at any time through {@link #progress()}.
+ */
+public class IndexingRun {
+
+    private final String id;
+    private final String rootPath;
+    private final IndexingMode mode;
+    private final Instant startedAt = Instant.now();
+    private final long startNanos = System.nanoTime();
+    private final AtomicReference<State> state = new AtomicReference<>(State.RUNNING);
+    private final AtomicLong finishedNanos = new AtomicLong();
+    private final CompletableFuture<IndexingProgress> completion = new CompletableFuture<>();
+    private final Map<String, BlockingQueue<?>> queues = new LinkedHashMap<>();
+    private final List<ExecutorService> executors = new CopyOnWriteArrayList<>();
+    private final List<ExecutorService> interruptible = new CopyOnWriteArrayList<>();
+    private final List<Runnable> stopListeners = new CopyOnWriteArrayList<>();
+
+    final AtomicLong filesDiscovered = new AtomicLong();
+    final AtomicLong filesRead = new AtomicLong();
+    final AtomicLong filesParsed = new AtomicLong();
+    final AtomicLong filesEmbedded = new AtomicLong();
+    final AtomicLong filesPersisted = new AtomicLong();
+    final AtomicLong filesFailed = new AtomicLong();
+    final AtomicLong filesUnchanged = new AtomicLong();
+    final AtomicLong filesSkipped = new AtomicLong();
+    final AtomicLong filesDeleted = new AtomicLong();
+    final AtomicLong chunksCreated = new AtomicLong();
+    final AtomicLong chunksEmbedded = new AtomicLong();
+    final AtomicLong chunksPersisted = new AtomicLong();
+
+    IndexingRun(String id, String rootPath, IndexingMode mode) {
+        this.id = id;
+        this.rootPath = rootPath;
+        this.mode = mode;
+    }
+
+    public String getId() { return id; }
+    public String getRootPath() { return rootPath; }
+    public IndexingMode getMode() { return mode; }
+    public State getState() { return state.get(); }
+
+    public boolean isCancelled() {
+        return state.get() == State.CANCELLED;
+    }
+
+    /**
+     * Take a consistent-enough snapshot of the counters. Individual counters are read without a lock,
+     * so a snapshot taken mid-run may be off by the few items currently in flight.
+     */
+    public IndexingProgress progress() {
+        long end = finishedNanos.get();
+        long elapsedNanos = (end == 0 ? System.nanoTime() : end) - startNanos;
+        double seconds = Math.max(elapsedNanos / 1_000_000_000.0, 1e-3);
+        Map<String, Integer> depths = new LinkedHashMap<>();
+        synchronized (queues) {
+            queues.forEach((name, queue) -> depths.put(name, queue.size()));
+        }
+        return new IndexingProgress(
+                id, rootPath, mode, state.get(), startedAt, Duration.ofNanos(elapsedNanos).toMillis(),
+                filesDiscovered.get(), filesRead.get(), filesParsed.get(), filesEmbedded.get(),
+                filesPersisted.get(), filesFailed.get(), filesUnchanged.get(), filesSkipped.get(), filesDeleted.get(),
+                chunksCreated.get(), chunksEmbedded.get(), chunksPersisted.get(),
+                filesPersisted.get() / seconds, chunksPersisted.get() / seconds,
+                depths);
+    }
+
+    /**
+     * Block until the run finishes and return its final progress.
+     */
+    public IndexingProgress await() throws InterruptedException {
+        try {
+            return completion.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Indexing run failed: " + id, e.getCause());
+        }
+    }
+
+    public CompletableFuture<IndexingProgress> completion() {
+        return completion;
+    }
+
+    /**
+     * Stop all stages. Stages that only compute are interrupted and their in-flight items dropped; the
+     * persist stage is never interrupted, since an interrupted write closes the stores' file channels, so it
+     * finishes the batch it is writing and then ends the run. Work already persisted is kept.
+     */
+    public void cancel() {
+        stop(State.CANCELLED);
+    }
+
+    void fail() {
+        stop(State.FAILED);
+    }
+
+    private void stop(State finalState) {
+        if (state.compareAndSet(State.RUNNING, finalState)) {
+            interruptible.forEach(ExecutorService::shutdownNow);
+            stopListeners.forEach(Runnable::run);
+        }
+    }
+
+    /** Cancelled or failed; the run completes once its persist stage has let go of the stores. */
+    boolean isStopped() {
+        return state.get() != State.RUNNING;
+    }
+
+    /** Items waiting in a stage's input queue; 0 once the run has finished or for unknown stages. */
+    int queueDepth(String stage) {
+        if (state.get() != State.RUNNING) {
+            return 0;
+        }
+        synchronized (queues) {
+            BlockingQueue<?> queue = queues.get(stage);
+            return queue == null ? 0 : queue.size();
+        }
+    }
+
+    void registerQueue(String stage, BlockingQueue<?> queue) {
+        synchronized (queues) {
+            queues.put(stage, queue);
+        }
+    }
+
+    /**
+     * @param interruptible Whether stopping the run may interrupt the executor's threads
+     */
+    void registerExecutor(ExecutorService executor, boolean interruptible) {
+        executors.add(executor);
+        if (interruptible) {
+            this.interruptible.add(executor);
+        }
+    }
+
+    /** Run {@code listener} once when the run is cancelled or fails. */
+    void onStop(Runnable listener) {
+        stopListeners.add(listener);
+    }
+
+    void finish(State finalState) {
+        state.compareAndSet(State.RUNNING, finalState);
+        finishedNanos.compareAndSet(0, System.nanoTime());
+        executors.forEach(ExecutorService::shutdown);
+        completion.complete(progress());
+    }
+}
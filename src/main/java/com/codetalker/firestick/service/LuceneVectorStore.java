@@ -0,0 +1,306 @@
+package com.codetalker.firestick.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.lucene.codecs.KnnVectorsFormat;
+import org.apache.lucene.codecs.lucene912.Lucene912Codec;
+import org.apache.lucene.codecs.lucene99.Lucene99HnswVectorsFormat;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.KnnFloatVectorField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.VectorSimilarityFunction;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.KnnFloatVectorQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.MMapDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import com.codetalker.firestick.service.dto.VectorMatch;
+import com.codetalker.firestick.service.dto.VectorRecord;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * In-process vector store backed by Lucene's HNSW graph ({@link KnnFloatVectorField}).
+ * <p>
+ * Graph construction uses {@code vector.hnsw.m} neighbours per node and a beam of
+ * {@code vector.hnsw.ef-construction}; queries explore {@code max(topK, vector.hnsw.ef-search)}
+ * candidates. Metadata filters are applied inside the graph search, not afterwards, so a selective
+ * filter still returns {@code topK} hits. The index is persisted under {@code vector.index-path}.
+ * <p>
+ * Like the keyword index, writes go to a near-real-time searcher, reopened every
+ * {@code vector.refresh-interval-ms} and before any query or version read that would otherwise miss a
+ * write, and are committed durably every {@code vector.commit-interval-ms} and on close.
+ */
+@Service
+@ConditionalOnProperty(name = "vector.store", havingValue = "lucene", matchIfMissing = true)
+public class LuceneVectorStore implements VectorStore, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(LuceneVectorStore.class);
+
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_VECTOR = "vector";
+    private static final String FIELD_DOCUMENT = "document";
+    private static final String META_PREFIX = "meta.";
+
+    private final Directory directory;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+    private final VectorSimilarityFunction similarity;
+    private final int efSearch;
+    private final ScheduledExecutorService maintenance;
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong visibleWrites = new AtomicLong();
+
+    /** Store with the default refresh and commit intervals. */
+    public LuceneVectorStore(String indexPath, String similarity, int m, int efConstruction, int efSearch)
+            throws IOException {
+        this(indexPath, similarity, m, efConstruction, efSearch, 1000, 30000);
+    }
+
+    @Autowired
+    public LuceneVectorStore(
+            @Value("${vector.index-path:}") String indexPath,
+            @Value("${vector.similarity:cosine}") String similarity,
+            @Value("${vector.hnsw.m:16}") int m,
+            @Value("${vector.hnsw.ef-construction:100}") int efConstruction,
+            @Value("${vector.hnsw.ef-search:64}") int efSearch,
+            @Value("${vector.refresh-interval-ms:1000}") long refreshIntervalMs,
+            @Value("${vector.commit-interval-ms:30000}") long commitIntervalMs
+    ) throws IOException {
+        this.directory = openDirectory(indexPath);
+        this.similarity = VectorSimilarityFunction.valueOf(similarity.trim().toUpperCase(Locale.ROOT));
+        this.efSearch = Math.max(1, efSearch);
+        KnnVectorsFormat hnsw = new Lucene99HnswVectorsFormat(m, efConstruction);
+        IndexWriterConfig config = new IndexWriterConfig()
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND)
+                .setCodec(new Lucene912Codec() {
+                    @Override
+                    public KnnVectorsFormat getKnnVectorsFormatForField(String field) {
+                        return hnsw;
+                    }
+                });
+        this.writer = new IndexWriter(directory, config);
+        this.searcherManager = new SearcherManager(writer, null);
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "vector-maintenance");
+            t.setDaemon(true);
+            return t;
+        });
+        if (refreshIntervalMs > 0) {
+            maintenance.scheduleWithFixedDelay(this::refreshQuietly, refreshIntervalMs, refreshIntervalMs, TimeUnit.MILLISECONDS);
+        }
+        if (commitIntervalMs > 0) {
+            maintenance.scheduleWithFixedDelay(this::commitQuietly, commitIntervalMs, commitIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static Directory openDirectory(String indexPath) throws IOException {
+        if (indexPath == null || indexPath.isBlank()) {
+            return new ByteBuffersDirectory();
+        }
+        Path path = Path.of(indexPath);
+        Files.createDirectories(path);
+        return new MMapDirectory(path);
+    }
+
+    @Override
+    public void upsert(List<VectorRecord> records) {
+        try {
+            for (VectorRecord record : records) {
+                if (isZero(record.vector()) && similarity == VectorSimilarityFunction.COSINE) {
+                    log.debug("Skipping zero vector {}; cosine similarity is undefined for it", record.id());
+                    writer.deleteDocuments(new Term(FIELD_ID, record.id()));
+                    continue;
+                }
+                writer.updateDocument(new Term(FIELD_ID, record.id()), toDocument(record));
+            }
+            writes.incrementAndGet();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to upsert vectors", e);
+        }
+    }
+
+    @Override
+    public void delete(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        try {
+            writer.deleteDocuments(ids.stream().map(id -> new Term(FIELD_ID, id)).toArray(Term[]::new));
+            writes.incrementAndGet();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete vectors", e);
+        }
+    }
+
+    @Override
+    public List<VectorMatch> query(float[] vector, int topK, Map<String, String> filter) {
+        if (topK <= 0) {
+            return List.of();
+        }
+        try {
+            refreshIfStale();
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                Query knn = new KnnFloatVectorQuery(FIELD_VECTOR, vector, Math.max(topK, efSearch), toFilter(filter));
+                TopDocs top = searcher.search(knn, topK);
+                List<VectorMatch> matches = new ArrayList<>(top.scoreDocs.length);
+                for (ScoreDoc hit : top.scoreDocs) {
+                    Document doc = searcher.storedFields().document(hit.doc);
+                    matches.add(new VectorMatch(doc.get(FIELD_ID), hit.score, doc.get(FIELD_DOCUMENT), metadataOf(doc)));
+                }
+                return matches;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Vector query failed", e);
+        }
+    }
+
+    /**
+     * Writes visible to queries; pending writes are made visible first, so a query run after reading it
+     * sees at least that version.
+     */
+    @Override
+    public long version() {
+        try {
+            refreshIfStale();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Vector searcher refresh failed", e);
+        }
+        return visibleWrites.get();
+    }
+
+    /**
+     * Durably commit all writes so far. Uncommitted writes are searchable but lost on a crash.
+     */
+    public void commit() throws IOException {
+        if (writer.hasUncommittedChanges()) {
+            writer.commit();
+        }
+    }
+
+    // A write counts as visible only once a reopen that started after it has finished, so concurrent
+    // queries all wait for (or run) a refresh instead of one refreshing while the others read the old
+    // searcher.
+    private void refreshIfStale() throws IOException {
+        if (visibleWrites.get() < writes.get()) {
+            long target = writes.get();
+            searcherManager.maybeRefreshBlocking();
+            visibleWrites.accumulateAndGet(target, Math::max);
+        }
+    }
+
+    private void refreshQuietly() {
+        try {
+            refreshIfStale();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Vector searcher refresh failed", e);
+        }
+    }
+
+    private void commitQuietly() {
+        try {
+            commit();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Vector index commit failed", e);
+        }
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return writer.isOpen();
+    }
+
+    private Document toDocument(VectorRecord record) {
+        Document doc = new Document();
+        doc.add(new StringField(FIELD_ID, record.id(), Field.Store.YES));
+        doc.add(new KnnFloatVectorField(FIELD_VECTOR, record.vector(), similarity));
+        if (record.document() != null) {
+            doc.add(new StoredField(FIELD_DOCUMENT, record.document()));
+        }
+        if (record.metadata() != null) {
+            record.metadata().forEach((key, value) -> {
+                if (value != null) {
+                    doc.add(new StringField(META_PREFIX + key, value, Field.Store.YES));
+                }
+            });
+        }
+        return doc;
+    }
+
+    private static Query toFilter(Map<String, String> filter) {
+        if (filter == null || filter.isEmpty()) {
+            return null;
+        }
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        filter.forEach((key, value) -> builder.add(new TermQuery(new Term(META_PREFIX + key, value)), BooleanClause.Occur.FILTER));
+        return builder.build();
+    }
+
+    private static Map<String, String> metadataOf(Document doc) {
+        Map<String, String> metadata = new LinkedHashMap<>();
+        for (IndexableField field : doc.getFields()) {
+            if (field.name().startsWith(META_PREFIX)) {
+                metadata.put(field.name().substring(META_PREFIX.length()), field.stringValue());
+            }
+        }
+        return metadata;
+    }
+
+    private static boolean isZero(float[] vector) {
+        for (float v : vector) {
+            if (v != 0f) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    @PreDestroy
+    public void close() throws IOException {
+        maintenance.shutdownNow();
+        try {
+            commit();
+        } finally {
+            searcherManager.close();
+            writer.close();
+            directory.close();
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.codetalker.firestick.service;
+
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import ai.onnxruntime.NodeInfo;
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import ai.onnxruntime.TensorInfo;
+
+/**
+ * Sentence embedding model served by ONNX Runtime.
+ * <p>
+ * The model and tokenizer are loaded once. {@link #embed(List)} tokenizes all inputs, groups them by
+ * token length so padding stays small, runs the session once per group of at most {@code maxBatchSize}
+ * and mean-pools the token embeddings into L2-normalized sentence vectors. Models that already output
+ * a pooled {@code [batch, dim]} tensor are used as-is. The session is thread-safe.
+ */
+public class OnnxEmbeddingEngine implements AutoCloseable {
+
+    private static final String INPUT_IDS = "input_ids";
+    private static final String ATTENTION_MASK = "attention_mask";
+    private static final String TOKEN_TYPE_IDS = "token_type_ids";
+
+    private final OrtEnvironment env;
+    private final OrtSession session;
+    private final WordPieceTokenizer tokenizer;
+    private final int maxSequenceLength;
+    private final int maxBatchSize;
+    private final Set<String> inputNames;
+    private final int dimension;
+
+    public OnnxEmbeddingEngine(Path modelPath, Path tokenizerPath, int maxSequenceLength, int maxBatchSize,
+                               int intraOpThreads, int interOpThreads) throws OrtException, IOException {
+        this.env = OrtEnvironment.getEnvironment();
+        this.tokenizer = WordPieceTokenizer.load(tokenizerPath);
+        this.maxSequenceLength = maxSequenceLength;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        try (OrtSession.SessionOptions options = new OrtSession.SessionOptions()) {
+            options.setOptimizationLevel(OrtSession.SessionOptions.OptLevel.ALL_OPT);
+            if (intraOpThreads > 0) {
+                options.setIntraOpNumThreads(intraOpThreads);
+            }
+            if (interOpThreads > 0) {
+                options.setInterOpNumThreads(interOpThreads);
+                options.setExecutionMode(interOpThreads > 1
+                        ? OrtSession.SessionOptions.ExecutionMode.PARALLEL
+                        : OrtSession.SessionOptions.ExecutionMode.SEQUENTIAL);
+            }
+            this.session = env.createSession(modelPath.toString(), options);
+        }
+        this.inputNames = session.getInputNames();
+        if (!inputNames.contains(INPUT_IDS)) {
+            throw new IllegalStateException("ONNX model has no '" + INPUT_IDS + "' input: " + inputNames);
+        }
+        this.dimension = outputDimension();
+    }
+
+    /** Embedding size reported by the model, or -1 when the last output axis is dynamic. */
+    public int getDimension() { return dimension; }
+
+    public int getMaxBatchSize() { return maxBatchSize; }
+
+    public float[] embed(String text) throws OrtException {
+        return embed(List.of(text)).get(0);
+    }
+
+    /**
+     * Embed texts in as few padded batches as possible. Results are in input order.
+     */
+    public List<float[]> embed(List<String> texts) throws OrtException {
+        int n = texts.size();
+        long[][] encoded = new long[n][];
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            encoded[i] = tokenizer.encode(texts.get(i), maxSequenceLength);
+            order[i] = i;
+        }
+        // Similar lengths end up in the same batch, which keeps padding to a minimum.
+        Arrays.sort(order, (a, b) -> Integer.compare(encoded[a].length, encoded[b].length));
+
+        float[][] results = new float[n][];
+        for (int from = 0; from < n; from += maxBatchSize) {
+            int to = Math.min(n, from + maxBatchSize);
+            long[][] batch = new long[to - from][];
+            for (int i = from; i < to; i++) {
+                batch[i - from] = encoded[order[i]];
+            }
+            float[][] vectors = runBatch(batch);
+            for (int i = from; i < to; i++) {
+                results[order[i]] = vectors[i - from];
+            }
+        }
+        return new ArrayList<>(Arrays.asList(results));
+    }
+
+    private float[][] runBatch(long[][] batch) throws OrtException {
+        int rows = batch.length;
+        int cols = 0;
+        for (long[] ids : batch) {
+            cols = Math.max(cols, ids.length);
+        }
+        long[] ids = new long[rows * cols];
+        long[] mask = new long[rows * cols];
+        Arrays.fill(ids, tokenizer.getPadId());
+        for (int r = 0; r < rows; r++) {
+            System.arraycopy(batch[r], 0, ids, r * cols, batch[r].length);
+            Arrays.fill(mask, r * cols, r * cols + batch[r].length, 1L);
+        }
+        long[] shape = {rows, cols};
+        Map<String, OnnxTensor> inputs = new HashMap<>();
+        try {
+            inputs.put(INPUT_IDS, OnnxTensor.createTensor(env, LongBuffer.wrap(ids), shape));
+            if (inputNames.contains(ATTENTION_MASK)) {
+                inputs.put(ATTENTION_MASK, OnnxTensor.createTensor(env, LongBuffer.wrap(mask), shape));
+            }
+            if (inputNames.contains(TOKEN_TYPE_IDS)) {
+                inputs.put(TOKEN_TYPE_IDS, OnnxTensor.createTensor(env, LongBuffer.wrap(new long[rows * cols]), shape));
+            }
+            try (OrtSession.Result result = session.run(inputs)) {
+                OnnxTensor output = (OnnxTensor) result.get(0);
+                long[] outShape = output.getInfo().getShape();
+                FloatBuffer values = output.getFloatBuffer();
+                return outShape.length == 3
+                        ? meanPool(values, mask, rows, cols, (int) outShape[2])
+                        : rowsOf(values, rows, (int) outShape[1]);
+            }
+        } finally {
+            inputs.values().forEach(OnnxTensor::close);
+        }
+    }
+
+    private static float[][] meanPool(FloatBuffer hidden, long[] mask, int rows, int cols, int dim) {
+        float[][] out = new float[rows][dim];
+        for (int r = 0; r < rows; r++) {
+            int tokens = 0;
+            for (int c = 0; c < cols; c++) {
+                if (mask[r * cols + c] == 0) {
+                    continue;
+                }
+                tokens++;
+                int base = (r * cols + c) * dim;
+                for (int d = 0; d < dim; d++) {
+                    out[r][d] += hidden.get(base + d);
+                }
+            }
+            for (int d = 0; d < dim && tokens > 0; d++) {
+                out[r][d] /= tokens;
+            }
+            normalize(out[r]);
+        }
+        return out;
+    }
+
+    private static float[][] rowsOf(FloatBuffer pooled, int rows, int dim) {
+        float[][] out = new float[rows][dim];
+        for (int r = 0; r < rows; r++) {
+            pooled.get(r * dim, out[r]);
+            normalize(out[r]);
+        }
+        return out;
+    }
+
+    private static void normalize(float[] vec) {
+        double norm = 0.0;
+        for (float v : vec) norm += v * v;
+        norm = Math.sqrt(norm);
+        if (norm > 0) {
+            for (int i = 0; i < vec.length; i++) vec[i] /= (float) norm;
+        }
+    }
+
+    private int outputDimension() throws OrtException {
+        NodeInfo first = session.getOutputInfo().values().iterator().next();
+        if (first.getInfo() instanceof TensorInfo info) {
+            long[] shape = info.getShape();
+            return shape.length == 0 ? -1 : (int) shape[shape.length - 1];
+        }
+        return -1;
+    }
+
+    @Override
+    public void close() throws OrtException {
+        session.close();
+    }
+}
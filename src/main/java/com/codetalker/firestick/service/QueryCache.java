@@ -0,0 +1,83 @@
+package com.codetalker.firestick.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.codetalker.firestick.service.dto.QueryCacheStats;
+
+/**
+ * Bounded LRU cache for query-time results, each entry stamped with the generation of the data it was
+ * computed from. A lookup under any other generation drops the entry, so nothing computed before an
+ * index write is served after it, without the writer having to know about the cache.
+ *
+ * @param <K> Key, compared with {@code equals}
+ * @param <V> Cached value; callers must not mutate it
+ */
+final class QueryCache<K, V> {
+
+    private record Entry<V>(Object generation, V value) {}
+
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    QueryCache(int maxEntries) {
+        int capacity = Math.max(1, maxEntries);
+        this.entries = new LinkedHashMap<>(Math.min(capacity, 1 << 12), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > capacity) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @param generation Version of the underlying data now; compared with {@code equals}
+     * @return The cached value, or null if absent or stored under another generation
+     */
+    V get(K key, Object generation) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && Objects.equals(entry.generation(), generation)) {
+                hits.incrementAndGet();
+                return entry.value();
+            }
+            if (entry != null) {
+                entries.remove(key);
+                invalidations.incrementAndGet();
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * @param generation Version of the data the value was computed from, read before computing it
+     */
+    void put(K key, Object generation, V value) {
+        synchronized (entries) {
+            entries.put(key, new Entry<>(generation, value));
+        }
+    }
+
+    QueryCacheStats stats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new QueryCacheStats(hits.get(), misses.get(), evictions.get(), invalidations.get(), size);
+    }
+
+    /** Trim and collapse whitespace, so queries differing only in spacing share an entry. */
+    static String normalize(String query) {
+        return query.strip().replaceAll("\\s+", " ");
+    }
+}
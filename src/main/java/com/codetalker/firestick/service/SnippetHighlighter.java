@@ -0,0 +1,121 @@
+package com.codetalker.firestick.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+
+/**
+ * Picks the window of lines in a chunk that mentions the most query terms and wraps those terms in
+ * {@code <em>} tags. Works on stored chunk text, so keyword and vector hits are highlighted alike.
+ * A word matches when it, or one of its camelCase or snake_case parts, is a query term.
+ */
+final class SnippetHighlighter {
+
+    private static final Analyzer ANALYZER = new CodeAnalyzer(true);
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}_$]+");
+    private static final Pattern PART = Pattern.compile("\\p{Lu}?\\p{Ll}+|\\p{Lu}+(?!\\p{Ll})|\\p{N}+|\\p{L}+");
+
+    private SnippetHighlighter() {}
+
+    /** Lower-cased query terms as the keyword index sees them. */
+    static Set<String> terms(String query) {
+        Set<String> terms = new LinkedHashSet<>();
+        try (TokenStream stream = ANALYZER.tokenStream("content", query)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                terms.add(term.toString());
+            }
+            stream.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return terms;
+    }
+
+    /**
+     * @param content    Chunk text
+     * @param terms      Terms from {@link #terms(String)}
+     * @param windowSize Maximum number of lines in the snippet
+     */
+    static String highlight(String content, Set<String> terms, int windowSize) {
+        if (content == null || content.isEmpty()) {
+            return "";
+        }
+        String[] lines = content.split("\\R", -1);
+        int window = Math.max(1, Math.min(windowSize, lines.length));
+        int[] counts = new int[lines.length];
+        for (int i = 0; i < lines.length; i++) {
+            counts[i] = countMatches(lines[i], terms);
+        }
+        int best = 0;
+        int bestCount = -1;
+        int running = 0;
+        for (int i = 0; i < lines.length; i++) {
+            running += counts[i];
+            if (i >= window) {
+                running -= counts[i - window];
+            }
+            if (i >= window - 1 && running > bestCount) {
+                bestCount = running;
+                best = i - window + 1;
+            }
+        }
+        StringBuilder snippet = new StringBuilder();
+        for (int i = best; i < best + window; i++) {
+            if (i > best) {
+                snippet.append('\n');
+            }
+            snippet.append(mark(lines[i], terms));
+        }
+        return snippet.toString();
+    }
+
+    private static int countMatches(String line, Set<String> terms) {
+        int count = 0;
+        Matcher words = WORD.matcher(line);
+        while (words.find()) {
+            if (matches(words.group(), terms)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static boolean matches(String word, Set<String> terms) {
+        if (terms.contains(word.toLowerCase(Locale.ROOT))) {
+            return true;
+        }
+        Matcher parts = PART.matcher(word);
+        while (parts.find()) {
+            if (terms.contains(parts.group().toLowerCase(Locale.ROOT))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String mark(String line, Set<String> terms) {
+        if (terms.isEmpty()) {
+            return line;
+        }
+        StringBuilder out = new StringBuilder(line.length() + 16);
+        Matcher words = WORD.matcher(line);
+        int last = 0;
+        while (words.find()) {
+            if (matches(words.group(), terms)) {
+                out.append(line, last, words.start()).append("<em>").append(words.group()).append("</em>");
+                last = words.end();
+            }
+        }
+        return out.append(line, last, line.length()).toString();
+    }
+}
@@ -0,0 +1,202 @@
+package com.codetalker.firestick.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Reads source files for indexing with as little copying as the JDK allows.
+ * <p>
+ * Files up to {@code reader.buffer-bytes} are read into a pooled direct buffer; larger ones are
+ * memory-mapped. The SHA-256 digest is taken over the raw bytes in that buffer, and the bytes are only
+ * decoded when the digest differs from the one already stored. Decoding honours a UTF-8 or UTF-16 byte
+ * order mark, otherwise tries strict UTF-8 and falls back to {@code reader.fallback-charset} for legacy
+ * files. Files over {@code reader.max-file-bytes} and generated sources are skipped.
+ */
+@Service
+public class SourceFileReader {
+
+    private static final Logger log = LoggerFactory.getLogger(SourceFileReader.class);
+
+    private static final Set<String> GENERATED_DIRECTORIES = Set.of("generated", "generated-sources",
+            "generated-test-sources", "generated-src");
+    // @Generated on a type, however it is qualified, within the head of the file.
+    private static final Pattern GENERATED_ANNOTATION = Pattern.compile(
+            "@(?:javax\\.annotation\\.(?:processing\\.)?|jakarta\\.annotation\\.)?Generated\\b");
+    // Tool banners in the comments a file opens with, before its package or first import.
+    private static final Pattern GENERATED_BANNER = Pattern.compile("DO NOT EDIT|(?i:auto-?generated)");
+    private static final int ANNOTATION_SCAN_CHARS = 8192;
+    private static final int BANNER_SCAN_CHARS = 1024;
+
+    /** Why a file was not read. */
+    public enum Skip { TOO_LARGE, GENERATED }
+
+    /**
+     * Outcome of reading one file.
+     *
+     * @param text    Decoded source, or null when the digest matched the previous one or the file was skipped
+     * @param charset Charset the text was decoded with, null when it was not decoded
+     * @param skipped Why the file was skipped, null when it was read
+     */
+    public record SourceFile(String digest, long size, String text, Charset charset, Skip skipped) {
+        public boolean isSkipped() {
+            return skipped != null;
+        }
+    }
+
+    private final long maxFileBytes;
+    private final int bufferBytes;
+    private final boolean skipGenerated;
+    private final Charset fallbackCharset;
+    private final BlockingQueue<ByteBuffer> buffers;
+
+    public SourceFileReader(@Value("${reader.max-file-bytes:1048576}") long maxFileBytes,
+                            @Value("${reader.buffer-bytes:262144}") int bufferBytes,
+                            @Value("${reader.skip-generated:true}") boolean skipGenerated,
+                            @Value("${reader.fallback-charset:windows-1252}") String fallbackCharset) {
+        this.maxFileBytes = maxFileBytes > 0 ? maxFileBytes : Long.MAX_VALUE;
+        this.bufferBytes = Math.max(4096, bufferBytes);
+        this.skipGenerated = skipGenerated;
+        this.fallbackCharset = Charset.forName(fallbackCharset.trim());
+        this.buffers = new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    /** Read and decode a file. */
+    public SourceFile read(Path path) throws IOException {
+        return read(path, null);
+    }
+
+    /**
+     * Read a file, decoding it only if its digest differs from {@code previousDigest}.
+     *
+     * @param previousDigest Digest stored for the file, or null if it is new
+     */
+    public SourceFile read(Path path, String previousDigest) throws IOException {
+        if (skipGenerated && inGeneratedDirectory(path)) {
+            return new SourceFile(null, -1, null, null, Skip.GENERATED);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > maxFileBytes) {
+                return new SourceFile(null, size, null, null, Skip.TOO_LARGE);
+            }
+            if (size > bufferBytes) {
+                return read(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, size), previousDigest);
+            }
+            ByteBuffer buffer = buffers.poll();
+            if (buffer == null) {
+                buffer = ByteBuffer.allocateDirect(bufferBytes);
+            }
+            try {
+                buffer.clear().limit((int) size);
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // Keep reading until the buffer holds the whole file or the file ends early.
+                }
+                return read(path, buffer.flip(), previousDigest);
+            } finally {
+                buffers.offer(buffer);
+            }
+        }
+    }
+
+    private SourceFile read(Path path, ByteBuffer bytes, String previousDigest) {
+        long size = bytes.remaining();
+        String digest = ContentDigest.sha256Hex(bytes.duplicate());
+        if (digest.equals(previousDigest)) {
+            return new SourceFile(digest, size, null, null, null);
+        }
+        Charset charset = StandardCharsets.UTF_8;
+        int bom = 0;
+        if (startsWith(bytes, 0xEF, 0xBB, 0xBF)) {
+            bom = 3;
+        } else if (startsWith(bytes, 0xFE, 0xFF)) {
+            charset = StandardCharsets.UTF_16BE;
+            bom = 2;
+        } else if (startsWith(bytes, 0xFF, 0xFE)) {
+            charset = StandardCharsets.UTF_16LE;
+            bom = 2;
+        }
+        ByteBuffer content = bytes.duplicate().position(bytes.position() + bom);
+        String text;
+        try {
+            text = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(content.duplicate())
+                    .toString();
+        } catch (CharacterCodingException e) {
+            log.debug("{} is not valid {}; decoding as {}", path, charset, fallbackCharset);
+            charset = fallbackCharset;
+            text = fallbackCharset.decode(content).toString();
+        }
+        if (skipGenerated && looksGenerated(text)) {
+            return new SourceFile(digest, size, null, null, Skip.GENERATED);
+        }
+        return new SourceFile(digest, size, text, charset, null);
+    }
+
+    private static boolean inGeneratedDirectory(Path path) {
+        Path parent = path.getParent();
+        if (parent == null) {
+            return false;
+        }
+        for (Path segment : parent) {
+            if (GENERATED_DIRECTORIES.contains(segment.toString())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean looksGenerated(String text) {
+        return GENERATED_BANNER.matcher(text).region(0, headerEnd(text)).find()
+                || GENERATED_ANNOTATION.matcher(text).region(0, Math.min(text.length(), ANNOTATION_SCAN_CHARS)).find();
+    }
+
+    /** End of the leading comments and blank space, within the first {@code BANNER_SCAN_CHARS}. */
+    private static int headerEnd(String text) {
+        int limit = Math.min(text.length(), BANNER_SCAN_CHARS);
+        int i = 0;
+        while (i < limit) {
+            if (Character.isWhitespace(text.charAt(i))) {
+                i++;
+            } else if (text.startsWith("//", i)) {
+                int eol = text.indexOf('\n', i);
+                i = eol < 0 ? text.length() : eol + 1;
+            } else if (text.startsWith("/*", i)) {
+                int end = text.indexOf("*/", i + 2);
+                i = end < 0 ? text.length() : end + 2;
+            } else {
+                break;
+            }
+        }
+        return Math.min(i, limit);
+    }
+
+    private static boolean startsWith(ByteBuffer bytes, int... prefix) {
+        if (bytes.remaining() < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if ((bytes.get(bytes.position() + i) & 0xFF) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,108 @@
+package com.codetalker.firestick.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.codetalker.firestick.model.CodeFile;
+import com.codetalker.firestick.model.Symbol;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.AnnotationDeclaration;
+import com.github.javaparser.ast.body.CallableDeclaration;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.ConstructorDeclaration;
+import com.github.javaparser.ast.body.EnumConstantDeclaration;
+import com.github.javaparser.ast.body.EnumDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.body.RecordDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+
+/**
+ * Extracts declared symbols from one compilation unit in a single pre-order walk: types (class,
+ * interface, enum, record, annotation), methods, constructors, fields and enum constants.
+ * <p>
+ * Signatures name the declaring type, so go-to-definition can tell overloads and same-named members
+ * apart: {@code com.acme.Order} for types, {@code com.acme.Order.total(int, String): long} for methods,
+ * {@code com.acme.Order.id: String} for fields. Line numbers are the declaration's first line.
+ */
+final class SymbolExtractor {
+
+    private static final int MAX_SIGNATURE = 1024;
+
+    private SymbolExtractor() {}
+
+    static List<Symbol> extract(CodeFile file, CompilationUnit cu) {
+        List<Symbol> symbols = new ArrayList<>();
+        cu.walk(Node.TreeTraversal.PREORDER, node -> {
+            if (node instanceof TypeDeclaration<?> type) {
+                symbols.add(symbol(file, type.getNameAsString(), typeKind(type), qualifiedName(type), type));
+            } else if (node instanceof MethodDeclaration method) {
+                symbols.add(symbol(file, method.getNameAsString(), "method",
+                        callableSignature(method) + ": " + method.getType().asString(), method));
+            } else if (node instanceof ConstructorDeclaration constructor) {
+                symbols.add(symbol(file, constructor.getNameAsString(), "constructor",
+                        callableSignature(constructor), constructor));
+            } else if (node instanceof FieldDeclaration field) {
+                for (VariableDeclarator variable : field.getVariables()) {
+                    symbols.add(symbol(file, variable.getNameAsString(), "field",
+                            owner(field) + "." + variable.getNameAsString() + ": " + variable.getType().asString(),
+                            variable));
+                }
+            } else if (node instanceof EnumConstantDeclaration constant) {
+                symbols.add(symbol(file, constant.getNameAsString(), "enum_constant",
+                        owner(constant) + "." + constant.getNameAsString(), constant));
+            }
+        });
+        return symbols;
+    }
+
+    private static Symbol symbol(CodeFile file, String name, String type, String signature, Node node) {
+        if (signature.length() > MAX_SIGNATURE) {
+            signature = signature.substring(0, MAX_SIGNATURE);
+        }
+        int line = node.getBegin().map(p -> p.line).orElse(1);
+        return new Symbol(name, type, signature, file, line);
+    }
+
+    private static String typeKind(TypeDeclaration<?> type) {
+        if (type instanceof ClassOrInterfaceDeclaration cls) {
+            return cls.isInterface() ? "interface" : "class";
+        }
+        if (type instanceof EnumDeclaration) {
+            return "enum";
+        }
+        if (type instanceof RecordDeclaration) {
+            return "record";
+        }
+        if (type instanceof AnnotationDeclaration) {
+            return "annotation";
+        }
+        return "class";
+    }
+
+    private static String qualifiedName(TypeDeclaration<?> type) {
+        // Local and anonymous-scope types have no fully qualified name.
+        return type.getFullyQualifiedName().orElse(type.getNameAsString());
+    }
+
+    private static String callableSignature(CallableDeclaration<?> callable) {
+        String params = callable.getParameters().stream()
+                .map(SymbolExtractor::parameterType)
+                .collect(Collectors.joining(", "));
+        return owner(callable) + "." + callable.getNameAsString() + "(" + params + ")";
+    }
+
+    private static String parameterType(Parameter parameter) {
+        return parameter.getType().asString() + (parameter.isVarArgs() ? "..." : "");
+    }
+
+    private static String owner(Node node) {
+        return node.findAncestor(TypeDeclaration.class)
+                .map(type -> qualifiedName((TypeDeclaration<?>) type))
+                .orElse("");
+    }
+}
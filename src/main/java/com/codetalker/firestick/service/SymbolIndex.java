@@ -0,0 +1,363 @@
+package com.codetalker.firestick.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.codetalker.firestick.service.dto.SymbolHit;
+
+/**
+ * Immutable in-memory name index over declared symbols, for autocomplete and go-to-definition.
+ * <p>
+ * Distinct lower-cased names are kept in one sorted array, which doubles as a flattened trie: exact and
+ * prefix lookups are binary searches, and fuzzy lookup walks the array computing one Levenshtein row per
+ * character, reusing rows across shared prefixes and skipping every name under a prefix that is already
+ * too far from the query. A second sorted array of hump initials ({@code getSymbolName} → {@code gsn})
+ * narrows camel-hump queries before each candidate is checked hump by hump.
+ */
+public final class SymbolIndex {
+
+    /** One declared symbol. */
+    public record Entry(String name, String type, String signature, String filePath, int line) {}
+
+    public static final SymbolIndex EMPTY = build(List.of());
+
+    /** Prefix and camel-hump ranges are scanned up to this many names before ranking. */
+    private static final int MAX_CANDIDATES = 4096;
+
+    private static final Map<String, Integer> TYPE_ORDER = Map.of(
+            "class", 0, "interface", 0, "enum", 0, "record", 0, "annotation", 0,
+            "method", 1, "constructor", 2, "field", 3, "enum_constant", 3);
+
+    private static final Comparator<Entry> ENTRY_ORDER = Comparator
+            .comparingInt((Entry e) -> TYPE_ORDER.getOrDefault(e.type(), 4))
+            .thenComparing(Entry::name)
+            .thenComparing(Entry::filePath)
+            .thenComparingInt(Entry::line);
+
+    private final String[] keys;
+    private final int[] postings;
+    private final Entry[] entries;
+    private final String[] humpKeys;
+    private final int[] humpOwners;
+    private final int maxKeyLength;
+
+    private SymbolIndex(String[] keys, int[] postings, Entry[] entries, String[] humpKeys, int[] humpOwners) {
+        this.keys = keys;
+        this.postings = postings;
+        this.entries = entries;
+        this.humpKeys = humpKeys;
+        this.humpOwners = humpOwners;
+        this.maxKeyLength = Arrays.stream(keys).mapToInt(String::length).max().orElse(0);
+    }
+
+    public static SymbolIndex build(Collection<Entry> symbols) {
+        TreeMap<String, List<Entry>> byKey = new TreeMap<>();
+        for (Entry entry : symbols) {
+            byKey.computeIfAbsent(lower(entry.name()), k -> new ArrayList<>()).add(entry);
+        }
+        String[] keys = byKey.keySet().toArray(String[]::new);
+        int[] postings = new int[keys.length + 1];
+        Entry[] entries = new Entry[symbols.size()];
+        int k = 0;
+        int n = 0;
+        for (List<Entry> group : byKey.values()) {
+            group.sort(ENTRY_ORDER);
+            for (Entry entry : group) {
+                entries[n++] = entry;
+            }
+            postings[++k] = n;
+        }
+        // Initials are derived from the original spelling; names differing only in case share a key.
+        Integer[] order = new Integer[keys.length];
+        String[] initials = new String[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            order[i] = i;
+            initials[i] = initials(humps(entries[postings[i]].name()));
+        }
+        Arrays.sort(order, Comparator.comparing((Integer i) -> initials[i]).thenComparingInt(i -> i));
+        String[] humpKeys = new String[keys.length];
+        int[] humpOwners = new int[keys.length];
+        for (int i = 0; i < order.length; i++) {
+            humpKeys[i] = initials[order[i]];
+            humpOwners[i] = order[i];
+        }
+        return new SymbolIndex(keys, postings, entries, humpKeys, humpOwners);
+    }
+
+    public int size() {
+        return entries.length;
+    }
+
+    /** Every symbol with exactly this name (ignoring case), same-case spellings first. */
+    public List<Entry> exact(String name) {
+        int key = Arrays.binarySearch(keys, lower(name));
+        if (key < 0) {
+            return List.of();
+        }
+        List<Entry> found = new ArrayList<>(postings[key + 1] - postings[key]);
+        for (int i = postings[key]; i < postings[key + 1]; i++) {
+            found.add(entries[i]);
+        }
+        found.sort(Comparator.comparing((Entry e) -> !e.name().equals(name)));
+        return found;
+    }
+
+    /**
+     * Autocomplete: exact matches, then prefix, camel-hump and fuzzy matches, each name reported once
+     * under its best match. Within a kind, shorter names rank first.
+     */
+    public List<SymbolHit> lookup(String query, int limit) {
+        if (query == null || query.isBlank() || limit <= 0) {
+            return List.of();
+        }
+        String q = query.strip();
+        String lowered = lower(q);
+        List<SymbolHit> hits = new ArrayList<>();
+        BitSet taken = new BitSet(keys.length);
+
+        int exact = Arrays.binarySearch(keys, lowered);
+        if (exact >= 0) {
+            taken.set(exact);
+            for (Entry entry : exact(q)) {
+                add(hits, entry, SymbolHit.Match.EXACT, 0);
+            }
+        }
+        collect(hits, taken, prefixMatches(lowered), SymbolHit.Match.PREFIX, limit);
+        collect(hits, taken, camelHumpMatches(q), SymbolHit.Match.CAMEL_HUMP, limit);
+        if (hits.size() < limit) {
+            int maxEdits = lowered.length() <= 3 ? 0 : lowered.length() <= 6 ? 1 : 2;
+            if (maxEdits > 0) {
+                int[][] matches = fuzzyMatches(lowered, maxEdits);
+                for (int distance = 1; distance <= maxEdits && hits.size() < limit; distance++) {
+                    collect(hits, taken, matches[distance], SymbolHit.Match.FUZZY, limit, distance);
+                }
+            }
+        }
+        return hits.size() > limit ? List.copyOf(hits.subList(0, limit)) : hits;
+    }
+
+    /** Keys starting with the (lower-cased) prefix, at most {@link #MAX_CANDIDATES}. */
+    int[] prefixMatches(String prefix) {
+        int from = lowerBound(keys, prefix);
+        int to = from;
+        while (to < keys.length && to - from < MAX_CANDIDATES && keys[to].startsWith(prefix)) {
+            to++;
+        }
+        int[] found = new int[to - from];
+        for (int i = 0; i < found.length; i++) {
+            found[i] = from + i;
+        }
+        return found;
+    }
+
+    /**
+     * Keys whose humps start with the query's humps in order, e.g. {@code gSN} or {@code gsn} for
+     * {@code getSymbolName} and {@code gSyNa} for the same. An all-lower-case query is read as initials.
+     */
+    int[] camelHumpMatches(String query) {
+        List<String> queryHumps = queryHumps(query);
+        if (queryHumps.size() < 2) {
+            return new int[0];
+        }
+        String initials = initials(queryHumps);
+        int from = lowerBound(humpKeys, initials);
+        int[] found = new int[Math.min(MAX_CANDIDATES, humpKeys.length - from)];
+        int count = 0;
+        for (int i = from; i < humpKeys.length && count < found.length && humpKeys[i].startsWith(initials); i++) {
+            int key = humpOwners[i];
+            if (humpsMatch(queryHumps, humps(entries[postings[key]].name()))) {
+                found[count++] = key;
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * Keys within {@code maxEdits} Levenshtein edits of the query, bucketed by distance.
+     */
+    int[][] fuzzyMatches(String query, int maxEdits) {
+        int m = query.length();
+        int[][] rows = new int[maxKeyLength + 1][m + 1];
+        for (int j = 0; j <= m; j++) {
+            rows[0][j] = j;
+        }
+        List<List<Integer>> buckets = new ArrayList<>();
+        for (int d = 0; d <= maxEdits; d++) {
+            buckets.add(new ArrayList<>());
+        }
+        String previous = "";
+        int validDepth = 0;
+        int i = 0;
+        outer:
+        while (i < keys.length) {
+            String key = keys[i];
+            int depth = Math.min(validDepth, commonPrefix(previous, key));
+            for (int d = depth + 1; d <= key.length(); d++) {
+                int[] prev = rows[d - 1];
+                int[] row = rows[d];
+                char c = key.charAt(d - 1);
+                row[0] = d;
+                int best = d;
+                for (int j = 1; j <= m; j++) {
+                    int cost = query.charAt(j - 1) == c ? 0 : 1;
+                    row[j] = Math.min(Math.min(row[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+                    best = Math.min(best, row[j]);
+                }
+                if (best > maxEdits) {
+                    // No key under this prefix can come back within range: jump past all of them.
+                    previous = key;
+                    validDepth = d - 1;
+                    i = lowerBound(keys, key.substring(0, d) + Character.MAX_VALUE);
+                    continue outer;
+                }
+            }
+            int distance = rows[key.length()][m];
+            if (distance <= maxEdits) {
+                buckets.get(distance).add(i);
+            }
+            previous = key;
+            validDepth = key.length();
+            i++;
+        }
+        int[][] found = new int[maxEdits + 1][];
+        for (int d = 0; d <= maxEdits; d++) {
+            found[d] = buckets.get(d).stream().mapToInt(Integer::intValue).toArray();
+        }
+        return found;
+    }
+
+    private void collect(List<SymbolHit> hits, BitSet taken, int[] candidates, SymbolHit.Match match, int limit) {
+        collect(hits, taken, candidates, match, limit, 0);
+    }
+
+    private void collect(List<SymbolHit> hits, BitSet taken, int[] candidates, SymbolHit.Match match,
+                         int limit, int distance) {
+        if (hits.size() >= limit) {
+            return;
+        }
+        Integer[] ranked = Arrays.stream(candidates).filter(key -> !taken.get(key)).boxed().toArray(Integer[]::new);
+        Arrays.sort(ranked, Comparator.comparingInt((Integer key) -> keys[key].length()).thenComparingInt(key -> key));
+        for (int key : ranked) {
+            if (hits.size() >= limit) {
+                return;
+            }
+            taken.set(key);
+            for (int e = postings[key]; e < postings[key + 1]; e++) {
+                add(hits, entries[e], match, distance);
+            }
+        }
+    }
+
+    private static void add(List<SymbolHit> hits, Entry entry, SymbolHit.Match match, int distance) {
+        hits.add(new SymbolHit(entry.name(), entry.type(), entry.signature(), entry.filePath(), entry.line(),
+                match, distance));
+    }
+
+    private static boolean humpsMatch(List<String> queryHumps, List<String> nameHumps) {
+        if (queryHumps.size() > nameHumps.size()) {
+            return false;
+        }
+        for (int i = 0; i < queryHumps.size(); i++) {
+            if (!lower(nameHumps.get(i)).startsWith(lower(queryHumps.get(i)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Query humps start at every capital, so {@code gSN} is three humps even though it looks like an acronym. */
+    private static List<String> queryHumps(String query) {
+        if (query.chars().noneMatch(Character::isUpperCase) && query.indexOf('_') < 0) {
+            return query.chars().mapToObj(c -> String.valueOf((char) c)).toList();
+        }
+        List<String> humps = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i <= query.length(); i++) {
+            boolean end = i == query.length() || query.charAt(i) == '_';
+            if (end || (i > start && Character.isUpperCase(query.charAt(i)))) {
+                if (i > start) {
+                    humps.add(query.substring(start, i));
+                }
+                start = end ? i + 1 : i;
+            }
+        }
+        return humps;
+    }
+
+    /**
+     * Split an identifier into humps: {@code getHTTPServer2} → get, HTTP, Server2;
+     * {@code MAX_SIZE} → MAX, SIZE.
+     */
+    static List<String> humps(String name) {
+        List<String> humps = new ArrayList<>();
+        int n = name.length();
+        int start = -1;
+        for (int i = 0; i < n; i++) {
+            char c = name.charAt(i);
+            if (c == '_' || c == '$') {
+                if (start >= 0) {
+                    humps.add(name.substring(start, i));
+                    start = -1;
+                }
+                continue;
+            }
+            if (start >= 0 && Character.isUpperCase(c)) {
+                boolean afterLower = !Character.isUpperCase(name.charAt(i - 1));
+                boolean endsAcronym = i + 1 < n && Character.isLowerCase(name.charAt(i + 1));
+                if (afterLower || endsAcronym) {
+                    humps.add(name.substring(start, i));
+                    start = i;
+                }
+            }
+            if (start < 0) {
+                start = i;
+            }
+        }
+        if (start >= 0) {
+            humps.add(name.substring(start));
+        }
+        return humps;
+    }
+
+    private static String initials(List<String> humps) {
+        StringBuilder initials = new StringBuilder(humps.size());
+        for (String hump : humps) {
+            initials.append(Character.toLowerCase(hump.charAt(0)));
+        }
+        return initials.toString();
+    }
+
+    private static int lowerBound(String[] sorted, String key) {
+        int lo = 0;
+        int hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid].compareTo(key) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static int commonPrefix(String a, String b) {
+        int n = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < n && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static String lower(String s) {
+        return s.toLowerCase(Locale.ROOT);
+    }
+}
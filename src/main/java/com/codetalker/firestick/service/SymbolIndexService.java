@@ -0,0 +1,118 @@
+package com.codetalker.firestick.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.codetalker.firestick.model.Symbol;
+import com.codetalker.firestick.repository.SymbolRepository;
+import com.codetalker.firestick.service.dto.SymbolHit;
+
+/**
+ * Keeps a {@link SymbolIndex} of every persisted symbol in memory so name lookups never hit the database.
+ * <p>
+ * Symbols are loaded once from H2 on first use; after that the indexing pipeline replaces a file's
+ * symbols whenever it persists or deletes that file. The index is rebuilt lazily on the first lookup
+ * after a change, so a large indexing run pays for one rebuild rather than one per file.
+ */
+@Service
+public class SymbolIndexService {
+
+    private static final Logger log = LoggerFactory.getLogger(SymbolIndexService.class);
+
+    private final SymbolRepository symbolRepository;
+    private final Map<String, List<SymbolIndex.Entry>> byFile = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile boolean loaded;
+    private volatile Built built = new Built(-1, SymbolIndex.EMPTY);
+
+    public SymbolIndexService(SymbolRepository symbolRepository) {
+        this.symbolRepository = symbolRepository;
+    }
+
+    /** Replace the symbols of one file; {@code symbols} must all belong to {@code filePath}. */
+    public void replaceFile(String filePath, Collection<Symbol> symbols) {
+        ensureLoaded();
+        List<SymbolIndex.Entry> entries = new ArrayList<>(symbols.size());
+        for (Symbol symbol : symbols) {
+            entries.add(new SymbolIndex.Entry(symbol.getName(), symbol.getType(), symbol.getSignature(), filePath,
+                    symbol.getLineNumber()));
+        }
+        if (entries.isEmpty()) {
+            byFile.remove(filePath);
+        } else {
+            byFile.put(filePath, entries);
+        }
+        version.incrementAndGet();
+    }
+
+    public void removeFile(String filePath) {
+        ensureLoaded();
+        if (byFile.remove(filePath) != null) {
+            version.incrementAndGet();
+        }
+    }
+
+    /** Autocomplete over symbol names: exact, then prefix, camel-hump and fuzzy matches. */
+    public List<SymbolHit> autocomplete(String query, int limit) {
+        return index().lookup(query, limit);
+    }
+
+    /** Declarations with this name (case-insensitive), for go-to-definition. */
+    public List<SymbolIndex.Entry> findDefinitions(String name) {
+        return index().exact(name);
+    }
+
+    /** Current index, rebuilt first if symbols changed since the last build. */
+    public SymbolIndex index() {
+        ensureLoaded();
+        Built current = built;
+        if (current.version() == version.get()) {
+            return current.index();
+        }
+        synchronized (this) {
+            long target = version.get();
+            if (built.version() != target) {
+                List<SymbolIndex.Entry> all = new ArrayList<>();
+                byFile.values().forEach(all::addAll);
+                built = new Built(target, SymbolIndex.build(all));
+            }
+            return built.index();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            long start = System.nanoTime();
+            Map<String, List<SymbolIndex.Entry>> stored = new HashMap<>();
+            for (Object[] row : symbolRepository.findAllForIndex()) {
+                String filePath = (String) row[3];
+                stored.computeIfAbsent(filePath, k -> new ArrayList<>()).add(new SymbolIndex.Entry(
+                        (String) row[0], (String) row[1], (String) row[2], filePath, (Integer) row[4]));
+            }
+            byFile.putAll(stored);
+            version.incrementAndGet();
+            loaded = true;
+            log.info("Loaded {} symbols from {} files in {} ms", stored.values().stream().mapToInt(List::size).sum(),
+                    stored.size(), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    /** An index and the change count it reflects. */
+    private record Built(long version, SymbolIndex index) {}
+}
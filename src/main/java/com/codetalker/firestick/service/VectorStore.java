@@ -0,0 +1,47 @@
+package com.codetalker.firestick.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import com.codetalker.firestick.service.dto.VectorMatch;
+import com.codetalker.firestick.service.dto.VectorRecord;
+
+/**
+ * Storage and nearest-neighbour search for chunk embeddings.
+ * <p>
+ * The active implementation is chosen with {@code vector.store}: {@code lucene} (default) keeps an
+ * in-process HNSW index on disk, {@code chroma} delegates to an external Chroma server.
+ */
+public interface VectorStore {
+
+    /**
+     * Insert or replace records by id.
+     */
+    void upsert(List<VectorRecord> records);
+
+    /**
+     * Remove records by id. Unknown ids are ignored.
+     */
+    void delete(Collection<String> ids);
+
+    /**
+     * Return up to {@code topK} nearest records whose metadata matches every entry of {@code filter}.
+     *
+     * @param vector Query embedding
+     * @param topK   Maximum number of matches
+     * @param filter Exact-match metadata constraints; empty for none
+     */
+    List<VectorMatch> query(float[] vector, int topK, Map<String, String> filter);
+
+    /**
+     * Counter of writes made through this store, bumped once each upsert or delete is visible to
+     * queries. Query results computed under one version may be reused until it changes.
+     */
+    long version();
+
+    /**
+     * Whether the store can serve queries right now. May make a network round trip.
+     */
+    boolean isAvailable();
+}
@@ -0,0 +1,168 @@
+package com.codetalker.firestick.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * BERT-style WordPiece tokenizer, enough for sentence-transformers models such as all-MiniLM-L6-v2.
+ * <p>
+ * Loads either a HuggingFace {@code tokenizer.json} (WordPiece model) or a plain {@code vocab.txt}.
+ * Instances are immutable and safe to share between threads.
+ */
+public class WordPieceTokenizer {
+
+    private static final String CONTINUATION_PREFIX = "##";
+    private static final int MAX_CHARS_PER_WORD = 100;
+
+    private final Map<String, Integer> vocab;
+    private final boolean lowercase;
+    private final int clsId;
+    private final int sepId;
+    private final int padId;
+    private final int unkId;
+
+    WordPieceTokenizer(Map<String, Integer> vocab, boolean lowercase) {
+        this.vocab = vocab;
+        this.lowercase = lowercase;
+        this.clsId = vocab.getOrDefault("[CLS]", 101);
+        this.sepId = vocab.getOrDefault("[SEP]", 102);
+        this.padId = vocab.getOrDefault("[PAD]", 0);
+        this.unkId = vocab.getOrDefault("[UNK]", 100);
+    }
+
+    /**
+     * Load a tokenizer from {@code tokenizer.json} or {@code vocab.txt}.
+     */
+    public static WordPieceTokenizer load(Path path) throws IOException {
+        if (path.getFileName().toString().endsWith(".json")) {
+            JsonNode root = new ObjectMapper().readTree(path.toFile());
+            JsonNode model = root.path("model");
+            if (!model.path("type").asText("WordPiece").equals("WordPiece")) {
+                throw new IOException("Unsupported tokenizer model type: " + model.path("type").asText());
+            }
+            Map<String, Integer> vocab = new HashMap<>();
+            model.path("vocab").fields().forEachRemaining(e -> vocab.put(e.getKey(), e.getValue().asInt()));
+            boolean lowercase = root.path("normalizer").path("lowercase").asBoolean(true);
+            return new WordPieceTokenizer(vocab, lowercase);
+        }
+        Map<String, Integer> vocab = new HashMap<>();
+        List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        for (int i = 0; i < lines.size(); i++) {
+            vocab.putIfAbsent(lines.get(i).strip(), i);
+        }
+        return new WordPieceTokenizer(vocab, true);
+    }
+
+    public int getPadId() { return padId; }
+
+    /**
+     * Encode text as {@code [CLS] tokens... [SEP]}, truncated to {@code maxLength} ids.
+     */
+    public long[] encode(String text, int maxLength) {
+        List<Integer> ids = new ArrayList<>();
+        ids.add(clsId);
+        int budget = Math.max(0, maxLength - 2);
+        for (String word : basicTokenize(text)) {
+            if (ids.size() - 1 >= budget) {
+                break;
+            }
+            wordPiece(word, ids, budget + 1);
+        }
+        ids.add(sepId);
+        long[] out = new long[ids.size()];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = ids.get(i);
+        }
+        return out;
+    }
+
+    /** Whitespace split, punctuation isolated, optional lowercasing and accent stripping. */
+    private List<String> basicTokenize(String text) {
+        String normalized = text;
+        if (lowercase) {
+            normalized = Normalizer.normalize(text.toLowerCase(), Normalizer.Form.NFD)
+                    .replaceAll("\\p{Mn}", "");
+        }
+        List<String> words = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (Character.isWhitespace(c) || Character.isISOControl(c)) {
+                flush(current, words);
+            } else if (isPunctuation(c)) {
+                flush(current, words);
+                words.add(String.valueOf(c));
+            } else {
+                current.append(c);
+            }
+        }
+        flush(current, words);
+        return words;
+    }
+
+    /** Greedy longest-match-first split of one word into vocabulary pieces. */
+    private void wordPiece(String word, List<Integer> ids, int limit) {
+        if (word.length() > MAX_CHARS_PER_WORD) {
+            ids.add(unkId);
+            return;
+        }
+        List<Integer> pieces = new ArrayList<>();
+        int start = 0;
+        while (start < word.length()) {
+            int end = word.length();
+            Integer match = null;
+            while (start < end) {
+                String candidate = word.substring(start, end);
+                if (start > 0) {
+                    candidate = CONTINUATION_PREFIX + candidate;
+                }
+                match = vocab.get(candidate);
+                if (match != null) {
+                    break;
+                }
+                end--;
+            }
+            if (match == null) {
+                pieces.clear();
+                pieces.add(unkId);
+                break;
+            }
+            pieces.add(match);
+            start = end;
+        }
+        for (Integer piece : pieces) {
+            if (ids.size() >= limit) {
+                return;
+            }
+            ids.add(piece);
+        }
+    }
+
+    private static void flush(StringBuilder current, List<String> words) {
+        if (!current.isEmpty()) {
+            words.add(current.toString());
+            current.setLength(0);
+        }
+    }
+
+    private static boolean isPunctuation(char c) {
+        if ((c >= 33 && c <= 47) || (c >= 58 && c <= 64) || (c >= 91 && c <= 96) || (c >= 123 && c <= 126)) {
+            return true;
+        }
+        int type = Character.getType(c);
+        return type == Character.CONNECTOR_PUNCTUATION || type == Character.DASH_PUNCTUATION
+                || type == Character.START_PUNCTUATION || type == Character.END_PUNCTUATION
+                || type == Character.INITIAL_QUOTE_PUNCTUATION || type == Character.FINAL_QUOTE_PUNCTUATION
+                || type == Character.OTHER_PUNCTUATION;
+    }
+}
@@ -0,0 +1,23 @@
+package com.codetalker.firestick.service.dto;
+
+/**
+ * Size and sharing of the chunk content store.
+ *
+ * @param entries     Distinct chunk texts stored
+ * @param rawBytes    UTF-8 size of the stored texts before compression
+ * @param storedBytes Size of the blocks as written, headers included
+ * @param dedupHits   Chunk texts that were already stored and shared an existing entry
+ * @param fileBytes   Total size of the segments
+ */
+public record ChunkStoreStats(
+        long entries,
+        long blocks,
+        long rawBytes,
+        long storedBytes,
+        long dedupHits,
+        long fileBytes
+) {
+    public double compressionRatio() {
+        return storedBytes == 0 ? 0.0 : (double) rawBytes / storedBytes;
+    }
+}
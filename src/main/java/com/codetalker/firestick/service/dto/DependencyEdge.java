@@ -0,0 +1,8 @@
+package com.codetalker.firestick.service.dto;
+
+/**
+ * A directed dependency between two graph nodes. Class nodes are fully qualified names; method nodes
+ * are {@code Type#method}, with {@code <init>} for constructors.
+ */
+public record DependencyEdge(String source, String target, DependencyKind kind) {
+}
@@ -0,0 +1,7 @@
+package com.codetalker.firestick.service.dto;
+
+/**
+ * Size of the dependency graph after a build.
+ */
+public record DependencyGraphStats(int files, int nodes, long edges, long buildMillis) {
+}
@@ -0,0 +1,12 @@
+package com.codetalker.firestick.service.dto;
+
+/**
+ * Why one class or method depends on another.
+ */
+public enum DependencyKind {
+    IMPORTS,
+    EXTENDS,
+    IMPLEMENTS,
+    FIELD_TYPE,
+    CALLS
+}
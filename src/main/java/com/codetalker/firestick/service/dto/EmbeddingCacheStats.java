@@ -0,0 +1,18 @@
+package com.codetalker.firestick.service.dto;
+
+/**
+ * Counters for the two-tier embedding cache since startup.
+ */
+public record EmbeddingCacheStats(
+        long memoryHits,
+        long diskHits,
+        long misses,
+        long evictions,
+        int memoryEntries,
+        long diskEntries
+) {
+    public double hitRatio() {
+        long lookups = memoryHits + diskHits + misses;
+        return lookups == 0 ? 0.0 : (double) (memoryHits + diskHits) / lookups;
+    }
+}
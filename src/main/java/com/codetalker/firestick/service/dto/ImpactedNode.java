@@ -0,0 +1,7 @@
+package com.codetalker.firestick.service.dto;
+
+/**
+ * A node affected by a change, and how many dependency hops away from the change it is.
+ */
+public record ImpactedNode(String name, int distance) {
+}
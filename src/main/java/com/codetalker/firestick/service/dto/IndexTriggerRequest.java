@@ -0,0 +1,12 @@
+package com.codetalker.firestick.service.dto;
+
+/**
+ * Body of {@code POST /api/index/trigger}.
+ *
+ * @param path Directory to index
+ * @param mode Full or incremental; null for {@link IndexingMode#INCREMENTAL}
+ */
+public record IndexTriggerRequest(
+        String path,
+        IndexingMode mode
+) {}
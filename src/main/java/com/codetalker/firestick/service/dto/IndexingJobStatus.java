@@ -0,0 +1,32 @@
+package com.codetalker.firestick.service.dto;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Snapshot of an indexing job: its place in the scheduler plus, once started, the pipeline run's progress.
+ *
+ * @param filesDone  Discovered files the run has finished with: persisted, unchanged, skipped or failed
+ * @param filesTotal Files discovered so far; grows until the directory walk completes
+ * @param etaMillis  Estimated time to finish at the current file rate; -1 when unknown or not running
+ * @param stageRates Files per second through each stage (read, parse, embed, persist) since the run started
+ * @param progress   Full run counters; null while the job is queued
+ */
+public record IndexingJobStatus(
+        String jobId,
+        String rootPath,
+        IndexingMode mode,
+        State state,
+        Instant submittedAt,
+        long filesDone,
+        long filesTotal,
+        long etaMillis,
+        Map<String, Double> stageRates,
+        IndexingProgress progress
+) {
+    public enum State { QUEUED, RUNNING, COMPLETED, CANCELLED, FAILED }
+
+    public boolean isFinished() {
+        return state != State.QUEUED && state != State.RUNNING;
+    }
+}
@@ -0,0 +1,11 @@
+package com.codetalker.firestick.service.dto;
+
+/**
+ * How an indexing run decides which files to process.
+ */
+public enum IndexingMode {
+    /** Re-parse and re-embed every discovered file. */
+    FULL,
+    /** Process only new or changed files and purge files that disappeared from disk. */
+    INCREMENTAL
+}
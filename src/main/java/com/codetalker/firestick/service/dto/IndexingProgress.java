@@ -0,0 +1,37 @@
+package com.codetalker.firestick.service.dto;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Point-in-time snapshot of an indexing run. Safe to serialize while the run is still in progress.
+ */
+public record IndexingProgress(
+        String runId,
+        String rootPath,
+        IndexingMode mode,
+        State state,
+        Instant startedAt,
+        long elapsedMillis,
+        long filesDiscovered,
+        long filesRead,
+        long filesParsed,
+        long filesEmbedded,
+        long filesPersisted,
+        long filesFailed,
+        long filesUnchanged,
+        long filesSkipped,
+        long filesDeleted,
+        long chunksCreated,
+        long chunksEmbedded,
+        long chunksPersisted,
+        double filesPerSecond,
+        double chunksPerSecond,
+        Map<String, Integer> queueDepths
+) {
+    public enum State { RUNNING, COMPLETED, CANCELLED, FAILED }
+
+    public boolean isFinished() {
+        return state != State.RUNNING;
+    }
+}
@@ -0,0 +1,20 @@
+package com.codetalker.firestick.service.dto;
+
+/**
+ * A scored Lucene hit for one indexed chunk. File and line fields are null/0 for documents that were
+ * indexed as plain snippets rather than chunks.
+ *
+ * @param content    Stored text of plain snippets; null for chunks, whose text is in the chunk store
+ * @param contentRef Chunk store address of the text, null for plain snippets
+ */
+public record KeywordHit(
+        String id,
+        float score,
+        String filePath,
+        String type,
+        int startLine,
+        int endLine,
+        String content,
+        Long contentRef
+) {
+}
@@ -0,0 +1,21 @@
+package com.codetalker.firestick.service.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of a structured keyword search.
+ *
+ * @param totalHits  Matching chunks; a lower bound past Lucene's exact-count threshold unless facets were requested
+ * @param facets     Counts per value for each requested dimension, largest first
+ * @param nextCursor Pass as {@link KeywordQuery#after()} for the next page; null after the last one
+ * @param timedOut   True when the time limit cut the search short
+ */
+public record KeywordPage(
+        List<KeywordHit> hits,
+        long totalHits,
+        Map<String, Map<String, Long>> facets,
+        String nextCursor,
+        boolean timedOut
+) {
+}
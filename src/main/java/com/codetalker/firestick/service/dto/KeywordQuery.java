@@ -0,0 +1,22 @@
+package com.codetalker.firestick.service.dto;
+
+import java.util.List;
+
+/**
+ * A structured keyword search.
+ *
+ * @param filters       Lucene-side restrictions; null for none
+ * @param facets        Dimensions to count over all matches: {@code package}, {@code type} or {@code file}
+ * @param after         Cursor from the previous page's {@link KeywordPage#nextCursor()}; null for the first page
+ * @param size          Hits per page
+ * @param timeoutMillis Search time limit; on expiry the hits collected so far are returned. 0 for none
+ */
+public record KeywordQuery(
+        String query,
+        SearchFilters filters,
+        List<String> facets,
+        String after,
+        int size,
+        long timeoutMillis
+) {
+}
@@ -0,0 +1,20 @@
+package com.codetalker.firestick.service.dto;
+
+/**
+ * Counters for the Java parser since startup.
+ *
+ * @param failed     Sources that produced no compilation unit (syntax errors or unreadable input)
+ * @param chars      Characters of source parsed, successful or not
+ * @param parseNanos Time spent inside the parser, summed over all threads
+ */
+public record ParseStats(
+        long parsed,
+        long failed,
+        long chars,
+        long parseNanos
+) {
+    public double failureRatio() {
+        long total = parsed + failed;
+        return total == 0 ? 0.0 : (double) failed / total;
+    }
+}
@@ -0,0 +1,21 @@
+package com.codetalker.firestick.service.dto;
+
+/**
+ * Counters for an in-memory query cache since startup. Invalidations are entries found but dropped
+ * because the index changed after they were stored; they also count as misses.
+ */
+public record QueryCacheStats(
+        long hits,
+        long misses,
+        long evictions,
+        long invalidations,
+        int entries
+) {
+
+    public static final QueryCacheStats EMPTY = new QueryCacheStats(0, 0, 0, 0, 0);
+
+    public double hitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+}
@@ -0,0 +1,35 @@
+package com.codetalker.firestick.service.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Restrictions applied inside Lucene before hits are scored; null fields do not filter.
+ *
+ * @param packagePrefix Package or parent package, matched on dotted segments ({@code com.acme} includes
+ *                      {@code com.acme.billing} but not {@code com.acmeish})
+ * @param fileGlob      Glob over the file path: {@code *} and {@code ?} stay within one directory,
+ *                      {@code **} crosses them; a glob not starting with {@code /} may match from any
+ *                      directory, so {@code service/*.java} finds every {@code service} directory
+ * @param types         Chunk types to keep, e.g. {@code method}, {@code class}, {@code constructor}
+ * @param modifiedSince Only chunks of files modified at or after this instant
+ * @param languageLevel Only chunks of files whose syntax needs at most this Java release
+ */
+public record SearchFilters(
+        String packagePrefix,
+        String fileGlob,
+        List<String> types,
+        Instant modifiedSince,
+        Integer languageLevel
+) {
+
+    public static final SearchFilters NONE = new SearchFilters(null, null, null, null, null);
+
+    public boolean isEmpty() {
+        return (packagePrefix == null || packagePrefix.isBlank())
+                && (fileGlob == null || fileGlob.isBlank())
+                && (types == null || types.isEmpty())
+                && modifiedSince == null
+                && languageLevel == null;
+    }
+}
@@ -0,0 +1,27 @@
+package com.codetalker.firestick.service.dto;
+
+import java.util.List;
+
+/**
+ * Body of {@code POST /api/search} and {@code POST /api/search/keyword}. Page is 0-based; null page or
+ * size fall back to defaults. Hybrid search pages by number; keyword search pages with {@code cursor},
+ * the {@code nextCursor} of the previous response, so deep pages cost no more than the first.
+ *
+ * @param filters   Lucene-side restrictions; null for none
+ * @param facets    Dimensions to count: {@code package}, {@code type} or {@code file}
+ * @param timeoutMs Time limit for this query; null for the configured latency budget
+ */
+public record SearchRequest(
+        String query,
+        Integer page,
+        Integer size,
+        SearchFilters filters,
+        List<String> facets,
+        String cursor,
+        Long timeoutMs
+) {
+
+    public SearchRequest(String query, Integer page, Integer size) {
+        this(query, page, size, null, null, null, null);
+    }
+}
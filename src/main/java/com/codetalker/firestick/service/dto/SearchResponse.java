@@ -0,0 +1,26 @@
+package com.codetalker.firestick.service.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A page of search results.
+ *
+ * @param totalHits  Number of distinct chunks found by either retriever
+ * @param partial    True when a retriever missed the latency budget or time limit and its hits are
+ *                   absent or incomplete
+ * @param facets     Counts per value for each requested dimension, from the keyword index
+ * @param nextCursor Cursor for the next keyword page; null for hybrid searches and after the last page
+ */
+public record SearchResponse(
+        String query,
+        int page,
+        int size,
+        int totalHits,
+        long tookMillis,
+        boolean partial,
+        List<SearchResult> results,
+        Map<String, Map<String, Long>> facets,
+        String nextCursor
+) {
+}
@@ -0,0 +1,20 @@
+package com.codetalker.firestick.service.dto;
+
+/**
+ * One fused hybrid-search hit. Keyword and vector fields are null when the chunk was not found by that
+ * retriever; ranks are 1-based positions in each retriever's own list.
+ */
+public record SearchResult(
+        String chunkId,
+        String filePath,
+        int startLine,
+        int endLine,
+        String type,
+        double score,
+        Float keywordScore,
+        Integer keywordRank,
+        Float vectorScore,
+        Integer vectorRank,
+        String snippet
+) {
+}
@@ -0,0 +1,19 @@
+package com.codetalker.firestick.service.dto;
+
+/**
+ * A symbol found by name lookup, with where it is declared and how the query matched it.
+ *
+ * @param match    Which lookup found it; earlier kinds rank higher
+ * @param distance Edit distance for {@link Match#FUZZY} matches, 0 otherwise
+ */
+public record SymbolHit(
+        String name,
+        String type,
+        String signature,
+        String filePath,
+        int line,
+        Match match,
+        int distance
+) {
+    public enum Match { EXACT, PREFIX, CAMEL_HUMP, FUZZY }
+}
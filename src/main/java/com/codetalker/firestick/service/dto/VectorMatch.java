@@ -0,0 +1,9 @@
+package com.codetalker.firestick.service.dto;
+
+import java.util.Map;
+
+/**
+ * A nearest-neighbour hit. Higher scores are closer.
+ */
+public record VectorMatch(String id, float score, String document, Map<String, String> metadata) {
+}
@@ -0,0 +1,10 @@
+package com.codetalker.firestick.service.dto;
+
+import java.util.Map;
+
+/**
+ * A vector to store, with optional document text and flat string metadata (file, line range, chunk type,
+ * content reference).
+ */
+public record VectorRecord(String id, float[] vector, String document, Map<String, String> metadata) {
+}
@@ -0,0 +1,22 @@
+package com.codetalker.firestick.service.dto;
+
+import java.util.Map;
+
+/**
+ * Snapshot of the file watcher and how far the index trails the file system.
+ *
+ * @param roots            Watched roots and how each is watched ({@code native} or {@code poll})
+ * @param pendingFiles     Changed paths waiting for the next batch
+ * @param lastLagMillis    Freshness lag of the last batch: first change seen until its run completed
+ * @param currentLagMillis Age of the oldest change not yet indexed; 0 when the index is current
+ */
+public record WatchStatus(
+        boolean enabled,
+        Map<String, String> roots,
+        int pendingFiles,
+        long batchesIndexed,
+        long filesIndexed,
+        long lastLagMillis,
+        long maxLagMillis,
+        long currentLagMillis
+) {}
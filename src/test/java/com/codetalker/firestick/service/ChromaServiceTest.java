@@ -1,6 +1,9 @@
 package com.codetalker.firestick.service;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import org.junit.jupiter.api.AfterEach;
@@ -11,15 +14,20 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import static org.springframework.test.web.client.ExpectedCount.once;
+import static org.springframework.test.web.client.ExpectedCount.times;
+import org.springframework.mock.http.client.MockClientHttpRequest;
 import org.springframework.test.web.client.MockRestServiceServer;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.content;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServiceUnavailable;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 import org.springframework.web.client.RestTemplate;
 
 @SpringBootTest(properties = {
-        "chroma.base-url=http://localhost:8000"
+        "chroma.base-url=http://localhost:8000",
+        "chroma.upsert-batch-size=2",
+        "chroma.retry-backoff-ms=1"
 })
 class ChromaServiceTest {
 
@@ -68,4 +76,30 @@ class ChromaServiceTest {
         List<String> docs = chromaService.query("test-col", new float[]{0.1f, 0.2f}, 2);
         assertThat(docs).containsExactly("doc one", "doc two");
     }
+
+    @Test
+    void upsertEmbeddings_sendsBatchesWithIdsAndMetadataAndRetriesFailures() {
+        server = MockRestServiceServer.bindTo(restTemplate).ignoreExpectOrder(true).build();
+        Queue<String> bodies = new ConcurrentLinkedQueue<>();
+        String url = "http://localhost:8000/api/v1/collections/test-col/upsert";
+        server.expect(once(), requestTo(url))
+                .andRespond(withServiceUnavailable());
+        server.expect(times(3), requestTo(url))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(request -> bodies.add(((MockClientHttpRequest) request).getBodyAsString()))
+                .andRespond(withSuccess("true", MediaType.APPLICATION_JSON));
+
+        List<String> ids = List.of("1", "2", "3", "4", "5");
+        int requests = chromaService.upsertEmbeddings("test-col", ids,
+                ids.stream().map(id -> new float[]{Float.parseFloat(id), 0f}).toList(),
+                ids.stream().map(id -> "doc " + id).toList(),
+                ids.stream().map(id -> Map.of("file", "F" + id + ".java", "startLine", id)).toList());
+
+        assertThat(requests).isEqualTo(3);
+        assertThat(bodies).hasSize(3);
+        String all = String.join("\n", bodies);
+        for (String id : ids) {
+            assertThat(all).contains("\"" + id + "\"").contains("F" + id + ".java");
+        }
+    }
 }
@@ -0,0 +1,104 @@
+package com.codetalker.firestick.service;
+
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ChunkContentStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void storesIdenticalTextOnceAndReadsItBackAcrossBlocks() throws Exception {
+        ChunkContentStore store = new ChunkContentStore("", 1024, 0);
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            texts.add("public int size%d() {\n    return %d;\n}\n".formatted(i, i));
+        }
+        texts.add(texts.get(7));
+
+        List<ChunkContentStore.Stored> stored = store.putAll(texts);
+        List<ChunkContentStore.Stored> again = store.putAll(List.of(texts.get(3)));
+
+        assertThat(stored.get(200)).isEqualTo(stored.get(7));
+        assertThat(again.get(0)).isEqualTo(stored.get(3));
+        assertThat(stored.get(3).hash()).isEqualTo(ContentDigest.sha256Hex(texts.get(3)));
+        assertThat(store.stats().entries()).isEqualTo(200);
+        assertThat(store.stats().blocks()).isGreaterThan(1);
+        assertThat(store.stats().dedupHits()).isEqualTo(2);
+
+        Map<Long, String> read = store.getAll(stored.stream().map(ChunkContentStore.Stored::ref).toList());
+        for (int i = 0; i < texts.size(); i++) {
+            assertThat(read.get(stored.get(i).ref())).isEqualTo(texts.get(i));
+        }
+        assertThat(store.get(stored.get(150).ref())).isEqualTo(texts.get(150));
+    }
+
+    @Test
+    void reopensSegmentsAndCutsOffATornBlock() throws Exception {
+        ChunkContentStore store = new ChunkContentStore(dir.toString(), 1024, 4096);
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            texts.add("class Widget%d { String id = \"%s\"; }".formatted(i, ContentDigest.sha256Hex("w" + i)));
+        }
+        List<ChunkContentStore.Stored> stored = store.putAll(texts);
+        store.close();
+        Path last;
+        try (var files = Files.list(dir)) {
+            List<Path> segments = files.sorted().toList();
+            assertThat(segments).hasSizeGreaterThan(1);
+            last = segments.get(segments.size() - 1);
+        }
+        long intact = Files.size(last);
+        try (FileChannel channel = FileChannel.open(last, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0x46, 0x53, 0x43}));
+        }
+
+        ChunkContentStore reopened = new ChunkContentStore(dir.toString(), 1024, 4096);
+
+        assertThat(Files.size(last)).isEqualTo(intact);
+        assertThat(reopened.stats().entries()).isEqualTo(100);
+        assertThat(reopened.get(stored.get(42).ref())).isEqualTo(texts.get(42));
+        assertThat(reopened.putAll(List.of(texts.get(99))).get(0).ref()).isEqualTo(stored.get(99).ref());
+        String added = "record Added(int x) {}";
+        long ref = reopened.putAll(List.of(added)).get(0).ref();
+        assertThat(reopened.get(ref)).isEqualTo(added);
+        reopened.close();
+    }
+
+    @Test
+    void segmentSurvivesAnInterruptedAppend() throws Exception {
+        ChunkContentStore store = new ChunkContentStore(dir.toString(), 1024, 0);
+        long kept = store.putAll(List.of("class Kept {}")).get(0).ref();
+
+        // An interrupt during a channel write closes the channel.
+        Thread.currentThread().interrupt();
+        try {
+            assertThatThrownBy(() -> store.putAll(List.of("class Interrupted {}")))
+                    .isInstanceOf(UncheckedIOException.class);
+        } finally {
+            Thread.interrupted();
+        }
+
+        long added = store.putAll(List.of("class Added {}")).get(0).ref();
+        assertThat(store.get(kept)).isEqualTo("class Kept {}");
+        assertThat(store.get(added)).isEqualTo("class Added {}");
+        store.close();
+
+        ChunkContentStore reopened = new ChunkContentStore(dir.toString(), 1024, 0);
+        assertThat(reopened.get(added)).isEqualTo("class Added {}");
+        reopened.close();
+    }
+}
@@ -0,0 +1,41 @@
+package com.codetalker.firestick.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest {
+
+    @Test
+    void stragglersFromBeforeTheBreakerOpenedDoNotDecideTheTrial() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 2, 0, 0);
+        long straggler = breaker.tryAcquire();
+        long slowStraggler = breaker.tryAcquire();
+        breaker.record(breaker.tryAcquire(), true, 0);
+        breaker.record(breaker.tryAcquire(), true, 0);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        long trial = breaker.tryAcquire();
+        assertThat(trial).isNotNegative();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isNegative();
+
+        // Calls admitted while closed finish during the trial: neither closes nor reopens the breaker.
+        breaker.record(straggler, false, 0);
+        breaker.record(slowStraggler, true, 0);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+
+        breaker.record(trial, false, 0);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void slowCallsCountAsFailuresAndAFailedTrialReopens() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 1, 0, 5);
+        breaker.record(breaker.tryAcquire(), false, 10_000_000L);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        breaker.record(breaker.tryAcquire(), true, 0);
+
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+}
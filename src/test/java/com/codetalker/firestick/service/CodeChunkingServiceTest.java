@@ -9,6 +9,7 @@ import org.junit.jupiter.api.Test;
 import com.codetalker.firestick.model.CodeChunk;
 import com.codetalker.firestick.model.CodeFile;
 import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
 import com.github.javaparser.ast.CompilationUnit;
 
 class CodeChunkingServiceTest {
@@ -28,4 +29,109 @@ class CodeChunkingServiceTest {
         assertThat(chunks.stream().anyMatch(c -> c.getType().equals("method"))).isTrue();
         assertThat(chunks.stream().anyMatch(c -> c.getType().equals("class"))).isTrue();
     }
+
+    @Test
+    void slicesSourceForEveryMemberKindAndSkeletonizesTypes() {
+        String code = """
+            package shop;
+
+            /** An order. */
+            public class Order {
+                private final int id;   // keep   odd spacing
+
+                static { init(); }
+
+                public Order(int id) { this.id = id; }
+
+                /** Total in cents. */
+                public long total() {
+                    return   42;
+                }
+
+                enum Status { OPEN, CLOSED { @Override boolean done() { return true; } }; boolean done() { return false; } }
+
+                record Line(String sku, int qty) {
+                    Line { if (qty < 0) throw new IllegalArgumentException(); }
+                }
+
+                interface Listener { void changed(Order order); }
+            }
+            """;
+        CompilationUnit cu = new JavaParser().parse(code).getResult().orElseThrow();
+        CodeFile file = new CodeFile("Order.java", Instant.now(), "hash");
+
+        List<CodeChunk> chunks = new CodeChunkingService().extractChunks(file, cu, code);
+
+        assertThat(chunks).extracting(CodeChunk::getType).containsExactly(
+                "class", "initializer", "constructor", "method",
+                "enum", "method", "method",
+                "record", "constructor",
+                "interface");
+        CodeChunk total = chunks.get(3);
+        assertThat(total.getContent()).isEqualTo("""
+                /** Total in cents. */
+                    public long total() {
+                        return   42;
+                    }""");
+        assertThat(total.getStartLine()).isEqualTo(11);
+        assertThat(total.getEndLine()).isEqualTo(14);
+
+        String skeleton = chunks.get(0).getContent();
+        assertThat(skeleton)
+                .startsWith("/** An order. */\npublic class Order {")
+                .contains("private final int id;")
+                .contains("static { ... }")
+                .contains("public Order(int id) { ... }")
+                .contains("public long total() { ... }")
+                .contains("record Line(String sku, int qty) { ... }")
+                .doesNotContain("return   42");
+        assertThat(chunks.get(4).getContent()).contains("OPEN, CLOSED { ... };");
+
+        // Without the source, the text is rebuilt from tokens and slices identically.
+        assertThat(new CodeChunkingService().extractChunks(file, cu)).extracting(CodeChunk::getContent)
+                .containsExactlyElementsOf(chunks.stream().map(CodeChunk::getContent).toList());
+    }
+
+    @Test
+    void splitsLongChunksIntoOverlappingWindows() {
+        StringBuilder body = new StringBuilder("public class Big {\n    void run() {\n");
+        for (int i = 0; i < 40; i++) {
+            body.append("        call").append(i).append("(a, b);\n");
+        }
+        body.append("    }\n}\n");
+        String code = body.toString();
+        CompilationUnit cu = new JavaParser().parse(code).getResult().orElseThrow();
+        CodeFile file = new CodeFile("Big.java", Instant.now(), "hash");
+
+        List<CodeChunk> windows = new CodeChunkingService(50, 14).extractChunks(file, cu, code).stream()
+                .filter(chunk -> chunk.getType().equals("method"))
+                .toList();
+
+        assertThat(windows).hasSizeGreaterThan(5);
+        assertThat(windows).allSatisfy(chunk ->
+                assertThat(CodeChunkingService.countTokens(chunk.getContent(), 0, chunk.getContent().length()))
+                        .isLessThanOrEqualTo(50));
+        assertThat(windows.get(0).getStartLine()).isEqualTo(2);
+        assertThat(windows.get(windows.size() - 1).getEndLine()).isEqualTo(43);
+        for (int i = 1; i < windows.size(); i++) {
+            // Each window starts two lines (7 tokens each) before the previous one ended.
+            assertThat(windows.get(i).getStartLine()).isEqualTo(windows.get(i - 1).getEndLine() - 1);
+        }
+    }
+
+    @Test
+    void languageLevelIsTheNewestConstructUsed() {
+        JavaParser parser = new JavaParser(new ParserConfiguration()
+                .setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_21));
+        assertThat(CodeChunkingService.languageLevel(parser.parse("class A { int x; }").getResult().orElseThrow()))
+                .isEqualTo(8);
+        assertThat(CodeChunkingService.languageLevel(parser.parse(
+                "class A { void f() { var s = \"\"\"\n  hi\"\"\"; } }").getResult().orElseThrow()))
+                .isEqualTo(15);
+        assertThat(CodeChunkingService.languageLevel(parser.parse(
+                "sealed interface S permits R {} record R(int x) implements S {}"
+                        + " class U { int f(Object o) { return o instanceof R(int x) ? x : 0; } }")
+                .getResult().orElseThrow()))
+                .isEqualTo(21);
+    }
 }
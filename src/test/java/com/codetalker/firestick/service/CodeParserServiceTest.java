@@ -1,20 +1,38 @@
 package com.codetalker.firestick.service;
 
+import com.codetalker.firestick.service.dto.ParseStats;
 import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.MethodDeclaration;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Optional;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 @SpringBootTest
 class CodeParserServiceTest {
 
+    private static final String RECORD_SOURCE = """
+        /** A point. */
+        public record Point(int x, int y) {
+            /** Distance from the origin. */
+            double length() { return Math.sqrt(x * x + y * y); }
+        }
+        """;
+
     @Autowired
     private CodeParserService codeParserService;
 
+    @TempDir
+    Path tempDir;
+
     @Test
     void testParseJavaCode() {
         String javaCode = """
@@ -30,4 +48,36 @@ class CodeParserServiceTest {
         assertThat(result).isPresent();
         assertThat(result.get().toString()).contains("HelloWorld");
     }
+
+    @Test
+    void attributesCommentsOnlyInTheFullParse() throws Exception {
+        MethodDeclaration method = codeParserService.parseJavaCode(RECORD_SOURCE).orElseThrow()
+                .findFirst(MethodDeclaration.class).orElseThrow();
+        assertThat(method.getNameAsString()).isEqualTo("length");
+        assertThat(method.getBegin()).hasValueSatisfying(p -> assertThat(p.line).isEqualTo(4));
+        assertThat(method.getJavadocComment()).isPresent();
+        assertThat(codeParserService.parseStructure(RECORD_SOURCE).orElseThrow()
+                .findFirst(MethodDeclaration.class).orElseThrow().getComment()).isEmpty();
+
+        // Files go through the SourceFileReader, so a legacy encoding still parses.
+        Path file = tempDir.resolve("Point.java");
+        Files.write(file, RECORD_SOURCE.replace("origin", "origine é").getBytes(StandardCharsets.ISO_8859_1));
+        assertThat(codeParserService.parseFile(file.toString()).getChunks()).isNotEmpty();
+    }
+
+    @Test
+    void countsFailuresInsteadOfThrowing() {
+        ParseStats before = codeParserService.stats();
+
+        assertThat(codeParserService.parseJavaCode("class Broken { void m( }")).isEmpty();
+        assertThat(codeParserService.parseStructure("record Broken(int x {}")).isEmpty();
+        long parsed = IntStream.range(0, 64).parallel()
+                .filter(i -> codeParserService.parseJavaCode(RECORD_SOURCE).isPresent())
+                .count();
+
+        ParseStats after = codeParserService.stats();
+        assertThat(parsed).isEqualTo(64);
+        assertThat(after.failed() - before.failed()).isEqualTo(2);
+        assertThat(after.parsed() - before.parsed()).isEqualTo(64);
+    }
 }
@@ -1,10 +1,22 @@
 package com.codetalker.firestick.service;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import com.codetalker.firestick.model.CodeChunk;
+import com.codetalker.firestick.model.CodeFile;
+import com.codetalker.firestick.service.dto.KeywordHit;
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.nio.file.Path;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -26,4 +38,70 @@ class CodeSearchServiceTest {
         assertThat(results).contains("1");
         assertThat(results).doesNotContain("2");
     }
+
+    @Test
+    void indexSurvivesRestartWhenBackedByDisk(@TempDir Path indexDir) throws Exception {
+        CodeSearchService first = new CodeSearchService(new SimpleMeterRegistry(), indexDir.toString(), 16, 0, 0);
+        first.indexCode(Map.of(
+                "a", "class PersistentCache { void evict() {} }",
+                "b", "class TransientBuffer { void flush() {} }"));
+        assertThat(first.searchCode("PersistentCache")).containsExactly("a");
+        first.close();
+
+        CodeSearchService reopened = new CodeSearchService(new SimpleMeterRegistry(), indexDir.toString(), 16, 0, 0);
+        try {
+            assertThat(reopened.searchCode("TransientBuffer")).containsExactly("b");
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void identifiersMatchTheirWordsAndDeclarationsOutrankMentions() throws Exception {
+        String source = """
+                package com.example.accounts;
+
+                public class AccountService {
+                    /** Looks up the display name. */
+                    public String getUserName(long id) {
+                        return "unknown";
+                    }
+
+                    // Delegates to getUserName for the audit trail.
+                    public void audit_log(long id) {
+                        System.out.println("audit " + id);
+                    }
+                }
+                """;
+        CompilationUnit cu = new JavaParser().parse(source).getResult().orElseThrow();
+        List<CodeChunk> chunks = new CodeChunkingService().extractChunks(
+                new CodeFile("src/AccountService.java", Instant.now(), "h"), cu, source);
+        for (int i = 0; i < chunks.size(); i++) {
+            chunks.get(i).setId((long) i + 1);
+        }
+        CodeSearchService search = new CodeSearchService(new SimpleMeterRegistry(), "", 16, 0, 0);
+        try {
+            search.indexChunks(chunks);
+
+            KeywordHit byWords = search.searchChunks("user name", 10).get(0);
+            assertThat(byWords.content()).contains("public String getUserName");
+            assertThat(byWords.filePath()).isEqualTo("src/AccountService.java");
+            assertThat(byWords.startLine()).isEqualTo(4);
+            assertThat(byWords.endLine()).isEqualTo(7);
+
+            // The declaring chunk outranks the one that only mentions the name in a comment.
+            assertThat(search.searchChunks("getUserName", 10).get(0).content()).contains("public String getUserName");
+            assertThat(search.searchChunks("AuditLog", 10).get(0).content()).contains("void audit_log");
+            assertThat(search.searchChunks("accounts", 10)).hasSize(chunks.size());
+            assertThat(search.searchChunks("unknown", 10)).hasSize(1);
+        } finally {
+            search.close();
+        }
+    }
+
+    @Test
+    void globsTranslateToAnchoredPathExpressions() {
+        assertThat(CodeSearchService.globToRegexp("/src/**/*.java")).isEqualTo("\\/src\\/(.*/)?[^/]*\\.java");
+        assertThat(CodeSearchService.globToRegexp("service/Type?.java")).isEqualTo("(.*/)?service\\/Type[^/]\\.java");
+    }
 }
@@ -1,21 +1,40 @@
 package com.codetalker.firestick.service;
 
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import org.jgrapht.Graph;
+import org.jgrapht.alg.cycle.CycleDetector;
 import org.jgrapht.graph.DefaultDirectedGraph;
 import org.jgrapht.graph.DefaultEdge;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import com.codetalker.firestick.service.dto.DependencyEdge;
+import com.codetalker.firestick.service.dto.DependencyGraphStats;
+import com.codetalker.firestick.service.dto.DependencyKind;
+import com.codetalker.firestick.service.dto.ImpactedNode;
+
 @SpringBootTest
 class DependencyGraphServiceTest {
 
     @Autowired
     private DependencyGraphService dependencyGraphService;
 
+    @Autowired
+    private FileDiscoveryService fileDiscoveryService;
+
+    @Autowired
+    private CodeParserService codeParserService;
+
+    @Autowired
+    private SourceFileReader sourceFileReader;
+
     @Test
     void testCreateDependencyGraph() {
         Graph<String, DefaultEdge> graph = dependencyGraphService.createDependencyGraph();
@@ -47,4 +66,156 @@ class DependencyGraphServiceTest {
 
         assertThat(dependencies).containsExactly("Module B");
     }
+
+    @Test
+    void buildsClassAndMethodGraphFromSources(@TempDir Path root) throws Exception {
+        writeShopSources(root);
+
+        DependencyGraphStats stats = dependencyGraphService.buildGraph(root.toString());
+
+        assertThat(stats.files()).isEqualTo(4);
+        assertThat(dependencyGraphService.directDependencies("shop.OrderService")).contains(
+                new DependencyEdge("shop.OrderService", "shop.BaseService", DependencyKind.EXTENDS),
+                new DependencyEdge("shop.OrderService", "shop.Auditable", DependencyKind.IMPLEMENTS),
+                new DependencyEdge("shop.OrderService", "shop.repo.OrderRepo", DependencyKind.IMPORTS),
+                new DependencyEdge("shop.OrderService", "shop.repo.OrderRepo", DependencyKind.FIELD_TYPE),
+                new DependencyEdge("shop.OrderService", "shop.repo.OrderRepo", DependencyKind.CALLS));
+        assertThat(dependencyGraphService.directDependencies("shop.OrderService#place")).contains(
+                new DependencyEdge("shop.OrderService#place", "shop.repo.OrderRepo#save", DependencyKind.CALLS),
+                new DependencyEdge("shop.OrderService#place", "shop.OrderService#audit", DependencyKind.CALLS));
+        assertThat(dependencyGraphService.transitiveDependencies("shop.OrderService"))
+                .contains("shop.repo.OrderRepo", "shop.BaseService", "shop.Auditable");
+        assertThat(dependencyGraphService.transitiveDependents("shop.repo.OrderRepo#save"))
+                .contains("shop.OrderService#place");
+    }
+
+    @Test
+    void detectsCyclesAndReportsImpactIncrementally(@TempDir Path root) throws Exception {
+        writeShopSources(root);
+        dependencyGraphService.buildGraph(root.toString());
+
+        assertThat(dependencyGraphService.findCycles())
+                .anySatisfy(cycle -> assertThat(cycle).contains("shop.OrderService", "shop.repo.OrderRepo"));
+        assertThat(dependencyGraphService.impactOf(List.of("shop.BaseService"), 0))
+                .extracting(ImpactedNode::name).contains("shop.OrderService");
+        assertThat(dependencyGraphService.impactOfFile(root.resolve("shop/repo/OrderRepo.java").toString(), 1))
+                .extracting(ImpactedNode::distance).containsOnly(1);
+
+        // Break the cycle by rewriting one file; only that file's edges are replaced.
+        Path repo = root.resolve("shop/repo/OrderRepo.java");
+        Files.writeString(repo, "package shop.repo; public class OrderRepo { public void save(Object o) {} }");
+        dependencyGraphService.buildGraph(root.toString());
+
+        assertThat(dependencyGraphService.findCycles())
+                .noneSatisfy(cycle -> assertThat(cycle).contains("shop.OrderService"));
+        assertThat(dependencyGraphService.transitiveDependents("shop.repo.OrderRepo")).contains("shop.OrderService");
+    }
+
+    @Test
+    void csrGraphRoundTripsThroughMappedFileAndServesJGraphTAlgorithms(@TempDir Path root) throws Exception {
+        writeShopSources(root);
+        dependencyGraphService.buildGraph(root.toString());
+        CodeGraph built = dependencyGraphService.getCodeGraph();
+        Path file = root.resolve("graph.bin");
+        built.save(file);
+
+        CodeGraph loaded = new CodeGraph();
+        loaded.load(file);
+
+        assertThat(loaded.edgeCount()).isEqualTo(built.edgeCount());
+        assertThat(loaded.nodeCount()).isEqualTo(built.nodeCount());
+        assertThat(loaded.outgoing("shop.OrderService"))
+                .containsExactlyInAnyOrderElementsOf(built.outgoing("shop.OrderService"));
+        assertThat(loaded.neighbours("shop.repo.OrderRepo#save", false)).containsExactly("shop.OrderService#place");
+        assertThat(loaded.cycles()).isEqualTo(built.cycles());
+
+        Graph<Integer, CsrGraphView.IntEdge> view = loaded.view();
+        int service = loaded.idOf("shop.OrderService").getAsInt();
+        int repo = loaded.idOf("shop.repo.OrderRepo").getAsInt();
+        assertThat(view.edgeSet()).hasSize((int) loaded.edgeCount());
+        assertThat(view.containsEdge(service, repo)).isTrue();
+        assertThat(new CycleDetector<>(view).findCyclesContainingVertex(service)).contains(repo);
+
+        // A loaded graph stays incrementally updatable.
+        loaded.removeFile(root.resolve("shop/repo/OrderRepo.java").toString());
+        assertThat(loaded.cycles()).isEmpty();
+    }
+
+    @Test
+    void rebuildingOneRootKeepsSiblingRootsThatShareItsNamePrefix(@TempDir Path root) throws Exception {
+        Path foo = Files.createDirectories(root.resolve("foo"));
+        Path fooBar = Files.createDirectories(root.resolve("foo-bar"));
+        writeShopSources(fooBar);
+        dependencyGraphService.buildGraph(fooBar.toString());
+        Files.writeString(foo.resolve("Lone.java"), "package lone; public class Lone { }");
+
+        dependencyGraphService.buildGraph(foo.toString());
+
+        assertThat(dependencyGraphService.getCodeGraph().files())
+                .contains(fooBar.resolve("shop/OrderService.java").toString(), foo.resolve("Lone.java").toString());
+    }
+
+    @Test
+    void readsLegacyEncodingsAndSkipsGeneratedSourcesLikeThePipeline(@TempDir Path root) throws Exception {
+        writeShopSources(root);
+        // "café" in windows-1252: not valid UTF-8.
+        Files.write(root.resolve("shop/Legacy.java"),
+                "package shop; /* caf\u00e9 */ public class Legacy extends BaseService { }"
+                        .getBytes(Charset.forName("windows-1252")));
+        Files.writeString(root.resolve("shop/Stub.java"),
+                "// DO NOT EDIT\npackage shop; public class Stub extends BaseService { }");
+
+        DependencyGraphStats stats = dependencyGraphService.buildGraph(root.toString());
+
+        assertThat(stats.files()).isEqualTo(5);
+        assertThat(dependencyGraphService.findDependencies("shop.Legacy")).contains("shop.BaseService");
+        assertThat(dependencyGraphService.getCodeGraph().idOf("shop.Stub")).isEmpty();
+    }
+
+    @Test
+    void unchangedGraphIsNotRewritten(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("graph.bin");
+        DependencyGraphService service = new DependencyGraphService(fileDiscoveryService, codeParserService,
+                sourceFileReader, file.toString(), 0);
+        service.updateFile("A.java", codeParserService.parseStructure("class A { B b; }").orElseThrow());
+
+        service.saveIfChanged();
+        assertThat(file).exists();
+        Files.delete(file);
+        service.saveIfChanged();
+        assertThat(file).doesNotExist();
+
+        service.removeFile("A.java");
+        service.close();
+        assertThat(file).exists();
+    }
+
+    private void writeShopSources(Path root) throws Exception {
+        // The graph is a singleton; drop what other tests built from their own roots.
+        dependencyGraphService.getCodeGraph().clear();
+        Path shop = Files.createDirectories(root.resolve("shop"));
+        Path repo = Files.createDirectories(shop.resolve("repo"));
+        Files.writeString(shop.resolve("BaseService.java"), "package shop; public abstract class BaseService { }");
+        Files.writeString(shop.resolve("Auditable.java"), "package shop; public interface Auditable { void audit(); }");
+        Files.writeString(shop.resolve("OrderService.java"), """
+            package shop;
+            import shop.repo.OrderRepo;
+            public class OrderService extends BaseService implements Auditable {
+                private final OrderRepo repo = new OrderRepo();
+                public void place(String id) {
+                    repo.save(id);
+                    audit();
+                }
+                public void audit() { }
+            }
+            """);
+        Files.writeString(repo.resolve("OrderRepo.java"), """
+            package shop.repo;
+            import shop.OrderService;
+            public class OrderRepo {
+                private OrderService owner;
+                public void save(Object o) { owner.audit(); }
+            }
+            """);
+    }
 }
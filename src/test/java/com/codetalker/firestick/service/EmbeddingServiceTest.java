@@ -1,10 +1,24 @@
 package com.codetalker.firestick.service;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 @SpringBootTest(properties = {
         "embedding.mode=mock",
         "embedding.dimension=384"
@@ -27,4 +41,116 @@ class EmbeddingServiceTest {
         // Not necessarily orthogonal, but should differ
         assertThat(v3).isNotEqualTo(v1);
     }
+
+    @Test
+    void batchApiMatchesSingleCallsInMockMode() {
+        List<float[]> batch = embeddingService.getEmbeddings(List.of("hello world", "different text"));
+
+        assertThat(batch).hasSize(2);
+        assertThat(batch.get(0)).containsExactly(embeddingService.getEmbedding("hello world"));
+        assertThat(batch.get(1)).containsExactly(embeddingService.getEmbedding("different text"));
+    }
+
+    @Test
+    void onnxModeRunsModelAndCoalescesConcurrentCalls(@TempDir Path dir) throws Exception {
+        Path model = dir.resolve("model.onnx");
+        Path tokenizer = dir.resolve("tokenizer.json");
+        TinyOnnxModel.write(model, tokenizer, 8);
+        EmbeddingService onnx = new EmbeddingService(new SimpleMeterRegistry(), "onnx", 8, model.toString(),
+                tokenizer.toString(), 64, 4, 20, 1, 1, false, 0, "", 0);
+        try {
+            float[] hello = onnx.getEmbedding("Hello world");
+            assertThat(hello).hasSize(8);
+            double norm = 0;
+            for (float v : hello) norm += v * v;
+            assertThat(norm).isCloseTo(1.0, within(1e-4));
+            assertThat(onnx.getEmbedding("code search")).isNotEqualTo(hello);
+
+            List<String> texts = List.of("hello", "public class code { }", "searching world", "int return ;",
+                    "hello world code", "class", "world hello", "{ }", "code");
+            List<float[]> batched = onnx.getEmbeddings(texts);
+
+            ExecutorService callers = Executors.newFixedThreadPool(texts.size());
+            try {
+                List<Future<float[]>> singles = new ArrayList<>();
+                for (String text : texts) {
+                    singles.add(callers.submit(() -> onnx.getEmbedding(text)));
+                }
+                for (int i = 0; i < texts.size(); i++) {
+                    assertThat(singles.get(i).get()).containsExactly(batched.get(i), within(1e-5f));
+                }
+            } finally {
+                callers.shutdown();
+            }
+        } finally {
+            onnx.close();
+        }
+    }
+
+    @Test
+    void cachePersistsAcrossRestartsAndInvalidatesOnModelChange(@TempDir Path dir) throws Exception {
+        Path store = dir.resolve("cache.bin");
+        EmbeddingCache first = new EmbeddingCache(store, 2, "model-a", 4);
+        first.put("alpha", new float[]{1, 2, 3, 4});
+        first.put("beta", new float[]{5, 6, 7, 8});
+        first.put("gamma", new float[]{9, 10, 11, 12});
+        assertThat(first.stats().evictions()).isEqualTo(1);
+        assertThat(first.get("alpha")).containsExactly(1, 2, 3, 4);
+        assertThat(first.stats().diskHits()).isEqualTo(1);
+        first.close();
+
+        EmbeddingCache reopened = new EmbeddingCache(store, 2, "model-a", 4);
+        assertThat(reopened.get("gamma")).containsExactly(9, 10, 11, 12);
+        assertThat(reopened.get("gamma")).containsExactly(9, 10, 11, 12);
+        assertThat(reopened.get("delta")).isNull();
+        assertThat(reopened.stats().diskHits()).isEqualTo(1);
+        assertThat(reopened.stats().memoryHits()).isEqualTo(1);
+        assertThat(reopened.stats().misses()).isEqualTo(1);
+        reopened.close();
+
+        EmbeddingCache otherModel = new EmbeddingCache(store, 2, "model-b", 4);
+        assertThat(otherModel.get("gamma")).isNull();
+        assertThat(otherModel.stats().diskEntries()).isZero();
+        otherModel.close();
+    }
+
+    @Test
+    void repeatedTextsAreServedFromCache() {
+        long before = embeddingService.getCacheStats().misses();
+        String text = "cached chunk " + System.nanoTime();
+
+        embeddingService.getEmbeddings(List.of(text, text));
+        float[] again = embeddingService.getEmbedding(text);
+
+        assertThat(again).hasSize(embeddingService.getDimension());
+        assertThat(embeddingService.getCacheStats().misses() - before).isEqualTo(2);
+        assertThat(embeddingService.getCacheStats().memoryHits()).isPositive();
+    }
+
+    @Test
+    void requestsRacingCloseAreAnsweredOrFailedNeverLost() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            EmbeddingBatcher batcher = new EmbeddingBatcher(
+                    texts -> texts.stream().map(t -> new float[]{t.length()}).toList(), 4, 1);
+            List<CompletableFuture<float[]>> futures = new CopyOnWriteArrayList<>();
+            Thread submitter = Thread.ofVirtual().start(() -> {
+                try {
+                    while (true) {
+                        futures.add(batcher.submit("text"));
+                    }
+                } catch (IllegalStateException closed) {
+                    // Rejected up front once the batcher is closed.
+                }
+            });
+            Thread.sleep(2);
+            batcher.close();
+            submitter.join();
+
+            // Each future either gets its embedding or fails with the closed error; none is left hanging.
+            for (CompletableFuture<float[]> future : futures) {
+                assertThat(future.handle((embedding, failure) -> embedding != null
+                        || failure instanceof IllegalStateException)).succeedsWithin(Duration.ofSeconds(5)).isEqualTo(true);
+            }
+        }
+    }
 }
@@ -0,0 +1,103 @@
+package com.codetalker.firestick.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileDiscoveryServiceTest {
+
+    @TempDir
+    Path root;
+
+    private Path write(String relative) throws IOException {
+        Path file = root.resolve(relative);
+        Files.createDirectories(file.getParent());
+        return Files.writeString(file, "class X {}");
+    }
+
+    private List<String> scan(FileDiscoveryService service) {
+        return service.scanDirectory(root.toString()).stream()
+                .map(path -> root.relativize(path).toString().replace('\\', '/'))
+                .toList();
+    }
+
+    @Test
+    void prunesExcludedDirectoriesByNameOnly() throws Exception {
+        write("src/main/java/app/App.java");
+        write("src/main/java/contest/Entry.java");
+        write("src/main/java/buildtools/Tool.java");
+        write("src/test/java/app/AppTest.java");
+        write("target/generated/Gen.java");
+        write(".git/hooks/Hook.java");
+        write("src/main/resources/notes.txt");
+
+        FileDiscoveryService service = new FileDiscoveryService("*.java", ".git/,target/,build/,test/", true);
+
+        assertThat(scan(service)).containsExactlyInAnyOrder(
+                "src/main/java/app/App.java",
+                "src/main/java/contest/Entry.java",
+                "src/main/java/buildtools/Tool.java");
+        assertThat(service.descendsInto(root, root.resolve("target"))).isFalse();
+        assertThat(service.descendsInto(root, root.resolve("src/main/java/contest"))).isTrue();
+    }
+
+    @Test
+    void honoursNestedGitignoreRulesAndNegation() throws Exception {
+        Files.writeString(root.resolve(".gitignore"), """
+                # generated sources
+                generated/
+                *Generated.java
+                !KeepGenerated.java
+                /Scratch.java
+                docs/**/*.java
+                """);
+        write("Scratch.java");
+        write("pkg/Scratch.java");
+        write("pkg/FooGenerated.java");
+        write("pkg/KeepGenerated.java");
+        write("pkg/generated/Deep.java");
+        write("docs/a/b/Example.java");
+        write("mod/Local.java");
+        write("mod/sub/Local.java");
+        write("mod/Kept.java");
+        Files.writeString(root.resolve("mod/.gitignore"), "/Local.java\n");
+
+        FileDiscoveryService service = new FileDiscoveryService("*.java", "", true);
+        List<String> found = scan(service);
+
+        assertThat(found).containsExactlyInAnyOrder(
+                "pkg/Scratch.java",
+                "pkg/KeepGenerated.java",
+                "mod/sub/Local.java",
+                "mod/Kept.java");
+        // Single-path checks used for watch events agree with the walk.
+        try (var files = Files.walk(root)) {
+            files.filter(Files::isRegularFile).forEach(file -> assertThat(service.accepts(root, file))
+                    .as(file.toString())
+                    .isEqualTo(found.contains(root.relativize(file).toString().replace('\\', '/'))));
+        }
+
+        assertThat(scan(new FileDiscoveryService("*.java", "", false))).hasSize(9);
+    }
+
+    @Test
+    void streamsFilesAndStopsWhenTheSinkDeclines() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            write("pkg/F" + i + ".java");
+        }
+        FileDiscoveryService service = new FileDiscoveryService("*.java", "", true);
+        int[] seen = {0};
+
+        service.walk(root, (file, attrs) -> {
+            assertThat(attrs.isRegularFile()).isTrue();
+            return ++seen[0] < 3;
+        });
+
+        assertThat(seen[0]).isEqualTo(3);
+    }
+}
@@ -0,0 +1,142 @@
+package com.codetalker.firestick.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+
+import com.codetalker.firestick.repository.CodeChunkRepository;
+import com.codetalker.firestick.repository.CodeFileRepository;
+import com.codetalker.firestick.service.dto.IndexingProgress;
+import com.codetalker.firestick.service.dto.WatchStatus;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:watch-test;DB_CLOSE_DELAY=-1",
+        "watch.debounce-ms=100",
+        "watch.poll-interval-ms=100"
+})
+@Import(FileWatchServiceTest.FlakyStoreConfig.class)
+class FileWatchServiceTest {
+
+    @TestConfiguration
+    static class FlakyStoreConfig {
+        @Bean
+        @Primary
+        FlakyChunkContentStore flakyChunkContentStore() throws IOException {
+            return new FlakyChunkContentStore();
+        }
+    }
+
+    /** In-memory store whose next {@code failures} writes throw, failing the persist stage. */
+    static class FlakyChunkContentStore extends ChunkContentStore {
+        final AtomicInteger failures = new AtomicInteger();
+
+        FlakyChunkContentStore() throws IOException {
+            super("", 65536, 0);
+        }
+
+        @Override
+        public synchronized List<Stored> putAll(List<String> contents) {
+            if (failures.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                throw new UncheckedIOException(new IOException("Simulated chunk store failure"));
+            }
+            return super.putAll(contents);
+        }
+    }
+
+    @Autowired
+    private FileWatchService fileWatchService;
+
+    @Autowired
+    private IndexingPipelineService pipelineService;
+
+    @Autowired
+    private CodeFileRepository codeFileRepository;
+
+    @Autowired
+    private CodeChunkRepository codeChunkRepository;
+
+    @Autowired
+    private FlakyChunkContentStore chunkContentStore;
+
+    @TempDir
+    Path root;
+
+    @AfterEach
+    void stopWatching() {
+        fileWatchService.unwatch(root);
+    }
+
+    @Test
+    void nativeWatchIndexesCreatedChangedAndDeletedFiles() throws Exception {
+        verifyWatch(FileWatchService.Mode.AUTO);
+    }
+
+    @Test
+    void pollingFallbackIndexesCreatedChangedAndDeletedFiles() throws Exception {
+        verifyWatch(FileWatchService.Mode.POLL);
+    }
+
+    @Test
+    void batchWhosePersistStageFailedIsIndexedOnTheRetry() throws Exception {
+        Path file = Files.writeString(root.resolve("Flaky.java"), "public class Flaky { void a() {} }");
+        assertThat(pipelineService.run(root.toString()).state()).isEqualTo(IndexingProgress.State.COMPLETED);
+
+        fileWatchService.watch(root, FileWatchService.Mode.POLL);
+        chunkContentStore.failures.set(1);
+        Files.writeString(file, "public class Flaky { void a() {} void b() {} }");
+
+        awaitTrue(() -> codeFileRepository.findByFilePath(file.toString())
+                .map(stored -> codeChunkRepository.findByFile(stored).size() == 3).orElse(false)
+                && fileWatchService.status().currentLagMillis() == 0);
+        assertThat(chunkContentStore.failures).hasValue(0);
+    }
+
+    private void verifyWatch(FileWatchService.Mode mode) throws Exception {
+        Path existing = Files.writeString(root.resolve("Existing.java"), "public class Existing { void a() {} }");
+        Path doomed = Files.writeString(root.resolve("Doomed.java"), "public class Doomed { void a() {} }");
+        assertThat(pipelineService.run(root.toString()).state()).isEqualTo(IndexingProgress.State.COMPLETED);
+        long batchesBefore = fileWatchService.status().batchesIndexed();
+
+        fileWatchService.watch(root, mode);
+        Path pkg = Files.createDirectories(root.resolve("src/pkg"));
+        Path created = Files.writeString(pkg.resolve("Created.java"), "public class Created { void b() {} }");
+        Files.writeString(existing, "public class Existing { void a() {} void renamedMethod() {} }");
+        Files.delete(doomed);
+
+        awaitTrue(() -> codeFileRepository.findByFilePath(created.toString()).isPresent()
+                && codeFileRepository.findByFilePath(doomed.toString()).isEmpty()
+                && codeFileRepository.findByFilePath(existing.toString())
+                        .map(file -> codeChunkRepository.findByFile(file).size() == 3).orElse(false)
+                && fileWatchService.status().currentLagMillis() == 0);
+
+        WatchStatus status = fileWatchService.status();
+        assertThat(status.roots()).containsKey(root.toAbsolutePath().normalize().toString());
+        assertThat(status.batchesIndexed()).isGreaterThan(batchesBefore);
+        assertThat(status.lastLagMillis()).isPositive();
+        assertThat(status.maxLagMillis()).isGreaterThanOrEqualTo(status.lastLagMillis());
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(15).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition met before timeout").isLessThan(deadline);
+            Thread.sleep(50);
+        }
+    }
+}
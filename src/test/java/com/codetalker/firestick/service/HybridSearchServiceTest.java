@@ -0,0 +1,228 @@
+package com.codetalker.firestick.service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.codetalker.firestick.service.dto.SearchFilters;
+import com.codetalker.firestick.service.dto.SearchRequest;
+import com.codetalker.firestick.service.dto.SearchResponse;
+import com.codetalker.firestick.service.dto.SearchResult;
+import com.codetalker.firestick.service.dto.VectorMatch;
+import com.codetalker.firestick.service.dto.VectorRecord;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:hybrid-test;DB_CLOSE_DELAY=-1")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class HybridSearchServiceTest {
+
+    @Autowired
+    private HybridSearchService hybridSearchService;
+
+    @Autowired
+    private IndexingPipelineService pipelineService;
+
+    @Autowired
+    private EmbeddingService embeddingService;
+
+    @Autowired
+    private CodeSearchService codeSearchService;
+
+    @Autowired
+    private ChunkContentStore chunkContentStore;
+
+    @TempDir
+    static Path root;
+
+    @BeforeAll
+    void indexSources() throws Exception {
+        Files.writeString(root.resolve("InvoiceLedger.java"), """
+            package billing;
+            public class InvoiceLedger {
+                public long totalCents() { return 0; }
+                public void reconcileInvoice(String invoice) { }
+            }
+            """);
+        for (int i = 0; i < 6; i++) {
+            Files.writeString(root.resolve("Shipment" + i + ".java"), """
+                package logistics;
+                public class Shipment%d {
+                    public int parcels() { return %d; }
+                }
+                """.formatted(i, i));
+        }
+        pipelineService.run(root.toString());
+    }
+
+    @Test
+    void fusesKeywordAndVectorHitsWithLocationsAndHighlights() {
+        SearchResponse response = hybridSearchService.search("reconcileInvoice", 0, 5);
+
+        assertThat(response.partial()).isFalse();
+        SearchResult top = response.results().get(0);
+        assertThat(top.filePath()).endsWith("InvoiceLedger.java");
+        // The method chunk and the class skeleton both name the method; either may rank first.
+        assertThat(top.keywordRank()).isBetween(1, 2);
+        assertThat(top.vectorRank()).isNotNull();
+        assertThat(top.startLine()).isPositive();
+        assertThat(top.endLine()).isGreaterThanOrEqualTo(top.startLine());
+        assertThat(top.snippet()).contains("<em>reconcileInvoice</em>");
+        assertThat(response.results()).extracting(SearchResult::chunkId).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void pagesThroughFusedResultsWithoutOverlap() {
+        SearchResponse first = hybridSearchService.search("parcels", 0, 3);
+        SearchResponse second = hybridSearchService.search("parcels", 1, 3);
+
+        assertThat(first.results()).hasSize(3);
+        assertThat(second.results()).isNotEmpty();
+        assertThat(first.totalHits()).isEqualTo(second.totalHits());
+        assertThat(second.results()).extracting(SearchResult::chunkId)
+                .doesNotContainAnyElementsOf(first.results().stream().map(SearchResult::chunkId).toList());
+    }
+
+    @Test
+    void filtersApplyToBothRetrieversAndFacetsCountEveryMatch() {
+        SearchFilters logistics = new SearchFilters("logistics", "Shipment?.java", List.of("method"), null, 21);
+        SearchResponse response = hybridSearchService.search(
+                new SearchRequest("parcels", 0, 20, logistics, List.of("package", "type"), null, null));
+
+        assertThat(response.results()).hasSize(6)
+                .allSatisfy(r -> {
+                    assertThat(r.filePath()).contains("Shipment");
+                    assertThat(r.type()).isEqualTo("method");
+                });
+        assertThat(response.facets().get("package")).containsExactly(Map.entry("logistics", 6L));
+        assertThat(response.facets().get("type")).containsOnlyKeys("method");
+
+        SearchResponse none = hybridSearchService.search(new SearchRequest("parcels", 0, 20,
+                new SearchFilters("billing", null, null, null, null), null, null, null));
+        assertThat(none.results()).extracting(SearchResult::filePath).allMatch(f -> f.endsWith("InvoiceLedger.java"));
+    }
+
+    @Test
+    void keywordSearchPagesWithACursorUntilExhausted() {
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            SearchResponse page = hybridSearchService.keywordSearch(
+                    new SearchRequest("parcels Shipment0", null, 4, null, null, cursor, 5_000L));
+            page.results().forEach(r -> seen.add(r.chunkId()));
+            assertThat(page.totalHits()).isEqualTo(12);
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null && pages < 10);
+
+        assertThat(seen).hasSize(12).doesNotHaveDuplicates();
+        assertThat(pages).isEqualTo(4);
+    }
+
+    @Test
+    void repeatedQueriesAreServedFromCacheUntilTheIndexChanges() throws Exception {
+        SearchRequest request = new SearchRequest("manifestChecksum", null, 5, null, null, null, null);
+        long embeddingHits = embeddingService.getQueryCacheStats().hits();
+        SearchResponse first = hybridSearchService.search("totalCents", 0, 5);
+        long hits = hybridSearchService.getCacheStats().hits();
+
+        assertThat(hybridSearchService.search("  totalCents ", 0, 5).results()).isEqualTo(first.results());
+        assertThat(hybridSearchService.getCacheStats().hits()).isEqualTo(hits + 1);
+        assertThat(hybridSearchService.keywordSearch(request).results()).isEmpty();
+        assertThat(hybridSearchService.keywordSearch(request).results()).isEmpty();
+        assertThat(hybridSearchService.getCacheStats().hits()).isEqualTo(hits + 2);
+
+        Files.writeString(root.resolve("Manifest.java"), """
+            package inventory;
+            public class Manifest {
+                public long manifestChecksum() { return 7; }
+            }
+            """);
+        pipelineService.run(root.toString());
+
+        long invalidations = hybridSearchService.getCacheStats().invalidations();
+        assertThat(hybridSearchService.keywordSearch(request).results())
+                .extracting(SearchResult::filePath).allMatch(f -> f.endsWith("Manifest.java")).isNotEmpty();
+        assertThat(hybridSearchService.getCacheStats().invalidations()).isEqualTo(invalidations + 1);
+        // The hybrid entry is recomputed too, but the query embedding is reused.
+        hybridSearchService.search("totalCents", 0, 5);
+        assertThat(embeddingService.getQueryCacheStats().hits()).isGreaterThan(embeddingHits);
+    }
+
+    @Test
+    void failingVectorStoreOpensTheCircuitAndSearchFallsBackToKeywords() throws Exception {
+        FlakyVectorStore store = new FlakyVectorStore();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        HybridSearchService guarded = new HybridSearchService(codeSearchService, store, embeddingService,
+                chunkContentStore, registry, "rrf", 60, 1.0, 1.0, 50, 1500, 10, 100, 3, 0,
+                4, 2, 200, 1000);
+        try {
+            for (int i = 0; i < 3; i++) {
+                SearchResponse response = guarded.search("reconcileInvoice", 0, 5);
+                assertThat(response.partial()).isTrue();
+                assertThat(response.results()).isNotEmpty().allMatch(r -> r.vectorRank() == null);
+            }
+            // Two failures open the circuit; the third search never reached the store.
+            assertThat(store.calls).isEqualTo(2);
+            assertThat(guarded.getVectorCircuitState()).isEqualTo("OPEN");
+            assertThat(registry.get("firestick.search.vector.rejected").tag("reason", "circuit-open")
+                    .counter().count()).isEqualTo(1.0);
+
+            store.failing = false;
+            Thread.sleep(250);
+            assertThat(guarded.search("reconcileInvoice", 0, 5).partial()).isFalse();
+            assertThat(guarded.getVectorCircuitState()).isEqualTo("CLOSED");
+        } finally {
+            guarded.close();
+        }
+    }
+
+    @Test
+    void highlighterPicksTheDensestWindow() {
+        String content = "class A {\n  int unrelated;\n  void parse() { parse(); }\n}";
+
+        String snippet = SnippetHighlighter.highlight(content, Set.of("parse"), 1);
+
+        assertThat(snippet).isEqualTo("  void <em>parse</em>() { <em>parse</em>(); }");
+    }
+
+    /** Vector store that fails every query until told otherwise. */
+    private static final class FlakyVectorStore implements VectorStore {
+        volatile boolean failing = true;
+        volatile int calls;
+
+        @Override
+        public void upsert(List<VectorRecord> records) { }
+
+        @Override
+        public void delete(Collection<String> ids) { }
+
+        @Override
+        public List<VectorMatch> query(float[] vector, int topK, Map<String, String> filter) {
+            calls++;
+            if (failing) {
+                throw new IllegalStateException("vector store unavailable");
+            }
+            return List.of();
+        }
+
+        @Override
+        public long version() { return 0; }
+
+        @Override
+        public boolean isAvailable() { return !failing; }
+    }
+}
@@ -0,0 +1,186 @@
+package com.codetalker.firestick.service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.codetalker.firestick.model.CodeChunk;
+import com.codetalker.firestick.model.CodeFile;
+import com.codetalker.firestick.repository.CodeChunkRepository;
+import com.codetalker.firestick.repository.CodeFileRepository;
+import com.codetalker.firestick.service.dto.IndexingJobStatus;
+import com.codetalker.firestick.service.dto.IndexingJobStatus.State;
+import com.codetalker.firestick.service.dto.IndexingMode;
+import com.codetalker.firestick.service.dto.IndexingProgress;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:index-jobs-test;DB_CLOSE_DELAY=-1",
+        "indexing.jobs.max-concurrent=1",
+        "indexing.jobs.progress-interval-ms=20",
+        "indexing.queue-capacity=1",
+        "indexing.persist-batch-size=1",
+        // On disk, where an interrupted write would close the segment's channel for good.
+        "chunk-store.path=target/test-chunk-stores/index-jobs-${random.uuid}"
+})
+class IndexingJobServiceTest {
+
+    @Autowired
+    private IndexingJobService jobService;
+
+    @Autowired
+    private IndexingPipelineService pipelineService;
+
+    @Autowired
+    private CodeFileRepository codeFileRepository;
+
+    @Autowired
+    private CodeChunkRepository codeChunkRepository;
+
+    @Autowired
+    private ChunkContentStore chunkContentStore;
+
+    @TempDir
+    Path root;
+
+    @Test
+    void jobRunsInTheBackgroundAndStreamsProgressUntilDone() throws Exception {
+        Path project = Files.createDirectories(root.resolve("project"));
+        writeSources(project, 3);
+
+        IndexingJobStatus submitted = jobService.submit(project.toString(), IndexingMode.FULL);
+        List<IndexingJobStatus> updates = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+        jobService.subscribe(submitted.jobId(), status -> {
+            updates.add(status);
+            if (status.isFinished()) {
+                done.countDown();
+            }
+        }).orElseThrow();
+
+        assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+        IndexingJobStatus last = updates.get(updates.size() - 1);
+        assertThat(last.state()).isEqualTo(State.COMPLETED);
+        assertThat(last.filesDone()).isEqualTo(3);
+        assertThat(last.filesTotal()).isEqualTo(3);
+        assertThat(last.stageRates()).containsKeys("read", "parse", "embed", "persist");
+        assertThat(jobService.status(submitted.jobId()).orElseThrow().progress().filesPersisted()).isEqualTo(3);
+    }
+
+    @Test
+    void overlappingRootsAreRefusedAndQueuedJobsCancelWithoutRunning() throws Exception {
+        Path busy = Files.createDirectories(root.resolve("busy"));
+        writeSources(busy, 200);
+        Path waiting = Files.createDirectories(root.resolve("waiting/module"));
+        writeSources(waiting, 1);
+
+        // One slot: the second job waits behind the first.
+        IndexingJobStatus running = jobService.submit(busy.toString(), IndexingMode.FULL);
+        IndexingJobStatus queued = jobService.submit(waiting.getParent().toString(), IndexingMode.FULL);
+        assertThat(queued.state()).isEqualTo(State.QUEUED);
+
+        assertThatThrownBy(() -> jobService.submit(waiting.toString(), IndexingMode.FULL))
+                .isInstanceOfSatisfying(IndexingJobService.JobRejectedException.class,
+                        e -> assertThat(e.getReason()).isEqualTo(IndexingJobService.JobRejectedException.Reason.OVERLAPPING_ROOT));
+        assertThatThrownBy(() -> jobService.submit(busy.resolve("..").resolve("busy").toString(), IndexingMode.FULL))
+                .isInstanceOf(IndexingJobService.JobRejectedException.class);
+
+        assertThat(jobService.cancel(queued.jobId()).orElseThrow().state()).isEqualTo(State.CANCELLED);
+        jobService.cancel(running.jobId());
+        awaitFinished(running.jobId());
+
+        assertThat(jobService.status(queued.jobId()).orElseThrow().progress()).isNull();
+        assertThat(jobService.status(running.jobId()).orElseThrow().state()).isIn(State.CANCELLED, State.COMPLETED);
+        // Once both are finished the roots are free again.
+        IndexingJobStatus retried = jobService.submit(waiting.toString(), IndexingMode.INCREMENTAL);
+        assertThat(awaitFinished(retried.jobId()).state()).isEqualTo(State.COMPLETED);
+    }
+
+    @Test
+    void queuedJobWaitsForARunThatTookItsRootAfterAdmission() throws Exception {
+        Path busy = Files.createDirectories(root.resolve("slot-holder"));
+        writeSources(busy, 200);
+        Path shared = Files.createDirectories(root.resolve("shared"));
+        writeSources(shared, 200);
+
+        IndexingJobStatus holder = jobService.submit(busy.toString(), IndexingMode.FULL);
+        IndexingJobStatus queued = jobService.submit(shared.toString(), IndexingMode.FULL);
+        // A watcher-style run claims the queued job's root directly through the pipeline.
+        IndexingRun direct = pipelineService.start(shared.toString(), IndexingMode.FULL);
+        assertThatThrownBy(() -> pipelineService.startDelta(shared.toString(), List.of(shared.resolve("Type0.java"))))
+                .isInstanceOf(IndexingPipelineService.RootBusyException.class);
+
+        jobService.cancel(holder.jobId());
+        IndexingJobStatus finished = awaitFinished(queued.jobId());
+
+        assertThat(finished.state()).isEqualTo(State.COMPLETED);
+        assertThat(direct.getState()).isNotEqualTo(IndexingProgress.State.RUNNING);
+    }
+
+    @Test
+    void cancellingMidPersistLeavesTheStoresUsableForTheNextRun() throws Exception {
+        Path project = Files.createDirectories(root.resolve("cancelled"));
+        writeSources(project, 200);
+
+        IndexingJobStatus first = jobService.submit(project.toString(), IndexingMode.FULL);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (progressOf(first.jobId()) == null || progressOf(first.jobId()).filesPersisted() == 0) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(1);
+        }
+        jobService.cancel(first.jobId());
+        awaitFinished(first.jobId());
+
+        // Started while the cancelled run may still be finishing its batch: it waits for the root.
+        IndexingJobStatus second = jobService.submit(project.toString(), IndexingMode.INCREMENTAL);
+        IndexingJobStatus finished = awaitFinished(second.jobId());
+
+        assertThat(finished.state()).isEqualTo(State.COMPLETED);
+        List<CodeFile> files = codeFileRepository.findByFilePathStartingWith(project.toString());
+        assertThat(files).hasSize(200);
+        for (CodeFile file : files) {
+            List<CodeChunk> chunks = codeChunkRepository.findByFile(file);
+            assertThat(chunks).isNotEmpty();
+            for (CodeChunk chunk : chunks) {
+                assertThat(ContentDigest.sha256Hex(chunkContentStore.get(chunk.getContentRef())))
+                        .isEqualTo(chunk.getContentHash());
+            }
+        }
+    }
+
+    private IndexingProgress progressOf(String jobId) {
+        return jobService.status(jobId).orElseThrow().progress();
+    }
+
+    private IndexingJobStatus awaitFinished(String jobId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (System.nanoTime() < deadline) {
+            IndexingJobStatus status = jobService.status(jobId).orElseThrow();
+            if (status.isFinished()) {
+                return status;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("Job " + jobId + " did not finish");
+    }
+
+    private static void writeSources(Path dir, int count) throws Exception {
+        for (int i = 0; i < count; i++) {
+            Files.writeString(dir.resolve("Type" + i + ".java"), """
+                    package demo;
+                    public class Type%d {
+                        public int value() { return %d; }
+                    }
+                    """.formatted(i, i));
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.codetalker.firestick.service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.codetalker.firestick.config.ChunkContentMigration;
+import com.codetalker.firestick.config.IdSequenceInitializer;
+import com.codetalker.firestick.model.CodeChunk;
+import com.codetalker.firestick.model.CodeFile;
+import com.codetalker.firestick.model.IdSequences;
+import com.codetalker.firestick.model.Symbol;
+import com.codetalker.firestick.repository.CodeChunkRepository;
+import com.codetalker.firestick.repository.CodeFileRepository;
+import com.codetalker.firestick.repository.SymbolRepository;
+import com.codetalker.firestick.service.dto.IndexingMode;
+import com.codetalker.firestick.service.dto.IndexingProgress;
+import com.codetalker.firestick.service.dto.KeywordHit;
+import com.codetalker.firestick.service.dto.SymbolHit;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:pipeline-test;DB_CLOSE_DELAY=-1",
+        "indexing.parse-threads=4",
+        "indexing.persist-batch-size=8",
+        "indexing.queue-capacity=4"
+})
+class IndexingPipelineServiceTest {
+
+    @Autowired
+    private IndexingPipelineService pipelineService;
+
+    @Autowired
+    private CodeFileRepository codeFileRepository;
+
+    @Autowired
+    private CodeSearchService codeSearchService;
+
+    @Autowired
+    private VectorStore vectorStore;
+
+    @Autowired
+    private EmbeddingService embeddingService;
+
+    @Autowired
+    private SymbolIndexService symbolIndexService;
+
+    @Autowired
+    private SymbolRepository symbolRepository;
+
+    @Autowired
+    private CodeChunkRepository codeChunkRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private IdSequenceInitializer idSequenceInitializer;
+
+    @Autowired
+    private ChunkContentMigration chunkContentMigration;
+
+    @Autowired
+    private ChunkContentStore chunkContentStore;
+
+    @TempDir
+    Path root;
+
+    @Test
+    void indexesEveryFileThroughAllStages() throws Exception {
+        for (int i = 0; i < 25; i++) {
+            Path dir = Files.createDirectories(root.resolve("src/pkg" + (i % 3)));
+            Files.writeString(dir.resolve("Widget" + i + ".java"), """
+                package pkg;
+                public class Widget%d {
+                    public int size() { return %d; }
+                    public String label() { return "widget%d"; }
+                }
+                """.formatted(i, i, i));
+        }
+
+        IndexingProgress progress = pipelineService.run(root.toString());
+
+        assertThat(progress.state()).isEqualTo(IndexingProgress.State.COMPLETED);
+        assertThat(progress.filesDiscovered()).isEqualTo(25);
+        assertThat(progress.filesPersisted()).isEqualTo(25);
+        assertThat(progress.chunksPersisted()).isEqualTo(75);
+        assertThat(progress.queueDepths()).containsKeys("read", "parse", "chunk", "embed", "persist");
+        assertThat(codeFileRepository.findByFilePath(root.resolve("src/pkg1/Widget7.java").toString())).isPresent();
+
+        List<String> hits = codeSearchService.searchCode("Widget7");
+        assertThat(hits).isNotEmpty();
+
+        String widget7 = root.resolve("src/pkg1/Widget7.java").toString();
+        assertThat(vectorStore.query(embeddingService.getEmbedding("widget7"), 10, Map.of("file", widget7)))
+                .hasSize(3)
+                .allSatisfy(match -> {
+                    assertThat(match.metadata()).containsEntry("file", widget7).containsKeys("startLine", "endLine");
+                    // Chunk text lives only in the content store; the vector carries its reference.
+                    assertThat(match.document()).isNull();
+                    assertThat(chunkContentStore.get(Long.parseLong(match.metadata().get("contentRef")))).contains("7");
+                });
+
+        assertThat(symbolIndexService.findDefinitions("Widget7"))
+                .singleElement()
+                .satisfies(symbol -> assertThat(symbol.filePath()).isEqualTo(widget7));
+        assertThat(symbolIndexService.autocomplete("Widget7", 5).get(0).match()).isEqualTo(SymbolHit.Match.EXACT);
+        assertThat(symbolRepository.findByNameAndType("label", "method")).hasSizeGreaterThanOrEqualTo(25);
+    }
+
+    @Test
+    void reindexingReplacesPreviousRows() throws Exception {
+        Path file = root.resolve("Again.java");
+        Files.writeString(file, "public class Again { void a() {} }");
+        pipelineService.run(root.toString());
+        Files.writeString(file, "public class Again { void a() {} void b() {} }");
+
+        IndexingProgress progress = pipelineService.run(root.toString());
+
+        assertThat(progress.chunksPersisted()).isEqualTo(3);
+        assertThat(pipelineService.getRun(progress.runId())).isPresent();
+        CodeFile stored = codeFileRepository.findByFilePath(file.toString()).orElseThrow();
+        List<CodeChunk> chunks = codeChunkRepository.findByFile(stored);
+        assertThat(chunks).hasSize(3).allSatisfy(chunk -> assertThat(chunk.getContentRef()).isNotNull());
+        assertThat(chunkContentStore.getAll(chunks.stream().map(CodeChunk::getContentRef).toList()).values())
+                .anySatisfy(text -> assertThat(text).contains("void b() {}"));
+        KeywordHit hit = codeSearchService.searchChunks("b", 1).get(0);
+        assertThat(hit.content()).isNull();
+        assertThat(chunkContentStore.get(hit.contentRef())).contains("void b() {}");
+        assertThat(symbolRepository.findByFile(stored)).extracting(Symbol::getName)
+                .containsExactlyInAnyOrder("Again", "a", "b");
+    }
+
+    @Test
+    void fileThatNoLongerYieldsChunksLeavesNoKeywordHits() throws Exception {
+        Path file = root.resolve("Vanishing.java");
+        Files.writeString(file, "package gone; public class VanishingWidget { void spin() {} }");
+        pipelineService.run(root.toString());
+        assertThat(codeSearchService.searchChunks("VanishingWidget", 5)).isNotEmpty();
+
+        Files.writeString(file, "package gone;\n");
+        pipelineService.run(root.toString());
+
+        assertThat(codeSearchService.searchChunks("VanishingWidget", 5)).isEmpty();
+    }
+
+    @Test
+    void legacyChunkTextMovesFromTheDatabaseIntoTheStore() {
+        jdbcTemplate.execute("alter table code_chunks add column content clob");
+        jdbcTemplate.update("insert into code_files (id, file_path, last_modified, hash) values (?, ?, ?, ?)",
+                20_000L, root.resolve("Old.java").toString(), Timestamp.from(Instant.now()), "old");
+        jdbcTemplate.update("insert into code_chunks (id, code_file_id, content, start_line, end_line, type) "
+                + "values (?, ?, ?, 1, 1, 'class')", 20_000L, 20_000L, "class Old {}");
+
+        chunkContentMigration.migrate();
+
+        Long ref = jdbcTemplate.queryForObject("select content_ref from code_chunks where id = 20000", Long.class);
+        assertThat(chunkContentStore.get(ref)).isEqualTo("class Old {}");
+        assertThat(jdbcTemplate.queryForObject("select count(*) from information_schema.columns "
+                + "where lower(table_name) = 'code_chunks' and lower(column_name) = 'content'", Integer.class)).isZero();
+    }
+
+    @Test
+    void sequencesAreMovedPastRowsWrittenBeforeTheyExisted() {
+        // A database from the IDENTITY days: rows with high ids, sequences freshly created at 1.
+        jdbcTemplate.update("insert into code_files (id, file_path, last_modified, hash) values (?, ?, ?, ?)",
+                10_000L, root.resolve("Legacy.java").toString(), Timestamp.from(Instant.now()), "legacy");
+        jdbcTemplate.execute("alter sequence code_files_seq restart with 1");
+
+        idSequenceInitializer.alignSequences();
+
+        // The next pooled block handed to Hibernate lies entirely above the existing row.
+        Long next = jdbcTemplate.queryForObject("select next value for code_files_seq", Long.class);
+        assertThat(next - IdSequences.ALLOCATION_SIZE + 1).isGreaterThan(10_000L);
+    }
+
+    @Test
+    void incrementalRunOnlyProcessesChangedFilesAndPurgesDeletedOnes() throws Exception {
+        Path kept = root.resolve("Kept.java");
+        Path touched = root.resolve("Touched.java");
+        Path modified = root.resolve("Modified.java");
+        Path removed = root.resolve("RemovedGadget.java");
+        Files.writeString(kept, "public class Kept { void k() {} }");
+        Files.writeString(touched, "public class Touched { void t() {} }");
+        Files.writeString(modified, "public class Modified { void m() {} }");
+        Files.writeString(removed, "public class RemovedGadget { void r() {} }");
+        pipelineService.run(root.toString(), IndexingMode.INCREMENTAL);
+        assertThat(codeSearchService.searchCode("RemovedGadget")).isNotEmpty();
+
+        Files.setLastModifiedTime(touched, FileTime.from(Instant.now().plusSeconds(60)));
+        Files.writeString(modified, "public class Modified { void m() {} void n() {} }");
+        Files.delete(removed);
+        Files.writeString(root.resolve("Added.java"), "public class Added { void a() {} }");
+
+        IndexingProgress progress = pipelineService.run(root.toString(), IndexingMode.INCREMENTAL);
+
+        assertThat(progress.filesDiscovered()).isEqualTo(4);
+        assertThat(progress.filesPersisted()).isEqualTo(2);
+        assertThat(progress.filesUnchanged()).isEqualTo(2);
+        assertThat(progress.filesDeleted()).isEqualTo(1);
+        assertThat(codeFileRepository.findByFilePath(removed.toString())).isEmpty();
+        assertThat(codeSearchService.searchCode("RemovedGadget")).isEmpty();
+        assertThat(codeFileRepository.findByFilePath(touched.toString()).orElseThrow().getLastModified().toEpochMilli())
+                .isEqualTo(Files.getLastModifiedTime(touched).toMillis());
+    }
+}
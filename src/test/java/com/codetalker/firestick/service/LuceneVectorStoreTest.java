@@ -0,0 +1,77 @@
+package com.codetalker.firestick.service;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.codetalker.firestick.service.dto.VectorMatch;
+import com.codetalker.firestick.service.dto.VectorRecord;
+
+class LuceneVectorStoreTest {
+
+    private static VectorRecord record(String id, String file, float... vector) {
+        return new VectorRecord(id, vector, "doc " + id, Map.of("file", file));
+    }
+
+    @Test
+    void returnsNearestNeighboursInScoreOrder() throws Exception {
+        try (LuceneVectorStore store = new LuceneVectorStore("", "cosine", 16, 100, 64)) {
+            store.upsert(List.of(
+                    record("x", "A.java", 1, 0, 0),
+                    record("y", "A.java", 0, 1, 0),
+                    record("xy", "B.java", 1, 1, 0)));
+
+            List<VectorMatch> matches = store.query(new float[]{1, 0.1f, 0}, 2, Map.of());
+
+            assertThat(matches).extracting(VectorMatch::id).containsExactly("x", "xy");
+            assertThat(matches.get(0).document()).isEqualTo("doc x");
+            assertThat(matches.get(0).metadata()).containsEntry("file", "A.java");
+        }
+    }
+
+    @Test
+    void filterUpsertAndDeleteAreApplied() throws Exception {
+        try (LuceneVectorStore store = new LuceneVectorStore("", "cosine", 16, 100, 64)) {
+            store.upsert(List.of(record("x", "A.java", 1, 0, 0), record("y", "B.java", 0, 1, 0)));
+
+            assertThat(store.query(new float[]{1, 0, 0}, 5, Map.of("file", "B.java")))
+                    .extracting(VectorMatch::id).containsExactly("y");
+
+            store.upsert(List.of(record("x", "A.java", 0, 0, 1)));
+            assertThat(store.query(new float[]{0, 0, 1}, 1, Map.of()))
+                    .extracting(VectorMatch::id).containsExactly("x");
+
+            store.delete(List.of("x"));
+            assertThat(store.query(new float[]{1, 0, 0}, 5, Map.of()))
+                    .extracting(VectorMatch::id).containsExactly("y");
+        }
+    }
+
+    @Test
+    void versionOnlyCountsWritesQueriesCanSee() throws Exception {
+        // No scheduled refresh: visibility comes from the version read or query alone.
+        try (LuceneVectorStore store = new LuceneVectorStore("", "cosine", 16, 100, 64, 0, 0)) {
+            long before = store.version();
+            store.upsert(List.of(record("fresh", "F.java", 1, 0, 0)));
+
+            assertThat(store.version()).isGreaterThan(before);
+            assertThat(store.query(new float[]{1, 0, 0}, 1, Map.of()))
+                    .extracting(VectorMatch::id).containsExactly("fresh");
+        }
+    }
+
+    @Test
+    void vectorsSurviveRestartWhenBackedByDisk(@TempDir Path dir) throws Exception {
+        try (LuceneVectorStore first = new LuceneVectorStore(dir.toString(), "cosine", 8, 50, 16)) {
+            first.upsert(List.of(record("kept", "K.java", 0.5f, 0.5f, 0)));
+        }
+        try (LuceneVectorStore reopened = new LuceneVectorStore(dir.toString(), "cosine", 8, 50, 16)) {
+            assertThat(reopened.query(new float[]{0.5f, 0.5f, 0}, 1, Map.of()))
+                    .extracting(VectorMatch::id).containsExactly("kept");
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.codetalker.firestick.service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.CompositeHealth;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:observability-test;DB_CLOSE_DELAY=-1")
+class ObservabilityTest {
+
+    @Autowired
+    private IndexingPipelineService pipelineService;
+
+    @Autowired
+    private HybridSearchService hybridSearchService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private HealthEndpoint healthEndpoint;
+
+    @TempDir
+    Path root;
+
+    @Test
+    void indexingAndSearchPublishStageTimings() throws Exception {
+        Files.writeString(root.resolve("Meter.java"), """
+                package demo;
+                public class Meter {
+                    public int reading() { return 42; }
+                }
+                """);
+        Files.writeString(root.resolve("Broken.java"), "public class Broken {");
+        pipelineService.run(root.toString());
+        hybridSearchService.search("reading", 0, 5);
+
+        assertThat(meterRegistry.get("firestick.indexing.stage").tag("stage", "parse").timer().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("firestick.indexing.files").tag("outcome", "failed").counter().count()).isGreaterThanOrEqualTo(1);
+        assertThat(meterRegistry.get("firestick.indexing.persist").tag("step", "database").timer().count()).isPositive();
+        assertThat(meterRegistry.get("firestick.indexing.chunks.per.file").summary().count()).isPositive();
+        assertThat(meterRegistry.get("firestick.lucene.index").timer().count()).isPositive();
+        assertThat(meterRegistry.get("firestick.search.retriever").tag("retriever", "keyword").timer().count()).isPositive();
+        assertThat(meterRegistry.get("firestick.search.hybrid").timer().count()).isPositive();
+        assertThat(meterRegistry.get("firestick.parse").functionTimer().count()).isGreaterThanOrEqualTo(2);
+        assertThat(meterRegistry.get("firestick.indexing.queue.depth").tag("stage", "parse").gauge().value()).isZero();
+        assertThat(meterRegistry.get("firestick.query.cache.lookups").tags("cache", "query-embeddings", "result", "miss")
+                .functionCounter().count()).isPositive();
+        assertThat(meterRegistry.get("firestick.query.cache.hit.ratio").tag("cache", "search-results").gauge()).isNotNull();
+    }
+
+    @Test
+    void healthReportsEachComponent() {
+        CompositeHealth health = (CompositeHealth) healthEndpoint.health();
+
+        assertThat(health.getComponents()).containsKeys("searchIndex", "embeddingModel", "vectorStore");
+        assertThat(health.getComponents().get("searchIndex").getStatus()).isEqualTo(Status.UP);
+        assertThat(health.getComponents().get("embeddingModel").getStatus()).isEqualTo(Status.UP);
+        assertThat(health.getComponents().get("vectorStore").getStatus()).isEqualTo(Status.UP);
+    }
+}
@@ -0,0 +1,121 @@
+package com.codetalker.firestick.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SourceFileReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final SourceFileReader reader = new SourceFileReader(64 * 1024, 4096, true, "windows-1252");
+
+    @Test
+    void digestsRawBytesAndDecodesOnlyChangedFiles() throws Exception {
+        byte[] bytes = "class A { String s = \"héllo\"; }".getBytes(StandardCharsets.UTF_8);
+        Path file = Files.write(tempDir.resolve("A.java"), bytes);
+
+        SourceFileReader.SourceFile first = reader.read(file);
+        assertThat(first.digest()).isEqualTo(ContentDigest.sha256Hex(bytes));
+        assertThat(first.size()).isEqualTo(bytes.length);
+        assertThat(first.text()).contains("héllo");
+        assertThat(first.charset()).isEqualTo(StandardCharsets.UTF_8);
+
+        SourceFileReader.SourceFile unchanged = reader.read(file, first.digest());
+        assertThat(unchanged.digest()).isEqualTo(first.digest());
+        assertThat(unchanged.text()).isNull();
+        assertThat(unchanged.isSkipped()).isFalse();
+
+        // Larger than the pooled buffer, so read through a mapping.
+        String big = "class B {\n" + "    int field;\n".repeat(1000) + "}\n";
+        Path mapped = Files.writeString(tempDir.resolve("B.java"), big);
+        SourceFileReader.SourceFile large = reader.read(mapped);
+        assertThat(large.text()).isEqualTo(big);
+        assertThat(large.digest()).isEqualTo(ContentDigest.sha256Hex(big));
+    }
+
+    @Test
+    void honoursByteOrderMarksAndFallsBackForLegacyEncodings() throws Exception {
+        Path bom = tempDir.resolve("Bom.java");
+        Files.write(bom, concat(new byte[] {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF},
+                "class Bom {}".getBytes(StandardCharsets.UTF_8)));
+        assertThat(reader.read(bom).text()).isEqualTo("class Bom {}");
+
+        Path utf16 = tempDir.resolve("Wide.java");
+        Files.write(utf16, concat(new byte[] {(byte) 0xFF, (byte) 0xFE},
+                "class Wide {}".getBytes(StandardCharsets.UTF_16LE)));
+        assertThat(reader.read(utf16).text()).isEqualTo("class Wide {}");
+
+        Path legacy = tempDir.resolve("Legacy.java");
+        Files.write(legacy, "class Legacy { String s = \"café\"; }".getBytes(Charset.forName("windows-1252")));
+        SourceFileReader.SourceFile decoded = reader.read(legacy);
+        assertThat(decoded.text()).contains("café");
+        assertThat(decoded.charset()).isEqualTo(Charset.forName("windows-1252"));
+    }
+
+    @Test
+    void skipsOversizedAndGeneratedSources() throws Exception {
+        Path huge = Files.writeString(tempDir.resolve("Huge.java"), "x".repeat(64 * 1024 + 1));
+        assertThat(reader.read(huge).skipped()).isEqualTo(SourceFileReader.Skip.TOO_LARGE);
+
+        Path annotated = Files.writeString(tempDir.resolve("Gen.java"), """
+                import javax.annotation.processing.Generated;
+
+                @Generated("protoc")
+                public class Gen {}
+                """);
+        assertThat(reader.read(annotated).skipped()).isEqualTo(SourceFileReader.Skip.GENERATED);
+
+        Path dir = Files.createDirectories(tempDir.resolve("generated-sources/annotations"));
+        Path inGenerated = Files.writeString(dir.resolve("Plain.java"), "class Plain {}");
+        assertThat(reader.read(inGenerated).skipped()).isEqualTo(SourceFileReader.Skip.GENERATED);
+
+        Path handWritten = Files.writeString(tempDir.resolve("Ids.java"), """
+                /** Ids are generated by the database. */
+                class Ids {}
+                """);
+        assertThat(reader.read(handWritten).isSkipped()).isFalse();
+    }
+
+    @Test
+    void bannerCountsOnlyInTheLeadingHeaderComment() throws Exception {
+        Path banner = Files.writeString(tempDir.resolve("Proto.java"), """
+                // Generated by the protocol buffer compiler.  DO NOT EDIT!
+                // source: proto.proto
+
+                package demo;
+                public final class Proto {}
+                """);
+        assertThat(reader.read(banner).skipped()).isEqualTo(SourceFileReader.Skip.GENERATED);
+
+        Path handWritten = Files.writeString(tempDir.resolve("Account.java"), """
+                /*
+                 * Copyright the authors.
+                 */
+                package demo;
+
+                import java.util.UUID;
+
+                /** Account row; {@link #id()} returns the auto-generated id. */
+                public class Account {
+                    // DO NOT EDIT without migrating the table.
+                    UUID id() { return null; }
+                }
+                """);
+        assertThat(reader.read(handWritten).isSkipped()).isFalse();
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] out = new byte[a.length + b.length];
+        System.arraycopy(a, 0, out, 0, a.length);
+        System.arraycopy(b, 0, out, a.length, b.length);
+        return out;
+    }
+}
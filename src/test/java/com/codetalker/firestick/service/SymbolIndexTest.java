@@ -0,0 +1,59 @@
+package com.codetalker.firestick.service;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+
+import com.codetalker.firestick.service.dto.SymbolHit;
+
+class SymbolIndexTest {
+
+    private static SymbolIndex.Entry entry(String name, String type) {
+        return new SymbolIndex.Entry(name, type, "Owner." + name, "/src/Owner.java", 1);
+    }
+
+    private final SymbolIndex index = SymbolIndex.build(List.of(
+            entry("getSymbolName", "method"),
+            entry("getSymbol", "method"),
+            entry("getSize", "method"),
+            entry("SymbolIndex", "class"),
+            entry("symbolIndex", "field"),
+            entry("HTTPServer", "class"),
+            entry("MAX_SIZE", "field"),
+            entry("setSymbolName", "method")));
+
+    @Test
+    void splitsIdentifiersIntoHumps() {
+        assertThat(SymbolIndex.humps("getHTTPServer2")).containsExactly("get", "HTTP", "Server2");
+        assertThat(SymbolIndex.humps("MAX_SIZE")).containsExactly("MAX", "SIZE");
+    }
+
+    @Test
+    void ranksExactThenPrefixThenCamelHumpThenFuzzy() {
+        assertThat(index.exact("symbolindex")).extracting(SymbolIndex.Entry::type).containsExactly("class", "field");
+
+        List<SymbolHit> prefix = index.lookup("getSym", 10);
+        assertThat(prefix).extracting(SymbolHit::name).containsExactly("getSymbol", "getSymbolName");
+        assertThat(prefix).extracting(SymbolHit::match).containsOnly(SymbolHit.Match.PREFIX);
+
+        assertThat(index.lookup("gSN", 10)).extracting(SymbolHit::name).containsExactly("getSymbolName");
+        assertThat(index.lookup("gsn", 10)).extracting(SymbolHit::name).containsExactly("getSymbolName");
+        assertThat(index.lookup("HTTPS", 10)).extracting(SymbolHit::name).containsExactly("HTTPServer");
+
+        List<SymbolHit> fuzzy = index.lookup("getSymbolNmae", 10);
+        assertThat(fuzzy).extracting(SymbolHit::name).containsExactly("getSymbolName");
+        assertThat(fuzzy).extracting(SymbolHit::distance).containsExactly(2);
+
+        List<SymbolHit> typo = index.lookup("getSyze", 10);
+        assertThat(typo.get(0).name()).isEqualTo("getSize");
+        assertThat(typo.get(0).match()).isEqualTo(SymbolHit.Match.FUZZY);
+        assertThat(typo.get(0).distance()).isEqualTo(1);
+    }
+
+    @Test
+    void respectsLimit() {
+        assertThat(index.lookup("get", 2)).hasSize(2);
+        assertThat(index.lookup("zzz", 5)).isEmpty();
+    }
+}
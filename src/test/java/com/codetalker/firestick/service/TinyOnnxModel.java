@@ -0,0 +1,125 @@
+package com.codetalker.firestick.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Writes a tiny ONNX token-embedding model and matching WordPiece tokenizer for tests.
+ * <p>
+ * The graph is {@code last_hidden_state = Gather(E, input_ids) * unsqueeze(float(attention_mask))},
+ * i.e. a lookup table shaped like a transformer's output. The protobuf is encoded by hand so the
+ * tests need nothing beyond ONNX Runtime itself.
+ */
+final class TinyOnnxModel {
+
+    static final List<String> VOCAB = List.of(
+            "[PAD]", "[UNK]", "[CLS]", "[SEP]",
+            "hello", "world", "code", "search", "##ing", "class", "public", "return", "int", "(", ")", "{", "}", ";");
+
+    private TinyOnnxModel() {}
+
+    static void write(Path model, Path tokenizerJson, int dim) throws IOException {
+        Files.write(model, modelBytes(dim));
+        StringBuilder vocab = new StringBuilder();
+        for (int i = 0; i < VOCAB.size(); i++) {
+            if (i > 0) vocab.append(',');
+            vocab.append('"').append(VOCAB.get(i)).append("\":").append(i);
+        }
+        Files.writeString(tokenizerJson, """
+            {"normalizer": {"type": "BertNormalizer", "lowercase": true},
+             "model": {"type": "WordPiece", "unk_token": "[UNK]", "continuing_subword_prefix": "##",
+                       "vocab": {%s}}}
+            """.formatted(vocab));
+    }
+
+    private static byte[] modelBytes(int dim) throws IOException {
+        int vocabSize = VOCAB.size();
+        ByteBuffer weights = ByteBuffer.allocate(vocabSize * dim * 4).order(ByteOrder.LITTLE_ENDIAN);
+        for (int v = 0; v < vocabSize; v++) {
+            for (int d = 0; d < dim; d++) {
+                weights.putFloat((float) Math.sin(v * 7.0 + d * 1.3));
+            }
+        }
+        byte[] embeddingTensor = msg(
+                varintField(1, vocabSize), varintField(1, dim),
+                varintField(2, 1), // FLOAT
+                stringField(8, "E"),
+                bytesField(9, weights.array()));
+        ByteBuffer axesBytes = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(2);
+        byte[] axesTensor = msg(varintField(1, 1), varintField(2, 7), stringField(8, "axes"), bytesField(9, axesBytes.array()));
+
+        byte[] gather = node("Gather", List.of("E", "input_ids"), "hidden", null);
+        byte[] cast = node("Cast", List.of("attention_mask"), "mask_f", msg(stringField(1, "to"), varintField(3, 1), varintField(20, 2)));
+        byte[] unsqueeze = node("Unsqueeze", List.of("mask_f", "axes"), "mask_3d", null);
+        byte[] mul = node("Mul", List.of("hidden", "mask_3d"), "last_hidden_state", null);
+
+        byte[] graph = msg(
+                bytesField(1, gather), bytesField(1, cast), bytesField(1, unsqueeze), bytesField(1, mul),
+                stringField(2, "tiny"),
+                bytesField(5, embeddingTensor), bytesField(5, axesTensor),
+                bytesField(11, valueInfo("input_ids", 7, "batch", "seq", null)),
+                bytesField(11, valueInfo("attention_mask", 7, "batch", "seq", null)),
+                bytesField(12, valueInfo("last_hidden_state", 1, "batch", "seq", dim)));
+        byte[] opset = msg(stringField(1, ""), varintField(2, 13));
+        return msg(varintField(1, 8), stringField(2, "firestick-test"), bytesField(7, graph), bytesField(8, opset));
+    }
+
+    private static byte[] node(String op, List<String> inputs, String output, byte[] attribute) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (String input : inputs) out.write(stringField(1, input));
+        out.write(stringField(2, output));
+        out.write(stringField(4, op));
+        if (attribute != null) out.write(bytesField(5, attribute));
+        return out.toByteArray();
+    }
+
+    private static byte[] valueInfo(String name, int elemType, String dim0, String dim1, Integer dim2) throws IOException {
+        ByteArrayOutputStream shape = new ByteArrayOutputStream();
+        shape.write(bytesField(1, stringField(2, dim0)));
+        shape.write(bytesField(1, stringField(2, dim1)));
+        if (dim2 != null) shape.write(bytesField(1, varintField(1, dim2)));
+        byte[] tensorType = msg(varintField(1, elemType), bytesField(2, shape.toByteArray()));
+        return msg(stringField(1, name), bytesField(2, bytesField(1, tensorType)));
+    }
+
+    // ---- minimal protobuf wire encoding ----
+
+    private static byte[] msg(byte[]... fields) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] field : fields) out.write(field);
+        return out.toByteArray();
+    }
+
+    private static byte[] varintField(int field, long value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeVarint(out, (long) field << 3);
+        writeVarint(out, value);
+        return out.toByteArray();
+    }
+
+    private static byte[] stringField(int field, String value) {
+        return bytesField(field, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] bytesField(int field, byte[] value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeVarint(out, ((long) field << 3) | 2);
+        writeVarint(out, value.length);
+        out.writeBytes(value);
+        return out.toByteArray();
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}